@@ -0,0 +1,127 @@
+package cn.cy.benchmark;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * 运行全部性能测试并汇总结果
+ *
+ * <pre>
+ *     参数与JMH命令行一致，如：java -jar target/benchmarks.jar -p format=xlsx -p shape=small,large
+ *     未指定测试类时运行ReadBenchmark、FirstRowBenchmark、PeakHeapBenchmark，未指定-prof时使用gc
+ *     JMH原始结果写入target/jmh-result.json，各用例汇总写入target/benchmark-summary.json，用于比较不同版本：
+ *     rowsPerSec（每秒行数）、allocBytesPerRow（每行分配字节数）、firstRowMillis（到第一行的耗时）、peakHeapBytes（堆内存峰值）
+ * </pre>
+ *
+ * @author cy96151
+ */
+public final class BenchmarkMain {
+
+	private BenchmarkMain() {
+	}
+
+	public static void main(String[] args) throws Exception {
+		CommandLineOptions cli = new CommandLineOptions(args);
+		ChainedOptionsBuilder builder = new OptionsBuilder().parent(cli);
+		if (cli.getIncludes().isEmpty()) {
+			builder.include(ReadBenchmark.class.getSimpleName()).include(FirstRowBenchmark.class.getSimpleName())
+					.include(PeakHeapBenchmark.class.getSimpleName());
+		}
+		if (cli.getProfilers().isEmpty()) {
+			builder.addProfiler(GCProfiler.class);
+		}
+		if (!cli.getResult().hasValue()) {
+			builder.resultFormat(ResultFormatType.JSON).result("target/jmh-result.json");
+		}
+		Collection<RunResult> results = new Runner(builder.build()).run();
+		writeSummary(results, Paths.get("target/benchmark-summary.json"));
+	}
+
+	/**
+	 * 按format、shape、path汇总各测试类的结果
+	 */
+	private static void writeSummary(Collection<RunResult> results, Path file) throws IOException {
+		Map<String, Map<String, Object>> cases = new LinkedHashMap<String, Map<String, Object>>();
+		for (RunResult result : results) {
+			BenchmarkParams params = result.getParams();
+			String format = params.getParam("format");
+			String shape = params.getParam("shape");
+			if (shape == null) {
+				// MapBenchmark等不按shape生成文件的测试不参与汇总
+				continue;
+			}
+			String path = params.getParam("path");
+			String key = format + "|" + shape + "|" + path;
+			Map<String, Object> values = cases.get(key);
+			if (values == null) {
+				values = new LinkedHashMap<String, Object>();
+				values.put("format", format);
+				values.put("shape", shape);
+				values.put("path", path);
+				values.put("rows", WorkbookSpec.parse(shape).totalRows());
+				cases.put(key, values);
+			}
+			String benchmark = params.getBenchmark();
+			Map<String, Result> secondary = result.getSecondaryResults();
+			if (benchmark.startsWith(ReadBenchmark.class.getName() + ".")) {
+				Result rows = secondary.get("rows");
+				if (rows != null) {
+					values.put("rowsPerSec", rows.getScore());
+				}
+				for (Map.Entry<String, Result> entry : secondary.entrySet()) {
+					// 各JMH版本的前缀不同
+					if (entry.getKey().endsWith("gc.alloc.rate.norm")) {
+						values.put("allocBytesPerRow", entry.getValue().getScore() / (Long) values.get("rows"));
+					}
+				}
+			} else if (benchmark.startsWith(FirstRowBenchmark.class.getName() + ".")) {
+				values.put("firstRowMillis", result.getPrimaryResult().getScore());
+			} else if (benchmark.startsWith(PeakHeapBenchmark.class.getName() + ".")) {
+				Result peak = secondary.get("peakHeapBytes");
+				if (peak != null) {
+					values.put("peakHeapBytes", (long) peak.getScore());
+				}
+			}
+		}
+		Files.createDirectories(file.toAbsolutePath().getParent());
+		Writer out = Files.newBufferedWriter(file, StandardCharsets.UTF_8);
+		try {
+			out.write("{\n  \"jdk\": \"" + System.getProperty("java.version") + "\",\n  \"cases\": [");
+			boolean first = true;
+			for (Map<String, Object> values : cases.values()) {
+				out.write(first ? "\n    {" : ",\n    {");
+				first = false;
+				boolean firstValue = true;
+				for (Map.Entry<String, Object> entry : values.entrySet()) {
+					out.write(firstValue ? "" : ", ");
+					firstValue = false;
+					Object value = entry.getValue();
+					out.write("\"" + entry.getKey() + "\": ");
+					out.write(value instanceof String ? "\"" + value + "\"" : String.valueOf(value));
+				}
+				out.write("}");
+			}
+			out.write("\n  ]\n}\n");
+		} finally {
+			out.close();
+		}
+		System.out.println("汇总结果：" + file.toAbsolutePath());
+	}
+}
@@ -0,0 +1,47 @@
+package cn.cy.benchmark;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * 测试文件参数
+ *
+ * <pre>
+ *     format、shape、path三个参数组合出各测试用例，测试文件在首次使用时生成到readexcel.benchmark.dir目录（默认target/workbooks）
+ *     shape可通过-p shape=rows=20000;cols=5指定预置名称以外的形态（JMH参数以逗号分隔多个值，形态各项改用分号分隔）
+ * </pre>
+ *
+ * @author cy96151
+ */
+@State(Scope.Benchmark)
+public class BenchmarkWorkbook {
+
+	@Param({ "xls", "xlsx" })
+	public String format;
+
+	@Param({ "small", "large", "wide", "numeric", "text", "formula", "sheets" })
+	public String shape;
+
+	@Param({ "CALLBACK", "ROW", "PULL" })
+	public ReadPath path;
+
+	Path file;
+
+	WorkbookSpec spec;
+
+	@Setup
+	public void prepare() throws Exception {
+		spec = WorkbookSpec.parse(shape);
+		file = WorkbookGenerator.generate(spec, format, Paths.get(System.getProperty("readexcel.benchmark.dir", "target/workbooks")));
+		// 首次读取校验行数，生成的文件与读取结果不一致时不进行测试
+		long rows = path.read(file, false, new ReadPath.Tally());
+		if (rows != spec.totalRows()) {
+			throw new IllegalStateException(file + "读取到" + rows + "行，应为" + spec.totalRows() + "行");
+		}
+	}
+}
@@ -0,0 +1,36 @@
+package cn.cy.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * 打开文件到回调第一行的耗时
+ *
+ * <pre>
+ *     每次操作创建读取类，读取到第一行后即终止，包括打开文件、读取字符串共享数据集和定位Sheet页的耗时
+ *     每个Fork的第一次操作即为冷启动耗时，可通过-wi 0 -i 1 -f 10查看
+ * </pre>
+ *
+ * @author cy96151
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 10)
+@Measurement(iterations = 20)
+@Fork(2)
+public class FirstRowBenchmark {
+
+	@Benchmark
+	public long firstRow(BenchmarkWorkbook workbook) throws Exception {
+		ReadPath.Tally tally = new ReadPath.Tally();
+		workbook.path.read(workbook.file, true, tally);
+		return tally.checksum;
+	}
+}
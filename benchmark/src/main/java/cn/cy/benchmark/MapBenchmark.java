@@ -0,0 +1,162 @@
+package cn.cy.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import cn.cy.bind.ExcelColumn;
+import cn.cy.bind.RowMapper;
+import cn.cy.read.CellType;
+import cn.cy.read.ReadExcelBase;
+import cn.cy.read.Row;
+import cn.cy.read.RowIterator;
+import cn.cy.util.DateParser;
+
+/**
+ * 注解绑定与手写映射的吞吐量对比
+ *
+ * <pre>
+ *     Setup时读取一遍WorkbookGenerator.generateItems生成的文件，保留各数据行的副本，测试只计映射耗时，不含解析
+ *     mapper为RowMapper按表头名称和列下标映射，hand为按固定列下标手写的映射，两者映射结果一致；主结果为每秒映射的数据行数
+ *     不在BenchmarkMain的默认测试中，如：java -jar target/benchmarks.jar MapBenchmark -p format=xlsx
+ * </pre>
+ *
+ * @author cy96151
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MapBenchmark {
+
+	private static final int ROWS = 10000;
+
+	@Param({ "xls", "xlsx" })
+	public String format;
+
+	public static class Item {
+		@ExcelColumn(header = "Id")
+		private Long id;
+
+		@ExcelColumn(header = "Name")
+		private String name;
+
+		@ExcelColumn(index = 2)
+		private double amount;
+
+		@ExcelColumn(index = 3)
+		private boolean flag;
+
+		@ExcelColumn(header = "Date")
+		private Date date;
+	}
+
+	/**
+	 * 数据行副本引用读取类的字符串共享数据集，测试结束后再关闭
+	 */
+	private ReadExcelBase base;
+
+	private final List<Row> rows = new ArrayList<Row>(ROWS);
+
+	private RowMapper<Item> mapper;
+
+	private int[] columns;
+
+	@Setup
+	public void prepare() throws Exception {
+		Path file = WorkbookGenerator.generateItems(format, ROWS,
+				Paths.get(System.getProperty("readexcel.benchmark.dir", "target/workbooks")));
+		mapper = RowMapper.of(Item.class);
+		base = ReadExcelBase.create(file);
+		RowIterator iterator = base.rows();
+		try {
+			// 第1行为表头
+			columns = mapper.columns(iterator.next());
+			while (iterator.hasNext()) {
+				rows.add(iterator.next().copy());
+			}
+		} finally {
+			iterator.close();
+		}
+		if (rows.size() != ROWS) {
+			throw new IllegalStateException(file + "读取到" + rows.size() + "行，应为" + ROWS + "行");
+		}
+		// 两种映射的结果不一致时不进行测试
+		for (Row row : rows) {
+			Item bound = mapper.map(row, columns);
+			Item hand = map(row);
+			if (!same(bound, hand)) {
+				throw new IllegalStateException("第" + row.getRowNum() + "行的映射结果不一致");
+			}
+		}
+	}
+
+	@TearDown
+	public void close() throws IOException {
+		base.close();
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(ROWS)
+	public void mapper(Blackhole blackhole) {
+		for (Row row : rows) {
+			blackhole.consume(mapper.map(row, columns));
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(ROWS)
+	public void hand(Blackhole blackhole) {
+		for (Row row : rows) {
+			blackhole.consume(map(row));
+		}
+	}
+
+	/**
+	 * 手写映射，列下标固定，空单元格的处理与RowMapper相同
+	 */
+	private static Item map(Row row) {
+		Item item = new Item();
+		item.id = isEmpty(row, 0) ? null : Long.valueOf(row.getLong(0));
+		item.name = row.getString(1);
+		item.amount = isEmpty(row, 2) ? 0 : row.getDouble(2);
+		item.flag = row.getBoolean(3);
+		item.date = isEmpty(row, 4) ? null : DateParser.fromExcel(row.getDouble(4));
+		return item;
+	}
+
+	private static boolean isEmpty(Row row, int col) {
+		CellType type = row.getCellType(col);
+		return type == CellType.NONE || type == CellType.BLANK || type == CellType.ERROR;
+	}
+
+	private static boolean same(Item a, Item b) {
+		return equal(a.id, b.id) && equal(a.name, b.name) && a.amount == b.amount && a.flag == b.flag
+				&& equal(a.date, b.date);
+	}
+
+	private static boolean equal(Object a, Object b) {
+		return a == null ? b == null : a.equals(b);
+	}
+}
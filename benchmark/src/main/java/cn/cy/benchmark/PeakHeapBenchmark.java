@@ -0,0 +1,80 @@
+package cn.cy.benchmark;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * 读取整个文件时的堆内存峰值
+ *
+ * <pre>
+ *     每次操作前先GC并重置各堆内存区的峰值，读取后以各区峰值之和减去读取前的已用内存，作为本次读取的峰值peakHeapBytes
+ *     各区峰值不一定出现在同一时刻，结果偏大，适合比较不同版本、不同读取方式，不代表精确的内存占用
+ *     固定较小的新生代可减少GC时机带来的波动，默认以-Xmx1g -Xmn64m运行
+ * </pre>
+ *
+ * @author cy96151
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(value = 1, jvmArgsAppend = { "-Xmx1g", "-Xmn64m" })
+public class PeakHeapBenchmark {
+
+	/**
+	 * 堆内存峰值，SingleShotTime下每轮只有一次操作，结果即为各轮的平均值
+	 */
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.EVENTS)
+	public static class PeakHeap {
+		public long peakHeapBytes;
+
+		private long baseline;
+
+		@Setup(Level.Invocation)
+		public void reset() {
+			System.gc();
+			baseline = 0;
+			for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+				if (pool.getType() == MemoryType.HEAP) {
+					pool.resetPeakUsage();
+					baseline += pool.getUsage().getUsed();
+				}
+			}
+		}
+
+		@TearDown(Level.Invocation)
+		public void record() {
+			long peak = 0;
+			for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+				if (pool.getType() == MemoryType.HEAP) {
+					peak += pool.getPeakUsage().getUsed();
+				}
+			}
+			peakHeapBytes = Math.max(0, peak - baseline);
+		}
+	}
+
+	@Benchmark
+	public long read(BenchmarkWorkbook workbook, PeakHeap peakHeap) throws Exception {
+		ReadPath.Tally tally = new ReadPath.Tally();
+		workbook.path.read(workbook.file, false, tally);
+		return tally.checksum;
+	}
+}
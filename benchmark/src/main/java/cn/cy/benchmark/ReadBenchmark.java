@@ -0,0 +1,59 @@
+package cn.cy.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * 整个文件的读取吞吐量
+ *
+ * <pre>
+ *     每次操作读取一遍整个文件，主结果为每秒读取的文件数，附带每秒读取的数据行数rows和单元格数cells
+ *     配合-prof gc时，gc.alloc.rate.norm为每次操作分配的字节数，除以行数即为每行分配的字节数（BenchmarkMain汇总时计算）
+ * </pre>
+ *
+ * @author cy96151
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ReadBenchmark {
+
+	/**
+	 * 读取计数，按时间换算为每秒的数量
+	 */
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.OPERATIONS)
+	public static class Throughput {
+		public long rows;
+		public long cells;
+
+		@Setup(Level.Iteration)
+		public void reset() {
+			rows = 0;
+			cells = 0;
+		}
+	}
+
+	@Benchmark
+	public long read(BenchmarkWorkbook workbook, Throughput throughput) throws Exception {
+		ReadPath.Tally tally = new ReadPath.Tally();
+		workbook.path.read(workbook.file, false, tally);
+		throughput.rows += tally.rows;
+		throughput.cells += tally.cells;
+		return tally.checksum;
+	}
+}
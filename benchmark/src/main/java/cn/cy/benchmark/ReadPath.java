@@ -0,0 +1,148 @@
+package cn.cy.benchmark;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import cn.cy.exception.SheetBreakException;
+import cn.cy.read.CellType;
+import cn.cy.read.ReadExcelBase;
+import cn.cy.read.Row;
+import cn.cy.read.RowIterator;
+import cn.cy.rollback.ReadExcelRollBack;
+import cn.cy.rollback.ReadExcelRowRollBack;
+
+/**
+ * 读取方式
+ *
+ * <pre>
+ *     CALLBACK：旧接口ReadExcelRollBack，每行转换为字符串列表
+ *     ROW：ReadExcelRowRollBack，数值单元格读取原始值，其他单元格读取文本
+ *     PULL：rows()迭代器，读取方式同ROW
+ *     各方式都会读取每个单元格的值，并累加到校验值中，避免读取被优化掉
+ * </pre>
+ *
+ * @author cy96151
+ */
+public enum ReadPath {
+
+	CALLBACK {
+		@Override
+		long read(Path file, final boolean firstRowOnly, final Tally tally) throws Exception {
+			ReadExcelBase base = ReadExcelBase.create(file, new ReadExcelRollBack() {
+				@Override
+				public void optRows(List<String> rowlist, int curRow, String sheetName, ReadExcelBase base)
+						throws Exception {
+					tally.rows++;
+					for (String value : rowlist) {
+						tally.cells++;
+						tally.checksum += value == null ? 0 : value.length();
+					}
+					if (firstRowOnly) {
+						throw new SheetBreakException();
+					}
+				}
+
+				@Override
+				public boolean judgeBreakSheet(String sheetName, ReadExcelBase base) {
+					return false;
+				}
+			});
+			try {
+				base.process();
+			} finally {
+				base.close();
+			}
+			return tally.rows;
+		}
+	},
+
+	ROW {
+		@Override
+		long read(Path file, final boolean firstRowOnly, final Tally tally) throws Exception {
+			ReadExcelBase base = ReadExcelBase.create(file, new ReadExcelRowRollBack() {
+				@Override
+				public void optRow(Row row, String sheetName, ReadExcelBase base) throws Exception {
+					tally.add(row);
+					if (firstRowOnly) {
+						throw new SheetBreakException();
+					}
+				}
+
+				@Override
+				public boolean judgeBreakSheet(String sheetName, ReadExcelBase base) {
+					return false;
+				}
+			});
+			try {
+				base.process();
+			} finally {
+				base.close();
+			}
+			return tally.rows;
+		}
+	},
+
+	PULL {
+		@Override
+		long read(Path file, boolean firstRowOnly, Tally tally) throws Exception {
+			ReadExcelBase base = ReadExcelBase.create(file);
+			try {
+				RowIterator rows = base.rows();
+				try {
+					while (rows.hasNext()) {
+						tally.add(rows.next());
+						if (firstRowOnly) {
+							break;
+						}
+					}
+				} finally {
+					rows.close();
+				}
+			} finally {
+				base.close();
+			}
+			return tally.rows;
+		}
+	};
+
+	/**
+	 * 读取文件
+	 *
+	 * @param file
+	 *            文件路径
+	 * @param firstRowOnly
+	 *            是否读取到第一行后即终止
+	 * @param tally
+	 *            读取计数
+	 * @return 读取的数据行数
+	 * @throws Exception
+	 *             读取过程中产生的异常
+	 */
+	abstract long read(Path file, boolean firstRowOnly, Tally tally) throws Exception;
+
+	/**
+	 * 读取计数
+	 */
+	static final class Tally {
+		long rows;
+		long cells;
+		long checksum;
+
+		void add(Row row) {
+			rows++;
+			for (int col = 0; col < row.size(); col++) {
+				CellType type = row.getCellType(col);
+				if (type == CellType.NONE) {
+					continue;
+				}
+				cells++;
+				if (type == CellType.NUMERIC) {
+					checksum += Double.doubleToRawLongBits(row.getDouble(col));
+				} else {
+					String value = row.getString(col);
+					checksum += value == null ? 0 : value.length();
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,215 @@
+package cn.cy.benchmark;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Random;
+
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+
+/**
+ * 测试文件生成
+ *
+ * <pre>
+ *     按形态生成.xls或.xlsx文件，相同形态每次生成的单元格内容完全相同（随机数种子固定）
+ *     第1行为表头，之后各列按比例为字符串列、数值列和公式列（公式为ROW()*2，带有缓存值）
+ *     Excel07版本通过SXSSF流式写入并使用共享字符串，不会因行数过多而占用大量内存
+ *     generateItems另生成实体映射测试（MapBenchmark）用的文件，各列为固定的类型
+ *     如：java -cp benchmarks.jar cn.cy.benchmark.WorkbookGenerator xlsx large target/workbooks
+ * </pre>
+ *
+ * @author cy96151
+ */
+public final class WorkbookGenerator {
+
+	private static final long SEED = 0x5EED5EEDL;
+
+	/**
+	 * SXSSF保留在内存中的行数
+	 */
+	private static final int WINDOW = 1000;
+
+	private WorkbookGenerator() {
+	}
+
+	public static void main(String[] args) throws IOException {
+		if (args.length < 2) {
+			System.out.println("参数：xls|xlsx 形态 [目录]");
+			return;
+		}
+		Path dir = Paths.get(args.length > 2 ? args[2] : "target/workbooks");
+		System.out.println(generate(WorkbookSpec.parse(args[1]), args[0], dir));
+	}
+
+	/**
+	 * 获取测试文件，目录中已有相同形态的文件时直接使用
+	 *
+	 * @param spec
+	 *            形态
+	 * @param format
+	 *            xls或xlsx
+	 * @param dir
+	 *            文件目录
+	 * @return 文件路径
+	 * @throws IOException
+	 *             写入异常
+	 */
+	public static Path generate(WorkbookSpec spec, String format, Path dir) throws IOException {
+		boolean xlsx;
+		if ("xlsx".equals(format)) {
+			xlsx = true;
+		} else if ("xls".equals(format)) {
+			xlsx = false;
+			if (spec.getRows() + 1 > 65536 || spec.getCols() > 256) {
+				throw new IllegalArgumentException("Excel03版本最多65536行、256列：" + spec);
+			}
+		} else {
+			throw new IllegalArgumentException("无法识别的文件格式：" + format);
+		}
+		Path file = dir.resolve(spec.getName() + "." + format);
+		if (Files.isRegularFile(file) && Files.size(file) > 0) {
+			return file;
+		}
+		Files.createDirectories(dir);
+		// 先写入临时文件再移动，中断时不会留下不完整的文件
+		Path tmp = Files.createTempFile(dir, spec.getName(), ".tmp");
+		Workbook wb = xlsx ? new SXSSFWorkbook(new XSSFWorkbook(), WINDOW, true, true) : new HSSFWorkbook();
+		try {
+			write(wb, spec);
+			OutputStream out = Files.newOutputStream(tmp);
+			try {
+				wb.write(out);
+			} finally {
+				out.close();
+			}
+		} finally {
+			if (wb instanceof SXSSFWorkbook) {
+				((SXSSFWorkbook) wb).dispose();
+			}
+		}
+		Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+		return file;
+	}
+
+	/**
+	 * 获取实体映射测试用的文件，目录中已有时直接使用
+	 * <p>
+	 * 表头为Id、Name、Amount、Flag、Date，依次为整数（每50行有一行为空）、字符串、小数、布尔值和日期
+	 * </p>
+	 *
+	 * @param format
+	 *            xls或xlsx
+	 * @param rows
+	 *            数据行数（不含表头行）
+	 * @param dir
+	 *            文件目录
+	 * @return 文件路径
+	 * @throws IOException
+	 *             写入异常
+	 */
+	public static Path generateItems(String format, int rows, Path dir) throws IOException {
+		boolean xlsx = "xlsx".equals(format);
+		if (!xlsx && !"xls".equals(format)) {
+			throw new IllegalArgumentException("无法识别的文件格式：" + format);
+		}
+		String name = "items-" + rows;
+		Path file = dir.resolve(name + "." + format);
+		if (Files.isRegularFile(file) && Files.size(file) > 0) {
+			return file;
+		}
+		Files.createDirectories(dir);
+		Path tmp = Files.createTempFile(dir, name, ".tmp");
+		Workbook wb = xlsx ? new SXSSFWorkbook(new XSSFWorkbook(), WINDOW, true, true) : new HSSFWorkbook();
+		try {
+			writeItems(wb, rows);
+			OutputStream out = Files.newOutputStream(tmp);
+			try {
+				wb.write(out);
+			} finally {
+				out.close();
+			}
+		} finally {
+			if (wb instanceof SXSSFWorkbook) {
+				((SXSSFWorkbook) wb).dispose();
+			}
+		}
+		Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+		return file;
+	}
+
+	private static void writeItems(Workbook wb, int rows) {
+		Random random = new Random(SEED);
+		CellStyle dateStyle = wb.createCellStyle();
+		dateStyle.setDataFormat(wb.createDataFormat().getFormat("yyyy-mm-dd"));
+		Sheet sheet = wb.createSheet("Items");
+		Row header = sheet.createRow(0);
+		String[] headers = { "Id", "Name", "Amount", "Flag", "Date" };
+		for (int c = 0; c < headers.length; c++) {
+			header.createCell(c).setCellValue(headers[c]);
+		}
+		for (int r = 1; r <= rows; r++) {
+			Row row = sheet.createRow(r);
+			if (r % 50 != 0) {
+				row.createCell(0).setCellValue(r);
+			}
+			row.createCell(1).setCellValue("name" + random.nextInt(1000));
+			row.createCell(2).setCellValue(random.nextInt(100000000) / 100.0);
+			row.createCell(3).setCellValue(random.nextBoolean());
+			Cell date = row.createCell(4);
+			// 2020-01-01之后的十年内
+			date.setCellValue(43831 + random.nextInt(3650));
+			date.setCellStyle(dateStyle);
+		}
+	}
+
+	private static void write(Workbook wb, WorkbookSpec spec) {
+		int cols = spec.getCols();
+		// 各列类型：0字符串、1数值、2公式，按比例均匀分布
+		int[] types = new int[cols];
+		int numericCols = (int) Math.round(cols * spec.getNumeric());
+		int formulaCols = (int) Math.round(numericCols * spec.getFormula());
+		for (int c = 0, n = 0; c < cols; c++) {
+			if ((long) (c + 1) * numericCols / cols > (long) c * numericCols / cols) {
+				types[c] = (long) (n + 1) * formulaCols / numericCols > (long) n * formulaCols / numericCols ? 2 : 1;
+				n++;
+			}
+		}
+		for (int s = 0; s < spec.getSheets(); s++) {
+			Random random = new Random(SEED + s);
+			Sheet sheet = wb.createSheet("Sheet" + (s + 1));
+			Row header = sheet.createRow(0);
+			for (int c = 0; c < cols; c++) {
+				header.createCell(c).setCellValue("c" + (c + 1));
+			}
+			for (int r = 1; r <= spec.getRows(); r++) {
+				Row row = sheet.createRow(r);
+				for (int c = 0; c < cols; c++) {
+					Cell cell = row.createCell(c);
+					switch (types[c]) {
+					case 1:
+						// 整数与小数各半
+						cell.setCellValue(random.nextBoolean() ? random.nextInt(1000000) : random.nextDouble() * 1000000);
+						break;
+					case 2:
+						cell.setCellFormula("ROW()*2");
+						cell.setCellValue((r + 1) * 2);
+						break;
+					default:
+						cell.setCellValue("v" + random.nextInt(spec.getSst()));
+						break;
+					}
+				}
+			}
+		}
+	}
+}
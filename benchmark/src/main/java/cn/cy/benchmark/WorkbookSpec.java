@@ -0,0 +1,148 @@
+package cn.cy.benchmark;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 测试文件的形态
+ *
+ * <pre>
+ *     可使用预置名称，如“small”“wide”，也可直接写出各项，如“rows=10000,cols=20,sst=500,numeric=0.5,formula=0.1,sheets=2”，各项也可用分号分隔
+ *     未写出的项取默认值：rows=10000、cols=10、sst=1000、numeric=0.5、formula=0、sheets=1
+ *     rows为每个Sheet页的数据行数（不含表头行），numeric为数值列比例，formula为数值列中公式列的比例，sst为不同字符串的数量
+ * </pre>
+ *
+ * @author cy96151
+ */
+public final class WorkbookSpec {
+
+	/**
+	 * 预置形态
+	 */
+	private static final Map<String, String> PRESETS = new LinkedHashMap<String, String>();
+
+	static {
+		PRESETS.put("small", "rows=10000,cols=10,sst=1000,numeric=0.5");
+		PRESETS.put("large", "rows=60000,cols=10,sst=10000,numeric=0.5");
+		PRESETS.put("wide", "rows=5000,cols=200,sst=1000,numeric=0.5");
+		PRESETS.put("numeric", "rows=60000,cols=10,sst=10,numeric=1");
+		PRESETS.put("text", "rows=60000,cols=10,sst=100000,numeric=0");
+		PRESETS.put("formula", "rows=20000,cols=10,sst=1000,numeric=0.8,formula=0.5");
+		PRESETS.put("sheets", "rows=5000,cols=10,sst=1000,numeric=0.5,sheets=8");
+	}
+
+	private final String name;
+	private final int rows;
+	private final int cols;
+	private final int sst;
+	private final double numeric;
+	private final double formula;
+	private final int sheets;
+
+	private WorkbookSpec(String name, int rows, int cols, int sst, double numeric, double formula, int sheets) {
+		this.name = name;
+		this.rows = rows;
+		this.cols = cols;
+		this.sst = sst;
+		this.numeric = numeric;
+		this.formula = formula;
+		this.sheets = sheets;
+	}
+
+	/**
+	 * 解析形态
+	 *
+	 * @param spec
+	 *            预置名称或“项=值”列表
+	 * @return 形态
+	 * @throws IllegalArgumentException
+	 *             无法识别的名称或项
+	 */
+	public static WorkbookSpec parse(String spec) {
+		String items = PRESETS.get(spec);
+		String name = spec;
+		if (items == null) {
+			items = spec;
+			name = null;
+		}
+		int rows = 10000;
+		int cols = 10;
+		int sst = 1000;
+		double numeric = 0.5;
+		double formula = 0;
+		int sheets = 1;
+		for (String item : items.split("[,;]")) {
+			int eq = item.indexOf('=');
+			if (eq < 0) {
+				throw new IllegalArgumentException("无法识别的测试文件形态：" + spec);
+			}
+			String key = item.substring(0, eq).trim();
+			String value = item.substring(eq + 1).trim();
+			if ("rows".equals(key)) {
+				rows = Integer.parseInt(value);
+			} else if ("cols".equals(key)) {
+				cols = Integer.parseInt(value);
+			} else if ("sst".equals(key)) {
+				sst = Integer.parseInt(value);
+			} else if ("numeric".equals(key)) {
+				numeric = Double.parseDouble(value);
+			} else if ("formula".equals(key)) {
+				formula = Double.parseDouble(value);
+			} else if ("sheets".equals(key)) {
+				sheets = Integer.parseInt(value);
+			} else {
+				throw new IllegalArgumentException("无法识别的测试文件形态项：" + key);
+			}
+		}
+		if (rows <= 0 || cols <= 0 || sst <= 0 || sheets <= 0 || numeric < 0 || numeric > 1 || formula < 0 || formula > 1) {
+			throw new IllegalArgumentException("测试文件形态超出范围：" + spec);
+		}
+		if (name == null) {
+			name = String.format("r%d-c%d-s%d-n%s-f%s-x%d", rows, cols, sst, numeric, formula, sheets);
+		}
+		return new WorkbookSpec(name, rows, cols, sst, numeric, formula, sheets);
+	}
+
+	/**
+	 * 文件名中使用的名称，预置形态为其名称
+	 */
+	public String getName() {
+		return name;
+	}
+
+	public int getRows() {
+		return rows;
+	}
+
+	public int getCols() {
+		return cols;
+	}
+
+	public int getSst() {
+		return sst;
+	}
+
+	public double getNumeric() {
+		return numeric;
+	}
+
+	public double getFormula() {
+		return formula;
+	}
+
+	public int getSheets() {
+		return sheets;
+	}
+
+	/**
+	 * 读取全部Sheet页时回调的数据行数，包括各Sheet页的表头行
+	 */
+	public long totalRows() {
+		return (long) (rows + 1) * sheets;
+	}
+
+	@Override
+	public String toString() {
+		return name;
+	}
+}
@@ -0,0 +1,33 @@
+package cn.cy.bind;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 数据行绑定的列注解
+ *
+ * <pre>
+ *     标注在实体类的字段上，通过列下标或表头名称指定该字段对应的列，两者须且只能指定一个
+ *     单元格按字段类型转换：整数、小数、布尔类型及其包装类、String、BigDecimal、Date
+ *     基本类型字段在单元格为空时保持默认值，其他类型字段为null
+ * </pre>
+ *
+ * @author cy96151
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.FIELD)
+public @interface ExcelColumn {
+	/**
+	 * 列下标，从0开始
+	 */
+	int index() default -1;
+
+	/**
+	 * 表头名称，与表头行中去除首尾空白后的单元格文本比较
+	 */
+	String header() default "";
+}
@@ -0,0 +1,117 @@
+package cn.cy.bind;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Consumer;
+
+import cn.cy.read.ReadExcelBase;
+import cn.cy.read.Row;
+import cn.cy.rollback.ReadExcelRowRollBack;
+
+/**
+ * 数据行绑定回调
+ *
+ * <pre>
+ *     将每个数据行映射为实体对象后交给Consumer，实体类通过ExcelColumn注解指定各字段对应的列
+ *     表头行及之前的行不映射；按表头名称绑定时，每个Sheet页根据其表头行解析列下标
+ *     使用回调流水线且按表头名称绑定时，须按Sheet页保序，保证表头行先于数据行回调
+ * </pre>
+ *
+ * 使用方式：
+ *
+ * <pre>
+ * ReadExcelBase base = ReadExcelBase.create(path, new RowBinder&lt;User&gt;(User.class, consumer));
+ * base.process();
+ * </pre>
+ *
+ * @author cy96151
+ * @param <T>
+ *            实体类型
+ */
+public class RowBinder<T> implements ReadExcelRowRollBack {
+
+	private final RowMapper<T> mapper;
+
+	private final Consumer<? super T> consumer;
+
+	/**
+	 * 表头行号，为0时没有表头行
+	 */
+	private final int headerRow;
+
+	/**
+	 * 是否有按表头名称绑定的字段
+	 */
+	private final boolean byHeader;
+
+	/**
+	 * 各Sheet页解析出的列下标
+	 */
+	private final ConcurrentMap<Integer, int[]> sheetColumns = new ConcurrentHashMap<Integer, int[]>();
+
+	/**
+	 * 没有表头行时各Sheet页共用的列下标
+	 */
+	private final int[] columns;
+
+	/**
+	 * 创建绑定回调，第1行为表头行
+	 *
+	 * @param type
+	 *            实体类
+	 * @param consumer
+	 *            实体对象的处理
+	 */
+	public RowBinder(Class<T> type, Consumer<? super T> consumer) {
+		this(type, 1, consumer);
+	}
+
+	/**
+	 * 创建绑定回调
+	 *
+	 * @param type
+	 *            实体类
+	 * @param headerRow
+	 *            表头行号，从1开始；为0时没有表头行，所有字段须按列下标绑定
+	 * @param consumer
+	 *            实体对象的处理
+	 */
+	public RowBinder(Class<T> type, int headerRow, Consumer<? super T> consumer) {
+		this.mapper = RowMapper.of(type);
+		this.consumer = consumer;
+		this.headerRow = headerRow;
+		this.byHeader = mapper.hasHeaders();
+		if (headerRow <= 0 && byHeader) {
+			throw new IllegalArgumentException("没有表头行时不能按表头名称绑定");
+		}
+		this.columns = mapper.columns();
+	}
+
+	@Override
+	public void optRow(Row row, String sheetName, ReadExcelBase base) throws Exception {
+		int rowNum = row.getRowNum();
+		if (rowNum < headerRow) {
+			return;
+		}
+		if (rowNum == headerRow) {
+			if (byHeader) {
+				sheetColumns.put(row.getSheetIndex(), mapper.columns(row));
+			}
+			return;
+		}
+		int[] current = columns;
+		if (byHeader) {
+			current = sheetColumns.get(row.getSheetIndex());
+			if (current == null) {
+				// Sheet页没有表头行时按表头名称绑定的字段不赋值
+				current = columns;
+			}
+		}
+		consumer.accept(mapper.map(row, current));
+	}
+
+	@Override
+	public boolean judgeBreakSheet(String sheetName, ReadExcelBase base) {
+		return false;
+	}
+}
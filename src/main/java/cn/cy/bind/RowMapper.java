@@ -0,0 +1,359 @@
+package cn.cy.bind;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import cn.cy.read.CellType;
+import cn.cy.read.Row;
+import cn.cy.util.DateParser;
+
+/**
+ * 数据行到实体对象的映射
+ *
+ * <pre>
+ *     每个实体类只构建一次：为每个标注了ExcelColumn的字段组合出“读取单元格 - 写入字段”的MethodHandle，映射时不再使用反射
+ *     数值、布尔字段直接通过Row.getDouble、getLong、getBoolean读取原始值，不创建中间字符串
+ *     实体类须有无参构造方法，绑定的字段不能是final或static
+ * </pre>
+ *
+ * @author cy96151
+ * @param <T>
+ *            实体类型
+ */
+public final class RowMapper<T> {
+
+	private static final ConcurrentMap<Class<?>, RowMapper<?>> MAPPERS = new ConcurrentHashMap<Class<?>, RowMapper<?>>();
+
+	/**
+	 * 字段类型对应的单元格读取方法，类型均为(Row, int)字段类型
+	 */
+	private static final Map<Class<?>, MethodHandle> READERS = new HashMap<Class<?>, MethodHandle>();
+
+	/**
+	 * 映射时的统一调用类型：(实体对象, 数据行, 列下标)
+	 */
+	private static final MethodType BINDING_TYPE = MethodType.methodType(void.class, Object.class, Row.class, int.class);
+
+	static {
+		register(int.class, "readInt");
+		register(long.class, "readLong");
+		register(short.class, "readShort");
+		register(byte.class, "readByte");
+		register(double.class, "readDouble");
+		register(float.class, "readFloat");
+		register(boolean.class, "readBoolean");
+		register(Integer.class, "readIntegerObject");
+		register(Long.class, "readLongObject");
+		register(Short.class, "readShortObject");
+		register(Byte.class, "readByteObject");
+		register(Double.class, "readDoubleObject");
+		register(Float.class, "readFloatObject");
+		register(Boolean.class, "readBooleanObject");
+		register(String.class, "readString");
+		register(BigDecimal.class, "readBigDecimal");
+		register(Date.class, "readDate");
+	}
+
+	private final Class<T> type;
+
+	/**
+	 * 无参构造方法，类型为()Object
+	 */
+	private final MethodHandle constructor;
+
+	private final String[] names;
+
+	private final Class<?>[] types;
+
+	/**
+	 * 各字段的列下标，按表头名称绑定时为-1
+	 */
+	private final int[] indexes;
+
+	/**
+	 * 各字段的表头名称，按列下标绑定时为null
+	 */
+	private final String[] headers;
+
+	/**
+	 * 各字段的映射方法，类型均为BINDING_TYPE
+	 */
+	private final MethodHandle[] bindings;
+
+	private RowMapper(Class<T> type) throws ReflectiveOperationException {
+		this.type = type;
+		MethodHandles.Lookup lookup = MethodHandles.lookup();
+		Constructor<T> init = type.getDeclaredConstructor();
+		init.setAccessible(true);
+		this.constructor = lookup.unreflectConstructor(init).asType(MethodType.methodType(Object.class));
+		List<Field> fields = new ArrayList<Field>();
+		for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+			for (Field field : c.getDeclaredFields()) {
+				if (field.isAnnotationPresent(ExcelColumn.class)) {
+					fields.add(field);
+				}
+			}
+		}
+		if (fields.isEmpty()) {
+			throw new IllegalArgumentException(type.getName() + "中没有标注ExcelColumn的字段");
+		}
+		int size = fields.size();
+		names = new String[size];
+		types = new Class<?>[size];
+		indexes = new int[size];
+		headers = new String[size];
+		bindings = new MethodHandle[size];
+		for (int i = 0; i < size; i++) {
+			Field field = fields.get(i);
+			ExcelColumn column = field.getAnnotation(ExcelColumn.class);
+			names[i] = field.getName();
+			types[i] = field.getType();
+			if ((column.index() < 0) == column.header().isEmpty()) {
+				throw new IllegalArgumentException(names[i] + "须且只能指定index或header其中之一");
+			}
+			indexes[i] = column.index();
+			headers[i] = column.header().isEmpty() ? null : column.header();
+			if (Modifier.isFinal(field.getModifiers()) || Modifier.isStatic(field.getModifiers())) {
+				throw new IllegalArgumentException(names[i] + "不能是final或static字段");
+			}
+			MethodHandle reader = READERS.get(field.getType());
+			if (reader == null) {
+				throw new IllegalArgumentException(names[i] + "的类型不支持绑定：" + field.getType().getName());
+			}
+			field.setAccessible(true);
+			// (实体对象, 字段值) -> (实体对象, 数据行, 列下标)
+			MethodHandle setter = lookup.unreflectSetter(field);
+			bindings[i] = MethodHandles.collectArguments(setter, 1, reader).asType(BINDING_TYPE);
+		}
+	}
+
+	/**
+	 * 获取实体类的映射，每个实体类只构建一次
+	 *
+	 * @param type
+	 *            实体类
+	 * @return 映射对象
+	 * @throws IllegalArgumentException
+	 *             实体类无法绑定时抛出，如没有无参构造方法、字段类型不支持等
+	 */
+	@SuppressWarnings("unchecked")
+	public static <T> RowMapper<T> of(Class<T> type) {
+		RowMapper<?> mapper = MAPPERS.get(type);
+		if (mapper == null) {
+			try {
+				mapper = new RowMapper<T>(type);
+			} catch (ReflectiveOperationException e) {
+				throw new IllegalArgumentException(type.getName() + "无法绑定：" + e.getMessage(), e);
+			}
+			RowMapper<?> existing = MAPPERS.putIfAbsent(type, mapper);
+			if (existing != null) {
+				mapper = existing;
+			}
+		}
+		return (RowMapper<T>) mapper;
+	}
+
+	/**
+	 * 是否有按表头名称绑定的字段
+	 */
+	public boolean hasHeaders() {
+		for (String header : headers) {
+			if (header != null) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * 不使用表头行时各字段的列下标，按表头名称绑定的字段为-1
+	 *
+	 * @return 各字段的列下标
+	 */
+	public int[] columns() {
+		return indexes.clone();
+	}
+
+	/**
+	 * 根据表头行解析各字段的列下标
+	 *
+	 * @param headerRow
+	 *            表头行
+	 * @return 各字段的列下标，表头行中不存在的表头名称为-1
+	 */
+	public int[] columns(Row headerRow) {
+		int[] columns = indexes.clone();
+		Map<String, Integer> positions = new HashMap<String, Integer>();
+		for (int col = headerRow.size() - 1; col >= 0; col--) {
+			String text = headerRow.getString(col);
+			if (text != null) {
+				// 表头重复时取第一列
+				positions.put(text.trim(), col);
+			}
+		}
+		for (int i = 0; i < headers.length; i++) {
+			if (headers[i] != null) {
+				Integer col = positions.get(headers[i]);
+				columns[i] = col == null ? -1 : col;
+			}
+		}
+		return columns;
+	}
+
+	/**
+	 * 将数据行映射为实体对象
+	 *
+	 * @param row
+	 *            数据行
+	 * @param columns
+	 *            各字段的列下标，由columns()或columns(Row)获取，为-1的字段不赋值
+	 * @return 实体对象
+	 * @throws IllegalArgumentException
+	 *             单元格无法转换为字段类型时抛出
+	 */
+	public T map(Row row, int[] columns) {
+		Object target;
+		try {
+			target = constructor.invokeExact();
+		} catch (RuntimeException e) {
+			throw e;
+		} catch (Error e) {
+			throw e;
+		} catch (Throwable e) {
+			throw new IllegalStateException(type.getName() + "创建失败", e);
+		}
+		for (int i = 0; i < bindings.length; i++) {
+			int col = columns[i];
+			if (col < 0) {
+				continue;
+			}
+			try {
+				bindings[i].invokeExact(target, row, col);
+			} catch (RuntimeException e) {
+				throw new IllegalArgumentException(String.format("第%d行第%d列无法转换为%s：%s", row.getRowNum(), col + 1,
+						types[i].getSimpleName(), names[i]), e);
+			} catch (Error e) {
+				throw e;
+			} catch (Throwable e) {
+				throw new IllegalStateException(e);
+			}
+		}
+		return type.cast(target);
+	}
+
+	private static void register(Class<?> fieldType, String method) {
+		try {
+			READERS.put(fieldType, MethodHandles.lookup().findStatic(RowMapper.class, method,
+					MethodType.methodType(fieldType, Row.class, int.class)));
+		} catch (ReflectiveOperationException e) {
+			throw new ExceptionInInitializerError(e);
+		}
+	}
+
+	/**
+	 * 判断单元格是否为空：无单元格、空白单元格、错误单元格
+	 */
+	private static boolean isEmpty(Row row, int col) {
+		CellType cellType = row.getCellType(col);
+		return cellType == CellType.NONE || cellType == CellType.BLANK || cellType == CellType.ERROR;
+	}
+
+	static int readInt(Row row, int col) {
+		return (int) row.getLong(col);
+	}
+
+	static long readLong(Row row, int col) {
+		return row.getLong(col);
+	}
+
+	static short readShort(Row row, int col) {
+		return (short) row.getLong(col);
+	}
+
+	static byte readByte(Row row, int col) {
+		return (byte) row.getLong(col);
+	}
+
+	static double readDouble(Row row, int col) {
+		return isEmpty(row, col) ? 0 : row.getDouble(col);
+	}
+
+	static float readFloat(Row row, int col) {
+		return (float) readDouble(row, col);
+	}
+
+	static boolean readBoolean(Row row, int col) {
+		return row.getBoolean(col);
+	}
+
+	static Integer readIntegerObject(Row row, int col) {
+		return isEmpty(row, col) ? null : Integer.valueOf((int) row.getLong(col));
+	}
+
+	static Long readLongObject(Row row, int col) {
+		return isEmpty(row, col) ? null : Long.valueOf(row.getLong(col));
+	}
+
+	static Short readShortObject(Row row, int col) {
+		return isEmpty(row, col) ? null : Short.valueOf((short) row.getLong(col));
+	}
+
+	static Byte readByteObject(Row row, int col) {
+		return isEmpty(row, col) ? null : Byte.valueOf((byte) row.getLong(col));
+	}
+
+	static Double readDoubleObject(Row row, int col) {
+		return isEmpty(row, col) ? null : Double.valueOf(row.getDouble(col));
+	}
+
+	static Float readFloatObject(Row row, int col) {
+		return isEmpty(row, col) ? null : Float.valueOf((float) row.getDouble(col));
+	}
+
+	static Boolean readBooleanObject(Row row, int col) {
+		return isEmpty(row, col) ? null : Boolean.valueOf(row.getBoolean(col));
+	}
+
+	static String readString(Row row, int col) {
+		return row.getString(col);
+	}
+
+	static BigDecimal readBigDecimal(Row row, int col) {
+		if (isEmpty(row, col)) {
+			return null;
+		}
+		if (row.getCellType(col) == CellType.NUMERIC) {
+			// 与Excel显示一致，按double的最短十进制表示转换
+			return BigDecimal.valueOf(row.getDouble(col));
+		}
+		return new BigDecimal(row.getString(col).trim());
+	}
+
+	static Date readDate(Row row, int col) {
+		if (isEmpty(row, col)) {
+			return null;
+		}
+		if (row.getCellType(col) == CellType.NUMERIC) {
+			return DateParser.fromExcel(row.getDouble(col));
+		}
+		String text = row.getString(col).trim();
+		try {
+			return DateParser.parse(text);
+		} catch (ParseException e) {
+			throw new IllegalArgumentException("无法转换为日期：" + text, e);
+		}
+	}
+}
@@ -0,0 +1,80 @@
+package cn.cy.exception;
+
+/**
+ * 超出读取限制异常类
+ * 
+ * <pre>
+ * 设置读取限制（ReadExcelBase.setReadLimits）后，文件内容超出任一上限时立即抛出，终止所有Sheet页的读取
+ * 在解压、解析过程中抛出，不会被封装为其他异常；可通过getLimit()获取超出的限制类型
+ * </pre>
+ * 
+ * @author cy96151
+ */
+public class ReadLimitExceededException extends RuntimeException {
+
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * 读取限制类型
+	 */
+	public enum Limit {
+		/**
+		 * 解压后的总字节数
+		 */
+		INFLATED_BYTES,
+
+		/**
+		 * 解压后的总字节数与压缩后总字节数的比值
+		 */
+		INFLATION_RATIO,
+
+		/**
+		 * 数据行宽度（列数）
+		 */
+		ROW_WIDTH,
+
+		/**
+		 * 单个Sheet页的单元格数量
+		 */
+		SHEET_CELLS,
+
+		/**
+		 * 字符串共享数据集中的字符串数量
+		 */
+		SHARED_STRINGS
+	}
+
+	private final Limit limit;
+
+	private final long maximum;
+
+	private final long actual;
+
+	public ReadLimitExceededException(Limit limit, long maximum, long actual) {
+		super("超出读取限制" + limit + "：上限" + maximum + "，实际" + actual);
+		this.limit = limit;
+		this.maximum = maximum;
+		this.actual = actual;
+	}
+
+	/**
+	 * 超出的限制类型
+	 */
+	public Limit getLimit() {
+		return limit;
+	}
+
+	/**
+	 * 限制的上限值
+	 */
+	public long getMaximum() {
+		return maximum;
+	}
+
+	/**
+	 * 超出上限时的实际值（已读取的部分）
+	 */
+	public long getActual() {
+		return actual;
+	}
+}
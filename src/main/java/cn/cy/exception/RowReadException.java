@@ -0,0 +1,20 @@
+package cn.cy.exception;
+
+/**
+ * 迭代读取异常类
+ * 
+ * <pre>
+ * 通过rows()或stream()迭代读取数据行时，Iterator和Stream的方法无法抛出受检异常
+ * 读取过程中产生的异常将封装为此异常抛出，可通过getCause()获取原始异常
+ * </pre>
+ * 
+ * @author cy96151
+ */
+public class RowReadException extends RuntimeException {
+
+	private static final long serialVersionUID = 1L;
+
+	public RowReadException(Throwable cause) {
+		super(cause.getMessage(), cause);
+	}
+}
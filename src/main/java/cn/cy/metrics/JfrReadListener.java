@@ -0,0 +1,272 @@
+package cn.cy.metrics;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * 将读取过程输出为JDK Flight Recorder事件
+ *
+ * <pre>
+ *     cn.cy.readexcel.WorkbookOpen：工作簿打开完成，包括打开耗时和Sheet页数量
+ *     cn.cy.readexcel.SharedStringsLoad：字符串共享数据集加载完成
+ *     cn.cy.readexcel.SheetRead：Sheet页从开始到结束的持续事件，包括行数、单元格数、字节数、解析与回调耗时
+ *     cn.cy.readexcel.SlowCallback：单次回调耗时超过阈值
+ *     cn.cy.readexcel.WorkbookRead：工作簿读取结束，包括整个工作簿的统计
+ *     未开启录制时不提交事件；可通过delegate同时转发给其他监听，如对接指标系统的监听
+ *     Sheet页事件按Sheet页下标暂存，每次读取须使用单独的对象
+ *     需JDK 11以上（或8u262以上）运行，只在使用本类时加载jdk.jfr
+ * </pre>
+ *
+ * 使用方式：
+ *
+ * <pre>
+ * base.setReadListener(new JfrReadListener(), 1000);
+ * base.process();
+ * </pre>
+ *
+ * @author cy96151
+ */
+public class JfrReadListener implements ReadListener {
+
+	private static final String CATEGORY = "ReadExcel";
+
+	/**
+	 * 同时转发的监听，为null时只输出JFR事件
+	 */
+	private final ReadListener delegate;
+
+	/**
+	 * 读取中的Sheet页事件，键为Sheet页下标
+	 */
+	private final ConcurrentMap<Integer, SheetReadEvent> sheets = new ConcurrentHashMap<Integer, SheetReadEvent>();
+
+	public JfrReadListener() {
+		this(null);
+	}
+
+	/**
+	 * @param delegate
+	 *            同时转发的监听，如对接指标系统的监听
+	 */
+	public JfrReadListener(ReadListener delegate) {
+		this.delegate = delegate;
+	}
+
+	@Override
+	public void workbookOpened(WorkbookMetrics metrics) {
+		WorkbookOpenEvent open = new WorkbookOpenEvent();
+		if (open.shouldCommit()) {
+			open.format = metrics.getFormat();
+			open.sheets = metrics.getSheets();
+			open.openDuration = metrics.getOpenNanos();
+			open.commit();
+		}
+		SharedStringsLoadEvent sst = new SharedStringsLoadEvent();
+		if (sst.shouldCommit()) {
+			sst.format = metrics.getFormat();
+			sst.entries = metrics.getSharedStrings();
+			sst.loadDuration = metrics.getSharedStringsNanos();
+			sst.commit();
+		}
+		if (delegate != null) {
+			delegate.workbookOpened(metrics);
+		}
+	}
+
+	@Override
+	public void sheetStarted(String sheetName, int sheetIndex) {
+		SheetReadEvent event = new SheetReadEvent();
+		if (event.isEnabled()) {
+			event.begin();
+			sheets.put(sheetIndex, event);
+		}
+		if (delegate != null) {
+			delegate.sheetStarted(sheetName, sheetIndex);
+		}
+	}
+
+	@Override
+	public void sheetEnded(SheetMetrics metrics) {
+		SheetReadEvent event = sheets.remove(metrics.getSheetIndex());
+		if (event != null) {
+			event.end();
+			if (event.shouldCommit()) {
+				event.sheetName = metrics.getSheetName();
+				event.sheetIndex = metrics.getSheetIndex();
+				event.rows = metrics.getRows();
+				event.cells = metrics.getCells();
+				event.bytesRead = metrics.getBytesRead();
+				event.parseDuration = metrics.getParseNanos();
+				event.callbackDuration = metrics.getCallbackNanos();
+				event.commit();
+			}
+		}
+		if (delegate != null) {
+			delegate.sheetEnded(metrics);
+		}
+	}
+
+	@Override
+	public void slowCallback(String sheetName, int sheetIndex, int rowNum, long nanos) {
+		SlowCallbackEvent event = new SlowCallbackEvent();
+		if (event.shouldCommit()) {
+			event.sheetName = sheetName;
+			event.sheetIndex = sheetIndex;
+			event.rowNum = rowNum;
+			event.callbackDuration = nanos;
+			event.commit();
+		}
+		if (delegate != null) {
+			delegate.slowCallback(sheetName, sheetIndex, rowNum, nanos);
+		}
+	}
+
+	@Override
+	public void workbookEnded(WorkbookMetrics metrics) {
+		WorkbookReadEvent event = new WorkbookReadEvent();
+		if (event.shouldCommit()) {
+			event.format = metrics.getFormat();
+			event.sheets = metrics.getSheets();
+			event.rows = metrics.getRows();
+			event.cells = metrics.getCells();
+			event.bytesRead = metrics.getBytesRead();
+			event.sharedStrings = metrics.getSharedStrings();
+			event.openDuration = metrics.getOpenNanos();
+			event.parseDuration = metrics.getParseNanos();
+			event.callbackDuration = metrics.getCallbackNanos();
+			event.elapsedDuration = metrics.getElapsedNanos();
+			event.rowsPerSecond = metrics.getRowsPerSecond();
+			event.commit();
+		}
+		if (delegate != null) {
+			delegate.workbookEnded(metrics);
+		}
+	}
+
+	@Name("cn.cy.readexcel.WorkbookOpen")
+	@Label("Workbook Open")
+	@Category(CATEGORY)
+	static class WorkbookOpenEvent extends Event {
+		@Label("Format")
+		String format;
+
+		@Label("Sheets")
+		int sheets;
+
+		@Label("Open Duration")
+		@Timespan(Timespan.NANOSECONDS)
+		long openDuration;
+	}
+
+	@Name("cn.cy.readexcel.SharedStringsLoad")
+	@Label("Shared Strings Load")
+	@Category(CATEGORY)
+	static class SharedStringsLoadEvent extends Event {
+		@Label("Format")
+		String format;
+
+		@Label("Entries")
+		int entries;
+
+		@Label("Load Duration")
+		@Timespan(Timespan.NANOSECONDS)
+		long loadDuration;
+	}
+
+	@Name("cn.cy.readexcel.SheetRead")
+	@Label("Sheet Read")
+	@Category(CATEGORY)
+	static class SheetReadEvent extends Event {
+		@Label("Sheet Name")
+		String sheetName;
+
+		@Label("Sheet Index")
+		int sheetIndex;
+
+		@Label("Rows")
+		long rows;
+
+		@Label("Cells")
+		long cells;
+
+		@Label("Bytes Read")
+		@DataAmount
+		long bytesRead;
+
+		@Label("Parse Duration")
+		@Timespan(Timespan.NANOSECONDS)
+		long parseDuration;
+
+		@Label("Callback Duration")
+		@Timespan(Timespan.NANOSECONDS)
+		long callbackDuration;
+	}
+
+	@Name("cn.cy.readexcel.SlowCallback")
+	@Label("Slow Callback")
+	@Category(CATEGORY)
+	static class SlowCallbackEvent extends Event {
+		@Label("Sheet Name")
+		String sheetName;
+
+		@Label("Sheet Index")
+		int sheetIndex;
+
+		@Label("Row Number")
+		int rowNum;
+
+		@Label("Callback Duration")
+		@Timespan(Timespan.NANOSECONDS)
+		long callbackDuration;
+	}
+
+	@Name("cn.cy.readexcel.WorkbookRead")
+	@Label("Workbook Read")
+	@Category(CATEGORY)
+	static class WorkbookReadEvent extends Event {
+		@Label("Format")
+		String format;
+
+		@Label("Sheets")
+		int sheets;
+
+		@Label("Rows")
+		long rows;
+
+		@Label("Cells")
+		long cells;
+
+		@Label("Bytes Read")
+		@DataAmount
+		long bytesRead;
+
+		@Label("Shared Strings")
+		int sharedStrings;
+
+		@Label("Open Duration")
+		@Timespan(Timespan.NANOSECONDS)
+		long openDuration;
+
+		@Label("Parse Duration")
+		@Timespan(Timespan.NANOSECONDS)
+		long parseDuration;
+
+		@Label("Callback Duration")
+		@Timespan(Timespan.NANOSECONDS)
+		long callbackDuration;
+
+		@Label("Elapsed Duration")
+		@Timespan(Timespan.NANOSECONDS)
+		long elapsedDuration;
+
+		@Label("Rows per Second")
+		double rowsPerSecond;
+	}
+}
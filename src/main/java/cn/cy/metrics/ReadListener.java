@@ -0,0 +1,63 @@
+package cn.cy.metrics;
+
+/**
+ * 读取过程监听接口
+ *
+ * <pre>
+ *     通过ReadExcelBase.setReadListener设置，process()读取时回调，未设置时不做任何统计
+ *     并行读取Sheet页或使用回调流水线时，各方法可能在不同线程中同时调用，实现类须保证线程安全
+ *     监听方法中不应抛出异常，也不应执行耗时操作
+ * </pre>
+ *
+ * @author cy96151
+ */
+public interface ReadListener {
+
+	/**
+	 * 工作簿打开完成，已读取Sheet页信息和字符串共享数据集，尚未读取任何Sheet页
+	 *
+	 * @param metrics
+	 *            打开时的统计，行数、单元格数等均为0
+	 */
+	void workbookOpened(WorkbookMetrics metrics);
+
+	/**
+	 * Sheet页开始读取
+	 *
+	 * @param sheetName
+	 *            Sheet页名称
+	 * @param sheetIndex
+	 *            Sheet页下标
+	 */
+	void sheetStarted(String sheetName, int sheetIndex);
+
+	/**
+	 * Sheet页读取结束
+	 *
+	 * @param metrics
+	 *            Sheet页的统计
+	 */
+	void sheetEnded(SheetMetrics metrics);
+
+	/**
+	 * 单次回调耗时超过阈值
+	 *
+	 * @param sheetName
+	 *            Sheet页名称
+	 * @param sheetIndex
+	 *            Sheet页下标
+	 * @param rowNum
+	 *            回调的行号，批量回调时为本批最后一行的行号
+	 * @param nanos
+	 *            回调耗时（纳秒）
+	 */
+	void slowCallback(String sheetName, int sheetIndex, int rowNum, long nanos);
+
+	/**
+	 * 工作簿读取结束，读取中产生异常时也会调用
+	 *
+	 * @param metrics
+	 *            整个工作簿的统计
+	 */
+	void workbookEnded(WorkbookMetrics metrics);
+}
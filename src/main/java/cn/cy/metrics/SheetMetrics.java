@@ -0,0 +1,88 @@
+package cn.cy.metrics;
+
+/**
+ * Sheet页读取统计
+ *
+ * <pre>
+ *     回调耗时为读取线程交出数据行所用的时间：直接回调时即回调本身（包括转换为字符串列表），使用回调流水线时为放入队列的等待时间
+ *     解析耗时为Sheet页总耗时减去回调耗时，包括解压、XML或Record解析
+ * </pre>
+ *
+ * @author cy96151
+ */
+public final class SheetMetrics {
+
+	private final String sheetName;
+	private final int sheetIndex;
+	private final long rows;
+	private final long cells;
+	private final long bytesRead;
+	private final long elapsedNanos;
+	private final long callbackNanos;
+
+	public SheetMetrics(String sheetName, int sheetIndex, long rows, long cells, long bytesRead, long elapsedNanos,
+			long callbackNanos) {
+		this.sheetName = sheetName;
+		this.sheetIndex = sheetIndex;
+		this.rows = rows;
+		this.cells = cells;
+		this.bytesRead = bytesRead;
+		this.elapsedNanos = elapsedNanos;
+		this.callbackNanos = callbackNanos;
+	}
+
+	public String getSheetName() {
+		return sheetName;
+	}
+
+	public int getSheetIndex() {
+		return sheetIndex;
+	}
+
+	/**
+	 * 回调的数据行数，不包括被过滤的数据行
+	 */
+	public long getRows() {
+		return rows;
+	}
+
+	/**
+	 * 回调的数据行中的单元格数
+	 */
+	public long getCells() {
+		return cells;
+	}
+
+	/**
+	 * 读取的字节数：Excel07版本为Sheet页xml解压后的字节数，Excel03版本为Sheet页Record的字节数
+	 */
+	public long getBytesRead() {
+		return bytesRead;
+	}
+
+	public long getElapsedNanos() {
+		return elapsedNanos;
+	}
+
+	public long getCallbackNanos() {
+		return callbackNanos;
+	}
+
+	public long getParseNanos() {
+		return Math.max(0, elapsedNanos - callbackNanos);
+	}
+
+	/**
+	 * 每秒读取的数据行数
+	 */
+	public double getRowsPerSecond() {
+		return elapsedNanos == 0 ? 0 : rows * 1e9 / elapsedNanos;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%s[rows=%d, cells=%d, bytes=%d, elapsed=%dms, parse=%dms, callback=%dms, rows/s=%.0f]",
+				sheetName, rows, cells, bytesRead, elapsedNanos / 1000000, getParseNanos() / 1000000,
+				callbackNanos / 1000000, getRowsPerSecond());
+	}
+}
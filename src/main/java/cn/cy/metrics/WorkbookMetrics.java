@@ -0,0 +1,113 @@
+package cn.cy.metrics;
+
+/**
+ * 工作簿读取统计
+ *
+ * <pre>
+ *     打开耗时为读取Sheet页信息、字符串共享数据集（及开启按样式格式化时的数字格式表）的耗时
+ *     行数、单元格数、字节数和回调耗时为各Sheet页之和，并行读取Sheet页时回调耗时可能大于总耗时
+ * </pre>
+ *
+ * @author cy96151
+ */
+public final class WorkbookMetrics {
+
+	private final String format;
+	private final int sheets;
+	private final long rows;
+	private final long cells;
+	private final long bytesRead;
+	private final int sharedStrings;
+	private final long sharedStringsNanos;
+	private final long openNanos;
+	private final long elapsedNanos;
+	private final long callbackNanos;
+
+	public WorkbookMetrics(String format, int sheets, long rows, long cells, long bytesRead, int sharedStrings,
+			long sharedStringsNanos, long openNanos, long elapsedNanos, long callbackNanos) {
+		this.format = format;
+		this.sheets = sheets;
+		this.rows = rows;
+		this.cells = cells;
+		this.bytesRead = bytesRead;
+		this.sharedStrings = sharedStrings;
+		this.sharedStringsNanos = sharedStringsNanos;
+		this.openNanos = openNanos;
+		this.elapsedNanos = elapsedNanos;
+		this.callbackNanos = callbackNanos;
+	}
+
+	/**
+	 * 文件格式：xls或xlsx
+	 */
+	public String getFormat() {
+		return format;
+	}
+
+	/**
+	 * 打开时为工作簿中的Sheet页数量，读取结束时为已读取的Sheet页数量
+	 */
+	public int getSheets() {
+		return sheets;
+	}
+
+	public long getRows() {
+		return rows;
+	}
+
+	public long getCells() {
+		return cells;
+	}
+
+	public long getBytesRead() {
+		return bytesRead;
+	}
+
+	/**
+	 * 字符串共享数据集中的字符串数量
+	 */
+	public int getSharedStrings() {
+		return sharedStrings;
+	}
+
+	/**
+	 * 字符串共享数据集的加载耗时（纳秒）
+	 */
+	public long getSharedStringsNanos() {
+		return sharedStringsNanos;
+	}
+
+	public long getOpenNanos() {
+		return openNanos;
+	}
+
+	public long getElapsedNanos() {
+		return elapsedNanos;
+	}
+
+	public long getCallbackNanos() {
+		return callbackNanos;
+	}
+
+	/**
+	 * 解析耗时：总耗时减去打开耗时和回调耗时
+	 */
+	public long getParseNanos() {
+		return Math.max(0, elapsedNanos - openNanos - callbackNanos);
+	}
+
+	/**
+	 * 每秒读取的数据行数
+	 */
+	public double getRowsPerSecond() {
+		return elapsedNanos == 0 ? 0 : rows * 1e9 / elapsedNanos;
+	}
+
+	@Override
+	public String toString() {
+		return String.format(
+				"%s[sheets=%d, rows=%d, cells=%d, bytes=%d, sst=%d/%dms, open=%dms, elapsed=%dms, parse=%dms, callback=%dms, rows/s=%.0f]",
+				format, sheets, rows, cells, bytesRead, sharedStrings, sharedStringsNanos / 1000000, openNanos / 1000000,
+				elapsedNanos / 1000000, getParseNanos() / 1000000, callbackNanos / 1000000, getRowsPerSecond());
+	}
+}
@@ -0,0 +1,186 @@
+package cn.cy.read;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.apache.poi.ss.usermodel.BuiltinFormats;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.usermodel.DateUtil;
+
+import cn.cy.util.StaxParsers;
+
+/**
+ * 单元格样式的数字格式表
+ *
+ * <pre>
+ *     读取文件时加载一次：Excel07版本来自styles.xml的numFmts和cellXfs，Excel03版本来自FormatRecord和ExtendedFormatRecord
+ *     创建时即按样式下标解析出各样式的格式字符串及是否为日期格式，格式化时不再查找和判断
+ *     常规格式的数值直接转换，其他格式由同一个DataFormatter格式化，DataFormatter按格式字符串缓存解析后的格式对象
+ *     DataFormatter不保证线程安全，格式化时加锁，可在多个回调线程中共用
+ * </pre>
+ *
+ * @author cy96151
+ */
+final class CellFormats {
+
+	/**
+	 * 常规格式
+	 */
+	private static final String GENERAL = "General";
+
+	/**
+	 * 常规格式下直接转换为整数文本的数值上限，在此范围内的整数可由long精确表示
+	 */
+	private static final double GENERAL_INTEGER_LIMIT = 1e15;
+
+	/**
+	 * 各样式的格式下标
+	 */
+	private final int[] formatIndexes;
+
+	/**
+	 * 各样式的格式字符串
+	 */
+	private final String[] formatStrings;
+
+	/**
+	 * 各样式是否为常规格式
+	 */
+	private final boolean[] generals;
+
+	/**
+	 * 各样式是否为日期格式
+	 */
+	private final boolean[] dates;
+
+	private final DataFormatter formatter = new DataFormatter();
+
+	/**
+	 * 创建数字格式表
+	 *
+	 * @param xfFormats
+	 *            各样式（按样式下标排列）的格式下标
+	 * @param customFormats
+	 *            自定义格式，格式下标 - 格式字符串
+	 */
+	CellFormats(int[] xfFormats, Map<Integer, String> customFormats) {
+		int size = xfFormats.length;
+		formatIndexes = xfFormats;
+		formatStrings = new String[size];
+		generals = new boolean[size];
+		dates = new boolean[size];
+		for (int i = 0; i < size; i++) {
+			int formatIndex = xfFormats[i];
+			String formatString = customFormats.get(formatIndex);
+			if (formatString == null) {
+				formatString = BuiltinFormats.getBuiltinFormat(formatIndex);
+			}
+			if (formatString == null) {
+				formatString = GENERAL;
+			}
+			formatStrings[i] = formatString;
+			generals[i] = GENERAL.equalsIgnoreCase(formatString);
+			dates[i] = !generals[i] && DateUtil.isADateFormat(formatIndex, formatString);
+		}
+	}
+
+	/**
+	 * 判断样式是否为日期格式
+	 *
+	 * @param style
+	 *            样式下标
+	 * @return 若为日期格式，返回true
+	 */
+	boolean isDate(int style) {
+		return style >= 0 && style < dates.length && dates[style];
+	}
+
+	/**
+	 * 按样式的数字格式将数值格式化为Excel中显示的文本
+	 *
+	 * @param value
+	 *            数值
+	 * @param style
+	 *            样式下标，超出范围时按常规格式处理
+	 * @return 显示的文本
+	 */
+	String format(double value, int style) {
+		boolean inRange = style >= 0 && style < generals.length;
+		if (!inRange || generals[style]) {
+			// 常规格式下的整数直接转换，与DataFormatter的结果一致
+			if (value == Math.rint(value) && Math.abs(value) < GENERAL_INTEGER_LIMIT && (value != 0 || 1 / value > 0)) {
+				return Long.toString((long) value);
+			}
+			if (!inRange) {
+				synchronized (formatter) {
+					return formatter.formatRawCellContents(value, 0, GENERAL);
+				}
+			}
+		}
+		synchronized (formatter) {
+			return formatter.formatRawCellContents(value, formatIndexes[style], formatStrings[style]);
+		}
+	}
+
+	/**
+	 * 读取styles.xml中的数字格式表
+	 *
+	 * @param in
+	 *            styles.xml文件流，读取结束后关闭；为null时返回null
+	 * @return 数字格式表
+	 * @throws IOException
+	 *             文件读取异常
+	 * @throws XMLStreamException
+	 *             xml解析异常
+	 */
+	static CellFormats readStyles(InputStream in) throws IOException, XMLStreamException {
+		if (in == null) {
+			return null;
+		}
+		Map<Integer, String> customFormats = new HashMap<Integer, String>();
+		int[] xfFormats = new int[16];
+		int xfCount = 0;
+		try {
+			XMLStreamReader reader = StaxParsers.newXMLStreamReader(in);
+			try {
+				boolean inCellXfs = false;
+				while (reader.hasNext()) {
+					int event = reader.next();
+					if (event == XMLStreamConstants.START_ELEMENT) {
+						String name = reader.getLocalName();
+						if ("numFmt".equals(name)) {
+							String id = reader.getAttributeValue(null, "numFmtId");
+							String code = reader.getAttributeValue(null, "formatCode");
+							if (id != null && code != null) {
+								customFormats.put(Integer.valueOf(id), code);
+							}
+						} else if ("cellXfs".equals(name)) {
+							inCellXfs = true;
+						} else if (inCellXfs && "xf".equals(name)) {
+							if (xfCount == xfFormats.length) {
+								xfFormats = Arrays.copyOf(xfFormats, xfCount << 1);
+							}
+							String id = reader.getAttributeValue(null, "numFmtId");
+							xfFormats[xfCount++] = id == null ? 0 : Integer.parseInt(id);
+						}
+					} else if (event == XMLStreamConstants.END_ELEMENT && "cellXfs".equals(reader.getLocalName())) {
+						// 单元格样式之后的内容无须读取
+						break;
+					}
+				}
+			} finally {
+				reader.close();
+			}
+		} finally {
+			in.close();
+		}
+		return new CellFormats(Arrays.copyOf(xfFormats, xfCount), customFormats);
+	}
+}
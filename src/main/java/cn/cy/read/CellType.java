@@ -0,0 +1,38 @@
+package cn.cy.read;
+
+/**
+ * 单元格类型
+ *
+ * @author cy96151
+ */
+public enum CellType {
+	/**
+	 * 无单元格，对应旧接口rowlist中的null
+	 */
+	NONE,
+
+	/**
+	 * 空白单元格
+	 */
+	BLANK,
+
+	/**
+	 * 数值单元格，包括日期和数值公式结果
+	 */
+	NUMERIC,
+
+	/**
+	 * 文本单元格，包括文本公式结果
+	 */
+	STRING,
+
+	/**
+	 * 布尔单元格
+	 */
+	BOOLEAN,
+
+	/**
+	 * 错误单元格
+	 */
+	ERROR
+}
@@ -0,0 +1,128 @@
+package cn.cy.read;
+
+import java.util.List;
+
+/**
+ * 列式批次
+ *
+ * <pre>
+ *     同一Sheet页中按顺序读取的一批数据行，按列存放于基本类型数组中，列数为本批次中最宽的数据行的宽度
+ *     批次对象及其中的数组在回调之间复用，回调结束后将被覆盖，若需保留请复制数组
+ * </pre>
+ *
+ * @author cy96151
+ */
+public final class ColumnBatch {
+
+	private String sheetName;
+
+	private int sheetIndex;
+
+	private int rowCount;
+
+	private int[] rowNums = new int[0];
+
+	private int columnCount;
+
+	private ColumnVector[] columns = new ColumnVector[0];
+
+	private HeaderIndex header;
+
+	ColumnBatch() {
+	}
+
+	public String getSheetName() {
+		return sheetName;
+	}
+
+	public int getSheetIndex() {
+		return sheetIndex;
+	}
+
+	/**
+	 * 本批次的行数
+	 */
+	public int getRowCount() {
+		return rowCount;
+	}
+
+	/**
+	 * 第i行的行号，与row.getRowNum一致
+	 *
+	 * @param i
+	 *            批次中的行下标
+	 * @return 行号
+	 */
+	public int getRowNum(int i) {
+		return rowNums[i];
+	}
+
+	/**
+	 * 本批次的列数
+	 */
+	public int getColumnCount() {
+		return columnCount;
+	}
+
+	/**
+	 * 所在Sheet页的表头索引，可通过header.indexOf获取列下标
+	 *
+	 * @return 表头索引；未设置表头行、本批次的数据行均位于表头行之前时返回null
+	 */
+	public HeaderIndex getHeader() {
+		return header;
+	}
+
+	/**
+	 * 获取列
+	 *
+	 * @param col
+	 *            列下标
+	 * @return 列，列下标超出本批次的列数时抛出IndexOutOfBoundsException
+	 */
+	public ColumnVector getColumn(int col) {
+		if (col < 0 || col >= columnCount) {
+			throw new IndexOutOfBoundsException("列下标超出范围：" + col + "，列数：" + columnCount);
+		}
+		return columns[col];
+	}
+
+	/**
+	 * 将一批数据行转换为列式存放，复用已分配的数组
+	 *
+	 * @param rows
+	 *            同一Sheet页中按顺序读取的数据行，不能为空
+	 * @param sheetName
+	 *            Sheet页名称
+	 * @param sheetIndex
+	 *            Sheet页下标
+	 */
+	void fill(List<Row> rows, String sheetName, int sheetIndex) {
+		this.sheetName = sheetName;
+		this.sheetIndex = sheetIndex;
+		int count = rows.size();
+		if (rowNums.length < count) {
+			rowNums = new int[count];
+		}
+		int width = 0;
+		for (int i = 0; i < count; i++) {
+			Row row = rows.get(i);
+			rowNums[i] = row.getRowNum();
+			width = Math.max(width, row.size());
+		}
+		if (columns.length < width) {
+			ColumnVector[] grown = new ColumnVector[width];
+			System.arraycopy(columns, 0, grown, 0, columns.length);
+			for (int col = columns.length; col < width; col++) {
+				grown[col] = new ColumnVector();
+			}
+			columns = grown;
+		}
+		for (int col = 0; col < width; col++) {
+			columns[col].fill(rows, col);
+		}
+		rowCount = count;
+		columnCount = width;
+		header = rows.get(count - 1).getHeader();
+	}
+}
@@ -0,0 +1,33 @@
+package cn.cy.read;
+
+/**
+ * 列式批次中的列类型，由本批次该列所有单元格的类型决定
+ *
+ * @author cy96151
+ */
+public enum ColumnType {
+	/**
+	 * 本批次中该列没有值（均为无单元格、空白单元格或错误单元格）
+	 */
+	EMPTY,
+
+	/**
+	 * 数值列，值存放于double数组
+	 */
+	NUMERIC,
+
+	/**
+	 * 日期列，所有值均为日期格式的数值单元格（须开启按样式格式化），值为毫秒时间戳，存放于long数组
+	 */
+	DATE,
+
+	/**
+	 * 布尔列，值存放于boolean数组
+	 */
+	BOOLEAN,
+
+	/**
+	 * 文本列，包括文本与其他类型混合的列，值为字典编码，存放于int数组
+	 */
+	STRING
+}
@@ -0,0 +1,316 @@
+package cn.cy.read;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import cn.cy.sst.SharedStrings;
+import cn.cy.util.DateParser;
+
+/**
+ * 列式批次中的一列
+ *
+ * <pre>
+ *     按列类型只写入对应的数组：NUMERIC写入getDoubles()，DATE写入getDates()，BOOLEAN写入getBooleans()，STRING写入getCodes()
+ *     空值记录在位图中（第i行对应getNullBits()[i >> 6]的第(i & 63)位），空值位置的数组元素无意义
+ *     文本列的编码：不小于0时为字符串共享数据集的索引值，在整个文件中稳定；小于0时为本批次的局部字典编码，只在本批次有效
+ *     数组在批次之间复用，长度可能大于行数，只有前size()个元素有效；回调结束后将被覆盖
+ * </pre>
+ *
+ * @author cy96151
+ */
+public final class ColumnVector {
+
+	private ColumnType type = ColumnType.EMPTY;
+
+	private int size;
+
+	private long[] nulls = new long[0];
+
+	private double[] doubles;
+
+	private long[] dates;
+
+	private boolean[] booleans;
+
+	private int[] codes;
+
+	/**
+	 * 字符串共享数据集，非负编码的字典
+	 */
+	private SharedStrings sst;
+
+	/**
+	 * 本批次的局部字典，编码为~下标
+	 */
+	private final List<String> locals = new ArrayList<String>();
+
+	private final Map<String, Integer> localCodes = new HashMap<String, Integer>();
+
+	ColumnVector() {
+	}
+
+	public ColumnType getType() {
+		return type;
+	}
+
+	/**
+	 * 行数，与批次的行数一致
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * 判断第i行是否为空值（无单元格、空白单元格、错误单元格）
+	 *
+	 * @param i
+	 *            批次中的行下标
+	 * @return 为空值时返回true
+	 */
+	public boolean isNull(int i) {
+		return (nulls[i >> 6] & (1L << i)) != 0;
+	}
+
+	/**
+	 * 空值位图
+	 */
+	public long[] getNullBits() {
+		return nulls;
+	}
+
+	/**
+	 * 数值列的值，空值为NaN
+	 *
+	 * @throws IllegalStateException
+	 *             不是数值列时抛出
+	 */
+	public double[] getDoubles() {
+		checkType(ColumnType.NUMERIC);
+		return doubles;
+	}
+
+	/**
+	 * 日期列的值（毫秒时间戳）
+	 *
+	 * @throws IllegalStateException
+	 *             不是日期列时抛出
+	 */
+	public long[] getDates() {
+		checkType(ColumnType.DATE);
+		return dates;
+	}
+
+	/**
+	 * 布尔列的值
+	 *
+	 * @throws IllegalStateException
+	 *             不是布尔列时抛出
+	 */
+	public boolean[] getBooleans() {
+		checkType(ColumnType.BOOLEAN);
+		return booleans;
+	}
+
+	/**
+	 * 文本列的字典编码，通过decode获取文本
+	 *
+	 * @throws IllegalStateException
+	 *             不是文本列时抛出
+	 */
+	public int[] getCodes() {
+		checkType(ColumnType.STRING);
+		return codes;
+	}
+
+	/**
+	 * 根据字典编码获取文本，与row.getString的结果一致
+	 *
+	 * @param code
+	 *            字典编码
+	 * @return 文本
+	 */
+	public String decode(int code) {
+		return code >= 0 ? sst.getTrimmed(code) : locals.get(~code);
+	}
+
+	/**
+	 * 本批次局部字典的大小，局部编码为-1至-size
+	 */
+	public int getLocalDictionarySize() {
+		return locals.size();
+	}
+
+	/**
+	 * 获取第i行的文本，文本列按字典解码，其他列转换为文本
+	 *
+	 * @param i
+	 *            批次中的行下标
+	 * @return 文本，空值返回null
+	 */
+	public String getString(int i) {
+		if (type == ColumnType.EMPTY || isNull(i)) {
+			return null;
+		}
+		switch (type) {
+		case NUMERIC:
+			return Double.toString(doubles[i]);
+		case DATE:
+			return new Date(dates[i]).toString();
+		case BOOLEAN:
+			return Boolean.toString(booleans[i]);
+		default:
+			return decode(codes[i]);
+		}
+	}
+
+	private void checkType(ColumnType expected) {
+		if (type != expected) {
+			throw new IllegalStateException("列类型为" + type + "，不是" + expected);
+		}
+	}
+
+	/**
+	 * 将各行的第col列写入本列
+	 *
+	 * @param rows
+	 *            同一批次的数据行
+	 * @param col
+	 *            列下标
+	 */
+	void fill(List<Row> rows, int col) {
+		int count = rows.size();
+		type = typeOf(rows, col);
+		size = count;
+		int words = (count + 63) >> 6;
+		if (nulls.length < words) {
+			nulls = new long[words];
+		} else {
+			Arrays.fill(nulls, 0, words, 0L);
+		}
+		locals.clear();
+		localCodes.clear();
+		switch (type) {
+		case EMPTY:
+			Arrays.fill(nulls, 0, words, -1L);
+			break;
+		case NUMERIC:
+			if (doubles == null || doubles.length < count) {
+				doubles = new double[count];
+			}
+			for (int i = 0; i < count; i++) {
+				Row row = rows.get(i);
+				if (isValue(row.getCellType(col))) {
+					doubles[i] = row.getDouble(col);
+				} else {
+					doubles[i] = Double.NaN;
+					setNull(i);
+				}
+			}
+			break;
+		case DATE:
+			if (dates == null || dates.length < count) {
+				dates = new long[count];
+			}
+			for (int i = 0; i < count; i++) {
+				Row row = rows.get(i);
+				Date date = isValue(row.getCellType(col)) ? DateParser.fromExcel(row.getDouble(col)) : null;
+				if (date != null) {
+					dates[i] = date.getTime();
+				} else {
+					dates[i] = 0;
+					setNull(i);
+				}
+			}
+			break;
+		case BOOLEAN:
+			if (booleans == null || booleans.length < count) {
+				booleans = new boolean[count];
+			}
+			for (int i = 0; i < count; i++) {
+				Row row = rows.get(i);
+				if (isValue(row.getCellType(col))) {
+					booleans[i] = row.getBoolean(col);
+				} else {
+					booleans[i] = false;
+					setNull(i);
+				}
+			}
+			break;
+		default:
+			if (codes == null || codes.length < count) {
+				codes = new int[count];
+			}
+			sst = rows.get(0).getSharedStrings();
+			for (int i = 0; i < count; i++) {
+				Row row = rows.get(i);
+				if (!isValue(row.getCellType(col))) {
+					codes[i] = 0;
+					setNull(i);
+					continue;
+				}
+				int idx = row.getSstIndex(col);
+				codes[i] = idx >= 0 ? idx : localCode(row.getString(col));
+			}
+			break;
+		}
+	}
+
+	/**
+	 * 根据本批次该列所有单元格的类型确定列类型
+	 */
+	private static ColumnType typeOf(List<Row> rows, int col) {
+		boolean numeric = false;
+		boolean allDates = true;
+		boolean bool = false;
+		for (int i = 0, count = rows.size(); i < count; i++) {
+			Row row = rows.get(i);
+			switch (row.getCellType(col)) {
+			case NUMERIC:
+				numeric = true;
+				if (allDates && !row.isDate(col)) {
+					allDates = false;
+				}
+				break;
+			case BOOLEAN:
+				bool = true;
+				break;
+			case STRING:
+				return ColumnType.STRING;
+			default:
+				break;
+			}
+		}
+		if (numeric && bool) {
+			return ColumnType.STRING;
+		}
+		if (numeric) {
+			return allDates ? ColumnType.DATE : ColumnType.NUMERIC;
+		}
+		return bool ? ColumnType.BOOLEAN : ColumnType.EMPTY;
+	}
+
+	private static boolean isValue(CellType type) {
+		return type == CellType.NUMERIC || type == CellType.STRING || type == CellType.BOOLEAN;
+	}
+
+	private void setNull(int i) {
+		nulls[i >> 6] |= 1L << i;
+	}
+
+	/**
+	 * 不在字符串共享数据集中的文本写入局部字典，相同的文本使用同一编码
+	 */
+	private int localCode(String value) {
+		Integer code = localCodes.get(value);
+		if (code == null) {
+			code = ~locals.size();
+			locals.add(value);
+			localCodes.put(value, code);
+		}
+		return code;
+	}
+}
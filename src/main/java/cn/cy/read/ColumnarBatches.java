@@ -0,0 +1,94 @@
+package cn.cy.read;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+
+import cn.cy.rollback.ReadExcelBatchRollBack;
+import cn.cy.rollback.ReadExcelColumnarRollBack;
+
+/**
+ * 列式批量回调
+ *
+ * <pre>
+ *     作为批量回调实例使用，将每批数据行转换为ColumnBatch后交给列式回调，批次大小由base.setBatch设置
+ *     数值列为double数组，日期列为毫秒时间戳数组，布尔列为boolean数组，文本列为字典编码数组（优先使用SST索引值），空值记录在位图中
+ *     每个Sheet页使用一个批次对象，Sheet页结束后由之后的Sheet页复用；同时读取多个Sheet页时各使用一个批次对象
+ * </pre>
+ *
+ * 使用方式：
+ *
+ * <pre>
+ * ReadExcelBase base = ReadExcelBase.create(path, new ColumnarBatches(rollback));
+ * base.setBatch(4096, 0);
+ * base.process();
+ * </pre>
+ *
+ * @author cy96151
+ */
+public class ColumnarBatches implements ReadExcelBatchRollBack {
+
+	private final ReadExcelColumnarRollBack instance;
+
+	/**
+	 * 读取中的各Sheet页的批次，键为Sheet页下标
+	 */
+	private final ConcurrentMap<Integer, ColumnBatch> sheets = new ConcurrentHashMap<Integer, ColumnBatch>();
+
+	/**
+	 * Sheet页结束后可复用的批次
+	 */
+	private final Queue<ColumnBatch> idle = new ConcurrentLinkedQueue<ColumnBatch>();
+
+	public ColumnarBatches(ReadExcelColumnarRollBack instance) {
+		if (instance == null) {
+			throw new IllegalArgumentException("列式回调实例不能为空");
+		}
+		this.instance = instance;
+	}
+
+	@Override
+	public void onSheetStart(String sheetName, ReadExcelBase base) throws Exception {
+		ColumnBatch batch = idle.poll();
+		if (batch == null) {
+			batch = new ColumnBatch();
+		}
+		sheets.put(base.getSheetIndex(), batch);
+		instance.onSheetStart(sheetName, base);
+	}
+
+	@Override
+	public void optRowsBatch(List<Row> rows, String sheetName, ReadExcelBase base) throws Exception {
+		if (rows.isEmpty()) {
+			return;
+		}
+		ColumnBatch batch = sheets.get(base.getSheetIndex());
+		if (batch == null) {
+			throw new IllegalStateException("Sheet页尚未开始读取：" + sheetName);
+		}
+		// 不按Sheet页保序回调时，同一Sheet页的批次可能在不同回调线程中同时回调
+		synchronized (batch) {
+			batch.fill(rows, sheetName, base.getSheetIndex());
+			instance.optColumns(batch, sheetName, base);
+		}
+	}
+
+	@Override
+	public void onSheetEnd(String sheetName, ReadExcelBase base) throws Exception {
+		ColumnBatch batch = sheets.remove(base.getSheetIndex());
+		try {
+			instance.onSheetEnd(sheetName, base);
+		} finally {
+			if (batch != null) {
+				idle.offer(batch);
+			}
+		}
+	}
+
+	@Override
+	public boolean judgeBreakSheet(String sheetName, ReadExcelBase base) {
+		return instance.judgeBreakSheet(sheetName, base);
+	}
+}
@@ -0,0 +1,173 @@
+package cn.cy.read;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Sheet页表头的列下标索引
+ *
+ * <pre>
+ *     每个Sheet页读取到表头行时创建一次，创建后不可变，可在多个回调线程中共用
+ *     表头名称规范化后比较：去掉前后空白，中间连续的空白（包括全角空格、不间断空格）视为一个空格，不区分大小写
+ *     同名的列按列下标顺序全部记录，indexOf返回第一列，indexesOf返回所有列；空白的表头单元格不记录
+ * </pre>
+ *
+ * @author cy96151
+ */
+public final class HeaderIndex {
+
+	/**
+	 * 缓存的查询名称数量上限
+	 */
+	private static final int MAX_LOOKUPS = 256;
+
+	private static final int[] NONE = new int[0];
+
+	/**
+	 * 各列的表头名称（去掉前后空白），下标为列下标
+	 */
+	private final String[] names;
+
+	/**
+	 * 规范化后的表头名称对应的列下标
+	 */
+	private final Map<String, int[]> columns;
+
+	/**
+	 * 查询名称至列下标的缓存，同一名称重复查询时不再规范化
+	 */
+	private final ConcurrentMap<String, Integer> lookups = new ConcurrentHashMap<String, Integer>();
+
+	/**
+	 * 根据表头行创建索引
+	 *
+	 * @param row
+	 *            表头行，为null时创建空索引（Sheet页中不存在表头行）
+	 */
+	HeaderIndex(Row row) {
+		int width = row == null ? 0 : row.size();
+		names = new String[width];
+		Map<String, List<Integer>> found = new HashMap<String, List<Integer>>();
+		for (int col = 0; col < width; col++) {
+			String cell = row.getString(col);
+			if (cell == null) {
+				continue;
+			}
+			String key = normalize(cell);
+			if (key.isEmpty()) {
+				continue;
+			}
+			names[col] = cell.trim();
+			List<Integer> list = found.get(key);
+			if (list == null) {
+				list = new ArrayList<Integer>(1);
+				found.put(key, list);
+			}
+			list.add(col);
+		}
+		Map<String, int[]> map = new HashMap<String, int[]>(found.size() * 2);
+		for (Map.Entry<String, List<Integer>> entry : found.entrySet()) {
+			List<Integer> list = entry.getValue();
+			int[] indexes = new int[list.size()];
+			for (int i = 0; i < indexes.length; i++) {
+				indexes[i] = list.get(i);
+			}
+			map.put(entry.getKey(), indexes);
+		}
+		columns = Collections.unmodifiableMap(map);
+	}
+
+	/**
+	 * 获取表头名称对应的列下标
+	 *
+	 * @param name
+	 *            表头名称，规范化后比较
+	 * @return 第一个同名列的下标，不存在时返回-1
+	 */
+	public int indexOf(String name) {
+		if (name == null) {
+			return -1;
+		}
+		Integer cached = lookups.get(name);
+		if (cached != null) {
+			return cached;
+		}
+		int[] indexes = columns.get(normalize(name));
+		int col = indexes == null ? -1 : indexes[0];
+		if (lookups.size() < MAX_LOOKUPS) {
+			lookups.put(name, col);
+		}
+		return col;
+	}
+
+	/**
+	 * 获取表头名称对应的所有列下标，用于存在同名列的表头
+	 *
+	 * @param name
+	 *            表头名称，规范化后比较
+	 * @return 按列下标排序的所有同名列的下标，不存在时返回空数组
+	 */
+	public int[] indexesOf(String name) {
+		if (name == null) {
+			return NONE;
+		}
+		int[] indexes = columns.get(normalize(name));
+		return indexes == null ? NONE : indexes.clone();
+	}
+
+	/**
+	 * 判断是否存在表头名称
+	 */
+	public boolean contains(String name) {
+		return indexOf(name) >= 0;
+	}
+
+	/**
+	 * 获取列的表头名称
+	 *
+	 * @param col
+	 *            列下标
+	 * @return 去掉前后空白的表头名称，无表头时返回null
+	 */
+	public String getName(int col) {
+		return col >= 0 && col < names.length ? names[col] : null;
+	}
+
+	/**
+	 * 表头行宽度
+	 */
+	public int size() {
+		return names.length;
+	}
+
+	/**
+	 * 规范化表头名称：去掉前后空白，中间连续的空白替换为一个空格，转换为小写
+	 *
+	 * @param name
+	 *            表头名称
+	 * @return 规范化后的名称，全为空白时返回空字符串
+	 */
+	static String normalize(String name) {
+		StringBuilder sb = new StringBuilder(name.length());
+		boolean space = false;
+		for (int i = 0, length = name.length(); i < length; i++) {
+			char c = name.charAt(i);
+			if (c <= ' ' || Character.isWhitespace(c) || Character.isSpaceChar(c)) {
+				space = sb.length() > 0;
+				continue;
+			}
+			if (space) {
+				sb.append(' ');
+				space = false;
+			}
+			sb.append(c);
+		}
+		return sb.toString().toLowerCase(Locale.ROOT);
+	}
+}
@@ -0,0 +1,184 @@
+package cn.cy.read;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * 读取检查点
+ *
+ * <pre>
+ *     记录process()已回调完成的位置：工作簿内容的SHA-256、Sheet页下标、该Sheet页已回调完成的最后一行行号，以及回调方设置的令牌
+ *     sheetCompleted为true时表示该Sheet页（及之前的Sheet页）已全部回调完成
+ *     可通过encode()转换为文本持久化，之后通过decode()还原，交给setResumeCheckpoint从该位置继续读取
+ *     工作簿SHA-256为null的检查点（由调用方创建，或生成时文件对象已释放）恢复读取时不校验文件内容，须由调用方保证是同一文件；
+ *     带有SHA-256的检查点在当前文件的SHA-256无法计算时拒绝恢复，不会退化为不校验
+ * </pre>
+ *
+ * @author cy96151
+ */
+public final class ReadCheckpoint {
+
+	/**
+	 * 文本格式版本
+	 */
+	private static final String VERSION = "v1";
+
+	private static final String SEPARATOR = ":";
+
+	/**
+	 * 文本中null值的表示
+	 */
+	private static final String NULL = "-";
+
+	private final String workbookHash;
+	private final int sheetIndex;
+	private final String sheetName;
+	private final int curRow;
+	private final boolean sheetCompleted;
+	private final String token;
+
+	/**
+	 * @param workbookHash
+	 *            工作簿内容的SHA-256（十六进制），为null时恢复读取不校验文件内容
+	 * @param sheetIndex
+	 *            Sheet页下标
+	 * @param sheetName
+	 *            Sheet页名称
+	 * @param curRow
+	 *            已回调完成的最后一行行号
+	 * @param sheetCompleted
+	 *            该Sheet页是否已全部回调完成
+	 * @param token
+	 *            回调方设置的令牌，可为null
+	 */
+	public ReadCheckpoint(String workbookHash, int sheetIndex, String sheetName, int curRow, boolean sheetCompleted,
+			String token) {
+		if (sheetIndex < 0 || curRow < 0) {
+			throw new IllegalArgumentException("检查点位置无效：" + sheetIndex + "/" + curRow);
+		}
+		this.workbookHash = workbookHash;
+		this.sheetIndex = sheetIndex;
+		this.sheetName = sheetName;
+		this.curRow = curRow;
+		this.sheetCompleted = sheetCompleted;
+		this.token = token;
+	}
+
+	/**
+	 * 工作簿内容的SHA-256（十六进制），无法获取文件内容时为null
+	 */
+	public String getWorkbookHash() {
+		return workbookHash;
+	}
+
+	public int getSheetIndex() {
+		return sheetIndex;
+	}
+
+	public String getSheetName() {
+		return sheetName;
+	}
+
+	/**
+	 * 已回调完成的最后一行行号
+	 */
+	public int getCurRow() {
+		return curRow;
+	}
+
+	/**
+	 * 该Sheet页是否已全部回调完成
+	 */
+	public boolean isSheetCompleted() {
+		return sheetCompleted;
+	}
+
+	/**
+	 * 回调方设置的令牌
+	 */
+	public String getToken() {
+		return token;
+	}
+
+	/**
+	 * 判断Sheet页是否已全部回调完成，恢复读取时不再读取
+	 *
+	 * @param index
+	 *            Sheet页下标
+	 * @return 若已完成，返回true
+	 */
+	boolean covers(int index) {
+		return index < sheetIndex || (index == sheetIndex && sheetCompleted);
+	}
+
+	/**
+	 * 判断数据行是否已回调完成
+	 *
+	 * @param index
+	 *            Sheet页下标
+	 * @param rowNum
+	 *            行号
+	 * @return 若已完成，返回true
+	 */
+	boolean covers(int index, int rowNum) {
+		return covers(index) || (index == sheetIndex && rowNum <= curRow);
+	}
+
+	/**
+	 * 转换为可持久化的文本，只包含ASCII字符
+	 *
+	 * @return 检查点文本
+	 */
+	public String encode() {
+		StringBuilder sb = new StringBuilder(VERSION);
+		sb.append(SEPARATOR).append(workbookHash == null ? NULL : workbookHash);
+		sb.append(SEPARATOR).append(sheetIndex);
+		sb.append(SEPARATOR).append(curRow);
+		sb.append(SEPARATOR).append(sheetCompleted ? 1 : 0);
+		sb.append(SEPARATOR).append(encodeText(sheetName));
+		sb.append(SEPARATOR).append(encodeText(token));
+		return sb.toString();
+	}
+
+	/**
+	 * 由encode()的文本还原检查点
+	 *
+	 * @param text
+	 *            检查点文本
+	 * @return 检查点
+	 * @throws IllegalArgumentException
+	 *             文本格式无效
+	 */
+	public static ReadCheckpoint decode(String text) {
+		String[] parts = text == null ? new String[0] : text.split(SEPARATOR, -1);
+		if (parts.length != 7 || !VERSION.equals(parts[0])) {
+			throw new IllegalArgumentException("检查点格式无效：" + text);
+		}
+		try {
+			return new ReadCheckpoint(NULL.equals(parts[1]) ? null : parts[1], Integer.parseInt(parts[2]),
+					decodeText(parts[5]), Integer.parseInt(parts[3]), "1".equals(parts[4]), decodeText(parts[6]));
+		} catch (RuntimeException e) {
+			throw new IllegalArgumentException("检查点格式无效：" + text, e);
+		}
+	}
+
+	private static String encodeText(String value) {
+		if (value == null) {
+			return NULL;
+		}
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private static String decodeText(String value) {
+		if (NULL.equals(value)) {
+			return null;
+		}
+		return new String(Base64.getUrlDecoder().decode(value), StandardCharsets.UTF_8);
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%s[%d]%s%d, token=%s", sheetName, sheetIndex, sheetCompleted ? " completed, row=" : " row=",
+				curRow, token);
+	}
+}
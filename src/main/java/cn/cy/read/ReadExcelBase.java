@@ -1,20 +1,49 @@
 package cn.cy.read;
 
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.FileInputStream;
+import java.io.FilterInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.io.PushbackInputStream;
-import java.text.DateFormat;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.text.ParseException;
-import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import org.apache.poi.POIXMLDocument;
 import org.apache.poi.poifs.filesystem.POIFSFileSystem;
 
+import cn.cy.exception.ReadLimitExceededException;
+import cn.cy.exception.ReadLimitExceededException.Limit;
+import cn.cy.exception.SheetBreakException;
+import cn.cy.exception.SheetContinueException;
+import cn.cy.metrics.ReadListener;
+import cn.cy.rollback.CheckpointListener;
+import cn.cy.rollback.ReadExcelBatchRollBack;
 import cn.cy.rollback.ReadExcelRollBack;
+import cn.cy.rollback.ReadExcelRowRollBack;
+import cn.cy.rollback.RowFilter;
+import cn.cy.sst.SharedStrings;
+import cn.cy.sst.SharedStringsMode;
+import cn.cy.util.DateParser;
 
 /**
  * Excel数据读取基类
@@ -26,7 +55,7 @@ import cn.cy.rollback.ReadExcelRollBack;
  *
  * @author cy96151
  */
-public abstract class ReadExcelBase {
+public abstract class ReadExcelBase implements Closeable {
 
 	/*
 	 * =========================================================================
@@ -38,129 +67,1964 @@ public abstract class ReadExcelBase {
 	 * ===
 	 */
 	/**
-	 * 当前sheet页名称
+	 * 依次读取时当前Sheet页的状态
 	 */
-	protected String sheetName;
+	final SheetState state = new SheetState();
 
 	/**
-	 * 当前sheet页下标
+	 * 绑定至回调线程的Sheet页状态，未绑定时取依次读取时的状态
 	 */
-	protected int sheetIndex = -1;
+	private final ThreadLocal<SheetState> boundState = new ThreadLocal<SheetState>();
 
 	/**
-	 * 当前行数据
+	 * 回调实例
 	 */
-	protected List<String> rowArray = new ArrayList<String>();
+	protected ReadExcelRollBack instance;
 
 	/**
-	 * 当前行号
+	 * 类型化回调实例，不为null时优先回调此实例
 	 */
-	protected int curRow = 0;
+	protected ReadExcelRowRollBack rowInstance;
 
 	/**
-	 * 当前sheet页是否跳过
+	 * 批量回调实例，不为null时数据行将累积后批量回调
 	 */
-	protected boolean breakSheet = false;
+	protected ReadExcelBatchRollBack batchInstance;
 
 	/**
-	 * 回调实例
+	 * 每批回调的最大行数
 	 */
-	protected ReadExcelRollBack instance;
+	protected int batchSize = 1000;
+
+	/**
+	 * 每批数据行的最长等待时间（毫秒），为0时不限制
+	 */
+	protected long batchMaxLatency = 0;
+
+	/**
+	 * 字符串共享数据集存储模式，仅Excel07版本生效
+	 */
+	protected SharedStringsMode sharedStringsMode = SharedStringsMode.MEMORY;
+
+	/**
+	 * 字符串共享数据集堆内缓冲上限（字节），仅MAPPED、LAZY模式生效
+	 */
+	protected long sharedStringsBudget = SharedStrings.DEFAULT_BUDGET;
+
+	/**
+	 * 字符串共享数据集的解码缓存上限，不大于0时不缓存
+	 */
+	protected int sharedStringsCache;
+
+	/**
+	 * 读取限制，为null时不限制
+	 */
+	protected ReadLimits readLimits;
+
+	/**
+	 * 已解压的总字节数，并行读取时各Sheet页共用
+	 */
+	private AtomicLong inflatedBytes;
+
+	/**
+	 * 文件中各部分压缩后的总字节数，用于计算解压比值，为0时不检查比值
+	 */
+	private long compressedBytes;
+
+	/**
+	 * 是否按单元格样式的数字格式转换数值
+	 */
+	protected boolean formatted;
+
+	/**
+	 * 数字格式表，开启按样式格式化时读取文件后加载
+	 */
+	CellFormats cellFormats;
+
+	/**
+	 * 并行读取Sheet页的线程池，为null时依次读取各Sheet页，仅Excel07版本生效
+	 */
+	protected ExecutorService sheetExecutor;
+
+	/**
+	 * 并行读取Sheet页时的数据行回调方式
+	 */
+	protected SheetDelivery sheetDelivery = SheetDelivery.ORDERED;
+
+	/**
+	 * 回调线程池，不为null时解析与回调分离，由回调线程执行回调
+	 */
+	protected ExecutorService pipelineExecutor;
+
+	/**
+	 * 回调线程数
+	 */
+	protected int pipelineConsumers = 1;
+
+	/**
+	 * 待回调队列容量
+	 */
+	protected int pipelineCapacity = 1024;
+
+	/**
+	 * 是否按Sheet页保序回调
+	 */
+	protected boolean pipelineSheetOrdered = true;
+
+	/**
+	 * 读取过程中的数据行流水线
+	 */
+	private RowPipeline pipeline;
+
+	/**
+	 * 按列下标投影时需读取的列，为null时读取所有列
+	 * <p>
+	 * 按表头名称投影时为null，需读取的列由各Sheet页的表头行解析，存放于Sheet页状态中
+	 * </p>
+	 */
+	protected boolean[] columnMask;
+
+	/**
+	 * 按表头名称投影时需读取的表头名称，为null时按列下标投影
+	 */
+	protected String[] columnHeaders;
+
+	/**
+	 * 表头行号，为0时不解析表头（按表头名称投影时以每个Sheet页的第一行作为表头行）
+	 */
+	protected int headerRow;
+
+	/**
+	 * 数据行过滤器，为null时不过滤
+	 */
+	protected RowFilter rowFilter;
+
+	/**
+	 * 读取结束后是否释放文件对象，通过tee创建时默认为true
+	 */
+	private boolean releaseAfterRead;
+
+	/**
+	 * 读取过程监听，为null时不做任何统计
+	 */
+	private ReadListener readListener;
+
+	/**
+	 * 慢回调阈值（纳秒）
+	 */
+	private long slowCallbackNanos;
+
+	/**
+	 * 本次process()读取的统计，未设置监听时为null
+	 */
+	ReadRecorder recorder;
+
+	/**
+	 * 检查点接口，为null时不生成检查点
+	 */
+	private CheckpointListener checkpointListener;
+
+	/**
+	 * 每回调完成多少行生成一次检查点
+	 */
+	private int checkpointInterval;
+
+	/**
+	 * 恢复读取的检查点，为null时从头读取
+	 */
+	private ReadCheckpoint resumeCheckpoint;
+
+	/**
+	 * 本次process()读取生效的恢复检查点，只在process()读取过程中不为null
+	 */
+	private ReadCheckpoint resumed;
+
+	/**
+	 * 本次process()读取是否生成检查点
+	 */
+	private boolean checkpointing;
+
+	/**
+	 * 回调方设置的令牌，随检查点一起持久化
+	 */
+	private String checkpointToken;
+
+	/**
+	 * 距上一个检查点已回调完成的行数
+	 */
+	private int rowsSinceCheckpoint;
+
+	/**
+	 * 工作簿内容的SHA-256，首次使用时计算
+	 */
+	private String workbookHash;
+
+	/**
+	 * 通过文件创建时的源文件通道，保存文件时直接复制原始内容
+	 */
+	private FileChannel source;
+
+	/**
+	 * 源文件通道是否由本类打开，为true时关闭时一并关闭
+	 */
+	private boolean ownsSource;
+
+	/**
+	 * 文件流暂存的临时文件，打开后无法直接删除时（如Windows）在关闭时删除
+	 */
+	private Path spoolFile;
+
+	/**
+	 * 是否通过文件流创建，为true时源文件通道为暂存的临时文件，由本类持有
+	 */
+	private boolean spooled;
+
+	/**
+	 * 暂存的临时文件是否已在读取结束后释放
+	 */
+	private boolean sourceReleased;
 
 	public String getSheetName() {
-		return sheetName;
+		return currentState().sheetName;
 	}
 
 	public int getCurRow() {
-		return curRow;
+		return currentState().curRow;
 	}
 
 	public int getSheetIndex() {
-		return sheetIndex;
+		return currentState().sheetIndex;
 	}
 
 	public void setBreakSheet(boolean breakSheet) {
-		this.breakSheet = breakSheet;
+		currentState().breakSheet = breakSheet;
 	}
 
 	/**
-	 * 通过判断文件版本，创建不同的读取事件驱动类 若文件版本是Excel03，则创建ReadExcelOfHxls
-	 * 若文件版本是Excel07，则创建ReadExcelOfXxls 若无法识别，则抛出IllegalArgumentException异常
+	 * 回调中使用的Sheet页状态，当前线程绑定了状态时取绑定的状态，否则取依次读取时的状态
+	 */
+	private SheetState currentState() {
+		SheetState bound = boundState.get();
+		return bound == null ? state : bound;
+	}
+
+	/**
+	 * 将Sheet页状态绑定至当前线程，之后在此线程中回调时，通过base获取的Sheet页名称、下标、行号和表头取自此状态
 	 *
-	 * @param inp
-	 *            文件流
-	 * @param instance
-	 *            数据回调类
-	 * @return ReadExcelBase 数据基类
-	 * @throws Exception
-	 *             若文件无法识别，则抛出IllegalArgumentException异常
+	 * @param sheetState
+	 *            Sheet页状态，为null时解除绑定
+	 * @return 之前绑定的状态，用完后须通过此方法恢复
 	 */
-	public static ReadExcelBase create(InputStream inp, ReadExcelRollBack instance) throws Exception {
-		if (!inp.markSupported()) {
-			inp = new PushbackInputStream(inp, 8);
+	SheetState bindState(SheetState sheetState) {
+		SheetState previous = boundState.get();
+		if (sheetState == null) {
+			boundState.remove();
+		} else {
+			boundState.set(sheetState);
 		}
+		return previous;
+	}
+
+	/**
+	 * 设置字符串共享数据集存储模式，须在process()前调用
+	 *
+	 * @param sharedStringsMode
+	 *            存储模式，默认为MEMORY
+	 */
+	public void setSharedStringsMode(SharedStringsMode sharedStringsMode) {
+		this.sharedStringsMode = sharedStringsMode;
+	}
+
+	/**
+	 * 设置字符串共享数据集堆内缓冲上限，超出后写入临时文件，须在process()前调用
+	 *
+	 * @param sharedStringsBudget
+	 *            堆内缓冲上限（字节），默认为16MB
+	 */
+	public void setSharedStringsBudget(long sharedStringsBudget) {
+		this.sharedStringsBudget = sharedStringsBudget;
+	}
+
+	/**
+	 * 设置字符串共享数据集的解码缓存，须在process()前调用，两个版本均生效
+	 * <p>
+	 * 开启后每个SST索引值只解码、去除首尾空白一次，重复出现的文本返回同一个字符串对象，适合大量重复文本（如状态、类别列）的文件；
+	 * 字符串数量不超过上限时缓存全部字符串，否则按索引值直接映射至定长的缓存，冲突时替换
+	 * </p>
+	 *
+	 * @param maxEntries
+	 *            缓存上限（字符串数量），默认为0即不缓存
+	 */
+	public void setSharedStringsCache(int maxEntries) {
+		this.sharedStringsCache = maxEntries;
+	}
+
+	/**
+	 * 设置读取限制，须在process()前调用，两个版本均生效（解压相关的限制仅Excel07版本生效）
+	 *
+	 * <pre>
+	 *     用于读取不受信任的文件，超出任一上限时抛出ReadLimitExceededException并终止读取，可通过ReadLimits.defaults()获取默认限制
+	 *     设置后字符串共享数据集的MEMORY模式按MAPPED模式存储，超出堆内缓冲上限后写入临时文件
+	 *     Excel07版本的解压限制对通过create()创建的读取类均有效，文件流先暂存至临时文件，与文件路径一样按需解压
+	 *     直接通过ReadExcelOfXxls(InputStream)构造时POI会先将整个文件解压至内存，解压限制无法在解压过程中生效
+	 *     设置后rowlist中不再补空：optRows收到的是以列下标为下标的只读列表，超宽数据行不会按列数分配空间
+	 * </pre>
+	 *
+	 * @param readLimits
+	 *            读取限制，为null时不限制
+	 */
+	public void setReadLimits(ReadLimits readLimits) {
+		this.readLimits = readLimits;
+	}
+
+	/**
+	 * 设置是否按单元格样式的数字格式转换数值，须在process()前调用
+	 * <p>
+	 * 开启后数值单元格的文本与Excel中显示的一致，如日期为“2020/1/1”而不是“43831.0”，整数为“1”而不是“1.0”；
+	 * 可通过row.isDate、row.getDate判断和获取日期。数字格式表在读取时加载一次，各样式的格式只解析一次
+	 * </p>
+	 *
+	 * @param formatted
+	 *            是否按样式格式化，默认为false
+	 */
+	public void setFormatted(boolean formatted) {
+		this.formatted = formatted;
+	}
 
-		if (POIFSFileSystem.hasPOIFSHeader(inp)) {
-			return new ReadExcelOfHxls(inp, instance);
+	/**
+	 * 设置批量回调的批次大小和最长等待时间，须在process()前调用
+	 *
+	 * <pre>
+	 *     数据行累积到batchSize行，或距离本批第一行超过maxLatencyMillis毫秒时，将回调optRowsBatch
+	 *     等待时间在读取到新的数据行时检查，读取过程中不会另起线程
+	 * </pre>
+	 *
+	 * @param batchSize
+	 *            每批回调的最大行数，默认为1000
+	 * @param maxLatencyMillis
+	 *            每批数据行的最长等待时间（毫秒），为0时不限制
+	 */
+	public void setBatch(int batchSize, long maxLatencyMillis) {
+		if (batchSize < 1) {
+			throw new IllegalArgumentException("批次大小须大于0");
 		}
-		if (POIXMLDocument.hasOOXMLHeader(inp)) {
-			return new ReadExcelOfXxls(inp, instance);
+		this.batchSize = batchSize;
+		this.batchMaxLatency = maxLatencyMillis;
+	}
+
+	/**
+	 * 设置并行读取Sheet页的线程池，须在process()前调用
+	 *
+	 * <pre>
+	 *     设置后各Sheet页将提交至此线程池中同时解析，线程池由调用方创建和关闭
+	 *     线程池须按提交顺序执行任务（如ThreadPoolExecutor），否则按顺序回调时可能互相等待
+	 * </pre>
+	 *
+	 * @param sheetExecutor
+	 *            线程池，为null时依次读取各Sheet页
+	 * @param sheetDelivery
+	 *            数据行回调方式
+	 */
+	public void setSheetExecutor(ExecutorService sheetExecutor, SheetDelivery sheetDelivery) {
+		this.sheetExecutor = sheetExecutor;
+		this.sheetDelivery = sheetDelivery;
+	}
+
+	/**
+	 * 设置解析与回调分离的回调线程池，须在process()前调用
+	 *
+	 * <pre>
+	 *     设置后解析线程只负责解析，数据行放入有界队列后由consumers个回调线程回调，回调较慢时不再阻塞解析
+	 *     队列已满时解析线程等待；回调中抛出的异常（包括Error）将在解析线程中抛出，SheetContinueException和SheetBreakException的效果不变
+	 *     sheetOrdered为true时，同一Sheet页的数据行由同一个回调线程按顺序回调；为false时数据行的回调顺序不确定，回调方法可能被并发调用
+	 *     为false时抛出SheetContinueException或SheetBreakException前，其他回调线程已取出的数据行仍会回调
+	 *     线程池由调用方创建和关闭，须至少有consumers个空闲线程；并行读取Sheet页（setSheetExecutor）时不生效
+	 * </pre>
+	 *
+	 * @param executor
+	 *            回调线程池，为null时在解析线程中回调
+	 * @param consumers
+	 *            回调线程数
+	 * @param capacity
+	 *            每个待回调队列的容量，批量回调时以批次计
+	 * @param sheetOrdered
+	 *            是否按Sheet页保序回调
+	 */
+	public void setPipeline(ExecutorService executor, int consumers, int capacity, boolean sheetOrdered) {
+		if (consumers < 1 || capacity < 1) {
+			throw new IllegalArgumentException("回调线程数和队列容量须大于0");
 		}
-		throw new IllegalArgumentException("无法识别Excel版本,请检查文件是否正常!");
+		this.pipelineExecutor = executor;
+		this.pipelineConsumers = consumers;
+		this.pipelineCapacity = capacity;
+		this.pipelineSheetOrdered = sheetOrdered;
 	}
 
 	/**
-	 * 将任何符合日期格式的字符串转化为日期类型
+	 * 当前读取中同一Sheet页的数据行是否按行顺序回调
 	 * <p>
-	 * parseStringToDate("2010-12-12") = Sun Dec 12 00:00:00 CST 2010
-	 * parseStringToDate("20101212") = Sun Dec 12 00:00:00 CST 2010
-	 * parseStringToDate("2010/12/12") = Sun Dec 12 00:00:00 CST 2010
-	 * parseStringToDate("2010年12月12日") = Sun Dec 12 00:00:00 CST 2010
-	 * parseStringToDate("2010 8 12") = Thu Aug 12 00:00:00 CST 2010
-	 * parseStringToDate("20100802") = Mon Aug 02 00:00:00 CST 2010
-	 * parseStringToDate("2010 8 2") = Mon Aug 02 00:00:00 CST 2010
-	 * parseStringToDate("2010年8月2日") = Mon Aug 02 00:00:00 CST 2010
+	 * 只有设置了回调线程池且不按Sheet页保序回调（setPipeline(executor, n, capacity, false)）时返回false，
+	 * 此时同一Sheet页的数据行或批次可能在多个回调线程中乱序、并发回调；须在读取过程中调用
+	 * </p>
+	 *
+	 * @return 是否按行顺序回调
+	 */
+	public boolean isSheetRowsOrdered() {
+		return pipeline == null || pipeline.isSheetOrdered();
+	}
+
+	/**
+	 * 按列下标设置需读取的列，须在process()前调用
+	 *
+	 * <pre>
+	 *     其他列的单元格在解析时直接跳过，不再读取值和查找字符串共享数据集
+	 *     列下标保持不变，rowlist中未读取的列以null填充
+	 * </pre>
+	 *
+	 * @param columns
+	 *            需读取的列下标（从0开始），为null时读取所有列
+	 */
+	public void setColumns(int... columns) {
+		this.columnHeaders = null;
+		if (columns == null) {
+			this.columnMask = null;
+			return;
+		}
+		int length = 0;
+		for (int col : columns) {
+			if (col < 0) {
+				throw new IllegalArgumentException("列下标不能小于0");
+			}
+			length = Math.max(length, col + 1);
+		}
+		boolean[] mask = new boolean[length];
+		for (int col : columns) {
+			mask[col] = true;
+		}
+		this.columnMask = mask;
+	}
+
+	/**
+	 * 按表头名称设置需读取的列，须在process()前调用
+	 *
+	 * <pre>
+	 *     表头行（默认为每个Sheet页的第一行，可通过setHeaderRow设置）完整读取，表头名称规范化后相同的列为需读取的列，之后的数据行只读取这些列
+	 *     表头行同样只保留需读取的列后回调；Sheet页中不存在的表头名称将被忽略
+	 * </pre>
+	 *
+	 * @param headers
+	 *            需读取的表头名称，为null时读取所有列
+	 */
+	public void setColumns(String... headers) {
+		this.columnMask = null;
+		this.columnHeaders = headers == null ? null : headers.clone();
+	}
+
+	/**
+	 * 设置表头行号，须在process()前调用
+	 *
+	 * <pre>
+	 *     每个Sheet页读取到表头行时创建一次表头索引（HeaderIndex），之后的数据行可通过row.get("名称")按表头名称获取单元格，
+	 *     回调中也可通过base.getHeader()获取；表头名称去掉前后空白、合并中间空白后不区分大小写比较
+	 *     表头行之前的行没有表头索引；Sheet页中不存在表头行时，之后的行使用空的表头索引
+	 *     与setColumns(String...)同时使用时，以此行作为投影的表头行，表头行之前的行完整读取
+	 * </pre>
+	 *
+	 * @param headerRow
+	 *            表头行号（从1开始），默认为0即不解析表头
+	 */
+	public void setHeaderRow(int headerRow) {
+		if (headerRow < 0) {
+			throw new IllegalArgumentException("表头行号不能小于0：" + headerRow);
+		}
+		this.headerRow = headerRow;
+	}
+
+	/**
+	 * 获取当前Sheet页的表头索引
 	 * <p>
-	 * parseStringToDate("2010-12-12 05:04:03") = Sun Dec 12 05:04:03 CST 2010
-	 * parseStringToDate("2010/12/12 05:04:03") = Sun Dec 12 05:04:03 CST 2010
-	 * parseStringToDate("20101212 05:04:03") = Sun Dec 12 05:04:03 CST 2010
+	 * 与getSheetIndex一样只在当前回调的数据行上有效；使用回调流水线或批量回调时请通过row.getHeader()获取
+	 * </p>
 	 *
-	 * @param sdate
-	 *            要转换成日期的字符串
-	 * @return Date
-	 * @throws ParseException
-	 *             格式转换异常
+	 * @return 表头索引；未设置表头行、当前Sheet页尚未读取到表头行时返回null
 	 */
-	public static Date parseStringToDate(String sdate) throws ParseException {
-		String parse;
-		parse = sdate.replaceFirst("^[0-9]{4}([^0-9]?)", "yyyy$1");
-		parse = parse.replaceFirst("^[0-9]{2}([^0-9]?)", "yy$1");
-		parse = parse.replaceFirst("([^0-9y]?)[0-9]{1,2}([^0-9]?)", "$1MM$2");
-		parse = parse.replaceFirst("([^0-9M]?)[0-9]{1,2}( ?)", "$1dd$2");
-		parse = parse.replaceFirst("( )[0-9]{1,2}([^0-9]?)", "$1HH$2");
-		parse = parse.replaceFirst("([^0-9]?)[0-9]{1,2}([^0-9]?)", "$1mm$2");
-		parse = parse.replaceFirst("([^0-9]?)[0-9]{1,2}([^0-9]?)", "$1ss$2");
-		DateFormat format = new SimpleDateFormat(parse);
-		return format.parse(sdate);
+	public HeaderIndex getHeader() {
+		SheetState s = currentState();
+		if (s.headerSheet == s.sheetIndex) {
+			return s.header;
+		}
+		// 并行读取按Sheet页顺序回调时，表头由各Sheet页的解析线程创建，随数据行传递
+		return s.row.getHeader();
 	}
 
 	/**
-	 * 触发文件读取驱动
+	 * 设置数据行过滤器，须在process()前调用
 	 *
-	 * @throws Exception
-	 *             文件读取中的异常抛出，包括校验异常、数据保存异常和手动抛出异常。 若抛出异常则终止数据导入，并抛出错误信息。
+	 * @param rowFilter
+	 *            数据行过滤器，返回false的数据行不会回调
 	 */
-	public abstract void process() throws Exception;
+	public void setRowFilter(RowFilter rowFilter) {
+		this.rowFilter = rowFilter;
+	}
 
 	/**
-	 * 文件读取完成后进行保存
+	 * 设置读取结束后是否释放文件对象，须在process()前调用
+	 * <p>
+	 * 通过文件创建时默认不释放，释放后saveFile仍可直接复制原始内容，但不能再次读取；
+	 * 通过文件流创建时默认释放，暂存的临时文件一并关闭并删除，saveFile须在process()前调用，设置为false时保留至close()
+	 * </p>
 	 *
-	 * @param stream
-	 *            保存文件的IO流对象，将会把文件内容写入到此IO流中
-	 * @throws IOException
-	 *             文件保存异常
+	 * @param releaseAfterRead
+	 *            是否释放文件对象
 	 */
-	public abstract void saveFile(OutputStream stream) throws IOException;
+	public void setReleaseAfterRead(boolean releaseAfterRead) {
+		this.releaseAfterRead = releaseAfterRead;
+	}
+
+	/**
+	 * 设置读取过程监听，须在process()前调用
+	 * <p>
+	 * process()读取时统计打开耗时、字符串共享数据集、各Sheet页的行数、单元格数、读取字节数、解析与回调耗时，并回调监听；
+	 * 未设置时不做任何统计。可使用JfrReadListener输出为JFR事件
+	 * </p>
+	 * <p>
+	 * 设置回调线程池时，回调耗时只计回调线程中回调方法本身的耗时，Sheet页结束的统计在该Sheet页的数据行回调结束后回调，可能在回调线程中回调
+	 * </p>
+	 *
+	 * @param readListener
+	 *            读取过程监听，为null时关闭统计
+	 * @param slowCallbackMillis
+	 *            单次回调耗时达到此值（毫秒）时回调slowCallback
+	 */
+	public void setReadListener(ReadListener readListener, long slowCallbackMillis) {
+		this.readListener = readListener;
+		this.slowCallbackNanos = TimeUnit.MILLISECONDS.toNanos(slowCallbackMillis);
+	}
+
+	public ReadListener getReadListener() {
+		return readListener;
+	}
+
+	public long getSlowCallbackMillis() {
+		return TimeUnit.NANOSECONDS.toMillis(slowCallbackNanos);
+	}
+
+	/**
+	 * 设置检查点接口，须在process()前调用
+	 *
+	 * <pre>
+	 *     process()读取时每回调完成rowInterval行（批量回调时在达到行数的批次回调完成后），以及每个Sheet页读取结束时调用检查点接口
+	 *     检查点包括工作簿内容的SHA-256、Sheet页下标和已回调完成的最后一行行号，以及最近一次通过setCheckpointToken设置的令牌
+	 *     只支持在解析线程中依次回调，不能与setSheetExecutor、setPipeline同时使用
+	 * </pre>
+	 *
+	 * @param checkpointListener
+	 *            检查点接口，为null时不生成检查点
+	 * @param rowInterval
+	 *            生成检查点的间隔行数
+	 */
+	public void setCheckpoint(CheckpointListener checkpointListener, int rowInterval) {
+		if (rowInterval < 1) {
+			throw new IllegalArgumentException("检查点间隔行数须大于0");
+		}
+		this.checkpointListener = checkpointListener;
+		this.checkpointInterval = rowInterval;
+	}
+
+	/**
+	 * 设置恢复读取的检查点，须在process()前调用
+	 *
+	 * <pre>
+	 *     process()读取时，检查点之前已全部回调完成的Sheet页不再读取，也不调用judgeBreakSheet
+	 *     检查点所在的Sheet页直接定位到之后的行：Excel07版本按字节跳过之前的row元素，Excel03版本定位到所在的行块，之前的行不解析单元格、不查找字符串共享数据集，也不回调
+	 *     该Sheet页仍会回调onSheetStart和onSheetEnd；按表头名称设置读取列时，该Sheet页从头解析以读取表头行，之前的行同样不回调
+	 *     检查点的工作簿SHA-256与当前文件不一致时，process()抛出IllegalArgumentException；令牌将作为getCheckpointToken()的初始值
+	 *     文件对象已释放（setReleaseAfterRead）而无法计算当前文件的SHA-256时，process()抛出IllegalStateException；检查点不带SHA-256时不校验文件内容
+	 *     只支持在解析线程中依次回调，不能与setSheetExecutor、setPipeline同时使用
+	 * </pre>
+	 *
+	 * @param checkpoint
+	 *            检查点，为null时从头读取
+	 */
+	public void setResumeCheckpoint(ReadCheckpoint checkpoint) {
+		this.resumeCheckpoint = checkpoint;
+		this.checkpointToken = checkpoint == null ? null : checkpoint.getToken();
+	}
+
+	/**
+	 * 设置随检查点持久化的令牌，可在回调中调用，如记录已提交的业务批次号
+	 *
+	 * @param checkpointToken
+	 *            令牌，内容由回调方决定
+	 */
+	public void setCheckpointToken(String checkpointToken) {
+		this.checkpointToken = checkpointToken;
+	}
+
+	public String getCheckpointToken() {
+		return checkpointToken;
+	}
+
+	/**
+	 * 通过判断文件版本，创建不同的读取事件驱动类 若文件版本是Excel03，则创建ReadExcelOfHxls
+	 * 若文件版本是Excel07，则创建ReadExcelOfXxls 若无法识别，则抛出IllegalArgumentException异常
+	 *
+	 * @param inp
+	 *            文件流
+	 * @param instance
+	 *            数据回调类
+	 * @return ReadExcelBase 数据基类
+	 * @throws Exception
+	 *             若文件无法识别，则抛出IllegalArgumentException异常
+	 */
+	public static ReadExcelBase create(InputStream inp, ReadExcelRollBack instance) throws Exception {
+		return create(inp, null, instance);
+	}
+
+	/**
+	 * 创建读取事件驱动类，同时将文件原始内容复制至指定通道（如归档文件）
+	 *
+	 * <pre>
+	 *     文件流先暂存至临时文件（FileInputStream通过文件通道直接复制），create()返回后即可关闭文件流；暂存的同时写入tee
+	 *     tee由调用方关闭；读取类持有暂存的临时文件，process()或迭代读取结束后即关闭并删除，未调用close()也不会占用文件句柄和磁盘空间
+	 *     释放后不能再次读取，saveFile须在读取前调用；需多次读取或读取后保存时调用setReleaseAfterRead(false)，并在结束时调用close()
+	 * </pre>
+	 *
+	 * @param inp
+	 *            文件流
+	 * @param tee
+	 *            复制文件原始内容的通道，为null时不复制
+	 * @param instance
+	 *            数据回调类
+	 * @return ReadExcelBase 数据基类
+	 * @throws Exception
+	 *             若文件无法识别，则抛出IllegalArgumentException异常
+	 */
+	public static ReadExcelBase create(InputStream inp, WritableByteChannel tee, ReadExcelRollBack instance) throws Exception {
+		// 文件流无法随机读取，且调用方可能在读取前关闭文件流，先暂存至临时文件
+		Path spool = Files.createTempFile("readexcel", ".tmp");
+		ReadExcelBase base;
+		try {
+			spool(inp, spool, tee);
+			base = create(spool, instance);
+		} catch (Exception e) {
+			Files.deleteIfExists(spool);
+			throw e;
+		}
+		base.adoptSpool(spool);
+		base.spooled = true;
+		base.releaseAfterRead = true;
+		return base;
+	}
+
+	/**
+	 * 创建读取事件驱动类，数据行以类型化的Row对象回调，同时将文件原始内容复制至指定通道
+	 *
+	 * @param inp
+	 *            文件流
+	 * @param tee
+	 *            复制文件原始内容的通道，为null时不复制
+	 * @param instance
+	 *            类型化数据回调类
+	 * @return ReadExcelBase 数据基类
+	 * @throws Exception
+	 *             若文件无法识别，则抛出IllegalArgumentException异常
+	 * @see #create(InputStream, WritableByteChannel, ReadExcelRollBack)
+	 */
+	public static ReadExcelBase create(InputStream inp, WritableByteChannel tee, ReadExcelRowRollBack instance) throws Exception {
+		ReadExcelBase base = create(inp, tee, (ReadExcelRollBack) null);
+		base.rowInstance = instance;
+		return base;
+	}
+
+	/**
+	 * 创建读取事件驱动类，数据行将累积后批量回调，同时将文件原始内容复制至指定通道
+	 *
+	 * @param inp
+	 *            文件流
+	 * @param tee
+	 *            复制文件原始内容的通道，为null时不复制
+	 * @param instance
+	 *            批量数据回调类
+	 * @return ReadExcelBase 数据基类
+	 * @throws Exception
+	 *             若文件无法识别，则抛出IllegalArgumentException异常
+	 * @see #create(InputStream, WritableByteChannel, ReadExcelRollBack)
+	 */
+	public static ReadExcelBase create(InputStream inp, WritableByteChannel tee, ReadExcelBatchRollBack instance) throws Exception {
+		ReadExcelBase base = create(inp, tee, (ReadExcelRollBack) null);
+		base.batchInstance = instance;
+		return base;
+	}
+
+	/**
+	 * 通过文件路径创建读取事件驱动类，文件内容按需读取，不读取至内存
+	 *
+	 * <pre>
+	 *     Excel03版本通过文件通道读取Workbook流，Excel07版本以只读方式随机读取zip中的各文件
+	 *     读取结束后须调用close()关闭文件
+	 * </pre>
+	 *
+	 * @param path
+	 *            文件路径
+	 * @param instance
+	 *            数据回调类
+	 * @return ReadExcelBase 数据基类
+	 * @throws Exception
+	 *             若文件无法识别，则抛出IllegalArgumentException异常
+	 */
+	public static ReadExcelBase create(Path path, ReadExcelRollBack instance) throws Exception {
+		FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+		try {
+			ReadExcelBase base = open(channel, path, instance);
+			base.ownsSource = true;
+			return base;
+		} catch (Exception e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * 通过文件通道创建读取事件驱动类，文件内容按需读取，不读取至内存
+	 *
+	 * <pre>
+	 *     文件通道由调用方关闭，读取结束前不能关闭；读取时不改变文件通道的位置
+	 *     Excel07版本须通过文件路径随机读取zip，将先通过transferTo复制至临时文件
+	 * </pre>
+	 *
+	 * @param channel
+	 *            文件通道
+	 * @param instance
+	 *            数据回调类
+	 * @return ReadExcelBase 数据基类
+	 * @throws Exception
+	 *             若文件无法识别，则抛出IllegalArgumentException异常
+	 */
+	public static ReadExcelBase create(FileChannel channel, ReadExcelRollBack instance) throws Exception {
+		return open(channel, null, instance);
+	}
+
+	/**
+	 * 根据文件头判断文件版本并创建读取类
+	 *
+	 * @param channel
+	 *            文件通道
+	 * @param path
+	 *            文件路径，只有文件通道时为null
+	 * @param instance
+	 *            数据回调类
+	 * @return ReadExcelBase 数据基类
+	 * @throws Exception
+	 *             若文件无法识别，则抛出IllegalArgumentException异常
+	 */
+	private static ReadExcelBase open(FileChannel channel, Path path, ReadExcelRollBack instance) throws Exception {
+		ByteBuffer header = ByteBuffer.allocate(8);
+		while (header.hasRemaining() && channel.read(header, header.position()) > 0) {
+			// 按位置读取，不改变文件通道的位置
+		}
+		InputStream head = new ByteArrayInputStream(header.array(), 0, header.position());
+		ReadExcelBase base;
+		if (POIFSFileSystem.hasPOIFSHeader(head)) {
+			base = new ReadExcelOfHxls(channel, instance);
+		} else if (POIXMLDocument.hasOOXMLHeader(head)) {
+			if (path != null) {
+				base = new ReadExcelOfXxls(path, instance);
+			} else {
+				Path spool = Files.createTempFile("readexcel", ".tmp");
+				try {
+					FileChannel target = FileChannel.open(spool, StandardOpenOption.WRITE);
+					try {
+						transfer(channel, target);
+					} finally {
+						target.close();
+					}
+					base = new ReadExcelOfXxls(spool, instance);
+				} catch (Exception e) {
+					Files.deleteIfExists(spool);
+					throw e;
+				}
+				base.adoptSpool(spool);
+			}
+		} else {
+			throw new IllegalArgumentException("无法识别Excel版本,请检查文件是否正常!");
+		}
+		base.source = channel;
+		return base;
+	}
+
+	/**
+	 * 接管临时文件，文件已打开，能删除时立即删除，否则在关闭时删除
+	 */
+	private void adoptSpool(Path spool) {
+		try {
+			Files.deleteIfExists(spool);
+		} catch (IOException e) {
+			this.spoolFile = spool;
+		}
+	}
+
+	/**
+	 * 将文件流暂存至临时文件，tee不为null时同时写入tee
+	 */
+	private static void spool(InputStream inp, Path spool, WritableByteChannel tee) throws IOException {
+		FileChannel target = FileChannel.open(spool, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		try {
+			if (inp instanceof FileInputStream) {
+				// 文件流可直接通过文件通道复制，不经过堆内缓冲
+				FileChannel channel = ((FileInputStream) inp).getChannel();
+				long pos = channel.position();
+				long size = channel.size();
+				while (pos < size) {
+					pos += channel.transferTo(pos, size - pos, target);
+				}
+				channel.position(size);
+				if (tee != null) {
+					transfer(target, tee);
+				}
+				return;
+			}
+			ReadableByteChannel source = Channels.newChannel(inp);
+			ByteBuffer buffer = ByteBuffer.allocate(65536);
+			while (source.read(buffer) >= 0) {
+				buffer.flip();
+				ByteBuffer copy = buffer.duplicate();
+				while (copy.hasRemaining()) {
+					target.write(copy);
+				}
+				while (tee != null && buffer.hasRemaining()) {
+					tee.write(buffer);
+				}
+				buffer.clear();
+			}
+		} finally {
+			target.close();
+		}
+	}
+
+	private static void transfer(FileChannel from, WritableByteChannel to) throws IOException {
+		long size = from.size();
+		long pos = 0;
+		while (pos < size) {
+			pos += from.transferTo(pos, size - pos, to);
+		}
+	}
+
+	/**
+	 * 创建不带回调实例的读取类，通过rows()或stream()拉取数据行
+	 *
+	 * @param inp
+	 *            文件流
+	 * @return ReadExcelBase 数据基类
+	 * @throws Exception
+	 *             若文件无法识别，则抛出IllegalArgumentException异常
+	 * @see #rows()
+	 * @see #stream()
+	 */
+	public static ReadExcelBase create(InputStream inp) throws Exception {
+		return create(inp, (ReadExcelRollBack) null);
+	}
+
+	/**
+	 * 创建读取事件驱动类，数据行以类型化的Row对象回调
+	 *
+	 * @param inp
+	 *            文件流
+	 * @param instance
+	 *            类型化数据回调类
+	 * @return ReadExcelBase 数据基类
+	 * @throws Exception
+	 *             若文件无法识别，则抛出IllegalArgumentException异常
+	 * @see #create(InputStream, ReadExcelRollBack)
+	 */
+	public static ReadExcelBase create(InputStream inp, ReadExcelRowRollBack instance) throws Exception {
+		ReadExcelBase base = create(inp, (ReadExcelRollBack) null);
+		base.rowInstance = instance;
+		return base;
+	}
+
+	/**
+	 * 创建读取事件驱动类，数据行将累积后批量回调
+	 *
+	 * @param inp
+	 *            文件流
+	 * @param instance
+	 *            批量数据回调类
+	 * @return ReadExcelBase 数据基类
+	 * @throws Exception
+	 *             若文件无法识别，则抛出IllegalArgumentException异常
+	 * @see #setBatch(int, long)
+	 */
+	public static ReadExcelBase create(InputStream inp, ReadExcelBatchRollBack instance) throws Exception {
+		ReadExcelBase base = create(inp, (ReadExcelRollBack) null);
+		base.batchInstance = instance;
+		return base;
+	}
+
+	/**
+	 * 通过文件路径创建不带回调实例的读取类，通过rows()或stream()拉取数据行
+	 *
+	 * @param path
+	 *            文件路径
+	 * @return ReadExcelBase 数据基类
+	 * @throws Exception
+	 *             若文件无法识别，则抛出IllegalArgumentException异常
+	 * @see #create(Path, ReadExcelRollBack)
+	 */
+	public static ReadExcelBase create(Path path) throws Exception {
+		return create(path, (ReadExcelRollBack) null);
+	}
+
+	/**
+	 * 通过文件路径创建读取事件驱动类，数据行以类型化的Row对象回调
+	 *
+	 * @param path
+	 *            文件路径
+	 * @param instance
+	 *            类型化数据回调类
+	 * @return ReadExcelBase 数据基类
+	 * @throws Exception
+	 *             若文件无法识别，则抛出IllegalArgumentException异常
+	 * @see #create(Path, ReadExcelRollBack)
+	 */
+	public static ReadExcelBase create(Path path, ReadExcelRowRollBack instance) throws Exception {
+		ReadExcelBase base = create(path, (ReadExcelRollBack) null);
+		base.rowInstance = instance;
+		return base;
+	}
+
+	/**
+	 * 通过文件路径创建读取事件驱动类，数据行将累积后批量回调
+	 *
+	 * @param path
+	 *            文件路径
+	 * @param instance
+	 *            批量数据回调类
+	 * @return ReadExcelBase 数据基类
+	 * @throws Exception
+	 *             若文件无法识别，则抛出IllegalArgumentException异常
+	 * @see #create(Path, ReadExcelRollBack)
+	 */
+	public static ReadExcelBase create(Path path, ReadExcelBatchRollBack instance) throws Exception {
+		ReadExcelBase base = create(path, (ReadExcelRollBack) null);
+		base.batchInstance = instance;
+		return base;
+	}
+
+	/**
+	 * 通过文件通道创建不带回调实例的读取类，通过rows()或stream()拉取数据行
+	 *
+	 * @param channel
+	 *            文件通道
+	 * @return ReadExcelBase 数据基类
+	 * @throws Exception
+	 *             若文件无法识别，则抛出IllegalArgumentException异常
+	 * @see #create(FileChannel, ReadExcelRollBack)
+	 */
+	public static ReadExcelBase create(FileChannel channel) throws Exception {
+		return create(channel, (ReadExcelRollBack) null);
+	}
+
+	/**
+	 * 通过文件通道创建读取事件驱动类，数据行以类型化的Row对象回调
+	 *
+	 * @param channel
+	 *            文件通道
+	 * @param instance
+	 *            类型化数据回调类
+	 * @return ReadExcelBase 数据基类
+	 * @throws Exception
+	 *             若文件无法识别，则抛出IllegalArgumentException异常
+	 * @see #create(FileChannel, ReadExcelRollBack)
+	 */
+	public static ReadExcelBase create(FileChannel channel, ReadExcelRowRollBack instance) throws Exception {
+		ReadExcelBase base = create(channel, (ReadExcelRollBack) null);
+		base.rowInstance = instance;
+		return base;
+	}
+
+	/**
+	 * 通过文件通道创建读取事件驱动类，数据行将累积后批量回调
+	 *
+	 * @param channel
+	 *            文件通道
+	 * @param instance
+	 *            批量数据回调类
+	 * @return ReadExcelBase 数据基类
+	 * @throws Exception
+	 *             若文件无法识别，则抛出IllegalArgumentException异常
+	 * @see #create(FileChannel, ReadExcelRollBack)
+	 */
+	public static ReadExcelBase create(FileChannel channel, ReadExcelBatchRollBack instance) throws Exception {
+		ReadExcelBase base = create(channel, (ReadExcelRollBack) null);
+		base.batchInstance = instance;
+		return base;
+	}
+
+	/**
+	 * 将任何符合日期格式的字符串转化为日期类型
+	 * <p>
+	 * parseStringToDate("2010-12-12") = Sun Dec 12 00:00:00 CST 2010
+	 * parseStringToDate("20101212") = Sun Dec 12 00:00:00 CST 2010
+	 * parseStringToDate("2010/12/12") = Sun Dec 12 00:00:00 CST 2010
+	 * parseStringToDate("2010年12月12日") = Sun Dec 12 00:00:00 CST 2010
+	 * parseStringToDate("2010 8 12") = Thu Aug 12 00:00:00 CST 2010
+	 * parseStringToDate("20100802") = Mon Aug 02 00:00:00 CST 2010
+	 * parseStringToDate("2010 8 2") = Mon Aug 02 00:00:00 CST 2010
+	 * parseStringToDate("2010年8月2日") = Mon Aug 02 00:00:00 CST 2010
+	 * <p>
+	 * parseStringToDate("2010-12-12 05:04:03") = Sun Dec 12 05:04:03 CST 2010
+	 * parseStringToDate("2010/12/12 05:04:03") = Sun Dec 12 05:04:03 CST 2010
+	 * parseStringToDate("20101212 05:04:03") = Sun Dec 12 05:04:03 CST 2010
+	 * <p>
+	 * 日期格式按字符串的形状推导并缓存，可在多线程中调用
+	 *
+	 * @param sdate
+	 *            要转换成日期的字符串
+	 * @return Date
+	 * @throws ParseException
+	 *             格式转换异常
+	 * @see DateParser#parse(String)
+	 */
+	public static Date parseStringToDate(String sdate) throws ParseException {
+		return DateParser.parse(sdate);
+	}
+
+	/**
+	 * 触发文件读取驱动
+	 *
+	 * @throws Exception
+	 *             文件读取中的异常抛出，包括校验异常、数据保存异常和手动抛出异常。 若抛出异常则终止数据导入，并抛出错误信息。
+	 */
+	public abstract void process() throws Exception;
+
+	/**
+	 * 以迭代器的方式读取数据行，与process()二选一
+	 *
+	 * <pre>
+	 *     每次调用hasNext()时才继续解析文件，停止迭代即停止读取；隐藏Sheet页将跳过，若存在回调实例，仍通过judgeBreakSheet判断是否跳过
+	 *     Row对象在下一次调用hasNext()或next()前有效；提前结束迭代时须调用close()
+	 * </pre>
+	 *
+	 * @return 数据行迭代器
+	 * @throws Exception
+	 *             打开文件时产生的异常
+	 */
+	public RowIterator rows() throws Exception {
+		return new RowIterator(openRows(Integer.MAX_VALUE));
+	}
+
+	/**
+	 * 以Stream的方式读取数据行，与process()二选一
+	 *
+	 * <pre>
+	 *     与rows()相同，数据行按需解析，limit()等短路操作结束后即停止读取
+	 *     Excel07版本的并行流按Sheet页拆分，各Sheet页在不同线程中同时解析
+	 *     Row对象会被复用，需在流中保留时请先调用row.copy()；提前结束时须关闭Stream（如try-with-resources）
+	 * </pre>
+	 *
+	 * @return 数据行Stream
+	 * @throws Exception
+	 *             打开文件时产生的异常
+	 */
+	public Stream<Row> stream() throws Exception {
+		final RowSource source = openRows(Integer.MAX_VALUE);
+		return StreamSupport.stream(new RowSpliterator(source), false).onClose(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					source.close();
+				} catch (IOException e) {
+					// 读取已结束，关闭失败无须处理
+				}
+			}
+		});
+	}
+
+	/**
+	 * 打开可拉取的数据行来源，由各版本的读取类实现
+	 *
+	 * @param lastRow
+	 *            每个Sheet页读取的最大行号，预览时为预览的行数
+	 * @return 数据行来源
+	 * @throws Exception
+	 *             打开文件时产生的异常
+	 */
+	abstract RowSource openRows(int lastRow) throws Exception;
+
+	/**
+	 * 读取指定Sheet页中指定行号范围内的数据行，与process()二选一
+	 *
+	 * <pre>
+	 *     行号与row.getRowNum()相同，从1开始，包括fromRow和toRow；读取到toRow之后的行即停止解析
+	 *     Excel07版本按字节扫描跳过fromRow之前的row元素，不解析单元格；Excel03版本通过IndexRecord和DBCellRecord直接定位到fromRow所在的行块
+	 *     指定的Sheet页即使隐藏也会读取，不调用judgeBreakSheet
+	 *     设置了表头行或按表头名称设置读取列时，起始行在表头行之后则从表头行开始定位，表头行至fromRow之间的行只解析、不返回
+	 * </pre>
+	 *
+	 * @param sheetName
+	 *            Sheet页名称
+	 * @param fromRow
+	 *            起始行号
+	 * @param toRow
+	 *            结束行号
+	 * @return 数据行迭代器
+	 * @throws Exception
+	 *             打开文件时产生的异常，Sheet页不存在时抛出IllegalArgumentException
+	 */
+	public RowIterator readRange(String sheetName, int fromRow, int toRow) throws Exception {
+		if (fromRow < 1 || toRow < fromRow) {
+			throw new IllegalArgumentException("行号范围无效：" + fromRow + "-" + toRow);
+		}
+		return new RowIterator(openRange(sheetName, fromRow, toRow));
+	}
+
+	/**
+	 * 预览各Sheet页的前几行，与process()二选一
+	 *
+	 * <pre>
+	 *     与rows()相同，但每个Sheet页只读取行号不大于rows的数据行，之后直接跳到下一个Sheet页
+	 *     耗时只与预览的行数有关，不随文件大小增长
+	 * </pre>
+	 *
+	 * @param rows
+	 *            每个Sheet页预览的行数
+	 * @return 数据行迭代器
+	 * @throws Exception
+	 *             打开文件时产生的异常
+	 */
+	public RowIterator preview(int rows) throws Exception {
+		if (rows < 1) {
+			throw new IllegalArgumentException("预览行数不能小于1");
+		}
+		// 预览行数只对本次读取有效，不影响之后的rows()
+		return new RowIterator(openRows(rows));
+	}
+
+	/**
+	 * 打开指定Sheet页指定行号范围的数据行来源，由各版本的读取类实现
+	 *
+	 * @return 数据行来源
+	 * @throws Exception
+	 *             打开文件时产生的异常
+	 */
+	abstract RowSource openRange(String sheetName, int fromRow, int toRow) throws Exception;
+
+	/**
+	 * 通过文件创建时，直接将源文件的原始内容复制至stream
+	 *
+	 * @param stream
+	 *            保存文件的IO流对象
+	 * @return 若不是通过文件创建，返回false
+	 * @throws IOException
+	 *             文件保存异常
+	 */
+	protected boolean transferSource(OutputStream stream) throws IOException {
+		if (sourceReleased) {
+			throw new IOException("暂存的临时文件已在读取结束后释放，请在读取前调用saveFile，或通过setReleaseAfterRead(false)保留");
+		}
+		if (source == null) {
+			return false;
+		}
+		if (stream instanceof FileOutputStream) {
+			transfer(source, ((FileOutputStream) stream).getChannel());
+		} else {
+			transfer(source, Channels.newChannel(stream));
+		}
+		return true;
+	}
+
+	/**
+	 * 读取结束后是否释放文件对象
+	 * <p>
+	 * 通过文件创建时saveFile直接复制原始内容，无须保留解析用的文件对象
+	 * </p>
+	 *
+	 * @return 若可释放，返回true
+	 */
+	protected boolean releaseAfterRead() {
+		return releaseAfterRead && source != null;
+	}
+
+	/**
+	 * 读取结束后释放文件对象时调用，通过文件流创建时关闭并删除暂存的临时文件
+	 * <p>
+	 * 须在各版本的文件对象释放后调用，Excel07版本的zip文件也打开了临时文件
+	 * </p>
+	 */
+	void releaseSource() {
+		if (!spooled || sourceReleased) {
+			return;
+		}
+		sourceReleased = true;
+		try {
+			source.close();
+			if (spoolFile != null) {
+				Files.deleteIfExists(spoolFile);
+			}
+		} catch (IOException e) {
+			// 读取已结束，关闭失败无须处理，close()时会再次尝试删除
+			return;
+		}
+		source = null;
+		spoolFile = null;
+	}
+
+	/**
+	 * 关闭文件，删除暂存的临时文件
+	 * <p>
+	 * 通过FileChannel创建时文件通道由调用方关闭
+	 * </p>
+	 *
+	 * @throws IOException
+	 *             关闭文件时产生的异常
+	 */
+	@Override
+	public void close() throws IOException {
+		try {
+			if (ownsSource && source != null) {
+				source.close();
+			}
+		} finally {
+			if (spoolFile != null) {
+				Files.deleteIfExists(spoolFile);
+			}
+		}
+	}
+
+	/**
+	 * 文件读取完成后进行保存
+	 *
+	 * @param stream
+	 *            保存文件的IO流对象，将会把文件内容写入到此IO流中
+	 * @throws IOException
+	 *             文件保存异常
+	 */
+	public abstract void saveFile(OutputStream stream) throws IOException;
+
+	/**
+	 * 判断读取当前sheet页内容是否跳过，根据回调实例的类型调用对应的判断方法
+	 *
+	 * @param s
+	 *            当前Sheet页的状态
+	 * @return 若跳过此Sheet页的读取，返回true；否则返回false
+	 */
+	boolean judgeBreakSheet(SheetState s) {
+		SheetState bound = bindState(s);
+		try {
+			if (batchInstance != null) {
+				return batchInstance.judgeBreakSheet(s.sheetName, this);
+			}
+			if (rowInstance != null) {
+				return rowInstance.judgeBreakSheet(s.sheetName, this);
+			}
+			if (instance != null) {
+				return instance.judgeBreakSheet(s.sheetName, this);
+			}
+			// 迭代读取时可不设置回调实例，此时读取所有非隐藏Sheet页
+			return false;
+		} finally {
+			bindState(bound);
+		}
+	}
+
+	/**
+	 * 判断列是否需读取，解析单元格时调用，返回false的单元格直接跳过
+	 *
+	 * @param s
+	 *            当前Sheet页的状态
+	 * @param col
+	 *            列下标
+	 * @return 若需读取此列，返回true；否则返回false
+	 */
+	final boolean isColumnRead(SheetState s, int col) {
+		boolean[] mask = columnMask;
+		if (columnHeaders != null) {
+			// 按表头名称投影时，当前Sheet页的表头行尚未读取，需完整读取
+			if (s.headerSheet != s.sheetIndex) {
+				return true;
+			}
+			mask = s.columnMask;
+		}
+		return mask == null || (col < mask.length && mask[col]);
+	}
+
+	/**
+	 * 一行读取完成后、回调前调用，处理表头行和数据行过滤
+	 *
+	 * <pre>
+	 *     设置表头行或按表头名称投影时，读取到当前Sheet页的表头行后创建表头索引；按表头名称投影时解析出需读取的列后只保留这些列
+	 *     存在过滤器时，返回过滤器的判断结果
+	 * </pre>
+	 *
+	 * @param s
+	 *            当前Sheet页的状态
+	 * @return 若需回调此行，返回true；否则返回false
+	 */
+	boolean acceptRow(SheetState s) {
+		Row row = s.row;
+		if ((columnHeaders != null || headerRow > 0) && s.headerSheet != s.sheetIndex) {
+			if (headerRow == 0 || s.curRow == headerRow) {
+				parseHeader(s, row);
+			} else if (s.curRow > headerRow) {
+				// Sheet页中不存在表头行
+				parseHeader(s, null);
+			}
+			// 表头行（或表头行不存在时的当前行）已完整读取，只保留需读取的列
+			if (columnHeaders != null && s.headerSheet == s.sheetIndex) {
+				row.retain(s.columnMask);
+			}
+		}
+		row.setHeader(s.headerSheet == s.sheetIndex ? s.header : null);
+		if (resumed != null && resumed.covers(s.sheetIndex, s.curRow)) {
+			// 恢复读取时已回调完成的行不再回调
+			return false;
+		}
+		if (rowFilter != null) {
+			row.setPosition(s.curRow, s.sheetName, s.sheetIndex);
+			return rowFilter.accept(row);
+		}
+		return true;
+	}
+
+	/**
+	 * 行数据回调
+	 *
+	 * <pre>
+	 *     若存在批量回调实例，将当前Row对象放入待回调列表，并换上一个回收的Row对象继续读取，达到批次大小或等待时间后批量回调
+	 *     若存在类型化回调实例，直接回调当前行的Row对象
+	 *     否则将Row中的单元格转换为字符串存放于rowArray中，再回调optRows
+	 * </pre>
+	 *
+	 * @param s
+	 *            当前Sheet页的状态
+	 * @throws Exception
+	 *             回调过程中产生的异常
+	 */
+	void deliverRow(SheetState s) throws Exception {
+		s.row.setPosition(s.curRow, s.sheetName, s.sheetIndex);
+		if (recorder == null) {
+			dispatchRow(s);
+			return;
+		}
+		// 回调耗时由invokeRow、invokeBatch在执行回调的线程中累加，不含放入流水线时等待队列的时间
+		ReadRecorder.SheetRecord record = recorder.sheet(s.sheetIndex);
+		record.rows++;
+		record.cells += s.row.cellCount();
+		dispatchRow(s);
+	}
+
+	/**
+	 * 按回调方式交出当前行：放入批次、放入流水线或直接回调
+	 *
+	 * @param s
+	 *            当前Sheet页的状态
+	 * @throws Exception
+	 *             回调过程中产生的异常
+	 */
+	private void dispatchRow(SheetState s) throws Exception {
+		if (batchInstance != null) {
+			if (s.batch.isEmpty()) {
+				s.batchStartTime = System.nanoTime();
+			}
+			s.batch.add(s.row);
+			s.row = obtainRow(s);
+			if (s.batch.size() >= batchSize
+					|| (batchMaxLatency > 0 && System.nanoTime() - s.batchStartTime >= batchMaxLatency * 1000000L)) {
+				flushBatch(s);
+			}
+			return;
+		}
+		if (pipeline != null) {
+			// 当前Row对象交由回调线程，换上一个回收的Row对象继续读取
+			Row current = s.row;
+			s.row = obtainRow(s);
+			pipeline.putRow(current, s.sheetName, s.sheetIndex);
+			return;
+		}
+		invokeRow(s);
+		rowsDelivered(s, 1, s.curRow);
+	}
+
+	/**
+	 * 回调当前行，若存在类型化回调实例，直接回调Row对象；否则转换为rowArray后回调optRows
+	 *
+	 * @param s
+	 *            当前Sheet页的状态
+	 * @throws Exception
+	 *             回调过程中产生的异常
+	 */
+	void invokeRow(SheetState s) throws Exception {
+		long start = recorder == null ? 0 : System.nanoTime();
+		try {
+			Row row = s.row;
+			if (rowInstance != null) {
+				rowInstance.optRow(row, s.sheetName, this);
+				return;
+			}
+			if (readLimits != null) {
+				// 不按行宽度补空，超宽数据行也不会分配空间
+				instance.optRows(row.stringList(), s.curRow, s.sheetName, this);
+				return;
+			}
+			List<String> rowArray = s.rowArray;
+			rowArray.clear();
+			for (int col = 0, size = row.size(); col < size; col++) {
+				String cell = row.getString(col);
+				if (cell != null) {
+					rowListAddCell(rowArray, col, cell);
+				}
+			}
+			instance.optRows(rowArray, s.curRow, s.sheetName, this);
+		} finally {
+			if (recorder != null) {
+				recorder.callbackFinished(s.sheetName, s.sheetIndex, s.curRow, System.nanoTime() - start);
+			}
+		}
+	}
+
+	/**
+	 * 批量回调
+	 *
+	 * @param s
+	 *            当前Sheet页的状态
+	 * @param rows
+	 *            同一Sheet页中按顺序读取的数据行
+	 * @throws Exception
+	 *             回调过程中产生的异常
+	 */
+	void invokeBatch(SheetState s, List<Row> rows) throws Exception {
+		long start = recorder == null ? 0 : System.nanoTime();
+		try {
+			batchInstance.optRowsBatch(rows, s.sheetName, this);
+		} finally {
+			if (recorder != null) {
+				recorder.callbackFinished(s.sheetName, s.sheetIndex, rows.get(rows.size() - 1).getRowNum(), System.nanoTime() - start);
+			}
+		}
+	}
+
+	/**
+	 * 回调批量回调实例的Sheet页结束接口
+	 *
+	 * @param sheetName
+	 *            Sheet页名称
+	 * @param sheetIndex
+	 *            Sheet页下标
+	 * @throws Exception
+	 *             回调过程中产生的异常
+	 */
+	void invokeSheetEnd(String sheetName, int sheetIndex) throws Exception {
+		long start = recorder == null ? 0 : System.nanoTime();
+		try {
+			batchInstance.onSheetEnd(sheetName, this);
+		} finally {
+			if (recorder != null) {
+				recorder.sheetCallbackFinished(sheetIndex, System.nanoTime() - start);
+			}
+		}
+	}
+
+	/**
+	 * 按Sheet页保序回调时，回调线程回调完Sheet页的数据行和结束接口后汇总该Sheet页的统计
+	 *
+	 * @param sheetName
+	 *            Sheet页名称
+	 * @param sheetIndex
+	 *            Sheet页下标
+	 */
+	void sheetCallbacksEnded(String sheetName, int sheetIndex) {
+		if (recorder != null) {
+			recorder.sheetEnded(sheetName, sheetIndex);
+		}
+	}
+
+	/**
+	 * 批量回调待回调的数据行，回调结束后回收Row对象
+	 *
+	 * @param s
+	 *            当前Sheet页的状态
+	 * @throws Exception
+	 *             回调过程中产生的异常
+	 */
+	void flushBatch(SheetState s) throws Exception {
+		List<Row> batch = s.batch;
+		if (batch.isEmpty()) {
+			return;
+		}
+		if (pipeline != null) {
+			// 本批Row对象交由回调线程回调和回收
+			List<Row> rows = new ArrayList<Row>(batch);
+			batch.clear();
+			pipeline.putBatch(rows, s.sheetName, s.sheetIndex);
+			return;
+		}
+		int count = batch.size();
+		int lastRow = batch.get(count - 1).getRowNum();
+		try {
+			invokeBatch(s, batch);
+		} finally {
+			for (Row recycled : batch) {
+				recycled.clear();
+				s.rowPool.add(recycled);
+			}
+			batch.clear();
+		}
+		rowsDelivered(s, count, lastRow);
+	}
+
+	/**
+	 * Sheet页开始读取，在judgeBreakSheet判断读取后、第一行数据之前调用
+	 *
+	 * @param s
+	 *            当前Sheet页的状态
+	 * @throws Exception
+	 *             回调过程中产生的异常
+	 */
+	void startSheet(SheetState s) throws Exception {
+		if (recorder != null) {
+			recorder.sheetStarted(s.sheetName, s.sheetIndex);
+		}
+		if (batchInstance == null) {
+			return;
+		}
+		if (pipeline != null && pipeline.isSheetOrdered()) {
+			pipeline.putSheetStart(s.sheetName, s.sheetIndex);
+			return;
+		}
+		batchInstance.onSheetStart(s.sheetName, this);
+	}
+
+	/**
+	 * Sheet页读取结束，回调剩余的数据行
+	 *
+	 * @param s
+	 *            当前Sheet页的状态
+	 * @throws Exception
+	 *             回调过程中产生的异常
+	 */
+	void endSheet(SheetState s) throws Exception {
+		if (recorder == null || (pipeline != null && pipeline.isSheetOrdered())) {
+			// 按Sheet页保序回调时，由回调线程回调完本Sheet页后汇总统计，见sheetCallbacksEnded
+			flushSheet(s);
+		} else {
+			try {
+				flushSheet(s);
+				if (pipeline != null) {
+					// 不保序时等待回调线程回调完本Sheet页的数据行，回调耗时全部计入后再汇总
+					pipeline.awaitIdle();
+				}
+			} finally {
+				recorder.sheetEnded(s.sheetName, s.sheetIndex);
+			}
+		}
+		if (checkpointing) {
+			emitCheckpoint(s, s.curRow, true);
+		}
+	}
+
+	/**
+	 * 批量回调时回调Sheet页剩余的数据行和结束接口
+	 *
+	 * @param s
+	 *            当前Sheet页的状态
+	 * @throws Exception
+	 *             回调过程中产生的异常
+	 */
+	private void flushSheet(SheetState s) throws Exception {
+		if (batchInstance == null) {
+			if (recorder != null && pipeline != null && pipeline.isSheetOrdered()) {
+				// 结束标记排在本Sheet页的数据行之后，回调线程取出时汇总统计
+				pipeline.putSheetEnd(s.sheetName, s.sheetIndex);
+			}
+			return;
+		}
+		SheetBreakException stop = null;
+		try {
+			flushBatch(s);
+		} catch (SheetContinueException e) {
+			// 本Sheet页已读取完毕，无须跳过
+		} catch (SheetBreakException e) {
+			stop = e;
+		}
+		if (pipeline != null && pipeline.isSheetOrdered()) {
+			pipeline.putSheetEnd(s.sheetName, s.sheetIndex);
+		} else {
+			if (pipeline != null) {
+				// 不保序时等待本Sheet页的数据行全部回调结束，再在解析线程中回调结束接口
+				pipeline.awaitIdle();
+			}
+			invokeSheetEnd(s.sheetName, s.sheetIndex);
+		}
+		if (stop != null) {
+			throw stop;
+		}
+	}
+
+	/**
+	 * 获取一个空的Row对象用于读取下一行，优先复用已回调的Row对象
+	 *
+	 * @param s
+	 *            当前Sheet页的状态
+	 * @return 空的Row对象
+	 */
+	private Row obtainRow(SheetState s) {
+		Row row = s.row;
+		if (pipeline != null) {
+			return pipeline.obtainRow(row.getSharedStrings(), row.getCellFormats());
+		}
+		Row next = s.rowPool.poll();
+		if (next == null) {
+			next = new Row();
+		}
+		next.setSharedStrings(row.getSharedStrings());
+		next.setCellFormats(row.getCellFormats());
+		return next;
+	}
+
+	/**
+	 * process()开始时创建本次读取的统计，未设置监听时不做处理
+	 *
+	 * @param format
+	 *            文件格式
+	 */
+	protected void startRecorder(String format) {
+		recorder = readListener == null ? null : new ReadRecorder(readListener, slowCallbackNanos, format);
+	}
+
+	/**
+	 * process()结束时回调工作簿读取结束
+	 */
+	protected void finishRecorder() {
+		if (recorder != null) {
+			try {
+				recorder.finished();
+			} finally {
+				recorder = null;
+			}
+		}
+	}
+
+	/**
+	 * process()开始时启用检查点和恢复读取，均未设置时不做处理
+	 *
+	 * @param parallel
+	 *            是否并行读取Sheet页
+	 * @throws IOException
+	 *             计算工作簿SHA-256时读取文件产生的异常
+	 * @throws IllegalArgumentException
+	 *             检查点的工作簿SHA-256与当前文件不一致
+	 * @throws IllegalStateException
+	 *             检查点带有工作簿SHA-256，但文件对象已释放，无法计算当前文件的SHA-256
+	 */
+	protected void startCheckpoints(boolean parallel) throws IOException {
+		resumed = null;
+		checkpointing = false;
+		rowsSinceCheckpoint = 0;
+		if (checkpointListener == null && resumeCheckpoint == null) {
+			return;
+		}
+		if (parallel || pipelineExecutor != null) {
+			throw new IllegalStateException("检查点只支持在解析线程中依次回调，不能与setSheetExecutor、setPipeline同时使用");
+		}
+		if (resumeCheckpoint != null) {
+			String expected = resumeCheckpoint.getWorkbookHash();
+			if (expected != null) {
+				String actual = workbookHash();
+				if (actual == null) {
+					// 文件对象已释放，无法确认是否为同一文件
+					throw new IllegalStateException("无法获取当前文件内容，不能校验检查点");
+				}
+				if (!expected.equals(actual)) {
+					throw new IllegalArgumentException("检查点与当前文件内容不一致");
+				}
+			}
+			resumed = resumeCheckpoint;
+		}
+		checkpointing = checkpointListener != null;
+	}
+
+	/**
+	 * process()结束时停用检查点和恢复读取
+	 */
+	protected void finishCheckpoints() {
+		resumed = null;
+		checkpointing = false;
+	}
+
+	/**
+	 * 恢复读取时判断Sheet页是否已全部回调完成，已完成的Sheet页不再读取，也不调用judgeBreakSheet
+	 *
+	 * @param index
+	 *            Sheet页下标
+	 * @return 若已完成，返回true
+	 */
+	boolean isSheetResumed(int index) {
+		return resumed != null && resumed.covers(index);
+	}
+
+	/**
+	 * 解析当前Sheet页的表头行，创建表头索引；按表头名称投影时根据表头索引确定需读取的列
+	 *
+	 * @param s
+	 *            当前Sheet页的状态
+	 * @param headerRow
+	 *            表头行，为null时说明Sheet页中不存在表头行
+	 */
+	private void parseHeader(SheetState s, Row headerRow) {
+		HeaderIndex index = new HeaderIndex(headerRow);
+		if (columnHeaders != null) {
+			boolean[] mask = new boolean[index.size()];
+			for (String name : columnHeaders) {
+				for (int col : index.indexesOf(name)) {
+					mask[col] = true;
+				}
+			}
+			s.columnMask = mask;
+		}
+		s.header = index;
+		s.headerSheet = s.sheetIndex;
+	}
+
+	/**
+	 * 按范围读取时Sheet页的定位行号
+	 *
+	 * @param fromRow
+	 *            起始行号
+	 * @return 设置了表头行或按表头名称设置读取列（须读取表头行）时为起始行号与表头行号中较小的一个，否则为起始行号
+	 */
+	int seekRow(int fromRow) {
+		if (columnHeaders == null && headerRow == 0) {
+			return fromRow;
+		}
+		// 按表头名称设置读取列但未设置表头行时，以第一行作为表头行
+		return Math.min(fromRow, headerRow > 0 ? headerRow : 1);
+	}
+
+	/**
+	 * 恢复读取时Sheet页的起始行号，之前的行在解析时直接跳过
+	 *
+	 * @param index
+	 *            Sheet页下标
+	 * @return 起始行号；不是检查点所在的Sheet页，或设置了表头行、按表头名称设置读取列（须读取表头行）时返回1
+	 */
+	int resumeRow(int index) {
+		if (resumed == null || resumed.getSheetIndex() != index || resumed.isSheetCompleted() || columnHeaders != null
+				|| headerRow > 0) {
+			return 1;
+		}
+		return resumed.getCurRow() + 1;
+	}
+
+	/**
+	 * 数据行回调完成，达到间隔行数时生成检查点
+	 *
+	 * @param s
+	 *            当前Sheet页的状态
+	 * @param count
+	 *            回调完成的行数
+	 * @param lastRow
+	 *            回调完成的最后一行行号
+	 * @throws Exception
+	 *             检查点接口中产生的异常
+	 */
+	private void rowsDelivered(SheetState s, int count, int lastRow) throws Exception {
+		if (!checkpointing) {
+			return;
+		}
+		rowsSinceCheckpoint += count;
+		if (rowsSinceCheckpoint >= checkpointInterval) {
+			emitCheckpoint(s, lastRow, false);
+		}
+	}
+
+	private void emitCheckpoint(SheetState s, int lastRow, boolean sheetCompleted) throws Exception {
+		rowsSinceCheckpoint = 0;
+		checkpointListener.checkpoint(new ReadCheckpoint(workbookHash(), s.sheetIndex, s.sheetName, Math.max(0, lastRow),
+				sheetCompleted, checkpointToken), this);
+	}
+
+	/**
+	 * 计算工作簿内容的SHA-256，按位置读取，不改变文件通道的位置
+	 *
+	 * @return 十六进制的SHA-256，不是通过文件创建时返回null
+	 * @throws IOException
+	 *             读取文件时产生的异常
+	 */
+	private String workbookHash() throws IOException {
+		if (workbookHash == null && source != null) {
+			MessageDigest digest;
+			try {
+				digest = MessageDigest.getInstance("SHA-256");
+			} catch (NoSuchAlgorithmException e) {
+				throw new IllegalStateException(e);
+			}
+			ByteBuffer buffer = ByteBuffer.allocate(65536);
+			long pos = 0;
+			int n;
+			while ((n = source.read(buffer, pos)) > 0) {
+				buffer.flip();
+				digest.update(buffer);
+				buffer.clear();
+				pos += n;
+			}
+			StringBuilder sb = new StringBuilder(64);
+			for (byte b : digest.digest()) {
+				sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+			}
+			workbookHash = sb.toString();
+		}
+		return workbookHash;
+	}
+
+	/**
+	 * 开启统计时，统计Sheet页文件流读取的字节数
+	 *
+	 * @param in
+	 *            Sheet页文件流
+	 * @param sheetIndex
+	 *            Sheet页下标
+	 * @return 开启统计时为计数的文件流，否则为原文件流
+	 */
+	InputStream countSheetBytes(InputStream in, int sheetIndex) {
+		return recorder == null ? in : recorder.countBytes(in, sheetIndex);
+	}
+
+	/**
+	 * 开始读取前重置读取限制的计数，未设置读取限制时不做处理
+	 *
+	 * @param compressedBytes
+	 *            文件中各部分压缩后的总字节数，未知时为0
+	 */
+	protected void startLimits(long compressedBytes) {
+		if (readLimits != null) {
+			inflatedBytes = new AtomicLong();
+			this.compressedBytes = compressedBytes;
+			state.limitSheet = -1;
+			state.sheetCells = 0;
+		}
+	}
+
+	/**
+	 * 字符串共享数据集的实际存储模式，设置读取限制时MEMORY模式按MAPPED模式存储
+	 */
+	protected SharedStringsMode effectiveSharedStringsMode() {
+		return readLimits != null && sharedStringsMode == SharedStringsMode.MEMORY ? SharedStringsMode.MAPPED : sharedStringsMode;
+	}
+
+	/**
+	 * 字符串共享数据集的字符串数量上限，为0时不限制
+	 */
+	protected int maxSharedStrings() {
+		return readLimits == null ? 0 : readLimits.getMaxSharedStrings();
+	}
+
+	/**
+	 * 解压文件流计数，超出解压字节数或解压比值上限时抛出ReadLimitExceededException，未设置读取限制时返回原文件流
+	 *
+	 * @param in
+	 *            zip中的文件流，可为null
+	 * @return 计数的文件流
+	 */
+	InputStream limitBytes(InputStream in) {
+		if (readLimits == null || inflatedBytes == null || in == null) {
+			return in;
+		}
+		return new FilterInputStream(in) {
+			@Override
+			public int read() throws IOException {
+				int b = super.read();
+				if (b >= 0) {
+					inflated(1);
+				}
+				return b;
+			}
+
+			@Override
+			public int read(byte[] b, int off, int len) throws IOException {
+				int n = super.read(b, off, len);
+				if (n > 0) {
+					inflated(n);
+				}
+				return n;
+			}
+
+			@Override
+			public long skip(long n) throws IOException {
+				long skipped = super.skip(n);
+				if (skipped > 0) {
+					inflated(skipped);
+				}
+				return skipped;
+			}
+		};
+	}
+
+	private void inflated(long n) {
+		long total = inflatedBytes.addAndGet(n);
+		long max = readLimits.getMaxInflatedBytes();
+		if (max > 0 && total > max) {
+			throw new ReadLimitExceededException(Limit.INFLATED_BYTES, max, total);
+		}
+		int ratio = readLimits.getMaxInflationRatio();
+		if (ratio > 0 && compressedBytes > 0 && total > ReadLimits.RATIO_GRACE_BYTES && total / compressedBytes >= ratio) {
+			throw new ReadLimitExceededException(Limit.INFLATION_RATIO, ratio, total / compressedBytes);
+		}
+	}
+
+	/**
+	 * 读取到单元格时检查数据行宽度和当前Sheet页的单元格数量，包括列投影跳过的单元格，未设置读取限制时不做处理
+	 *
+	 * @param s
+	 *            当前Sheet页的状态
+	 * @param col
+	 *            列下标
+	 */
+	final void checkCell(SheetState s, int col) {
+		if (readLimits == null) {
+			return;
+		}
+		int maxWidth = readLimits.getMaxRowWidth();
+		if (maxWidth > 0 && col >= maxWidth) {
+			throw new ReadLimitExceededException(Limit.ROW_WIDTH, maxWidth, col + 1L);
+		}
+		if (s.limitSheet != s.sheetIndex) {
+			s.limitSheet = s.sheetIndex;
+			s.sheetCells = 0;
+		}
+		long maxCells = readLimits.getMaxSheetCells();
+		if (++s.sheetCells > maxCells && maxCells > 0) {
+			throw new ReadLimitExceededException(Limit.SHEET_CELLS, maxCells, s.sheetCells);
+		}
+	}
+
+	/**
+	 * 开始读取前启动数据行流水线，未设置回调线程池时不做处理
+	 */
+	protected void startPipeline() {
+		if (pipelineExecutor != null) {
+			pipeline = new RowPipeline(this, pipelineExecutor, pipelineConsumers, pipelineCapacity, pipelineSheetOrdered);
+			pipeline.start();
+		}
+	}
+
+	/**
+	 * 读取结束后关闭数据行流水线，等待已放入的数据行回调结束
+	 *
+	 * @param completed
+	 *            读取是否正常结束，若为false，将丢弃未回调的数据行
+	 * @throws Exception
+	 *             读取正常结束时，回调中抛出的异常
+	 */
+	protected void finishPipeline(boolean completed) throws Exception {
+		if (pipeline != null) {
+			try {
+				pipeline.finish(completed);
+			} finally {
+				pipeline = null;
+			}
+		}
+	}
 
 	/**
 	 * 数据行补空
@@ -169,12 +2033,14 @@ public abstract class ReadExcelBase {
 	 *     为保持数据行与表头行一致的效果，每次获取数据插入数据行列表时，要插入指定的下标位置，并将之前的空下标补空
 	 * </pre>
 	 *
+	 * @param rowArray
+	 *            数据行列表
 	 * @param colIndex
 	 *            数据下标
 	 * @param cell
 	 *            数据值
 	 */
-	protected void rowListAddCell(int colIndex, String cell) {
+	private static void rowListAddCell(List<String> rowArray, int colIndex, String cell) {
 		for (int size = rowArray.size(), length = colIndex + 1; size < length; size++) {
 			rowArray.add(null);
 		}
@@ -3,29 +3,38 @@ package cn.cy.read;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.channels.FileChannel;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
 
 import org.apache.poi.hssf.eventusermodel.AbortableHSSFListener;
-import org.apache.poi.hssf.eventusermodel.HSSFEventFactory;
-import org.apache.poi.hssf.eventusermodel.HSSFRequest;
 import org.apache.poi.hssf.eventusermodel.HSSFUserException;
 import org.apache.poi.hssf.record.BOFRecord;
 import org.apache.poi.hssf.record.BlankRecord;
 import org.apache.poi.hssf.record.BoolErrRecord;
 import org.apache.poi.hssf.record.BoundSheetRecord;
 import org.apache.poi.hssf.record.EOFRecord;
+import org.apache.poi.hssf.record.ExtendedFormatRecord;
+import org.apache.poi.hssf.record.FormatRecord;
 import org.apache.poi.hssf.record.FormulaRecord;
 import org.apache.poi.hssf.record.LabelRecord;
 import org.apache.poi.hssf.record.LabelSSTRecord;
 import org.apache.poi.hssf.record.NumberRecord;
 import org.apache.poi.hssf.record.Record;
+import org.apache.poi.hssf.record.RecordFactoryInputStream;
 import org.apache.poi.hssf.record.SSTRecord;
 import org.apache.poi.hssf.record.StringRecord;
-import org.apache.poi.poifs.filesystem.POIFSFileSystem;
+import org.apache.poi.poifs.filesystem.NPOIFSFileSystem;
 
+import cn.cy.exception.ReadLimitExceededException;
+import cn.cy.exception.ReadLimitExceededException.Limit;
 import cn.cy.exception.SheetBreakException;
 import cn.cy.exception.SheetContinueException;
 import cn.cy.rollback.ReadExcelRollBack;
+import cn.cy.sst.SSTRecordSharedStrings;
+import cn.cy.sst.SharedStrings;
 
 /**
  * POI事件模式读取数据 支持版本：excel2003(.xls)
@@ -35,8 +44,16 @@ import cn.cy.rollback.ReadExcelRollBack;
 public class ReadExcelOfHxls extends ReadExcelBase {
 	/**
 	 * 文件对象
+	 * <p>
+	 * 通过文件流创建时读取至内存，通过文件通道创建时按需读取文件内容
+	 * </p>
 	 */
-	private POIFSFileSystem fs;
+	private NPOIFSFileSystem fs;
+
+	/**
+	 * Workbook流的定位对象，读取全局数据流时创建
+	 */
+	private SheetRecordSeeker seeker;
 
 	/**
 	 * 已读取的最后一行下标
@@ -52,7 +69,7 @@ public class ReadExcelOfHxls extends ReadExcelBase {
 	 * 读取单元格字符串时通过此对象获取实际值
 	 * </p>
 	 */
-	private SSTRecord sstRecord;
+	private SharedStrings sst;
 
 	/**
 	 * 存放BoundSheetRecord对象
@@ -63,11 +80,32 @@ public class ReadExcelOfHxls extends ReadExcelBase {
 	private BoundSheetRecord[] orderedBSRs;
 	private ArrayList<BoundSheetRecord> boundSheetRecords = new ArrayList<BoundSheetRecord>();
 
+	/**
+	 * 开启按样式格式化时，全局数据流中的自定义格式，格式下标 - 格式字符串
+	 */
+	private final Map<Integer, String> customFormats = new HashMap<Integer, String>();
+
+	/**
+	 * 开启按样式格式化时，全局数据流中各样式（ExtendedFormatRecord）的格式下标
+	 */
+	private int[] xfFormats;
+	private int xfCount;
+
 	/**
 	 * 根据sheetIndex获取当前正在读取的sheet页属性
 	 */
 	private BoundSheetRecord thisSheetRecord;
 
+	/**
+	 * BOFRecord嵌套层级，EOFRecord使层级回到0时表示当前Sheet页结束
+	 */
+	private int bofDepth;
+
+	/**
+	 * 当前Sheet页是否已回调Sheet页开始接口
+	 */
+	private boolean sheetStarted;
+
 	/**
 	 * 单元格行下标
 	 * <p>
@@ -98,22 +136,415 @@ public class ReadExcelOfHxls extends ReadExcelBase {
 	 */
 	private ListenerImpl listener = null;
 
+	/**
+	 * 是否为迭代读取，迭代读取时行结束不回调，而是将当前Row对象交给RecordRowSource返回
+	 */
+	private boolean pulling;
+
+	/**
+	 * 迭代读取时已读取完成、尚未返回的数据行
+	 */
+	private Row pulled;
+
+	/**
+	 * 迭代读取时已回收的数据行，供下一行读取使用
+	 */
+	private Row spareRow;
+
+	/**
+	 * 各Sheet页是否需读取，下标与orderedBSRs一致
+	 * <p>
+	 * 读取全局数据流后，在读取任何Sheet页之前根据隐藏属性和judgeBreakSheet确定
+	 * </p>
+	 */
+	private boolean[] selectedSheets;
+
 	public ReadExcelOfHxls(InputStream file, ReadExcelRollBack instance) throws Exception {
-		this.fs = new POIFSFileSystem(file);
+		this.fs = new NPOIFSFileSystem(file);
+		this.listener = new ListenerImpl();
+		this.instance = instance;
+	}
+
+	/**
+	 * 通过文件通道创建，文件内容不读取至内存
+	 *
+	 * @param channel
+	 *            文件通道，由调用方关闭
+	 * @param instance
+	 *            回调实例
+	 * @throws Exception
+	 *             打开文件时产生的异常
+	 */
+	ReadExcelOfHxls(FileChannel channel, ReadExcelRollBack instance) throws Exception {
+		this.fs = new NPOIFSFileSystem(channel, true);
 		this.listener = new ListenerImpl();
 		this.instance = instance;
 	}
 
+	/**
+	 * 读取文件
+	 *
+	 * <pre>
+	 *     先读取全局数据流，获取各Sheet页信息和字符串共享数据集，并在读取任何Sheet页之前调用judgeBreakSheet判断各Sheet页是否跳过
+	 *     之后依次定位到需读取的Sheet页，隐藏和跳过的Sheet页不读取任何Record
+	 * </pre>
+	 */
 	@Override
 	public void process() throws Exception {
-		HSSFEventFactory factory = new HSSFEventFactory();
-		HSSFRequest request = new HSSFRequest();
-		// 对所有类型的Record都设置此监听器
-		request.addListenerForAllRecords(this.listener);
-		factory.abortableProcessWorkbookEvents(request, fs);
+		startLimits(0);
+		startCheckpoints(false);
+		startRecorder("xls");
+		RecordFactoryInputStream globals;
+		try {
+			globals = readGlobals();
+		} catch (Exception e) {
+			finishRecorder();
+			finishCheckpoints();
+			throw e;
+		}
+		if (recorder != null) {
+			recorder.opened(orderedBSRs.length);
+		}
+		selectSheets();
+		SheetRecords records = new SheetRecords(globals, 1);
+		startPipeline();
+		boolean completed = false;
+		try {
+			Record record;
+			while ((record = records.nextRecord()) != null) {
+				if (recorder != null && sheetStarted) {
+					recorder.sheet(state.sheetIndex).bytesRead += record.getRecordSize();
+				}
+				// 返回值非0时终止读取
+				if (listener.abortableProcessRecord(record) != 0) {
+					break;
+				}
+				// 回调中抛出SheetContinueException后立即结束本Sheet页，直接定位到下一个需读取的Sheet页，剩余的Record不再解码
+				if (state.breakSheet && sheetStarted) {
+					if (listener.finishSheet((short) 0) != 0) {
+						break;
+					}
+					records.skipSheet();
+				}
+			}
+			completed = true;
+		} finally {
+			releaseFileSystem();
+			try {
+				finishPipeline(completed);
+			} finally {
+				finishRecorder();
+				finishCheckpoints();
+			}
+		}
+	}
+
+	/**
+	 * 读取结束后释放文件对象，saveFile直接复制原始内容
+	 * <p>
+	 * 文件对象使用调用方的文件通道，关闭文件对象会同时关闭文件通道，因此只释放引用；通过文件流创建时再关闭暂存的临时文件
+	 * </p>
+	 */
+	private void releaseFileSystem() {
+		if (releaseAfterRead()) {
+			fs = null;
+			seeker = null;
+			releaseSource();
+		}
+	}
+
+	@Override
+	RowSource openRows(int lastRow) throws Exception {
+		pulling = true;
+		startLimits(0);
+		RecordFactoryInputStream globals = readGlobals();
+		selectSheets();
+		return new RecordRowSource(new SheetRecords(globals, 1), 1, lastRow, false);
+	}
+
+	@Override
+	RowSource openRange(String sheetName, int fromRow, int toRow) throws Exception {
+		pulling = true;
+		startLimits(0);
+		RecordFactoryInputStream globals = readGlobals();
+		boolean found = false;
+		for (int i = 0; i < orderedBSRs.length; i++) {
+			// 只读取指定的Sheet页，即使隐藏也会读取
+			selectedSheets[i] = orderedBSRs[i].getSheetname().equals(sheetName);
+			found |= selectedSheets[i];
+		}
+		if (!found) {
+			releaseFileSystem();
+			throw new IllegalArgumentException("Sheet页不存在：" + sheetName);
+		}
+		// 须读取表头行时从表头行所在的行块开始读取，之前的行由RecordRowSource过滤
+		return new RecordRowSource(new SheetRecords(globals, seekRow(fromRow)), fromRow, toRow, true);
+	}
+
+	/**
+	 * 读取全局数据流，获取各Sheet页的BoundSheetRecord和字符串共享数据集
+	 *
+	 * @return 文件加密时返回已读取到全局数据流EOFRecord的Record流，之后须继续顺序读取；未加密时返回null
+	 * @throws Exception
+	 *             读取过程中产生的异常
+	 */
+	private RecordFactoryInputStream readGlobals() throws Exception {
+		if (fs == null) {
+			throw new IllegalStateException("文件对象已在读取结束后释放，不能再次读取");
+		}
+		seeker = new SheetRecordSeeker(fs.getRoot());
+		// 定位时会重新打开Workbook流，须在读取全局数据流之前判断是否加密
+		boolean encrypted = seeker.isEncrypted();
+		RecordFactoryInputStream records = seeker.openWorkbook();
+		// 同一读取类可多次读取，清除上一次读取的Sheet页信息和状态
+		boundSheetRecords.clear();
+		selectedSheets = null;
+		state.sheetIndex = -1;
+		state.sheetName = null;
+		state.breakSheet = false;
+		sheetStarted = false;
+		bofDepth = 0;
+		listener.resetRow();
+		if (formatted) {
+			customFormats.clear();
+			xfFormats = new int[64];
+			xfCount = 0;
+		}
+		Record record;
+		do {
+			long recordStart = recorder == null ? 0 : System.nanoTime();
+			record = records.nextRecord();
+			if (record != null) {
+				if (recorder != null && record instanceof SSTRecord) {
+					// 字符串共享数据集在读取Record时即解析完成
+					recorder.sharedStringsLoaded(((SSTRecord) record).getNumUniqueStrings(), System.nanoTime() - recordStart);
+				}
+				listener.abortableProcessRecord(record);
+			}
+		} while (record != null && bofDepth > 0);
+		if (formatted) {
+			cellFormats = new CellFormats(Arrays.copyOf(xfFormats, xfCount), customFormats);
+			state.row.setCellFormats(cellFormats);
+		}
+		// 将读取到的BoundSheetRecord对象根据Sheet页顺序进行排序
+		orderedBSRs = BoundSheetRecord.orderByBofPosition(boundSheetRecords);
+		selectedSheets = new boolean[orderedBSRs.length];
+		return encrypted ? records : null;
+	}
+
+	/**
+	 * 判断各Sheet页是否需读取，隐藏sheet页和恢复读取时已回调完成的Sheet页一律跳过，其他Sheet页通过judgeBreakSheet判断
+	 */
+	private void selectSheets() {
+		for (int i = 0; i < orderedBSRs.length; i++) {
+			state.sheetIndex = i;
+			state.sheetName = orderedBSRs[i].getSheetname();
+			// 恢复读取时已回调完成的Sheet页不再读取
+			selectedSheets[i] = !isSheetResumed(i) && !(orderedBSRs[i].isHidden() || orderedBSRs[i].isVeryHidden())
+					&& !judgeBreakSheet(state);
+		}
+		state.sheetIndex = -1;
+		state.sheetName = null;
+	}
+
+	/**
+	 * 需读取的Sheet页的Record来源
+	 *
+	 * <pre>
+	 *     依次定位到需读取的Sheet页的BOFRecord，Sheet页结束（BOFRecord层级回到0）后直接定位到下一个需读取的Sheet页
+	 *     文件加密时无法定位，从全局数据流之后继续顺序读取，不需读取的Sheet页在processBOFRecord中标记跳过
+	 *     须在确定各Sheet页是否需读取之后创建
+	 * </pre>
+	 */
+	private class SheetRecords {
+
+		/**
+		 * 文件加密时顺序读取的Record流，未加密时为null
+		 */
+		private final RecordFactoryInputStream sequential;
+
+		/**
+		 * 各Sheet页读取的起始行号，大于1时直接定位到该行所在的行块
+		 */
+		private final int fromRow;
+
+		/**
+		 * 最后一个需读取的Sheet页下标
+		 */
+		private final int lastSheet;
+
+		/**
+		 * 当前Sheet页的Record流
+		 */
+		private RecordFactoryInputStream current;
+
+		/**
+		 * 当前Sheet页是否已返回BOFRecord
+		 */
+		private boolean opened;
+
+		/**
+		 * 下一个待检查的Sheet页下标
+		 */
+		private int nextSheet;
+
+		SheetRecords(RecordFactoryInputStream globals, int fromRow) {
+			this.sequential = globals;
+			this.fromRow = fromRow;
+			int last = selectedSheets.length - 1;
+			while (last >= 0 && !selectedSheets[last]) {
+				last--;
+			}
+			this.lastSheet = last;
+		}
+
+		/**
+		 * 读取下一个Record
+		 *
+		 * @return Record对象，所有需读取的Sheet页均已读取结束时返回null
+		 * @throws IOException
+		 *             读取文件流时产生的异常
+		 */
+		Record nextRecord() throws IOException {
+			if (sequential != null) {
+				// 最后一个需读取的Sheet页之后的内容无须读取
+				return state.sheetIndex > lastSheet ? null : sequential.nextRecord();
+			}
+			while (true) {
+				if (current != null) {
+					Record record = opened && bofDepth == 0 ? null : current.nextRecord();
+					if (record != null) {
+						opened = true;
+						return record;
+					}
+					current = null;
+				}
+				while (nextSheet <= lastSheet && !selectedSheets[nextSheet]) {
+					nextSheet++;
+				}
+				if (nextSheet > lastSheet) {
+					return null;
+				}
+				// processBOFRecord中Sheet页下标+1
+				state.sheetIndex = nextSheet - 1;
+				// 恢复读取时检查点所在的Sheet页定位到起始行所在的行块，行块中之前的行由acceptRow过滤
+				int start = Math.max(fromRow, resumeRow(nextSheet));
+				current = seeker.openSheet(orderedBSRs[nextSheet++].getPositionOfBof(), start - 1);
+				opened = false;
+			}
+		}
+
+		/**
+		 * 结束当前Sheet页的读取，剩余的Record不再读取
+		 */
+		void skipSheet() {
+			if (sequential != null) {
+				state.breakSheet = true;
+				return;
+			}
+			current = null;
+			bofDepth = 0;
+			sheetStarted = false;
+			listener.resetRow();
+		}
+	}
+
+	/**
+	 * 迭代读取时的数据行来源
+	 *
+	 * <pre>
+	 *     通过RecordFactoryInputStream逐条读取Record，交给ListenerImpl处理，读取到一行后即返回
+	 *     每个Sheet页只返回[fromRow, toRow]范围内的行，超出结束行号后该Sheet页的剩余行不再处理；按范围读取时指定的Sheet页结束即停止读取
+	 *     Sheet页在Workbook流中依次存放，不支持拆分
+	 * </pre>
+	 */
+	private class RecordRowSource extends RowSource {
+
+		private final SheetRecords records;
+
+		/**
+		 * 每个Sheet页读取的起始行号
+		 */
+		private final int fromRow;
+
+		/**
+		 * 每个Sheet页读取的结束行号
+		 */
+		private final int toRow;
+
+		/**
+		 * 是否为按范围读取，为true时超出结束行号即停止读取
+		 */
+		private final boolean ranged;
+
+		/**
+		 * 已返回的数据行，下一次读取时回收
+		 */
+		private Row handed;
+
+		private boolean closed;
+
+		RecordRowSource(SheetRecords records, int fromRow, int toRow, boolean ranged) {
+			this.records = records;
+			this.fromRow = fromRow;
+			this.toRow = toRow;
+			this.ranged = ranged;
+		}
+
+		@Override
+		Row next() throws Exception {
+			// 回收上一次返回的数据行，供下一行读取使用
+			recycle(handed);
+			handed = null;
+			while (!closed) {
+				while (pulled == null) {
+					Record record = records.nextRecord();
+					if (record == null) {
+						close();
+						return null;
+					}
+					listener.abortableProcessRecord(record);
+				}
+				Row next = pulled;
+				pulled = null;
+				if (next.getRowNum() > toRow) {
+					recycle(next);
+					if (ranged) {
+						close();
+						return null;
+					}
+					// 当前Sheet页的剩余Record不再读取
+					records.skipSheet();
+				} else if (next.getRowNum() < fromRow) {
+					recycle(next);
+				} else {
+					handed = next;
+					return handed;
+				}
+			}
+			return null;
+		}
+
+		private void recycle(Row recycled) {
+			if (recycled != null) {
+				recycled.clear();
+				spareRow = recycled;
+			}
+		}
+
+		@Override
+		public void close() throws IOException {
+			closed = true;
+			releaseFileSystem();
+		}
 	}
 
 	private class ListenerImpl extends AbortableHSSFListener {
+		/**
+		 * 当前行是否已读取到单元格，包括不在列投影中而被跳过的单元格
+		 */
+		private boolean rowPending;
+
 		/**
 		 * 当前单元格行下标
 		 */
@@ -123,9 +554,25 @@ public class ReadExcelOfHxls extends ReadExcelBase {
 		 */
 		private int thisColumn = -1;
 		/**
-		 * 当前单元格实际值
+		 * 当前单元格类型，为null时说明当前Record不是单元格
+		 */
+		private CellType thisType = null;
+		/**
+		 * 当前单元格数值，用于数值、布尔单元格
+		 */
+		private double thisNumber;
+		/**
+		 * 当前单元格SST索引值，为-1时说明不是SST字符串
+		 */
+		private int thisSst = -1;
+		/**
+		 * 当前单元格实际值，用于已是字符串的单元格
 		 */
 		private String thisStr = null;
+		/**
+		 * 当前单元格样式下标，用于数值单元格按样式格式化
+		 */
+		private int thisStyle;
 
 		/**
 		 * Record监听器
@@ -139,6 +586,8 @@ public class ReadExcelOfHxls extends ReadExcelBase {
 		 * BoundSheetRecord.sid
 		 * BOFRecord.sid
 		 * SSTRecord.sid
+		 * FormatRecord.sid
+		 * ExtendedFormatRecord.sid
 		 * BlankRecord.sid
 		 * BoolErrRecord.sid
 		 * FormulaRecord.sid
@@ -163,6 +612,8 @@ public class ReadExcelOfHxls extends ReadExcelBase {
 			// 当前列下标
 			thisColumn = -1;
 			// 当前值
+			thisType = null;
+			thisSst = -1;
 			thisStr = null;
 			// 返回值，若返回值非0，则终止读取
 			short userCode = 0;
@@ -175,12 +626,19 @@ public class ReadExcelOfHxls extends ReadExcelBase {
 					break;
 				// sheet页开头
 				case BOFRecord.sid:
-					processBOFRecord(record);
+					userCode = processBOFRecord(record);
 					break;
 				// 文本索引信息
 				case SSTRecord.sid:
 					processSSTRecord(record);
 					break;
+				// 数字格式和单元格样式
+				case FormatRecord.sid:
+					processFormatRecord(record);
+					break;
+				case ExtendedFormatRecord.sid:
+					processExtendedFormatRecord(record);
+					break;
 				// 空单元格
 				case BlankRecord.sid:
 					processBlankRecord(record);
@@ -218,18 +676,27 @@ public class ReadExcelOfHxls extends ReadExcelBase {
 				}
 
 				// 遇到新行的操作
-				if (thisRow != -1 && thisRow != lastRowNumber && rowArray.size() > 0) {
+				if (thisRow != -1 && thisRow != lastRowNumber && rowPending) {
 					userCode = rowDataProcess();
 				}
-				// 当前单元格的值非空时，将该值插入数据列表中
-				if (thisStr != null) {
-					rowListAddCell(thisColumn, thisStr);
+				// 当前Record为单元格时，将该值插入数据行中，不在列投影中的单元格直接跳过
+				if (thisType != null) {
+					rowPending = true;
+					checkCell(state, thisColumn);
+					if (isColumnRead(state, thisColumn)) {
+						addCell();
+					}
 				}
-				// 更新当前行和当前列的值
+				// 更新当前行和当前列的值，跳过本Sheet页后当前行保持为结束时的行号
 				if (thisRow > -1) {
 					lastRowNumber = thisRow;
-					curRow = thisRow + 1;
+					if (!state.breakSheet) {
+						state.curRow = thisRow + 1;
+					}
 				}
+			} catch (ReadLimitExceededException e) {
+				// 超出读取限制时直接抛出，不封装为HSSFUserException
+				throw e;
 			} catch (Exception e) {
 				throw new HSSFUserException(e.getMessage(), e);
 			}
@@ -255,30 +722,36 @@ public class ReadExcelOfHxls extends ReadExcelBase {
 		 *
 		 * @param record
 		 *            record
+		 * @return 操作值，若返回0则继续读取，否则将终止读取
+		 * @throws Exception
+		 *             回调过程中产生的非指定异常，抛出后将终止读取
 		 */
-		private void processBOFRecord(Record record) {
+		private short processBOFRecord(Record record) throws Exception {
 			BOFRecord br = (BOFRecord) record;
+			// Sheet页中可能嵌套图表等子数据流，记录层级以判断Sheet页结尾
+			bofDepth++;
 			if (br.getType() == BOFRecord.TYPE_WORKSHEET) {
 				// Sheet页下标+1
-				sheetIndex++;
-				if (orderedBSRs == null) {
-					// 将读取到的BoundSheetRecord对象根据Sheet页顺序进行排序
-					orderedBSRs = BoundSheetRecord.orderByBofPosition(boundSheetRecords);
-				}
+				state.sheetIndex++;
 				// 根据下标获取当前Shee页对应的BoundSheetRecord对象
-				thisSheetRecord = orderedBSRs[sheetIndex];
+				thisSheetRecord = orderedBSRs[state.sheetIndex];
 				// 获取Sheet页名称
-				sheetName = thisSheetRecord.getSheetname();
-				// 判断当前sheet页是否跳过
-				if (thisSheetRecord.isHidden() || thisSheetRecord.isVeryHidden()) {
-					// 隐藏sheet页一律跳过
-					breakSheet = true;
-				} else {
-					// 回调判断逻辑，判断Sheet页是否跳过读取
-					breakSheet = instance.judgeBreakSheet(sheetName, ReadExcelOfHxls.this);
-				}
+				state.sheetName = thisSheetRecord.getSheetname();
+				// 是否跳过已在读取全局数据流后判断
+				state.breakSheet = !selectedSheets[state.sheetIndex];
 				lastRowNumber = -1;
+				if (!state.breakSheet) {
+					sheetStarted = true;
+					try {
+						startSheet(state);
+					} catch (SheetContinueException e) {
+						state.breakSheet = true;
+					} catch (SheetBreakException e) {
+						return finishSheet((short) 1);
+					}
+				}
 			}
+			return 0;
 		}
 
 		/**
@@ -288,7 +761,41 @@ public class ReadExcelOfHxls extends ReadExcelBase {
 		 *            record
 		 */
 		private void processSSTRecord(Record record) throws Exception {
-			sstRecord = (SSTRecord) record;
+			int maxStrings = maxSharedStrings();
+			int strings = ((SSTRecord) record).getNumUniqueStrings();
+			if (maxStrings > 0 && strings > maxStrings) {
+				throw new ReadLimitExceededException(Limit.SHARED_STRINGS, maxStrings, strings);
+			}
+			sst = SharedStrings.cached(new SSTRecordSharedStrings((SSTRecord) record), sharedStringsCache);
+			state.row.setSharedStrings(sst);
+		}
+
+		/**
+		 * 处理自定义数字格式，仅开启按样式格式化时记录
+		 *
+		 * @param record
+		 *            record
+		 */
+		private void processFormatRecord(Record record) {
+			if (formatted) {
+				FormatRecord frec = (FormatRecord) record;
+				customFormats.put(frec.getIndexCode(), frec.getFormatString());
+			}
+		}
+
+		/**
+		 * 处理单元格样式，按出现顺序即为样式下标，仅开启按样式格式化时记录
+		 *
+		 * @param record
+		 *            record
+		 */
+		private void processExtendedFormatRecord(Record record) {
+			if (formatted) {
+				if (xfCount == xfFormats.length) {
+					xfFormats = Arrays.copyOf(xfFormats, xfCount << 1);
+				}
+				xfFormats[xfCount++] = ((ExtendedFormatRecord) record).getFormatIndex();
+			}
 		}
 
 		/**
@@ -302,6 +809,7 @@ public class ReadExcelOfHxls extends ReadExcelBase {
 			thisRow = brec.getRow();
 			thisColumn = brec.getColumn();
 			// 将当前值置为空字符串
+			thisType = CellType.BLANK;
 			thisStr = "";
 		}
 
@@ -316,10 +824,12 @@ public class ReadExcelOfHxls extends ReadExcelBase {
 			thisRow = berec.getRow();
 			thisColumn = berec.getColumn();
 			if (berec.isBoolean()) {
-				// 若单元格值为boolean，则获取布尔值
-				thisStr = Boolean.toString(berec.getBooleanValue());
+				// 若单元格值为boolean，则获取布尔值，以1和0存放
+				thisType = CellType.BOOLEAN;
+				thisNumber = berec.getBooleanValue() ? 1 : 0;
 			} else {
 				// 否则直接将值置空
+				thisType = CellType.ERROR;
 				thisStr = "";
 			}
 		}
@@ -348,7 +858,9 @@ public class ReadExcelOfHxls extends ReadExcelBase {
 				nextRow = frec.getRow();
 				nextColumn = frec.getColumn();
 			} else {
-				thisStr = Double.toString(frec.getValue());
+				thisType = CellType.NUMERIC;
+				thisNumber = frec.getValue();
+				thisStyle = frec.getXFIndex();
 			}
 		}
 
@@ -364,6 +876,7 @@ public class ReadExcelOfHxls extends ReadExcelBase {
 				// String for formula
 				StringRecord srec = (StringRecord) record;
 				// 获取实际值
+				thisType = CellType.STRING;
 				thisStr = srec.getString();
 				// 获取之前公式单元格存放的行列下标
 				thisRow = nextRow;
@@ -382,6 +895,7 @@ public class ReadExcelOfHxls extends ReadExcelBase {
 			LabelRecord lrec = (LabelRecord) record;
 			thisRow = lrec.getRow();
 			thisColumn = lrec.getColumn();
+			thisType = CellType.STRING;
 			thisStr = lrec.getValue().trim();
 		}
 
@@ -395,12 +909,13 @@ public class ReadExcelOfHxls extends ReadExcelBase {
 			LabelSSTRecord lsrec = (LabelSSTRecord) record;
 			thisRow = lsrec.getRow();
 			thisColumn = lsrec.getColumn();
-			if (sstRecord == null) {
+			thisType = CellType.STRING;
+			if (sst == null) {
 				// 若字符串索引为空，则将值置空
 				thisStr = "";
 			} else {
-				// 根据索引获取字符串实际值
-				thisStr = sstRecord.getString(lsrec.getSSTIndex()).toString().trim();
+				// 只记录索引值，用到时再获取字符串实际值
+				thisSst = lsrec.getSSTIndex();
 			}
 		}
 
@@ -414,8 +929,10 @@ public class ReadExcelOfHxls extends ReadExcelBase {
 			NumberRecord numrec = (NumberRecord) record;
 			thisRow = numrec.getRow();
 			thisColumn = numrec.getColumn();
-			// 将double值转换为String
-			thisStr = Double.toString(numrec.getValue());
+			// 直接存放double值，用到时再转换为String
+			thisType = CellType.NUMERIC;
+			thisNumber = numrec.getValue();
+			thisStyle = numrec.getXFIndex();
 		}
 
 		/**
@@ -426,13 +943,38 @@ public class ReadExcelOfHxls extends ReadExcelBase {
 		 * @return 操作值，若返回0则继续读取，否则将终止读取
 		 */
 		private short processEOFRecord(Record record) throws Exception {
-			EOFRecord er = (EOFRecord) record;
-			if (rowArray.size() > 0) {
+			short userCode = 0;
+			if (rowPending) {
 				lastRowNumber = -1;
 				// 若当前行数据中存在值，需调用行数据处理方法
-				return rowDataProcess();
+				userCode = rowDataProcess();
 			}
-			return 0;
+			// 回到顶层数据流时当前Sheet页结束
+			if (--bofDepth == 0 && sheetStarted && userCode == 0) {
+				return finishSheet(userCode);
+			}
+			return userCode;
+		}
+
+		/**
+		 * Sheet页读取结束，回调Sheet页结束接口
+		 *
+		 * @param userCode
+		 *            结束前的操作值
+		 * @return 操作值，若返回0则继续读取，否则将终止读取
+		 * @throws Exception
+		 *             回调过程中产生的非指定异常，抛出后将终止读取
+		 */
+		short finishSheet(short userCode) throws Exception {
+			sheetStarted = false;
+			try {
+				endSheet(state);
+			} catch (SheetContinueException e) {
+				// 本Sheet页已结束，无须处理
+			} catch (SheetBreakException e) {
+				return 1;
+			}
+			return userCode;
 		}
 
 		/**
@@ -443,30 +985,67 @@ public class ReadExcelOfHxls extends ReadExcelBase {
 		 *             读取过程中产生的非指定异常，抛出后将终止读取
 		 */
 		private short rowDataProcess() throws Exception {
-			// 若当前sheet页非隐藏且没有被跳过读取，则回调业务逻辑处理接口
-			if (!(thisSheetRecord.isHidden() || thisSheetRecord.isVeryHidden() || breakSheet)) {
+			rowPending = false;
+			// 若当前sheet页没有被跳过读取（隐藏Sheet页开始时已标记跳过），且数据行通过过滤，则回调业务逻辑处理接口
+			if (!state.breakSheet && acceptRow(state)) {
+				if (pulling) {
+					state.row.setPosition(state.curRow, state.sheetName, state.sheetIndex);
+					pulled = state.row;
+					state.row = spareRow == null ? new Row() : spareRow;
+					spareRow = null;
+					state.row.setSharedStrings(sst);
+					state.row.setCellFormats(cellFormats);
+					return 0;
+				}
 				try {
 					// 传入当前行的相关进行和自身基类，base中存放相关配置信息
-					instance.optRows(rowArray, curRow, sheetName, ReadExcelOfHxls.this);
+					deliverRow(state);
 				} catch (SheetContinueException e) {
 					// 解析过程中若抛出的异常信息为跳过本Sheet页读取，则将breakSheet改为true
-					breakSheet = true;
+					state.breakSheet = true;
 				} catch (SheetBreakException e) {
 					// 解析过程中若抛出的异常信息为终止整个文件的读取，则返回1，Excel将停止读取
-					return 1;
+					return finishSheet((short) 1);
 				} catch (Exception e) {
 					throw e;
 				}
 			}
 			// 读取完成后将数据列表清空
-			rowArray.clear();
+			state.row.clear();
 			return 0;
 		}
+
+		/**
+		 * 丢弃当前尚未结束的数据行，直接结束Sheet页读取时使用
+		 */
+		void resetRow() {
+			rowPending = false;
+			outputNextStringRecord = false;
+			state.row.clear();
+		}
+
+		/**
+		 * 将当前单元格的值插入数据行中
+		 */
+		private void addCell() {
+			if (thisSst >= 0) {
+				state.row.setSst(thisColumn, thisSst);
+			} else if (thisStr != null) {
+				state.row.setString(thisColumn, thisType, thisStr);
+			} else {
+				state.row.setNumber(thisColumn, thisType, thisNumber);
+				if (cellFormats != null && thisType == CellType.NUMERIC) {
+					state.row.setStyle(thisColumn, thisStyle);
+				}
+			}
+		}
 	}
 
 	@Override
 	public void saveFile(OutputStream stream) throws IOException {
-		// 将文件对象保存至OutputStream中
-		fs.writeFilesystem(stream);
+		// 通过文件创建时直接复制原始内容，否则将文件对象保存至OutputStream中
+		if (!transferSource(stream)) {
+			fs.writeFilesystem(stream);
+		}
 	}
 }
@@ -1,32 +1,45 @@
 package cn.cy.read;
 
-import org.apache.commons.lang3.StringUtils;
+import org.apache.poi.openxml4j.exceptions.InvalidFormatException;
 import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.openxml4j.opc.PackagePart;
+import org.apache.poi.openxml4j.opc.ZipPackagePart;
 import org.apache.poi.xssf.eventusermodel.XSSFReader;
-import org.apache.poi.xssf.model.SharedStringsTable;
-import org.apache.poi.xssf.usermodel.XSSFRichTextString;
-import org.openxmlformats.schemas.spreadsheetml.x2006.main.CTSheet;
-import org.openxmlformats.schemas.spreadsheetml.x2006.main.STSheetState;
-import org.openxmlformats.schemas.spreadsheetml.x2006.main.WorkbookDocument;
 import org.xml.sax.Attributes;
 import org.xml.sax.InputSource;
 import org.xml.sax.SAXException;
 import org.xml.sax.XMLReader;
 import org.xml.sax.helpers.DefaultHandler;
-import org.xml.sax.helpers.XMLReaderFactory;
+
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamReader;
 
 import cn.cy.exception.SheetBreakException;
 import cn.cy.exception.SheetContinueException;
 import cn.cy.rollback.ReadExcelRollBack;
+import cn.cy.sst.SharedStrings;
+import cn.cy.util.SaxParsers;
+import cn.cy.util.StaxAttributes;
+import cn.cy.util.StaxParsers;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 /**
  * POI事件模式读取数据：excel2007(.xlsx) XSSF and SAX (Event API)
- * 
+ *
  * <pre>
  *     Excel2007及以上版本(.xlsx)的数据将使用xml进行数据存储，将一个excel文件后缀改为.zip，解压后即可看到文件存储结构
  *     本方法使用XSSFReader进行文件读取，该方法将提供各个Sheet页对应的xml文件流，再使用XMLReader对xml解析数据从而获取值
@@ -35,31 +48,41 @@ import java.util.List;
  * @author cy96151
  */
 public class ReadExcelOfXxls extends ReadExcelBase {
+	/**
+	 * 并行读取时每个Sheet页暂存的最大行数
+	 */
+	private static final int SHEET_QUEUE_CAPACITY = 1024;
+
+	/**
+	 * 并行读取时Sheet页结束标记
+	 */
+	private static final Row END_OF_SHEET = new Row();
+
 	/**
 	 * 字符串共享数据集
 	 * <p>
-	 * 对应XML文件：xl/sharedStrings.xml
+	 * 对应XML文件：xl/sharedStrings.xml，根据sharedStringsMode选择存储方式
 	 * </p>
 	 */
-	private SharedStringsTable sst;
+	private SharedStrings sst;
+
+	private XSSFReader r;
+	private OPCPackage pkg;
 
 	/**
-	 * 当前读取到的字符串
+	 * 并行读取时是否终止所有Sheet页的读取
 	 */
-	private String lastContents;
+	private volatile boolean cancelled;
 
 	/**
-	 * 读取XML时，标记下一个元素是否为SST的索引
+	 * 并行读取时第一个非指定异常
 	 */
-	private boolean nextIsString;
+	private volatile Exception sheetError;
 
 	/**
-	 * 当前列下标
+	 * 并行交错回调时的回调锁，保证回调方法不会被并发调用
 	 */
-	private int curCol = -1;
-
-	private XSSFReader r;
-	private OPCPackage pkg;
+	private final Object deliveryLock = new Object();
 
 	public ReadExcelOfXxls(InputStream file, ReadExcelRollBack instance) throws Exception {
 		pkg = OPCPackage.open(file);
@@ -67,62 +90,374 @@ public class ReadExcelOfXxls extends ReadExcelBase {
 		this.instance = instance;
 	}
 
+	/**
+	 * 通过文件路径创建，以只读方式随机读取zip中的各文件，文件内容不读取至内存
+	 *
+	 * @param path
+	 *            文件路径
+	 * @param instance
+	 *            回调实例
+	 * @throws Exception
+	 *             打开文件时产生的异常
+	 */
+	ReadExcelOfXxls(Path path, ReadExcelRollBack instance) throws Exception {
+		pkg = OPCPackage.open(path.toString(), PackageAccess.READ);
+		try {
+			this.r = new XSSFReader(pkg);
+		} catch (Exception e) {
+			pkg.revert();
+			throw e;
+		}
+		this.instance = instance;
+	}
+
 	@Override
 	public void process() throws Exception {
-		// 获取字符串共享表对象
-		this.sst = r.getSharedStringsTable();
+		checkPackage();
+		startLimits(compressedSize());
+		startCheckpoints(sheetExecutor != null);
+		startRecorder("xlsx");
+		// 流式读取字符串共享数据集，不再构造XMLBeans对象
+		long sstStart = System.nanoTime();
+		try {
+			this.sst = SharedStrings.cached(SharedStrings.create(limitBytes(r.getSharedStringsData()), effectiveSharedStringsMode(),
+					sharedStringsBudget, maxSharedStrings()), sharedStringsCache);
+		} catch (Exception e) {
+			finishRecorder();
+			finishCheckpoints();
+			throw e;
+		}
+		state.row.setSharedStrings(sst);
+		try {
+			if (recorder != null) {
+				recorder.sharedStringsLoaded(sst.size(), System.nanoTime() - sstStart);
+			}
+			loadCellFormats();
+			List<WorkbookSheet> sheetList = sheetList();
+			if (recorder != null) {
+				recorder.opened(sheetList.size());
+			}
+			if (sheetExecutor == null) {
+				startPipeline();
+				boolean completed = false;
+				try {
+					processSheets(sheetList);
+					completed = true;
+				} finally {
+					finishPipeline(completed);
+				}
+			} else {
+				processSheetsParallel(sheetList);
+			}
+		} finally {
+			sst.close();
+			releasePackage();
+			finishRecorder();
+			finishCheckpoints();
+		}
+	}
+
+	/**
+	 * 获取各Sheet页信息
+	 *
+	 * @return 通过workbook.xml获取的各Sheet页信息，可获取Sheet页名称和对应xml文件IO流
+	 * @throws Exception
+	 *             读取workbook.xml时产生的异常
+	 */
+	private List<WorkbookSheet> sheetList() throws Exception {
+		return WorkbookSheet.read(r.getWorkbookData());
+	}
+
+	@Override
+	RowSource openRows(int lastRow) throws Exception {
+		List<WorkbookSheet> sheetList = openSheetList();
+		return new SheetRowSource(sheetList, 0, sheetList.size(), 1, lastRow, false);
+	}
+
+	@Override
+	RowSource openRange(String sheetName, int fromRow, int toRow) throws Exception {
+		List<WorkbookSheet> sheetList = openSheetList();
+		for (int i = 0; i < sheetList.size(); i++) {
+			if (sheetList.get(i).getName().equals(sheetName)) {
+				return new SheetRowSource(sheetList, i, i + 1, fromRow, toRow, true);
+			}
+		}
+		sst.close();
+		releasePackage();
+		throw new IllegalArgumentException("Sheet页不存在：" + sheetName);
+	}
+
+	/**
+	 * 开启按样式格式化时读取styles.xml中的数字格式表
+	 */
+	private void loadCellFormats() throws Exception {
+		if (formatted) {
+			cellFormats = CellFormats.readStyles(limitBytes(r.getStylesData()));
+			state.row.setCellFormats(cellFormats);
+		}
+	}
+
+	private void checkPackage() {
+		if (pkg == null) {
+			throw new IllegalStateException("文件对象已在读取结束后释放，不能再次读取");
+		}
+	}
+
+	/**
+	 * zip中各文件压缩后的总字节数，用于检查解压比值，未设置读取限制或无法获取时为0
+	 *
+	 * @throws InvalidFormatException
+	 *             获取zip中各文件时产生的异常
+	 */
+	private long compressedSize() throws InvalidFormatException {
+		if (readLimits == null) {
+			return 0;
+		}
+		long size = 0;
+		for (PackagePart part : pkg.getParts()) {
+			if (!(part instanceof ZipPackagePart)) {
+				// 直接通过文件流构造时zip中各文件已由POI解压至内存，不计入
+				continue;
+			}
+			// zip条目未记录压缩后的大小时无法计算解压比值
+			long compressed = ((ZipPackagePart) part).getZipArchive().getCompressedSize();
+			if (compressed < 0) {
+				return 0;
+			}
+			size += compressed;
+		}
+		return size;
+	}
+
+	/**
+	 * 读取结束后释放文件对象，saveFile直接复制原始内容，不再需要zip中各文件的信息；通过文件流创建时再关闭暂存的临时文件
+	 */
+	private void releasePackage() {
+		if (pkg != null && releaseAfterRead()) {
+			pkg.revert();
+			pkg = null;
+			r = null;
+			releaseSource();
+		}
+	}
+
+	/**
+	 * 迭代读取前创建字符串共享数据集并获取各Sheet页信息
+	 *
+	 * @return 各Sheet页信息
+	 * @throws Exception
+	 *             读取时产生的异常
+	 */
+	private List<WorkbookSheet> openSheetList() throws Exception {
+		checkPackage();
+		startLimits(compressedSize());
+		this.sst = SharedStrings.cached(SharedStrings.create(limitBytes(r.getSharedStringsData()), effectiveSharedStringsMode(),
+				sharedStringsBudget, maxSharedStrings()), sharedStringsCache);
+		state.row.setSharedStrings(sst);
+		try {
+			loadCellFormats();
+			return sheetList();
+		} catch (Exception e) {
+			sst.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * 依次读取各Sheet页
+	 *
+	 * @param sheetList
+	 *            各Sheet页信息
+	 * @throws Exception
+	 *             读取过程中产生的异常
+	 */
+	private void processSheets(List<WorkbookSheet> sheetList) throws Exception {
 		// 获取xml解析对象
-		XMLReader parser = fetchSheetParser();
-		// 通过WorkbookDocument获取各Sheet页的CTSheet对象，可获取Sheet页名称和对应xml文件IO流
-		List<CTSheet> sheetList = WorkbookDocument.Factory.parse(r.getWorkbookData()).getWorkbook().getSheets().getSheetList();
-		for (CTSheet ctSheet : sheetList) {
-			// Sheet页下标+1
-			sheetIndex++;
-			// 获取Sheet页名称
-			sheetName = ctSheet.getName();
-			// 隐藏sheet排除
-			if (ctSheet.getState() == STSheetState.HIDDEN || ctSheet.getState() == STSheetState.VERY_HIDDEN) {
+		XMLReader parser = fetchSheetParser(new Handler(state));
+		try {
+			for (WorkbookSheet workbookSheet : sheetList) {
+				// Sheet页下标+1
+				state.sheetIndex++;
+				// 获取Sheet页名称
+				state.sheetName = workbookSheet.getName();
+				// 恢复读取时已回调完成的Sheet页不再读取
+				if (isSheetResumed(state.sheetIndex)) {
+					continue;
+				}
+				// 隐藏sheet排除
+				if (workbookSheet.isHidden()) {
+					continue;
+				}
+				// 判断当前sheet页是否跳过
+				state.breakSheet = judgeBreakSheet(state);
+				if (state.breakSheet) {
+					continue;
+				}
+				// 获取Sheet页信息xml文件，文件路径：xl/worksheets/
+				InputStream sheet = resumeSheet(countSheetBytes(limitBytes(r.getSheet(workbookSheet.getRelationId())), state.sheetIndex));
+				// 是否终止整个文件的读取
+				boolean stop = false;
+				try {
+					startSheet(state);
+					// 进行数据解析，恢复读取时Sheet页中已没有需读取的行则不解析
+					if (sheet != null) {
+						parser.parse(new InputSource(sheet));
+					}
+				} catch (SheetContinueException e) {
+					// 解析过程中若抛出的异常信息为跳过本Sheet页读取，则结束本Sheet页
+				} catch (SheetBreakException e) {
+					// 解析过程中若抛出的异常信息为终止整个文件的读取，则终止整个循环，Excel将停止读取
+					stop = true;
+				} finally {
+					if (sheet != null) {
+						sheet.close();
+					}
+				}
+				if (!endSheetQuietly(state) || stop) {
+					break;
+				}
+			}
+		} finally {
+			SaxParsers.release(parser);
+		}
+	}
+
+	/**
+	 * 恢复读取时，检查点所在的Sheet页由SheetRowSeeker按字节跳过已回调完成的行
+	 *
+	 * @param sheet
+	 *            Sheet页xml文件流
+	 * @return 从起始行开始的文件流；不需跳过时为原文件流；Sheet页中已没有需读取的行时关闭原文件流，返回null
+	 * @throws IOException
+	 *             读取文件流时产生的异常
+	 */
+	private InputStream resumeSheet(InputStream sheet) throws IOException {
+		int fromRow = resumeRow(state.sheetIndex);
+		if (fromRow <= 1) {
+			return sheet;
+		}
+		SheetRowSeeker seeker = new SheetRowSeeker(sheet);
+		InputStream seeked;
+		try {
+			seeked = seeker.seek(fromRow);
+		} catch (IOException e) {
+			sheet.close();
+			throw e;
+		}
+		if (seeked == null) {
+			sheet.close();
+			state.curRow = fromRow - 1;
+			return null;
+		}
+		// 定位到的row元素省略r属性时，行号由此推算
+		state.curRow = seeker.getRowNum() - 1;
+		return seeked;
+	}
+
+	/**
+	 * Sheet页读取结束，处理回调中抛出的SheetContinueException和SheetBreakException
+	 *
+	 * @param s
+	 *            当前Sheet页的状态
+	 * @return 若需继续读取下一个Sheet页，返回true；若已终止所有Sheet页的读取，返回false
+	 * @throws Exception
+	 *             回调过程中产生的其他异常
+	 */
+	private boolean endSheetQuietly(SheetState s) throws Exception {
+		try {
+			endSheet(s);
+		} catch (SheetContinueException e) {
+			// 本Sheet页已结束，无须处理
+		} catch (SheetBreakException e) {
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * 并行读取各Sheet页
+	 *
+	 * <pre>
+	 *     在当前线程中按顺序判断各Sheet页是否跳过，再将需读取的Sheet页按顺序提交至sheetExecutor中同时解析
+	 *     各Sheet页共用一个只读的字符串共享数据集，Sheet页名称、下标、行号和行数据存放于各自的Sheet页状态中
+	 *     SheetContinueException只跳过抛出异常的Sheet页，SheetBreakException将终止所有Sheet页的读取
+	 *     方法返回前会等待所有解析任务结束
+	 * </pre>
+	 *
+	 * @param sheetList
+	 *            各Sheet页信息
+	 * @throws Exception
+	 *             读取过程中产生的异常
+	 */
+	private void processSheetsParallel(List<WorkbookSheet> sheetList) throws Exception {
+		List<SheetTask> tasks = new ArrayList<SheetTask>();
+		for (WorkbookSheet workbookSheet : sheetList) {
+			state.sheetIndex++;
+			state.sheetName = workbookSheet.getName();
+			if (workbookSheet.isHidden()) {
 				continue;
 			}
-			// 判断当前sheet页是否跳过
-			breakSheet = instance.judgeBreakSheet(sheetName, this);
-			if (breakSheet) {
+			state.breakSheet = judgeBreakSheet(state);
+			if (state.breakSheet) {
 				continue;
 			}
-			// 获取Sheet页信息xml文件，文件路径：xl/worksheets/
-			InputStream sheet = r.getSheet(ctSheet.getId());
-			InputSource sheetSource = new InputSource(sheet);
+			tasks.add(new SheetTask(workbookSheet.getRelationId(), sheetState(state.sheetName, state.sheetIndex)));
+		}
+		cancelled = false;
+		sheetError = null;
+		List<Future<Void>> futures = new ArrayList<Future<Void>>();
+		Exception error = null;
+		try {
+			// 按Sheet页顺序提交，保证按顺序回调时靠前的Sheet页先开始解析
+			for (SheetTask task : tasks) {
+				futures.add(sheetExecutor.submit(task));
+			}
+			if (sheetDelivery == SheetDelivery.ORDERED) {
+				for (SheetTask task : tasks) {
+					if (!task.drain()) {
+						break;
+					}
+				}
+			}
+		} catch (Exception e) {
+			error = e;
+			cancelled = true;
+		}
+		// 等待所有Sheet页解析结束
+		for (Future<Void> future : futures) {
 			try {
-				// 进行数据解析
-				parser.parse(sheetSource);
-			} catch (SheetContinueException e) {
-				// 解析过程中若抛出的异常信息为跳过本Sheet页读取，则跳出本次循环
-				continue;
-			} catch (SheetBreakException e) {
-				// 解析过程中若抛出的异常信息为终止整个文件的读取，则终止整个循环，Excel将停止读取
-				break;
-			} catch (SAXException e) {
-				throw e;
-			} finally {
-				sheet.close();
+				future.get();
+			} catch (ExecutionException e) {
+				if (error == null) {
+					error = e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+				}
 			}
 		}
+		if (error == null) {
+			error = sheetError;
+		}
+		if (error != null) {
+			throw error;
+		}
 	}
 
 	/**
 	 * 创建xml解析对象
-	 * 
+	 *
 	 * <pre>
 	 *     创建指定的ContentHandler并添加至此，数据读取时将调用指定的处理方法
+	 *     解析对象从SaxParsers中复用，读取结束后须调用SaxParsers.release()归还
 	 * </pre>
 	 *
+	 * @param handler
+	 *            xml数据处理类
 	 * @return 创建的XMLReader对象
 	 * @throws SAXException
 	 *             创建对象失败将抛出异常
 	 */
-	private XMLReader fetchSheetParser() throws SAXException {
-		XMLReader parser = XMLReaderFactory.createXMLReader("org.apache.xerces.parsers.SAXParser");
-		parser.setContentHandler(new Handler());
+	private XMLReader fetchSheetParser(Handler handler) throws SAXException {
+		XMLReader parser = SaxParsers.acquire();
+		parser.setContentHandler(handler);
 		return parser;
 	}
 
@@ -130,50 +465,124 @@ public class ReadExcelOfXxls extends ReadExcelBase {
 	 * XML数据处理类
 	 */
 	private class Handler extends DefaultHandler {
+		/**
+		 * 读取数据存放的Sheet页状态，串行读取时为ReadExcelOfXxls本身的状态，并行读取时为各Sheet页的状态
+		 */
+		protected final SheetState state;
+
+		/**
+		 * 当前读取到的字符串
+		 * <p>
+		 * 可复用的字符缓冲，只在读取v元素时写入，避免每次SAX回调都创建字符串
+		 * </p>
+		 */
+		private char[] contents = new char[64];
+
+		/**
+		 * 字符缓冲中的有效长度
+		 */
+		private int contentsLength;
+
+		/**
+		 * 是否处于v元素中
+		 */
+		private boolean inValue;
+
+		/**
+		 * 当前单元格类型，由c元素的t属性决定
+		 */
+		private CellType cellType;
+
+		/**
+		 * 读取XML时，标记下一个元素是否为SST的索引
+		 */
+		private boolean nextIsString;
+
+		/**
+		 * 当前列下标
+		 */
+		private int curCol = -1;
+
+		/**
+		 * 当前单元格是否不在列投影中，为true时不读取单元格的值
+		 */
+		private boolean skipCell;
+
+		/**
+		 * 当前单元格的样式下标，由c元素的s属性决定，仅开启按样式格式化时读取
+		 */
+		private int curStyle;
+
+		Handler(SheetState state) {
+			this.state = state;
+		}
+
 		@Override
 		public void startElement(String uri, String localName, String name, Attributes attributes) throws SAXException {
 			// 当元素名称为"c"时，则此处存放了一个单元格的值
 			if ("c".equals(name)) {
 				// 获取元素属性t的值
-				String cellType = attributes.getValue("t");
+				String t = attributes.getValue("t");
 				// 若属性t的值为"s"，则说明此单元格的实际值存放于字符串共享数据集中，子元素存放的时sst索引值，需将将nextIsString标记为true
-				if (cellType != null && "s".equals(cellType)) {
-					nextIsString = true;
-				} else {
-					nextIsString = false;
-				}
+				nextIsString = "s".equals(t);
+				cellType = cellTypeOf(t);
 				// 获取通过属性r的值获取单元格所在列下标
 				curCol = cellIndexConver(attributes.getValue("r"));
+				checkCell(state, curCol);
+				skipCell = !isColumnRead(state, curCol);
+				if (cellFormats != null) {
+					String s = attributes.getValue("s");
+					curStyle = s == null ? 0 : Integer.parseInt(s);
+				}
+			} else if ("v".equals(name)) {
+				inValue = !skipCell;
 			} else if ("row".equals(name)) {
-				// 若元素名称为"row"，则是读取到了新的一行，根据属性r的值获取当前行下标
+				// 若元素名称为"row"，则是读取到了新的一行，根据属性r的值获取当前行下标，r属性可省略，省略时为上一行+1
 				String rowIndex = attributes.getValue("r");
-				curRow = Integer.parseInt(rowIndex);
+				state.curRow = rowIndex == null ? state.curRow + 1 : Integer.parseInt(rowIndex);
 				// 清空行数据
-				rowArray.clear();
+				state.row.clear();
 				curCol = -1;
 			}
 			// 单元格值置空
-			lastContents = "";
+			contentsLength = 0;
 		}
 
 		@Override
 		public void endElement(String uri, String localName, String name) throws SAXException {
 			// 当已读取完成的是v元素时，说明一个单元格读取完毕
-			if ("v".equals(name)) {
+			if ("v".equals(name) && inValue) {
+				inValue = false;
 				if (nextIsString) {
-					// 若nextIsString为true，则lastContents值存放的是SST的索引值，需转换为实际值
-					int idx = Integer.parseInt(lastContents);
-					// 根据SST的索引值的到获取到单元格存储的实际字符串
-					lastContents = new XSSFRichTextString(sst.getEntryAt(idx)).toString();
+					// 若nextIsString为true，则contents中存放的是SST的索引值，只记录索引值，用到时再获取实际字符串
+					state.row.setSst(curCol, parseIndex());
+				} else {
+					// 去掉字符串前后的空白符后，将原始文本存放至数据行中
+					int start = 0;
+					int end = contentsLength;
+					while (start < end && contents[start] <= ' ') {
+						start++;
+					}
+					while (end > start && contents[end - 1] <= ' ') {
+						end--;
+					}
+					state.row.setText(curCol, cellType, contents, start, end - start);
+					if (cellFormats != null) {
+						state.row.setStyle(curCol, curStyle);
+					}
 				}
-				// 将单元格实际值加入rowlist中，并去掉字符串前后的空白符
-				rowListAddCell(curCol, lastContents.trim());
 			}
 
 			// 如果元素名称为 row ，这说明已到行尾，调用 optRows() 方法
 			if ("row".equals(name)) {
 				try {
-					instance.optRows(rowArray, curRow, sheetName, ReadExcelOfXxls.this);
+					// 未通过过滤的数据行不回调
+					if (acceptRow(state)) {
+						endRow();
+					}
+				} catch (SAXException e) {
+					// SheetContinueException和SheetBreakException须原样抛出
+					throw e;
 				} catch (Exception e) {
 					throw new SAXException(e.getMessage(), e);
 				}
@@ -182,38 +591,682 @@ public class ReadExcelOfXxls extends ReadExcelBase {
 
 		@Override
 		public void characters(char[] ch, int start, int length) throws SAXException {
-			// 获取元素字符串
-			lastContents += new String(ch, start, length);
+			// 只保存v元素的字符串，其他元素（如公式f）的内容无须读取
+			if (!inValue) {
+				return;
+			}
+			if (contentsLength + length > contents.length) {
+				contents = Arrays.copyOf(contents, Math.max(contents.length << 1, contentsLength + length));
+			}
+			System.arraycopy(ch, start, contents, contentsLength, length);
+			contentsLength += length;
+		}
+
+		/**
+		 * 行数据处理，回调业务逻辑处理接口
+		 *
+		 * @throws Exception
+		 *             回调过程中产生的异常
+		 */
+		protected void endRow() throws Exception {
+			deliverRow(state);
+		}
+
+		/**
+		 * 根据c元素的t属性获取单元格类型
+		 *
+		 * @param t
+		 *            c元素的t属性，省略时为数值
+		 * @return 单元格类型
+		 */
+		private CellType cellTypeOf(String t) {
+			if (t == null || "n".equals(t)) {
+				return CellType.NUMERIC;
+			} else if ("b".equals(t)) {
+				return CellType.BOOLEAN;
+			} else if ("e".equals(t)) {
+				return CellType.ERROR;
+			}
+			return CellType.STRING;
+		}
+
+		/**
+		 * 直接由字符缓冲解析SST索引值
+		 *
+		 * @return SST索引值
+		 * @throws SAXException
+		 *             索引值非数字时抛出异常
+		 */
+		private int parseIndex() throws SAXException {
+			int idx = 0;
+			boolean digit = false;
+			for (int i = 0; i < contentsLength; i++) {
+				char c = contents[i];
+				if (c >= '0' && c <= '9') {
+					idx = idx * 10 + (c - '0');
+					digit = true;
+				} else if (c > ' ') {
+					throw new SAXException("SST索引值格式错误：" + new String(contents, 0, contentsLength));
+				}
+			}
+			if (!digit) {
+				throw new SAXException("SST索引值为空");
+			}
+			return idx;
 		}
 
 		/**
 		 * 根据单元格元素的r属性转换为列下标
-		 * 
+		 *
 		 * <pre>
 		 *     r属性存放的数据规则为：列号+行号
-		 *     excel列号是以大写英文字母的26进制的方式存放，需转换为10进制
+		 *     excel列号是以大写英文字母的26进制的方式存放，只需读取开头的字母部分，逐位转换为10进制
+		 *     r属性可省略，省略时为上一个单元格+1
 		 * </pre>
 		 *
 		 * @param r
-		 * @return
+		 *            单元格元素的r属性
+		 * @return 列下标
 		 */
 		private int cellIndexConver(String r) {
+			if (r == null) {
+				return curCol + 1;
+			}
 			int index = 0;
-			// 通过将行号替换的方式获取列号值
-			String letter = StringUtils.replace(r, String.valueOf(curRow), "");
-			// 遍历列号值的每一位，将26进制转换为10进制
-			for (int i = 0, length = letter.length(); i < length; i++) {
-				int value = letter.charAt(letter.length() - 1 - i) - 64;
-				index += value * Math.pow(26, i);
-			}
-			// 行号-1为数据数组下标
+			for (int i = 0, length = r.length(); i < length; i++) {
+				char c = r.charAt(i);
+				if (c < 'A' || c > 'Z') {
+					break;
+				}
+				index = index * 26 + (c - 'A' + 1);
+			}
+			// 列号-1为数据数组下标
 			return index - 1;
 		}
 	}
 
+	/**
+	 * 创建并行读取时单个Sheet页的状态，使用读取类共用的字符串共享数据集和数字格式表
+	 *
+	 * @param sheetName
+	 *            Sheet页名称
+	 * @param sheetIndex
+	 *            Sheet页下标
+	 * @return Sheet页状态
+	 */
+	private SheetState sheetState(String sheetName, int sheetIndex) {
+		Row row = new Row();
+		row.setSharedStrings(sst);
+		row.setCellFormats(cellFormats);
+		return new SheetState(sheetName, sheetIndex, row);
+	}
+
+	/**
+	 * 单个Sheet页的并行解析任务
+	 */
+	private class SheetTask implements Callable<Void> {
+		/**
+		 * Sheet页对应xml文件的关系id
+		 */
+		private final String id;
+
+		/**
+		 * 解析线程使用的Sheet页状态
+		 */
+		private final SheetState state;
+
+		/**
+		 * 按顺序回调时暂存解析结果的有界队列
+		 */
+		private final BlockingQueue<Row> queue;
+
+		/**
+		 * 回调时抛出了SheetContinueException，解析线程将跳过本Sheet页剩余内容
+		 */
+		private volatile boolean skipped;
+
+		SheetTask(String id, SheetState state) {
+			this.id = id;
+			this.state = state;
+			this.queue = sheetDelivery == SheetDelivery.ORDERED ? new ArrayBlockingQueue<Row>(SHEET_QUEUE_CAPACITY) : null;
+		}
+
+		@Override
+		public Void call() throws Exception {
+			if (cancelled) {
+				return null;
+			}
+			// 交错回调时在解析线程中回调，回调中通过base获取的Sheet页信息取自本Sheet页的状态
+			SheetState bound = bindState(state);
+			try {
+				parseSheet();
+			} finally {
+				bindState(bound);
+			}
+			return null;
+		}
+
+		/**
+		 * 解析本Sheet页，解析或回调过程中产生的异常记录后终止其他Sheet页的读取
+		 *
+		 * @throws Exception
+		 *             获取Sheet页文件流时产生的异常
+		 */
+		private void parseSheet() throws Exception {
+			// 交错回调时在解析线程中回调，按顺序回调时由drain()回调
+			boolean interleaved = queue == null;
+			Handler handler = interleaved ? new InterleavedHandler(state) : new OrderedHandler(state, this);
+			InputStream sheet;
+			// XSSFReader不保证线程安全，获取Sheet页文件流时加锁
+			synchronized (r) {
+				sheet = countSheetBytes(limitBytes(r.getSheet(id)), state.sheetIndex);
+			}
+			try {
+				if (interleaved) {
+					synchronized (deliveryLock) {
+						startSheet(state);
+					}
+				}
+				XMLReader parser = fetchSheetParser(handler);
+				try {
+					parser.parse(new InputSource(sheet));
+				} finally {
+					SaxParsers.release(parser);
+				}
+				if (!interleaved) {
+					offer(END_OF_SHEET);
+				}
+			} catch (SheetContinueException e) {
+				// 跳过本Sheet页剩余内容
+			} catch (SheetBreakException e) {
+				cancelled = true;
+			} catch (Exception e) {
+				fail(e);
+				return;
+			} finally {
+				sheet.close();
+			}
+			if (interleaved) {
+				try {
+					synchronized (deliveryLock) {
+						endSheetQuietly(state);
+					}
+				} catch (Exception e) {
+					fail(e);
+				}
+			}
+		}
+
+		/**
+		 * Sheet页读取结束，回调中抛出SheetBreakException时终止所有Sheet页的读取
+		 *
+		 * @param s
+		 *            回调使用的Sheet页状态
+		 * @return 若需继续读取，返回true；若已终止所有Sheet页的读取，返回false
+		 * @throws Exception
+		 *             回调过程中产生的其他异常
+		 */
+		private boolean endSheetQuietly(SheetState s) throws Exception {
+			if (ReadExcelOfXxls.this.endSheetQuietly(s)) {
+				return true;
+			}
+			cancelled = true;
+			return false;
+		}
+
+		/**
+		 * 记录第一个异常，并终止其他Sheet页的读取
+		 *
+		 * @param e
+		 *            解析或回调过程中产生的异常
+		 */
+		private void fail(Exception e) {
+			synchronized (deliveryLock) {
+				if (sheetError == null) {
+					sheetError = e;
+				}
+			}
+			cancelled = true;
+		}
+
+		/**
+		 * 将解析结果放入队列，队列已满时等待
+		 *
+		 * @param row
+		 *            行数据
+		 * @throws SAXException
+		 *             本Sheet页已跳过或所有Sheet页已终止时抛出对应异常
+		 */
+		private void offer(Row row) throws SAXException {
+			try {
+				while (!queue.offer(row, 100, TimeUnit.MILLISECONDS)) {
+					checkState();
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new SheetBreakException();
+			}
+		}
+
+		/**
+		 * 检查本Sheet页是否已跳过或所有Sheet页是否已终止
+		 */
+		private void checkState() throws SAXException {
+			if (cancelled) {
+				throw new SheetBreakException();
+			}
+			if (skipped) {
+				throw new SheetContinueException();
+			}
+		}
+
+		/**
+		 * 在调用process()的线程中按顺序回调本Sheet页的数据行
+		 *
+		 * @return 若需继续回调下一个Sheet页，返回true；若已终止所有Sheet页的读取，返回false
+		 * @throws Exception
+		 *             回调或解析过程中产生的异常
+		 */
+		private boolean drain() throws Exception {
+			// 回调时使用的Sheet页状态，与解析线程使用的状态分开，避免回调时读取到解析线程正在修改的值
+			SheetState consumer = sheetState(state.sheetName, state.sheetIndex);
+			SheetState bound = bindState(consumer);
+			try {
+				return drain(consumer);
+			} finally {
+				bindState(bound);
+			}
+		}
+
+		private boolean drain(SheetState consumer) throws Exception {
+			try {
+				startSheet(consumer);
+			} catch (SheetContinueException e) {
+				skipped = true;
+				return endSheetQuietly(consumer);
+			} catch (SheetBreakException e) {
+				cancelled = true;
+				endSheetQuietly(consumer);
+				return false;
+			}
+			while (true) {
+				if (cancelled) {
+					// 其他Sheet页解析异常或已终止读取
+					if (sheetError != null) {
+						throw sheetError;
+					}
+					return false;
+				}
+				Row row = queue.poll(100, TimeUnit.MILLISECONDS);
+				if (row == null) {
+					continue;
+				}
+				if (row == END_OF_SHEET) {
+					return endSheetQuietly(consumer);
+				}
+				consumer.curRow = row.getRowNum();
+				consumer.row = row;
+				try {
+					deliverRow(consumer);
+				} catch (SheetContinueException e) {
+					skipped = true;
+					return endSheetQuietly(consumer);
+				} catch (SheetBreakException e) {
+					cancelled = true;
+					endSheetQuietly(consumer);
+					return false;
+				}
+			}
+		}
+	}
+
+	/**
+	 * 并行按顺序回调时的xml数据处理类，每读取完一行便复制一份放入队列
+	 */
+	private class OrderedHandler extends Handler {
+		private final SheetTask task;
+
+		OrderedHandler(SheetState state, SheetTask task) {
+			super(state);
+			this.task = task;
+		}
+
+		@Override
+		protected void endRow() throws Exception {
+			task.checkState();
+			state.row.setPosition(state.curRow, state.sheetName, state.sheetIndex);
+			task.offer(state.row.copy());
+		}
+	}
+
+	/**
+	 * 并行交错回调时的xml数据处理类，每读取完一行便在解析线程中加锁回调
+	 */
+	private class InterleavedHandler extends Handler {
+
+		InterleavedHandler(SheetState state) {
+			super(state);
+		}
+
+		@Override
+		protected void endRow() throws Exception {
+			synchronized (deliveryLock) {
+				if (cancelled) {
+					throw new SheetBreakException();
+				}
+				super.endRow();
+			}
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		try {
+			// 只读打开的文件对象无须保存
+			if (pkg != null) {
+				pkg.revert();
+			}
+		} finally {
+			super.close();
+		}
+	}
+
 	@Override
 	public void saveFile(OutputStream stream) throws IOException {
-		// 将文件对象保存至OutputStream中
-		pkg.save(stream);
+		// 通过文件创建时直接复制原始内容，否则将文件对象保存至OutputStream中
+		if (!transferSource(stream)) {
+			pkg.save(stream);
+		}
+	}
+
+	/**
+	 * 迭代读取时使用的xml数据处理类
+	 * <p>
+	 * 行结束时不回调，而是将当前Row对象交给SheetRowSource返回，并换上一个空的Row对象继续读取
+	 * </p>
+	 */
+	private class PullHandler extends Handler {
+		/**
+		 * 已读取完成、尚未返回的数据行
+		 */
+		private Row ready;
+
+		/**
+		 * 已返回的数据行，下一次读取前回收
+		 */
+		private Row handed;
+
+		/**
+		 * 已回收的数据行
+		 */
+		private Row spare;
+
+		PullHandler(SheetState state) {
+			super(state);
+		}
+
+		@Override
+		protected void endRow() {
+			state.row.setPosition(state.curRow, state.sheetName, state.sheetIndex);
+			ready = state.row;
+			Row next = spare == null ? new Row() : spare;
+			spare = null;
+			next.setSharedStrings(sst);
+			next.setCellFormats(cellFormats);
+			state.row = next;
+		}
+
+		boolean hasRow() {
+			return ready != null;
+		}
+
+		Row takeRow() {
+			handed = ready;
+			ready = null;
+			return handed;
+		}
+
+		/**
+		 * 回收上一次返回的数据行
+		 */
+		void recycle() {
+			if (handed != null) {
+				handed.clear();
+				spare = handed;
+				handed = null;
+			}
+		}
+	}
+
+	/**
+	 * 迭代读取时的数据行来源
+	 *
+	 * <pre>
+	 *     通过StAX按需拉取Sheet页xml的内容，交给PullHandler处理，读取到一行后即返回
+	 *     负责[nextSheet, endSheet)范围内的Sheet页，尚未开始读取时可将靠前的一半Sheet页拆分出去
+	 *     每个Sheet页只返回[fromRow, toRow]范围内的行，fromRow之前的行由SheetRowSeeker按字节跳过，读取到toRow之后的行即关闭该Sheet页
+	 *     最初的来源负责关闭所有拆分出的来源和字符串共享数据集
+	 * </pre>
+	 */
+	private class SheetRowSource extends RowSource {
+
+		private final List<WorkbookSheet> sheetList;
+
+		/**
+		 * 下一个待读取的Sheet页下标
+		 */
+		private int nextSheet;
+
+		/**
+		 * 读取范围的结束下标（不包括）
+		 */
+		private int endSheet;
+
+		/**
+		 * 每个Sheet页读取的起始行号
+		 */
+		private final int fromRow;
+
+		/**
+		 * 每个Sheet页读取的结束行号
+		 */
+		private final int toRow;
+
+		/**
+		 * 是否为指定读取的Sheet页，为true时隐藏Sheet页也会读取，且不调用judgeBreakSheet
+		 */
+		private final boolean ranged;
+
+		/**
+		 * 拆分出的数据行来源，所有拆分出的来源共用，由最初的来源关闭
+		 */
+		private final List<SheetRowSource> splits;
+
+		/**
+		 * 是否为最初的来源
+		 */
+		private final boolean root;
+
+		private final SheetState state = sheetState(null, -1);
+
+		private final PullHandler handler = new PullHandler(state);
+
+		private InputStream sheet;
+
+		private XMLStreamReader reader;
+
+		private StaxAttributes attributes;
+
+		private boolean closed;
+
+		SheetRowSource(List<WorkbookSheet> sheetList, int nextSheet, int endSheet, int fromRow, int toRow, boolean ranged) {
+			this(sheetList, nextSheet, endSheet, fromRow, toRow, ranged, new ArrayList<SheetRowSource>(), true);
+		}
+
+		private SheetRowSource(List<WorkbookSheet> sheetList, int nextSheet, int endSheet, int fromRow, int toRow, boolean ranged,
+				List<SheetRowSource> splits, boolean root) {
+			this.sheetList = sheetList;
+			this.nextSheet = nextSheet;
+			this.endSheet = endSheet;
+			this.fromRow = fromRow;
+			this.toRow = toRow;
+			this.ranged = ranged;
+			this.splits = splits;
+			this.root = root;
+		}
+
+		@Override
+		Row next() throws Exception {
+			handler.recycle();
+			while (!closed) {
+				if (reader == null && !openSheet()) {
+					return null;
+				}
+				while (pull()) {
+					Row next = handler.takeRow();
+					if (next.getRowNum() > toRow) {
+						break;
+					}
+					if (next.getRowNum() >= fromRow) {
+						return next;
+					}
+					handler.recycle();
+				}
+				// 当前Sheet页已读取结束或已超出结束行号，剩余内容不再解析
+				handler.recycle();
+				closeSheet();
+			}
+			return null;
+		}
+
+		@Override
+		RowSource trySplit() {
+			int remaining = endSheet - nextSheet;
+			// 有序的Spliterator须拆分出靠前的部分，已开始读取时无法拆分
+			if (closed || reader != null || remaining < 2) {
+				return null;
+			}
+			int mid = nextSheet + remaining / 2;
+			SheetRowSource split = new SheetRowSource(sheetList, nextSheet, mid, fromRow, toRow, ranged, splits, false);
+			nextSheet = mid;
+			synchronized (splits) {
+				splits.add(split);
+			}
+			return split;
+		}
+
+		/**
+		 * 打开下一个需读取的Sheet页，隐藏和judgeBreakSheet判断跳过的Sheet页不读取
+		 *
+		 * @return 若已没有需读取的Sheet页，返回false
+		 * @throws Exception
+		 *             打开Sheet页时产生的异常
+		 */
+		private boolean openSheet() throws Exception {
+			while (nextSheet < endSheet) {
+				int index = nextSheet++;
+				WorkbookSheet workbookSheet = sheetList.get(index);
+				state.sheetIndex = index;
+				state.sheetName = workbookSheet.getName();
+				if (!ranged) {
+					if (workbookSheet.isHidden()) {
+						continue;
+					}
+					state.breakSheet = judgeBreakSheet(state);
+					if (state.breakSheet) {
+						continue;
+					}
+				}
+				// XSSFReader不保证线程安全，获取Sheet页文件流时加锁
+				synchronized (r) {
+					sheet = limitBytes(r.getSheet(workbookSheet.getRelationId()));
+				}
+				state.curRow = 0;
+				// 须读取表头行时从表头行开始定位，表头行之后、起始行之前的行在next()中过滤
+				int seekRow = seekRow(fromRow);
+				if (seekRow > 1) {
+					SheetRowSeeker seeker = new SheetRowSeeker(sheet);
+					InputStream seeked = seeker.seek(seekRow);
+					if (seeked == null) {
+						// Sheet页中没有起始行号及之后的行
+						sheet.close();
+						sheet = null;
+						continue;
+					}
+					sheet = seeked;
+					// 定位到的row元素省略r属性时，行号由此推算
+					state.curRow = seeker.getRowNum() - 1;
+				}
+				reader = StaxParsers.newXMLStreamReader(sheet);
+				attributes = new StaxAttributes(reader);
+				return true;
+			}
+			return false;
+		}
+
+		/**
+		 * 拉取xml内容直到读取完一行
+		 *
+		 * @return 若读取到一行，返回true；若当前Sheet页已读取结束，返回false
+		 * @throws Exception
+		 *             解析过程中产生的异常
+		 */
+		private boolean pull() throws Exception {
+			while (reader.hasNext()) {
+				switch (reader.next()) {
+				case XMLStreamConstants.START_ELEMENT:
+					handler.startElement(reader.getNamespaceURI(), reader.getLocalName(), attributes.getElementQName(), attributes);
+					break;
+				case XMLStreamConstants.CHARACTERS:
+				case XMLStreamConstants.CDATA:
+				case XMLStreamConstants.SPACE:
+					handler.characters(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+					break;
+				case XMLStreamConstants.END_ELEMENT:
+					handler.endElement(reader.getNamespaceURI(), reader.getLocalName(), attributes.getElementQName());
+					if (handler.hasRow()) {
+						return true;
+					}
+					break;
+				default:
+					break;
+				}
+			}
+			return false;
+		}
+
+		private void closeSheet() throws IOException {
+			try {
+				if (reader != null) {
+					reader.close();
+				}
+			} catch (Exception e) {
+				// 关闭解析对象失败不影响文件流的关闭
+			} finally {
+				reader = null;
+				if (sheet != null) {
+					sheet.close();
+					sheet = null;
+				}
+			}
+		}
+
+		@Override
+		public void close() throws IOException {
+			if (closed) {
+				return;
+			}
+			closed = true;
+			closeSheet();
+			if (root) {
+				synchronized (splits) {
+					for (SheetRowSource split : splits) {
+						split.close();
+					}
+				}
+				sst.close();
+				releasePackage();
+			}
+		}
 	}
 }
@@ -0,0 +1,116 @@
+package cn.cy.read;
+
+/**
+ * 读取限制
+ *
+ * <pre>
+ *     通过ReadExcelBase.setReadLimits设置，用于读取不受信任的上传文件，防止zip炸弹、超宽数据行、超大字符串共享数据集等耗尽内存
+ *     超出任一上限时立即抛出ReadLimitExceededException；各上限为0时不限制
+ *     设置读取限制后，字符串共享数据集的MEMORY模式按MAPPED模式存储，超出堆内缓冲上限（setSharedStringsBudget）后写入临时文件
+ *     设置后不应再修改，并行读取时各Sheet页共用
+ * </pre>
+ *
+ * @author cy96151
+ */
+public final class ReadLimits {
+
+	/**
+	 * 解压比值在解压字节数超过此值后才检查，避免小文件误判
+	 */
+	static final long RATIO_GRACE_BYTES = 1024L * 1024;
+
+	private long maxInflatedBytes;
+
+	private int maxInflationRatio;
+
+	private int maxRowWidth;
+
+	private long maxSheetCells;
+
+	private int maxSharedStrings;
+
+	/**
+	 * 默认的读取限制：解压后最多1GB，解压比值最多100，数据行最多4096列，每个Sheet页最多5000万个单元格，字符串共享数据集最多500万个字符串
+	 *
+	 * @return 读取限制
+	 */
+	public static ReadLimits defaults() {
+		ReadLimits limits = new ReadLimits();
+		limits.setMaxInflatedBytes(1024L * 1024 * 1024);
+		limits.setMaxInflationRatio(100);
+		limits.setMaxRowWidth(4096);
+		limits.setMaxSheetCells(50000000L);
+		limits.setMaxSharedStrings(5000000);
+		return limits;
+	}
+
+	public long getMaxInflatedBytes() {
+		return maxInflatedBytes;
+	}
+
+	/**
+	 * 设置解压后的总字节数上限，包括所有Sheet页、字符串共享数据集和样式文件，仅Excel07版本生效
+	 *
+	 * @param maxInflatedBytes
+	 *            总字节数上限，为0时不限制
+	 */
+	public void setMaxInflatedBytes(long maxInflatedBytes) {
+		this.maxInflatedBytes = maxInflatedBytes;
+	}
+
+	public int getMaxInflationRatio() {
+		return maxInflationRatio;
+	}
+
+	/**
+	 * 设置解压后的总字节数与zip中各文件压缩后总字节数的比值上限，解压超过1MB后检查，仅Excel07版本生效
+	 *
+	 * @param maxInflationRatio
+	 *            比值上限，为0时不限制
+	 */
+	public void setMaxInflationRatio(int maxInflationRatio) {
+		this.maxInflationRatio = maxInflationRatio;
+	}
+
+	public int getMaxRowWidth() {
+		return maxRowWidth;
+	}
+
+	/**
+	 * 设置数据行宽度上限，列下标超出时抛出，如r="XFD1"的单元格宽度为16384
+	 *
+	 * @param maxRowWidth
+	 *            宽度上限（列数），为0时不限制
+	 */
+	public void setMaxRowWidth(int maxRowWidth) {
+		this.maxRowWidth = maxRowWidth;
+	}
+
+	public long getMaxSheetCells() {
+		return maxSheetCells;
+	}
+
+	/**
+	 * 设置单个Sheet页的单元格数量上限，包括列投影跳过的单元格
+	 *
+	 * @param maxSheetCells
+	 *            单元格数量上限，为0时不限制
+	 */
+	public void setMaxSheetCells(long maxSheetCells) {
+		this.maxSheetCells = maxSheetCells;
+	}
+
+	public int getMaxSharedStrings() {
+		return maxSharedStrings;
+	}
+
+	/**
+	 * 设置字符串共享数据集的字符串数量上限，Excel07版本在加载过程中检查
+	 *
+	 * @param maxSharedStrings
+	 *            字符串数量上限，为0时不限制
+	 */
+	public void setMaxSharedStrings(int maxSharedStrings) {
+		this.maxSharedStrings = maxSharedStrings;
+	}
+}
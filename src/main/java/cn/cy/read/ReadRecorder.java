@@ -0,0 +1,191 @@
+package cn.cy.read;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import cn.cy.metrics.ReadListener;
+import cn.cy.metrics.SheetMetrics;
+import cn.cy.metrics.WorkbookMetrics;
+
+/**
+ * 一次process()读取的统计
+ *
+ * <pre>
+ *     设置了ReadListener时在process()开始时创建，并行读取的各Sheet页、流水线的各回调线程共用同一个对象
+ *     各Sheet页的行数、单元格数和字节数由解析该Sheet页的线程写入，回调耗时由执行回调的线程累加，Sheet页结束时汇总至工作簿的计数
+ *     设置回调线程池时，回调耗时只计回调线程中回调方法本身的耗时，不含解析线程等待队列的时间；Sheet页在回调结束后汇总：
+ *     按Sheet页保序时由回调线程取出结束标记时汇总，不保序时解析线程等待已放入的数据行回调结束后汇总
+ * </pre>
+ *
+ * @author cy96151
+ */
+final class ReadRecorder {
+
+	private final ReadListener listener;
+
+	private final long slowCallbackNanos;
+
+	private final String format;
+
+	private final long startTime = System.nanoTime();
+
+	/**
+	 * 打开工作簿的统计，只在读取Sheet页之前由调用process()的线程写入
+	 */
+	private int sharedStrings;
+	private long sharedStringsNanos;
+	private long openNanos;
+
+	/**
+	 * 读取中的各Sheet页，键为Sheet页下标
+	 */
+	private final ConcurrentMap<Integer, SheetRecord> sheets = new ConcurrentHashMap<Integer, SheetRecord>();
+
+	private final AtomicInteger sheetCount = new AtomicInteger();
+	private final AtomicLong rows = new AtomicLong();
+	private final AtomicLong cells = new AtomicLong();
+	private final AtomicLong bytesRead = new AtomicLong();
+	private final AtomicLong callbackNanos = new AtomicLong();
+
+	ReadRecorder(ReadListener listener, long slowCallbackNanos, String format) {
+		this.listener = listener;
+		this.slowCallbackNanos = slowCallbackNanos;
+		this.format = format;
+	}
+
+	/**
+	 * 字符串共享数据集加载完成
+	 */
+	void sharedStringsLoaded(int entries, long nanos) {
+		sharedStrings = entries;
+		sharedStringsNanos = nanos;
+	}
+
+	/**
+	 * 工作簿打开完成
+	 *
+	 * @param sheetTotal
+	 *            工作簿中的Sheet页数量
+	 */
+	void opened(int sheetTotal) {
+		openNanos = System.nanoTime() - startTime;
+		listener.workbookOpened(new WorkbookMetrics(format, sheetTotal, 0, 0, 0, sharedStrings, sharedStringsNanos,
+				openNanos, openNanos, 0));
+	}
+
+	/**
+	 * 获取Sheet页的计数，不存在时创建
+	 */
+	SheetRecord sheet(int sheetIndex) {
+		SheetRecord record = sheets.get(sheetIndex);
+		if (record == null) {
+			record = new SheetRecord();
+			SheetRecord existing = sheets.putIfAbsent(sheetIndex, record);
+			if (existing != null) {
+				record = existing;
+			}
+		}
+		return record;
+	}
+
+	void sheetStarted(String sheetName, int sheetIndex) {
+		sheet(sheetIndex).startTime = System.nanoTime();
+		listener.sheetStarted(sheetName, sheetIndex);
+	}
+
+	/**
+	 * Sheet页结束，汇总至工作簿的计数
+	 */
+	void sheetEnded(String sheetName, int sheetIndex) {
+		SheetRecord record = sheets.remove(sheetIndex);
+		if (record == null) {
+			return;
+		}
+		long callback = record.callbackNanos.get();
+		SheetMetrics metrics = new SheetMetrics(sheetName, sheetIndex, record.rows, record.cells, record.bytesRead,
+				System.nanoTime() - record.startTime, callback);
+		sheetCount.incrementAndGet();
+		rows.addAndGet(record.rows);
+		cells.addAndGet(record.cells);
+		bytesRead.addAndGet(record.bytesRead);
+		callbackNanos.addAndGet(callback);
+		listener.sheetEnded(metrics);
+	}
+
+	/**
+	 * 一次数据行回调结束，计入Sheet页的回调耗时，耗时超过阈值时通知监听
+	 */
+	void callbackFinished(String sheetName, int sheetIndex, int rowNum, long nanos) {
+		sheet(sheetIndex).callbackNanos.addAndGet(nanos);
+		if (nanos >= slowCallbackNanos) {
+			listener.slowCallback(sheetName, sheetIndex, rowNum, nanos);
+		}
+	}
+
+	/**
+	 * Sheet页结束接口回调结束，计入Sheet页的回调耗时
+	 */
+	void sheetCallbackFinished(int sheetIndex, long nanos) {
+		sheet(sheetIndex).callbackNanos.addAndGet(nanos);
+	}
+
+	/**
+	 * 工作簿读取结束
+	 */
+	void finished() {
+		listener.workbookEnded(new WorkbookMetrics(format, sheetCount.get(), rows.get(), cells.get(), bytesRead.get(),
+				sharedStrings, sharedStringsNanos, openNanos, System.nanoTime() - startTime, callbackNanos.get()));
+	}
+
+	/**
+	 * 统计Sheet页文件流读取的字节数
+	 */
+	InputStream countBytes(InputStream in, int sheetIndex) {
+		final SheetRecord record = sheet(sheetIndex);
+		return new FilterInputStream(in) {
+			@Override
+			public int read() throws IOException {
+				int b = super.read();
+				if (b >= 0) {
+					record.bytesRead++;
+				}
+				return b;
+			}
+
+			@Override
+			public int read(byte[] b, int off, int len) throws IOException {
+				int n = super.read(b, off, len);
+				if (n > 0) {
+					record.bytesRead += n;
+				}
+				return n;
+			}
+
+			@Override
+			public long skip(long n) throws IOException {
+				long skipped = super.skip(n);
+				record.bytesRead += skipped;
+				return skipped;
+			}
+		};
+	}
+
+	/**
+	 * 单个Sheet页的计数
+	 */
+	static final class SheetRecord {
+		long startTime = System.nanoTime();
+		long rows;
+		long cells;
+		/**
+		 * 回调耗时，不按Sheet页保序回调时多个回调线程同时累加
+		 */
+		final AtomicLong callbackNanos = new AtomicLong();
+		long bytesRead;
+	}
+}
@@ -0,0 +1,864 @@
+package cn.cy.read;
+
+import java.text.ParseException;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import cn.cy.sst.SharedStrings;
+import cn.cy.util.DateParser;
+
+/**
+ * 类型化数据行
+ *
+ * <pre>
+ *     单元格按原始类型存放：数值为double，Excel03字符串为SST索引值，Excel07单元格为xml中的原始文本
+ *     只有调用getString时才会创建字符串，数值类单元格可直接通过getDouble、getLong获取，无须再次解析
+ *     读取过程中会复用同一个Row对象，回调结束后其中的数据将被覆盖，若需保留请调用copy()
+ *     很宽但单元格很少的数据行（如只有r="XFD1"一个单元格）改为稀疏存放，占用空间与单元格数量成正比
+ * </pre>
+ *
+ * @author cy96151
+ */
+public class Row {
+
+	/**
+	 * 单元格存储方式
+	 */
+	private static final byte STORE_NONE = 0;
+	private static final byte STORE_DOUBLE = 1;
+	private static final byte STORE_TEXT = 2;
+	private static final byte STORE_SST = 3;
+	private static final byte STORE_STRING = 4;
+
+	/**
+	 * 改为稀疏存放的最小列下标
+	 */
+	private static final int SPARSE_COLUMN = 256;
+
+	/**
+	 * 列下标超过已有单元格数量的此倍数时改为稀疏存放
+	 */
+	private static final int SPARSE_FACTOR = 8;
+
+	/**
+	 * 各单元格类型，null表示无单元格
+	 */
+	private CellType[] types;
+
+	/**
+	 * 各单元格存储方式
+	 */
+	private byte[] stores;
+
+	/**
+	 * 数值、布尔单元格的值
+	 */
+	private double[] numbers;
+
+	/**
+	 * SST索引值，或原始文本在文本缓冲中的起始位置
+	 */
+	private int[] ints;
+
+	/**
+	 * 原始文本长度
+	 */
+	private int[] lengths;
+
+	/**
+	 * 已是字符串的单元格值
+	 */
+	private String[] strings;
+
+	/**
+	 * 各单元格的样式下标，仅读取样式时写入
+	 */
+	private int[] styles;
+
+	/**
+	 * 原始文本缓冲，本行所有文本单元格共用
+	 */
+	private char[] text;
+	private int textLength;
+
+	/**
+	 * 行宽度：最后一个单元格的列下标+1
+	 */
+	private int width;
+
+	/**
+	 * 行号、Sheet页名称、Sheet页下标
+	 */
+	private int rowNum;
+	private String sheetName;
+	private int sheetIndex;
+
+	/**
+	 * 字符串共享数据集
+	 */
+	private SharedStrings sst;
+
+	/**
+	 * 数字格式表，为null时数值按原始值转换为文本
+	 */
+	private CellFormats formats;
+
+	/**
+	 * 所在Sheet页的表头索引，未设置表头行或位于表头行之前时为null
+	 */
+	private HeaderIndex header;
+
+	/**
+	 * 是否稀疏存放
+	 * <p>
+	 * 稀疏存放时各数组按槽位依次存放已有的单元格，columns为各槽位的列下标（升序），不再按列下标填充空位
+	 * </p>
+	 */
+	private boolean sparse;
+
+	/**
+	 * 稀疏存放时各槽位的列下标
+	 */
+	private int[] columns;
+
+	/**
+	 * 已有单元格数量，稀疏存放时即已使用的槽位数
+	 */
+	private int cells;
+
+	/**
+	 * 以列下标为下标的只读文本列表，设置读取限制时代替旧接口的rowlist
+	 */
+	private List<String> stringList;
+
+	public Row() {
+		this(16, 64);
+	}
+
+	private Row(int capacity, int textCapacity) {
+		types = new CellType[capacity];
+		stores = new byte[capacity];
+		numbers = new double[capacity];
+		ints = new int[capacity];
+		lengths = new int[capacity];
+		strings = new String[capacity];
+		styles = new int[capacity];
+		text = new char[textCapacity];
+	}
+
+	/**
+	 * 当前行号，与旧接口中的curRow一致
+	 */
+	public int getRowNum() {
+		return rowNum;
+	}
+
+	public String getSheetName() {
+		return sheetName;
+	}
+
+	public int getSheetIndex() {
+		return sheetIndex;
+	}
+
+	/**
+	 * 行宽度，与旧接口中rowlist的长度一致
+	 */
+	public int size() {
+		return width;
+	}
+
+	/**
+	 * 获取列下标对应的存放位置
+	 *
+	 * @return 按列下标存放时为列下标本身；稀疏存放时为槽位；超出行宽度或稀疏存放时无此单元格返回-1
+	 */
+	private int index(int col) {
+		if (col < 0 || col >= width) {
+			return -1;
+		}
+		if (!sparse) {
+			return col;
+		}
+		int i = Arrays.binarySearch(columns, 0, cells, col);
+		return i < 0 ? -1 : i;
+	}
+
+	/**
+	 * 所在Sheet页的表头索引
+	 *
+	 * @return 表头索引；未设置表头行、本行位于表头行之前时返回null
+	 */
+	public HeaderIndex getHeader() {
+		return header;
+	}
+
+	/**
+	 * 按表头名称获取单元格文本，与getString(header.indexOf(name))一致
+	 *
+	 * @param name
+	 *            表头名称，去掉前后空白、合并中间空白后不区分大小写比较
+	 * @return 单元格文本；无表头索引、不存在此表头或无单元格时返回null
+	 */
+	public String get(String name) {
+		if (header == null) {
+			return null;
+		}
+		int col = header.indexOf(name);
+		return col < 0 ? null : getString(col);
+	}
+
+	/**
+	 * 获取单元格类型
+	 *
+	 * @param col
+	 *            列下标
+	 * @return 单元格类型，无单元格时返回NONE
+	 */
+	public CellType getCellType(int col) {
+		int i = index(col);
+		if (i < 0 || types[i] == null) {
+			return CellType.NONE;
+		}
+		return types[i];
+	}
+
+	/**
+	 * 获取单元格文本，与旧接口rowlist中的值一致
+	 * <p>
+	 * 开启按样式格式化时，数值单元格返回按数字格式显示的文本，如日期“2020/1/1”、整数“1”
+	 * </p>
+	 *
+	 * @param col
+	 *            列下标
+	 * @return 单元格文本，无单元格时返回null
+	 */
+	public String getString(int col) {
+		int i = index(col);
+		if (i < 0) {
+			return null;
+		}
+		switch (stores[i]) {
+		case STORE_DOUBLE:
+			if (types[i] == CellType.BOOLEAN) {
+				return Boolean.toString(numbers[i] != 0);
+			}
+			if (formats != null) {
+				return formats.format(numbers[i], styles[i]);
+			}
+			return Double.toString(numbers[i]);
+		case STORE_TEXT:
+			if (formats != null && types[i] == CellType.NUMERIC) {
+				return formats.format(parseDouble(text, ints[i], lengths[i]), styles[i]);
+			}
+			return new String(text, ints[i], lengths[i]);
+		case STORE_SST:
+			return sst.getTrimmed(ints[i]);
+		case STORE_STRING:
+			return strings[i];
+		default:
+			return null;
+		}
+	}
+
+	/**
+	 * 将单元格文本追加至sb，与getString的结果一致
+	 * <p>
+	 * 原始文本和字符串共享数据集中的文本直接复制，不创建中间字符串，用于批量输出
+	 * </p>
+	 *
+	 * @param col
+	 *            列下标
+	 * @param sb
+	 *            追加的目标
+	 * @return 无单元格时返回false，不追加任何内容
+	 */
+	public boolean appendString(int col, StringBuilder sb) {
+		int i = index(col);
+		if (i < 0) {
+			return false;
+		}
+		switch (stores[i]) {
+		case STORE_DOUBLE:
+			if (types[i] == CellType.BOOLEAN) {
+				sb.append(numbers[i] != 0);
+			} else if (formats != null) {
+				sb.append(formats.format(numbers[i], styles[i]));
+			} else {
+				sb.append(numbers[i]);
+			}
+			return true;
+		case STORE_TEXT:
+			if (formats != null && types[i] == CellType.NUMERIC) {
+				sb.append(formats.format(parseDouble(text, ints[i], lengths[i]), styles[i]));
+			} else {
+				sb.append(text, ints[i], lengths[i]);
+			}
+			return true;
+		case STORE_SST:
+			sb.append(sst.getTrimmed(ints[i]));
+			return true;
+		case STORE_STRING:
+			if (strings[i] == null) {
+				return false;
+			}
+			sb.append(strings[i]);
+			return true;
+		default:
+			return false;
+		}
+	}
+
+	/**
+	 * 获取单元格数值
+	 *
+	 * @param col
+	 *            列下标
+	 * @return 单元格数值；布尔单元格返回1或0；无单元格、空白单元格、错误单元格返回NaN
+	 * @throws NumberFormatException
+	 *             文本单元格无法转换为数值时抛出
+	 */
+	public double getDouble(int col) {
+		int i = index(col);
+		if (i < 0) {
+			return Double.NaN;
+		}
+		CellType type = types[i];
+		if (type == null || type == CellType.BLANK || type == CellType.ERROR) {
+			return Double.NaN;
+		}
+		switch (stores[i]) {
+		case STORE_DOUBLE:
+			return numbers[i];
+		case STORE_TEXT:
+			if (type == CellType.BOOLEAN) {
+				return parseBoolean(ints[i], lengths[i]) ? 1 : 0;
+			}
+			return parseDouble(text, ints[i], lengths[i]);
+		default:
+			return Double.parseDouble(getString(col));
+		}
+	}
+
+	/**
+	 * 获取单元格整数值
+	 *
+	 * @param col
+	 *            列下标
+	 * @return 单元格整数值，小数部分将被舍去；无单元格、空白单元格、错误单元格返回0
+	 * @throws NumberFormatException
+	 *             文本单元格无法转换为数值时抛出
+	 */
+	public long getLong(int col) {
+		int i = index(col);
+		if (i >= 0 && stores[i] == STORE_TEXT && types[i] != CellType.BOOLEAN) {
+			// 整数文本直接解析，避免超过15位的整数丢失精度
+			int start = ints[i];
+			int end = start + lengths[i];
+			boolean negative = start < end && text[start] == '-';
+			int j = negative ? start + 1 : start;
+			if (j < end && end - j <= 18) {
+				long value = 0;
+				for (; j < end; j++) {
+					char c = text[j];
+					if (c < '0' || c > '9') {
+						break;
+					}
+					value = value * 10 + (c - '0');
+				}
+				if (j == end) {
+					return negative ? -value : value;
+				}
+			}
+		}
+		double value = getDouble(col);
+		return Double.isNaN(value) ? 0 : (long) value;
+	}
+
+	/**
+	 * 获取单元格布尔值
+	 *
+	 * @param col
+	 *            列下标
+	 * @return 布尔单元格返回其值；数值单元格非0时返回true；文本单元格为"true"或"1"时返回true；其他返回false
+	 */
+	public boolean getBoolean(int col) {
+		int i = index(col);
+		if (i < 0 || types[i] == null) {
+			return false;
+		}
+		switch (stores[i]) {
+		case STORE_DOUBLE:
+			return numbers[i] != 0;
+		case STORE_TEXT:
+			if (types[i] == CellType.NUMERIC) {
+				return parseDouble(text, ints[i], lengths[i]) != 0;
+			}
+			return parseBoolean(ints[i], lengths[i]);
+		default:
+			String value = getString(col);
+			return "1".equals(value) || "true".equalsIgnoreCase(value);
+		}
+	}
+
+	/**
+	 * 判断单元格是否为日期，须开启按样式格式化
+	 *
+	 * @param col
+	 *            列下标
+	 * @return 数值单元格的数字格式为日期格式时返回true；未开启按样式格式化时返回false
+	 */
+	public boolean isDate(int col) {
+		return formats != null && getCellType(col) == CellType.NUMERIC && formats.isDate(styles[index(col)]);
+	}
+
+	/**
+	 * 获取单元格日期值
+	 *
+	 * @param col
+	 *            列下标
+	 * @return 数值单元格按Excel日期序列号转换，文本单元格按DateParser.parse转换；无单元格、空白单元格、错误单元格返回null
+	 * @throws IllegalArgumentException
+	 *             文本单元格无法转换为日期时抛出
+	 */
+	public Date getDate(int col) {
+		CellType type = getCellType(col);
+		if (type == CellType.NONE || type == CellType.BLANK || type == CellType.ERROR) {
+			return null;
+		}
+		if (type == CellType.NUMERIC) {
+			return DateParser.fromExcel(getDouble(col));
+		}
+		String value = getString(col).trim();
+		try {
+			return DateParser.parse(value);
+		} catch (ParseException e) {
+			throw new IllegalArgumentException("无法转换为日期：" + value, e);
+		}
+	}
+
+	/**
+	 * 复制当前行，复制后的对象不会被读取过程覆盖
+	 *
+	 * @return 数据行副本
+	 */
+	public Row copy() {
+		Row copy = new Row(Math.max(sparse ? cells : width, 1), Math.max(textLength, 1));
+		copy.copyFrom(this);
+		return copy;
+	}
+
+	/**
+	 * 将另一行的数据复制到本行中，复用本行已分配的空间
+	 *
+	 * @param other
+	 *            被复制的数据行
+	 */
+	void copyFrom(Row other) {
+		clear();
+		int used = other.sparse ? other.cells : other.width;
+		ensureCapacity(used);
+		ensureTextCapacity(other.textLength);
+		System.arraycopy(other.types, 0, types, 0, used);
+		System.arraycopy(other.stores, 0, stores, 0, used);
+		System.arraycopy(other.numbers, 0, numbers, 0, used);
+		System.arraycopy(other.ints, 0, ints, 0, used);
+		System.arraycopy(other.lengths, 0, lengths, 0, used);
+		System.arraycopy(other.strings, 0, strings, 0, used);
+		System.arraycopy(other.styles, 0, styles, 0, used);
+		System.arraycopy(other.text, 0, text, 0, other.textLength);
+		if (other.sparse) {
+			ensureColumns();
+			System.arraycopy(other.columns, 0, columns, 0, used);
+		}
+		sparse = other.sparse;
+		cells = other.cells;
+		width = other.width;
+		textLength = other.textLength;
+		rowNum = other.rowNum;
+		sheetName = other.sheetName;
+		sheetIndex = other.sheetIndex;
+		sst = other.sst;
+		formats = other.formats;
+		header = other.header;
+	}
+
+	/*
+	 * =========================================================================
+	 * 读取过程中写入数据，仅供读取类调用
+	 * =========================================================================
+	 */
+
+	void setSharedStrings(SharedStrings sst) {
+		this.sst = sst;
+	}
+
+	SharedStrings getSharedStrings() {
+		return sst;
+	}
+
+	/**
+	 * 单元格的SST索引值，不是字符串共享数据集中的文本时返回-1
+	 */
+	int getSstIndex(int col) {
+		int i = index(col);
+		return i >= 0 && stores[i] == STORE_SST ? ints[i] : -1;
+	}
+
+	/**
+	 * 是否稀疏存放
+	 */
+	boolean isSparse() {
+		return sparse;
+	}
+
+	/**
+	 * 以列下标为下标的只读文本列表，与旧接口rowlist的内容一致，不填充空位，随本行数据变化
+	 */
+	List<String> stringList() {
+		if (stringList == null) {
+			stringList = new AbstractList<String>() {
+				@Override
+				public String get(int index) {
+					if (index < 0 || index >= width) {
+						throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + width);
+					}
+					return getString(index);
+				}
+
+				@Override
+				public int size() {
+					return width;
+				}
+			};
+		}
+		return stringList;
+	}
+
+	void setHeader(HeaderIndex header) {
+		this.header = header;
+	}
+
+	void setCellFormats(CellFormats formats) {
+		this.formats = formats;
+	}
+
+	CellFormats getCellFormats() {
+		return formats;
+	}
+
+	/**
+	 * 设置单元格的样式下标，须在写入单元格之后调用
+	 */
+	void setStyle(int col, int style) {
+		styles[index(col)] = style;
+	}
+
+	void setPosition(int rowNum, String sheetName, int sheetIndex) {
+		this.rowNum = rowNum;
+		this.sheetName = sheetName;
+		this.sheetIndex = sheetIndex;
+	}
+
+	/**
+	 * 只保留指定列的单元格，其余列置为无单元格
+	 *
+	 * @param mask
+	 *            各列是否保留，超出长度的列不保留
+	 */
+	void retain(boolean[] mask) {
+		int last = -1;
+		if (sparse) {
+			int kept = 0;
+			for (int i = 0; i < cells; i++) {
+				int col = columns[i];
+				if (col < mask.length && mask[col]) {
+					move(i, kept);
+					columns[kept++] = col;
+					last = col;
+				}
+			}
+			clearSlots(kept, cells);
+			cells = kept;
+			width = last + 1;
+			return;
+		}
+		int count = 0;
+		for (int col = 0; col < width; col++) {
+			if (col < mask.length && mask[col]) {
+				if (types[col] != null) {
+					last = col;
+					count++;
+				}
+				continue;
+			}
+			types[col] = null;
+			stores[col] = STORE_NONE;
+			strings[col] = null;
+		}
+		cells = count;
+		width = last + 1;
+	}
+
+	/**
+	 * 已读取的单元格数量，包括空白单元格和错误单元格
+	 */
+	int cellCount() {
+		return cells;
+	}
+
+	/**
+	 * 清空本行数据
+	 */
+	void clear() {
+		clearSlots(0, sparse ? cells : width);
+		width = 0;
+		textLength = 0;
+		cells = 0;
+		sparse = false;
+	}
+
+	void setNumber(int col, CellType type, double value) {
+		// 写入前可能扩容，须先取得存放位置
+		int i = prepare(col, type, STORE_DOUBLE);
+		numbers[i] = value;
+	}
+
+	void setSst(int col, int idx) {
+		int i = prepare(col, CellType.STRING, STORE_SST);
+		ints[i] = idx;
+	}
+
+	void setString(int col, CellType type, String value) {
+		int i = prepare(col, type, STORE_STRING);
+		strings[i] = value;
+	}
+
+	/**
+	 * 存放原始文本，文本将复制至本行的文本缓冲中
+	 */
+	void setText(int col, CellType type, char[] chars, int start, int length) {
+		int i = prepare(col, type, STORE_TEXT);
+		ensureTextCapacity(textLength + length);
+		System.arraycopy(chars, start, text, textLength, length);
+		ints[i] = textLength;
+		lengths[i] = length;
+		textLength += length;
+	}
+
+	/**
+	 * 准备写入单元格
+	 * <p>
+	 * 列下标不小于SPARSE_COLUMN且超过已有单元格数量的SPARSE_FACTOR倍时（如r="XFD1"的单元格），本行改为稀疏存放，不再按列下标分配空位
+	 * </p>
+	 *
+	 * @return 单元格的存放位置
+	 */
+	private int prepare(int col, CellType type, byte store) {
+		int i;
+		if (!sparse && col >= width && col >= SPARSE_COLUMN && col >= (cells + 1) * SPARSE_FACTOR) {
+			toSparse();
+		}
+		if (sparse) {
+			i = slot(col);
+		} else {
+			if (col >= width) {
+				ensureCapacity(col + 1);
+				width = col + 1;
+			}
+			if (stores[col] == STORE_NONE) {
+				cells++;
+			}
+			i = col;
+		}
+		types[i] = type;
+		stores[i] = store;
+		strings[i] = null;
+		styles[i] = 0;
+		return i;
+	}
+
+	/**
+	 * 稀疏存放时获取列下标对应的槽位，不存在时按列下标顺序插入新的槽位
+	 */
+	private int slot(int col) {
+		int i;
+		if (cells == 0 || columns[cells - 1] < col) {
+			// 单元格通常按列下标顺序读取，直接追加
+			i = cells;
+		} else {
+			i = Arrays.binarySearch(columns, 0, cells, col);
+			if (i >= 0) {
+				return i;
+			}
+			i = -i - 1;
+		}
+		ensureCapacity(cells + 1);
+		if (i < cells) {
+			int n = cells - i;
+			System.arraycopy(types, i, types, i + 1, n);
+			System.arraycopy(stores, i, stores, i + 1, n);
+			System.arraycopy(numbers, i, numbers, i + 1, n);
+			System.arraycopy(ints, i, ints, i + 1, n);
+			System.arraycopy(lengths, i, lengths, i + 1, n);
+			System.arraycopy(strings, i, strings, i + 1, n);
+			System.arraycopy(styles, i, styles, i + 1, n);
+			System.arraycopy(columns, i, columns, i + 1, n);
+		}
+		columns[i] = col;
+		cells++;
+		if (col >= width) {
+			width = col + 1;
+		}
+		return i;
+	}
+
+	/**
+	 * 将按列下标存放的单元格依次移至槽位中，改为稀疏存放
+	 */
+	private void toSparse() {
+		ensureColumns();
+		int n = 0;
+		for (int col = 0; col < width; col++) {
+			if (stores[col] == STORE_NONE) {
+				continue;
+			}
+			if (n != col) {
+				move(col, n);
+				clearSlots(col, col + 1);
+			}
+			columns[n++] = col;
+		}
+		sparse = true;
+	}
+
+	/**
+	 * 复制单元格的存放内容
+	 */
+	private void move(int from, int to) {
+		if (from == to) {
+			return;
+		}
+		types[to] = types[from];
+		stores[to] = stores[from];
+		numbers[to] = numbers[from];
+		ints[to] = ints[from];
+		lengths[to] = lengths[from];
+		strings[to] = strings[from];
+		styles[to] = styles[from];
+	}
+
+	private void clearSlots(int from, int to) {
+		Arrays.fill(types, from, to, null);
+		Arrays.fill(stores, from, to, STORE_NONE);
+		Arrays.fill(strings, from, to, null);
+	}
+
+	private void ensureColumns() {
+		if (columns == null || columns.length < types.length) {
+			columns = new int[types.length];
+		}
+	}
+
+	private void ensureCapacity(int capacity) {
+		if (capacity > types.length) {
+			int size = Math.max(types.length << 1, capacity);
+			types = Arrays.copyOf(types, size);
+			stores = Arrays.copyOf(stores, size);
+			numbers = Arrays.copyOf(numbers, size);
+			ints = Arrays.copyOf(ints, size);
+			lengths = Arrays.copyOf(lengths, size);
+			strings = Arrays.copyOf(strings, size);
+			styles = Arrays.copyOf(styles, size);
+			if (columns != null) {
+				columns = Arrays.copyOf(columns, size);
+			}
+		}
+	}
+
+	private void ensureTextCapacity(int capacity) {
+		if (capacity > text.length) {
+			text = Arrays.copyOf(text, Math.max(text.length << 1, capacity));
+		}
+	}
+
+	private boolean parseBoolean(int start, int length) {
+		return (length == 1 && text[start] == '1') || (length == 4 && new String(text, start, length).equalsIgnoreCase("true"));
+	}
+
+	/**
+	 * 10的0至22次方，在此范围内的double运算结果是精确的
+	 */
+	private static final double[] POW10 = new double[23];
+
+	static {
+		POW10[0] = 1;
+		for (int i = 1; i < POW10.length; i++) {
+			POW10[i] = POW10[i - 1] * 10;
+		}
+	}
+
+	/**
+	 * 解析数值文本
+	 *
+	 * <pre>
+	 *     有效数字不超过15位且指数不超过22时，尾数和10的幂均可精确表示为double，一次乘除即可得到正确舍入的结果
+	 *     其他情况交由Double.parseDouble处理
+	 * </pre>
+	 */
+	static double parseDouble(char[] chars, int start, int length) {
+		int i = start;
+		int end = start + length;
+		boolean negative = false;
+		if (i < end && (chars[i] == '-' || chars[i] == '+')) {
+			negative = chars[i] == '-';
+			i++;
+		}
+		long mantissa = 0;
+		int digits = 0;
+		int exponent = 0;
+		boolean any = false;
+		for (; i < end && chars[i] >= '0' && chars[i] <= '9'; i++) {
+			any = true;
+			if (mantissa != 0 || chars[i] != '0') {
+				mantissa = mantissa * 10 + (chars[i] - '0');
+				digits++;
+			}
+		}
+		if (i < end && chars[i] == '.') {
+			for (i++; i < end && chars[i] >= '0' && chars[i] <= '9'; i++) {
+				any = true;
+				if (mantissa != 0 || chars[i] != '0') {
+					mantissa = mantissa * 10 + (chars[i] - '0');
+					digits++;
+				}
+				exponent--;
+			}
+		}
+		if (any && i < end && (chars[i] == 'e' || chars[i] == 'E')) {
+			int j = i + 1;
+			boolean expNegative = false;
+			if (j < end && (chars[j] == '-' || chars[j] == '+')) {
+				expNegative = chars[j] == '-';
+				j++;
+			}
+			int exp = 0;
+			boolean expAny = false;
+			for (; j < end && chars[j] >= '0' && chars[j] <= '9' && exp < 10000; j++) {
+				exp = exp * 10 + (chars[j] - '0');
+				expAny = true;
+			}
+			if (expAny) {
+				exponent += expNegative ? -exp : exp;
+				i = j;
+			}
+		}
+		if (!any || i != end || digits > 15 || exponent < -22 || exponent > 22) {
+			return Double.parseDouble(new String(chars, start, length));
+		}
+		double value = exponent < 0 ? mantissa / POW10[-exponent] : mantissa * POW10[exponent];
+		return negative ? -value : value;
+	}
+}
@@ -0,0 +1,90 @@
+package cn.cy.read;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import cn.cy.exception.ReadLimitExceededException;
+import cn.cy.exception.RowReadException;
+
+/**
+ * 数据行迭代器
+ *
+ * <pre>
+ *     通过ReadExcelBase.rows()创建，每次调用hasNext()时才继续解析文件
+ *     返回的Row对象在下一次调用hasNext()或next()前有效，若需保留请调用row.copy()
+ *     读取结束或读取异常时自动关闭；提前结束迭代时请调用close()释放Sheet页文件流
+ *     读取过程中产生的异常将封装为RowReadException抛出，超出读取限制时直接抛出ReadLimitExceededException
+ * </pre>
+ *
+ * @author cy96151
+ */
+public final class RowIterator implements Iterator<Row>, Closeable {
+
+	private final RowSource source;
+
+	/**
+	 * 已读取但尚未返回的数据行
+	 */
+	private Row next;
+
+	/**
+	 * 是否已读取结束
+	 */
+	private boolean finished;
+
+	RowIterator(RowSource source) {
+		this.source = source;
+	}
+
+	@Override
+	public boolean hasNext() {
+		if (next == null && !finished) {
+			try {
+				next = source.next();
+			} catch (ReadLimitExceededException e) {
+				// 超出读取限制时直接抛出，不封装为RowReadException
+				closeQuietly();
+				throw e;
+			} catch (Exception e) {
+				closeQuietly();
+				throw new RowReadException(e);
+			}
+			if (next == null) {
+				closeQuietly();
+			}
+		}
+		return next != null;
+	}
+
+	@Override
+	public Row next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		Row row = next;
+		next = null;
+		return row;
+	}
+
+	@Override
+	public void remove() {
+		throw new UnsupportedOperationException("数据行不支持删除");
+	}
+
+	@Override
+	public void close() throws IOException {
+		finished = true;
+		next = null;
+		source.close();
+	}
+
+	private void closeQuietly() {
+		try {
+			close();
+		} catch (IOException e) {
+			// 读取已结束，关闭失败无须处理
+		}
+	}
+}
@@ -0,0 +1,453 @@
+package cn.cy.read;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import cn.cy.exception.SheetBreakException;
+import cn.cy.exception.SheetContinueException;
+import cn.cy.sst.SharedStrings;
+
+/**
+ * 解析与回调分离的数据行流水线
+ *
+ * <pre>
+ *     解析线程将数据行放入有界队列后立即继续解析，由线程池中的多个回调线程从队列中取出数据行并回调
+ *     队列已满时解析线程等待，避免回调较慢时数据行无限堆积
+ *     按Sheet页保序时，每个Sheet页固定由同一个回调线程按顺序回调，不同Sheet页可同时回调
+ *     回调中抛出的SheetContinueException、SheetBreakException和其他异常（包括Error），将在解析线程下一次放入数据行时抛出
+ *     回调线程意外退出时（如线程被中断），解析线程不会一直等待，放入任务时将抛出IllegalStateException
+ * </pre>
+ *
+ * @author cy96151
+ */
+final class RowPipeline {
+
+	private static final int TASK_ROW = 0;
+	private static final int TASK_BATCH = 1;
+	private static final int TASK_SHEET_START = 2;
+	private static final int TASK_SHEET_END = 3;
+	private static final int TASK_STOP = 4;
+
+	/**
+	 * 队列已满时等待的间隔（毫秒），每次等待后检查回调线程是否已退出
+	 */
+	private static final long OFFER_WAIT_MILLIS = 100;
+
+	/**
+	 * 产生数据行的读取类，回调时作为base传入
+	 */
+	private final ReadExcelBase owner;
+
+	private final ExecutorService executor;
+
+	private final int consumers;
+
+	/**
+	 * 是否按Sheet页保序
+	 */
+	private final boolean sheetOrdered;
+
+	/**
+	 * 待回调队列，按Sheet页保序时每个回调线程一个队列，否则所有回调线程共用一个队列
+	 */
+	private final List<BlockingQueue<Task>> queues = new ArrayList<BlockingQueue<Task>>();
+
+	private final List<Future<Void>> futures = new ArrayList<Future<Void>>();
+
+	/**
+	 * 已回调的Row对象，供解析线程复用
+	 */
+	private final ConcurrentLinkedQueue<Row> rowPool = new ConcurrentLinkedQueue<Row>();
+
+	/**
+	 * 回调中抛出SheetContinueException的Sheet页下标
+	 */
+	private final Set<Integer> skippedSheets = Collections.newSetFromMap(new ConcurrentHashMap<Integer, Boolean>());
+
+	/**
+	 * 已放入队列但尚未回调结束的任务数
+	 */
+	private final AtomicInteger pending = new AtomicInteger();
+
+	private final Object idleLock = new Object();
+
+	/**
+	 * 回调中是否抛出了SheetBreakException
+	 */
+	private volatile boolean broken;
+
+	/**
+	 * 解析是否已异常结束，结束后回调线程丢弃剩余任务
+	 */
+	private volatile boolean aborted;
+
+	/**
+	 * 回调中抛出的第一个非指定异常，包括Error
+	 */
+	private volatile Throwable error;
+
+	RowPipeline(ReadExcelBase owner, ExecutorService executor, int consumers, int capacity, boolean sheetOrdered) {
+		this.owner = owner;
+		this.executor = executor;
+		this.consumers = consumers;
+		this.sheetOrdered = sheetOrdered;
+		int queueCount = sheetOrdered ? consumers : 1;
+		for (int i = 0; i < queueCount; i++) {
+			queues.add(new ArrayBlockingQueue<Task>(capacity));
+		}
+	}
+
+	boolean isSheetOrdered() {
+		return sheetOrdered;
+	}
+
+	/**
+	 * 将回调线程提交至线程池
+	 */
+	void start() {
+		for (int i = 0; i < consumers; i++) {
+			futures.add(executor.submit(new Consumer(queues.get(i % queues.size()))));
+		}
+	}
+
+	/**
+	 * 获取一个空的Row对象，优先复用已回调的Row对象
+	 *
+	 * @param sst
+	 *            字符串共享数据集
+	 * @param formats
+	 *            数字格式表，未开启按样式格式化时为null
+	 * @return 空的Row对象
+	 */
+	Row obtainRow(SharedStrings sst, CellFormats formats) {
+		Row next = rowPool.poll();
+		if (next == null) {
+			next = new Row();
+		}
+		next.setSharedStrings(sst);
+		next.setCellFormats(formats);
+		return next;
+	}
+
+	/**
+	 * 检查回调结果，回调中抛出的异常将在此抛出
+	 *
+	 * @param sheetIndex
+	 *            当前Sheet页下标
+	 * @throws Exception
+	 *             回调中抛出的异常
+	 */
+	void checkState(int sheetIndex) throws Exception {
+		rethrowError();
+		if (broken) {
+			throw new SheetBreakException();
+		}
+		if (skippedSheets.contains(sheetIndex)) {
+			throw new SheetContinueException();
+		}
+	}
+
+	/**
+	 * 放入单个数据行，Row对象交由流水线回收
+	 */
+	void putRow(Row row, String sheetName, int sheetIndex) throws Exception {
+		checkState(sheetIndex);
+		put(new Task(TASK_ROW, sheetName, sheetIndex, row, null));
+	}
+
+	/**
+	 * 放入一批数据行，Row对象交由流水线回收
+	 */
+	void putBatch(List<Row> rows, String sheetName, int sheetIndex) throws Exception {
+		checkState(sheetIndex);
+		put(new Task(TASK_BATCH, sheetName, sheetIndex, null, rows));
+	}
+
+	/**
+	 * 放入Sheet页开始标记，仅按Sheet页保序时使用
+	 */
+	void putSheetStart(String sheetName, int sheetIndex) throws Exception {
+		checkState(sheetIndex);
+		put(new Task(TASK_SHEET_START, sheetName, sheetIndex, null, null));
+	}
+
+	/**
+	 * 放入Sheet页结束标记，仅按Sheet页保序时使用，回调线程取出时回调结束接口并汇总该Sheet页的统计
+	 * <p>
+	 * Sheet页已被跳过或终止读取时仍需回调结束接口，因此不检查回调结果
+	 * </p>
+	 */
+	void putSheetEnd(String sheetName, int sheetIndex) throws Exception {
+		put(new Task(TASK_SHEET_END, sheetName, sheetIndex, null, null));
+	}
+
+	private void put(Task task) throws Exception {
+		pending.incrementAndGet();
+		int consumer = sheetOrdered ? task.sheetIndex % consumers : 0;
+		BlockingQueue<Task> queue = queues.get(consumer);
+		try {
+			// 回调线程退出后队列不会再被取出，定时检查，避免解析线程一直等待
+			while (!queue.offer(task, OFFER_WAIT_MILLIS, TimeUnit.MILLISECONDS)) {
+				checkConsumers(consumer);
+			}
+		} catch (Exception e) {
+			done();
+			throw e;
+		}
+	}
+
+	/**
+	 * 检查取出队列的回调线程是否已退出
+	 *
+	 * @param consumer
+	 *            按Sheet页保序时为回调线程下标，否则所有回调线程共用一个队列
+	 * @throws Exception
+	 *             回调中抛出的异常；回调线程已退出时抛出IllegalStateException
+	 */
+	private void checkConsumers(int consumer) throws Exception {
+		rethrowError();
+		if (!hasReader(consumer)) {
+			throw new IllegalStateException("回调线程已退出，无法继续回调");
+		}
+	}
+
+	/**
+	 * 是否还有回调线程取出队列中的任务
+	 *
+	 * @param consumer
+	 *            按Sheet页保序时为回调线程下标，否则所有回调线程共用一个队列
+	 */
+	private boolean hasReader(int consumer) {
+		List<Future<Void>> readers = sheetOrdered ? futures.subList(consumer, consumer + 1) : futures;
+		for (Future<Void> future : readers) {
+			if (!future.isDone()) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * 抛出回调中产生的非指定异常
+	 */
+	private void rethrowError() throws Exception {
+		Throwable e = error;
+		if (e == null) {
+			return;
+		}
+		if (e instanceof Error) {
+			throw (Error) e;
+		}
+		if (e instanceof Exception) {
+			throw (Exception) e;
+		}
+		throw new ExecutionException(e);
+	}
+
+	/**
+	 * 等待已放入的任务全部回调结束
+	 *
+	 * @throws Exception
+	 *             回调中抛出的非指定异常
+	 */
+	void awaitIdle() throws Exception {
+		synchronized (idleLock) {
+			while (pending.get() > 0) {
+				idleLock.wait();
+			}
+		}
+		rethrowError();
+	}
+
+	/**
+	 * 结束流水线，等待回调线程退出
+	 *
+	 * @param completed
+	 *            解析是否正常结束，若为false，回调线程将丢弃剩余任务
+	 * @throws Exception
+	 *             解析正常结束时，回调中抛出的非指定异常
+	 */
+	void finish(boolean completed) throws Exception {
+		if (!completed) {
+			aborted = true;
+		}
+		for (int i = 0; i < consumers; i++) {
+			int consumer = i % queues.size();
+			Task stop = new Task(TASK_STOP, null, -1, null, null);
+			// 取出该队列的回调线程均已退出时，无须再放入结束标记
+			while (hasReader(consumer) && !queues.get(consumer).offer(stop, OFFER_WAIT_MILLIS, TimeUnit.MILLISECONDS)) {
+				// 继续等待回调线程取出任务
+			}
+		}
+		for (Future<Void> future : futures) {
+			try {
+				future.get();
+			} catch (ExecutionException e) {
+				fail(e.getCause());
+			}
+		}
+		if (completed) {
+			rethrowError();
+		}
+	}
+
+	private void done() {
+		if (pending.decrementAndGet() == 0) {
+			synchronized (idleLock) {
+				idleLock.notifyAll();
+			}
+		}
+	}
+
+	private void fail(Throwable e) {
+		synchronized (idleLock) {
+			if (error == null) {
+				error = e;
+			}
+		}
+	}
+
+	/**
+	 * 判断任务是否无须回调
+	 */
+	private boolean dropped(Task task) {
+		return aborted || broken || error != null || skippedSheets.contains(task.sheetIndex);
+	}
+
+	private void recycle(Task task) {
+		if (task.row != null) {
+			task.row.clear();
+			rowPool.offer(task.row);
+		}
+		if (task.rows != null) {
+			for (Row recycled : task.rows) {
+				recycled.clear();
+				rowPool.offer(recycled);
+			}
+		}
+	}
+
+	/**
+	 * 流水线任务
+	 */
+	private static final class Task {
+		final int type;
+		final String sheetName;
+		final int sheetIndex;
+		final Row row;
+		final List<Row> rows;
+
+		Task(int type, String sheetName, int sheetIndex, Row row, List<Row> rows) {
+			this.type = type;
+			this.sheetName = sheetName;
+			this.sheetIndex = sheetIndex;
+			this.row = row;
+			this.rows = rows;
+		}
+	}
+
+	/**
+	 * 回调线程
+	 */
+	private final class Consumer implements Callable<Void> {
+
+		private final BlockingQueue<Task> queue;
+
+		/**
+		 * 回调线程的Sheet页状态，存放当前回调行的Sheet页名称、下标和行号，回调时绑定至回调线程
+		 */
+		private final SheetState state = new SheetState();
+
+		/**
+		 * 当前Sheet页是否已回调开始接口，按Sheet页保序时使用
+		 */
+		private boolean sheetOpen;
+
+		Consumer(BlockingQueue<Task> queue) {
+			this.queue = queue;
+		}
+
+		@Override
+		public Void call() throws Exception {
+			SheetState bound = owner.bindState(state);
+			try {
+				consume();
+			} finally {
+				owner.bindState(bound);
+			}
+			return null;
+		}
+
+		private void consume() throws InterruptedException {
+			while (true) {
+				Task task = queue.take();
+				if (task.type == TASK_STOP) {
+					return;
+				}
+				try {
+					run(task);
+				} catch (SheetContinueException e) {
+					skippedSheets.add(task.sheetIndex);
+				} catch (SheetBreakException e) {
+					broken = true;
+				} catch (Throwable e) {
+					// 包括Error，记录后继续取出任务，否则按Sheet页保序时该队列无人取出，解析线程将一直等待
+					fail(e);
+				} finally {
+					recycle(task);
+					done();
+				}
+			}
+		}
+
+		private void run(Task task) throws Exception {
+			state.sheetName = task.sheetName;
+			state.sheetIndex = task.sheetIndex;
+			switch (task.type) {
+			case TASK_ROW:
+				if (!dropped(task)) {
+					state.curRow = task.row.getRowNum();
+					state.row = task.row;
+					owner.invokeRow(state);
+				}
+				break;
+			case TASK_BATCH:
+				if (!dropped(task)) {
+					state.curRow = task.rows.get(task.rows.size() - 1).getRowNum();
+					owner.invokeBatch(state, task.rows);
+				}
+				break;
+			case TASK_SHEET_START:
+				if (!aborted && !broken && error == null) {
+					sheetOpen = true;
+					owner.batchInstance.onSheetStart(task.sheetName, owner);
+				}
+				break;
+			case TASK_SHEET_END:
+				try {
+					if (sheetOpen && !aborted && error == null) {
+						sheetOpen = false;
+						owner.invokeSheetEnd(task.sheetName, task.sheetIndex);
+					}
+				} finally {
+					owner.sheetCallbacksEnded(task.sheetName, task.sheetIndex);
+				}
+				break;
+			default:
+				break;
+			}
+		}
+	}
+}
@@ -0,0 +1,34 @@
+package cn.cy.read;
+
+import java.io.Closeable;
+
+/**
+ * 可拉取的数据行来源
+ *
+ * <pre>
+ *     rows()和stream()的底层实现，每次调用next()时才继续解析文件，直到读取到下一行为止
+ *     停止调用next()即停止读取，不再需要通过SheetBreakException终止
+ * </pre>
+ *
+ * @author cy96151
+ */
+abstract class RowSource implements Closeable {
+
+	/**
+	 * 读取下一行
+	 *
+	 * @return 读取到的数据行，在下一次调用next()前有效；读取结束时返回null
+	 * @throws Exception
+	 *             读取过程中产生的异常
+	 */
+	abstract Row next() throws Exception;
+
+	/**
+	 * 按Sheet页拆分出尚未读取的部分，拆分出的来源与本来源可在不同线程中同时读取
+	 *
+	 * @return 拆分出的数据行来源，无法拆分时返回null
+	 */
+	RowSource trySplit() {
+		return null;
+	}
+}
@@ -0,0 +1,60 @@
+package cn.cy.read;
+
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+import cn.cy.exception.ReadLimitExceededException;
+import cn.cy.exception.RowReadException;
+
+/**
+ * 数据行Spliterator，stream()的底层实现
+ *
+ * <pre>
+ *     并行流拆分时按Sheet页拆分，拆分出的部分各自解析尚未读取的Sheet页，Excel03版本不支持拆分
+ *     每个Spliterator使用各自的Row对象，Row对象在下一次读取前有效
+ * </pre>
+ *
+ * @author cy96151
+ */
+final class RowSpliterator implements Spliterator<Row> {
+
+	private final RowSource source;
+
+	RowSpliterator(RowSource source) {
+		this.source = source;
+	}
+
+	@Override
+	public boolean tryAdvance(Consumer<? super Row> action) {
+		Row row;
+		try {
+			row = source.next();
+		} catch (ReadLimitExceededException e) {
+			// 超出读取限制时直接抛出，不封装为RowReadException
+			throw e;
+		} catch (Exception e) {
+			throw new RowReadException(e);
+		}
+		if (row == null) {
+			return false;
+		}
+		action.accept(row);
+		return true;
+	}
+
+	@Override
+	public Spliterator<Row> trySplit() {
+		RowSource split = source.trySplit();
+		return split == null ? null : new RowSpliterator(split);
+	}
+
+	@Override
+	public long estimateSize() {
+		return Long.MAX_VALUE;
+	}
+
+	@Override
+	public int characteristics() {
+		return ORDERED | NONNULL;
+	}
+}
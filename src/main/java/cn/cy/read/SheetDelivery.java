@@ -0,0 +1,24 @@
+package cn.cy.read;
+
+/**
+ * 并行读取Sheet页时的数据行回调方式
+ *
+ * @author cy96151
+ */
+public enum SheetDelivery {
+	/**
+	 * 按Sheet页顺序回调
+	 * <p>
+	 * 各Sheet页同时解析，解析结果暂存于有界队列中，由调用process()的线程按Sheet页顺序依次回调，每个Sheet页的数据行回调完成后才会回调下一个Sheet页
+	 * </p>
+	 */
+	ORDERED,
+
+	/**
+	 * 交错回调
+	 * <p>
+	 * 各Sheet页的解析线程解析完一行即回调，不同Sheet页的数据行交错出现，同一Sheet页内仍按行顺序回调；回调方法不会被并发调用
+	 * </p>
+	 */
+	INTERLEAVED
+}
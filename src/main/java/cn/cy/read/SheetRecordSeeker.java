@@ -0,0 +1,264 @@
+package cn.cy.read;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.apache.poi.hssf.record.DBCellRecord;
+import org.apache.poi.hssf.record.FilePassRecord;
+import org.apache.poi.hssf.record.IndexRecord;
+import org.apache.poi.hssf.record.RecordFactoryInputStream;
+import org.apache.poi.hssf.record.RowRecord;
+import org.apache.poi.poifs.filesystem.DirectoryNode;
+import org.apache.poi.poifs.filesystem.DocumentInputStream;
+import org.apache.poi.util.LittleEndian;
+
+/**
+ * Excel03版本Workbook流的Sheet页定位
+ *
+ * <pre>
+ *     BoundSheetRecord中记录了各Sheet页BOFRecord在Workbook流中的位置，可直接从该位置开始读取Record
+ *     Sheet页中的IndexRecord记录了各行块DBCellRecord的位置，每个行块包含最多32个RowRecord及其单元格，
+ *     行块的RowRecord紧随上一个行块的DBCellRecord之后，据此可按顺序找到指定行所在的行块，直接跳过之前的行块
+ *     文件方式打开时DocumentInputStream只能按顺序读取，因此所有读取共用一个只向后移动的读取位置，需向前定位时才重新打开
+ *     加密文件的解密依赖于读取位置，无法直接定位
+ * </pre>
+ *
+ * @author cy96151
+ */
+final class SheetRecordSeeker {
+
+	/**
+	 * Workbook流在文件中的名称
+	 */
+	static final String WORKBOOK = "Workbook";
+
+	/**
+	 * 查找IndexRecord时最多检查的Record数，IndexRecord紧随BOFRecord之后
+	 */
+	private static final int INDEX_SEARCH_LIMIT = 16;
+
+	private final DirectoryNode root;
+
+	/**
+	 * 跳过内容时使用的缓冲，NPOIFS的skip()会按跳过的长度创建数组
+	 */
+	private final byte[] skipBuffer = new byte[8192];
+
+	private DocumentInputStream in;
+
+	/**
+	 * 当前读取位置
+	 */
+	private int position;
+
+	SheetRecordSeeker(DirectoryNode root) {
+		this.root = root;
+	}
+
+	/**
+	 * 判断文件是否加密，加密文件的FilePassRecord紧随全局数据流的BOFRecord之后
+	 *
+	 * @return 若文件已加密，返回true
+	 * @throws IOException
+	 *             读取文件流时产生的异常
+	 */
+	boolean isEncrypted() throws IOException {
+		seek(0);
+		readUShort();
+		skip(readUShort());
+		return in.available() >= 2 && readUShort() == FilePassRecord.sid;
+	}
+
+	/**
+	 * 打开从全局数据流开始的Record流，之前打开的Record流将不可再读取
+	 *
+	 * @return Record流
+	 * @throws IOException
+	 *             读取文件流时产生的异常
+	 */
+	RecordFactoryInputStream openWorkbook() throws IOException {
+		seek(0);
+		return new RecordFactoryInputStream(new CursorInputStream(new byte[0]), false);
+	}
+
+	/**
+	 * 打开从Sheet页BOFRecord开始的Record流，之前打开的Record流将不可再读取
+	 *
+	 * @param bofOffset
+	 *            Sheet页BOFRecord的位置，即BoundSheetRecord.getPositionOfBof()
+	 * @param fromRow
+	 *            需读取的起始行下标（从0开始），大于0时跳过该行所在行块之前的所有行块
+	 * @return Record流，第一个Record为Sheet页的BOFRecord
+	 * @throws IOException
+	 *             读取文件流时产生的异常
+	 */
+	RecordFactoryInputStream openSheet(int bofOffset, int fromRow) throws IOException {
+		seek(bofOffset);
+		int sid = readUShort();
+		int length = readUShort();
+		byte[] bof = new byte[4 + length];
+		LittleEndian.putUShort(bof, 0, sid);
+		LittleEndian.putUShort(bof, 2, length);
+		in.readFully(bof, 4, length);
+		position += length;
+		int start = position;
+		if (fromRow > 0) {
+			int block = findBlock(fromRow);
+			seek(block > 0 ? block : start);
+		}
+		// 保留BOFRecord，使Record流与从头读取时一致
+		return new RecordFactoryInputStream(new CursorInputStream(bof), false);
+	}
+
+	/**
+	 * 按顺序查找指定行所在行块的第一个RowRecord的位置，读取位置须在BOFRecord之后
+	 *
+	 * @param fromRow
+	 *            需读取的起始行下标
+	 * @return RowRecord的位置，指定行在第一个行块中、Sheet页中没有IndexRecord或行块结构不符时返回-1
+	 */
+	private int findBlock(int fromRow) throws IOException {
+		int[] dbcells = readIndex();
+		if (dbcells == null || dbcells.length < 2) {
+			return -1;
+		}
+		seek(dbcells[0]);
+		if (readUShort() != DBCellRecord.sid) {
+			return -1;
+		}
+		int found = -1;
+		int blockStart = dbcells[0] + 4 + readUShort();
+		for (int i = 1; i < dbcells.length; i++) {
+			seek(blockStart);
+			if (readUShort() != RowRecord.sid) {
+				return -1;
+			}
+			readUShort();
+			if (readUShort() > fromRow) {
+				break;
+			}
+			// 通过DBCellRecord中记录的偏移确认行块的起始位置
+			seek(dbcells[i]);
+			if (readUShort() != DBCellRecord.sid) {
+				return -1;
+			}
+			int length = readUShort();
+			if (dbcells[i] - readInt() != blockStart) {
+				return -1;
+			}
+			found = blockStart;
+			blockStart = dbcells[i] + 4 + length;
+		}
+		return found;
+	}
+
+	/**
+	 * 读取IndexRecord中的DBCellRecord位置
+	 *
+	 * @return DBCellRecord的位置，未找到IndexRecord时返回null
+	 */
+	private int[] readIndex() throws IOException {
+		for (int i = 0; i < INDEX_SEARCH_LIMIT && in.available() >= 4; i++) {
+			int sid = readUShort();
+			int length = readUShort();
+			if (sid == IndexRecord.sid) {
+				// 保留字段、首行下标、末行下标+1、保留字段
+				skip(16);
+				int[] dbcells = new int[(length - 16) / 4];
+				for (int j = 0; j < dbcells.length; j++) {
+					dbcells[j] = readInt();
+				}
+				return dbcells;
+			}
+			if (sid == RowRecord.sid) {
+				return null;
+			}
+			skip(length);
+		}
+		return null;
+	}
+
+	/**
+	 * 移动到指定位置，位置在当前读取位置之前时重新打开Workbook流
+	 */
+	private void seek(int pos) throws IOException {
+		if (in == null || pos < position) {
+			if (in != null) {
+				in.close();
+			}
+			in = root.createDocumentInputStream(WORKBOOK);
+			position = 0;
+		}
+		skip(pos - position);
+	}
+
+	private void skip(int n) throws IOException {
+		while (n > 0) {
+			int read = in.read(skipBuffer, 0, Math.min(n, skipBuffer.length));
+			if (read <= 0) {
+				throw new IOException("Workbook流已结束");
+			}
+			position += read;
+			n -= read;
+		}
+	}
+
+	private int readUShort() {
+		position += 2;
+		return in.readUShort();
+	}
+
+	private int readInt() {
+		position += 4;
+		return in.readInt();
+	}
+
+	/**
+	 * 从当前读取位置开始的Record流来源，可在之前拼接指定内容，读取时同步移动读取位置
+	 * <p>
+	 * RecordInputStream通过available()判断是否还有下一个Record，SequenceInputStream在切换文件流时会返回0，因此不能使用
+	 * </p>
+	 */
+	private final class CursorInputStream extends InputStream {
+
+		private final byte[] prefix;
+
+		private int pos;
+
+		CursorInputStream(byte[] prefix) {
+			this.prefix = prefix;
+		}
+
+		@Override
+		public int read() throws IOException {
+			if (pos < prefix.length) {
+				return prefix[pos++] & 0xFF;
+			}
+			int b = in.read();
+			if (b >= 0) {
+				position++;
+			}
+			return b;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			if (pos < prefix.length) {
+				int n = Math.min(len, prefix.length - pos);
+				System.arraycopy(prefix, pos, b, off, n);
+				pos += n;
+				return n;
+			}
+			int n = in.read(b, off, len);
+			if (n > 0) {
+				position += n;
+			}
+			return n;
+		}
+
+		@Override
+		public int available() throws IOException {
+			return prefix.length - pos + in.available();
+		}
+	}
+}
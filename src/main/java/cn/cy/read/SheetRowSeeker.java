@@ -0,0 +1,229 @@
+package cn.cy.read;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.util.Arrays;
+
+/**
+ * Excel07版本Sheet页xml的行定位
+ *
+ * <pre>
+ *     按字节扫描Sheet页xml，只识别row元素的开始标签并读取其r属性，不解析单元格，直到找到行号不小于指定行号的row元素
+ *     返回的文件流由原根元素开始标签、sheetData开始标签以及该row元素之后的原始内容拼接而成，仍是完整的xml，可直接交给解析对象
+ *     r属性省略时行号为上一行+1；元素名称须与Handler一致，不带命名空间前缀
+ * </pre>
+ *
+ * @author cy96151
+ */
+final class SheetRowSeeker {
+
+	private static final byte[] ROW = { '<', 'r', 'o', 'w' };
+
+	private static final byte[] SHEET_DATA_END = { '<', '/', 's', 'h', 'e', 'e', 't', 'D', 'a', 't', 'a' };
+
+	private static final byte[] SHEET_DATA_START = { '<', 's', 'h', 'e', 'e', 't', 'D', 'a', 't', 'a', '>' };
+
+	private final InputStream in;
+
+	private byte[] buf = new byte[8192];
+
+	/**
+	 * 当前扫描位置
+	 */
+	private int pos;
+
+	/**
+	 * 缓冲中的有效长度
+	 */
+	private int limit;
+
+	/**
+	 * 最后扫描到的row元素的行号
+	 */
+	private int rowNum;
+
+	SheetRowSeeker(InputStream in) {
+		this.in = in;
+	}
+
+	/**
+	 * 最后扫描到的row元素的行号，seek()返回文件流时即为定位到的行号
+	 */
+	int getRowNum() {
+		return rowNum;
+	}
+
+	/**
+	 * 定位到行号不小于fromRow的第一个row元素
+	 *
+	 * @param fromRow
+	 *            起始行号，从1开始
+	 * @return 从该row元素开始读取的xml文件流，关闭时同时关闭原文件流；若Sheet页中不存在该行及之后的行，返回null
+	 * @throws IOException
+	 *             读取文件流时产生的异常
+	 */
+	InputStream seek(int fromRow) throws IOException {
+		// 保留xml声明和根元素开始标签，其中包含row元素属性可能用到的命名空间声明
+		int rootEnd = rootEnd();
+		byte[] head = Arrays.copyOf(buf, rootEnd + SHEET_DATA_START.length);
+		System.arraycopy(SHEET_DATA_START, 0, head, rootEnd, SHEET_DATA_START.length);
+		pos = rootEnd;
+		while (nextTag()) {
+			if (startsWith(SHEET_DATA_END)) {
+				return null;
+			}
+			if (!startsWith(ROW) || !isNameEnd(ROW.length)) {
+				pos++;
+				continue;
+			}
+			int tagEnd = find('>', ROW.length);
+			if (tagEnd < 0) {
+				return null;
+			}
+			int r = rowAttribute(tagEnd);
+			rowNum = r > 0 ? r : rowNum + 1;
+			if (rowNum >= fromRow) {
+				InputStream rest = new SequenceInputStream(new ByteArrayInputStream(buf, pos, limit - pos), in);
+				return new SequenceInputStream(new ByteArrayInputStream(head), rest);
+			}
+			pos += tagEnd + 1;
+		}
+		return null;
+	}
+
+	/**
+	 * 查找根元素开始标签的结尾，跳过xml声明、处理指令和注释
+	 *
+	 * @return 根元素开始标签之后的位置
+	 * @throws IOException
+	 *             未找到根元素时抛出异常
+	 */
+	private int rootEnd() throws IOException {
+		int off = 0;
+		while (true) {
+			off = find('<', off);
+			if (off < 0 || !require(off + 2)) {
+				throw new IOException("Sheet页xml中未找到根元素");
+			}
+			byte next = buf[pos + off + 1];
+			int end = find('>', off + 1);
+			if (end < 0) {
+				throw new IOException("Sheet页xml中未找到根元素");
+			}
+			if (next != '?' && next != '!') {
+				return pos + end + 1;
+			}
+			off = end + 1;
+		}
+	}
+
+	/**
+	 * 读取当前row元素开始标签中r属性的值
+	 *
+	 * @param tagEnd
+	 *            开始标签结尾'>'相对当前位置的偏移
+	 * @return r属性的值，省略时返回0
+	 */
+	private int rowAttribute(int tagEnd) {
+		int end = pos + tagEnd;
+		for (int i = pos + ROW.length; i + 2 < end; i++) {
+			if (buf[i] == 'r' && buf[i - 1] <= ' ' && buf[i + 1] == '=' && (buf[i + 2] == '"' || buf[i + 2] == '\'')) {
+				int value = 0;
+				for (int j = i + 3; j < end && buf[j] >= '0' && buf[j] <= '9'; j++) {
+					value = value * 10 + (buf[j] - '0');
+				}
+				return value;
+			}
+		}
+		return 0;
+	}
+
+	/**
+	 * 移动到下一个'<'，之前的内容不再保留
+	 *
+	 * @return 若已到文件结尾，返回false
+	 */
+	private boolean nextTag() throws IOException {
+		while (true) {
+			for (int i = pos; i < limit; i++) {
+				if (buf[i] == '<') {
+					pos = i;
+					return true;
+				}
+			}
+			pos = limit;
+			if (!require(1)) {
+				return false;
+			}
+		}
+	}
+
+	/**
+	 * 从当前位置的指定偏移开始查找字节
+	 *
+	 * @return 相对当前位置的偏移，未找到时返回-1
+	 */
+	private int find(char b, int from) throws IOException {
+		int off = from;
+		while (true) {
+			for (int i = pos + off; i < limit; i++) {
+				if (buf[i] == b) {
+					return i - pos;
+				}
+			}
+			off = limit - pos;
+			if (!require(off + 1)) {
+				return -1;
+			}
+		}
+	}
+
+	private boolean startsWith(byte[] prefix) throws IOException {
+		if (!require(prefix.length)) {
+			return false;
+		}
+		for (int i = 0; i < prefix.length; i++) {
+			if (buf[pos + i] != prefix[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * 判断元素名称是否在指定偏移处结束，用于区分row与rowBreaks等元素
+	 */
+	private boolean isNameEnd(int off) throws IOException {
+		if (!require(off + 1)) {
+			return false;
+		}
+		byte b = buf[pos + off];
+		return b <= ' ' || b == '>' || b == '/';
+	}
+
+	/**
+	 * 保证当前位置之后至少有length个字节，当前位置之前的内容将被丢弃
+	 *
+	 * @return 若文件流中已没有足够的字节，返回false
+	 */
+	private boolean require(int length) throws IOException {
+		while (limit - pos < length) {
+			if (pos > 0) {
+				System.arraycopy(buf, pos, buf, 0, limit - pos);
+				limit -= pos;
+				pos = 0;
+			}
+			if (limit == buf.length) {
+				buf = Arrays.copyOf(buf, buf.length << 1);
+			}
+			int n = in.read(buf, limit, buf.length - limit);
+			if (n < 0) {
+				return false;
+			}
+			limit += n;
+		}
+		return true;
+	}
+}
@@ -0,0 +1,111 @@
+package cn.cy.read;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 读取过程中当前Sheet页的状态
+ *
+ * <pre>
+ *     存放Sheet页名称、下标、当前行号、行数据、待回调的批次和表头，ReadExcelBase读取时的行处理和回调均基于此状态
+ *     依次读取时使用读取类自身的状态；并行读取Sheet页、回调流水线和并行流中各线程使用各自的状态，
+ *     回调前绑定至当前线程，回调中通过base获取的Sheet页名称、下标、行号和表头取自绑定的状态
+ * </pre>
+ *
+ * @author cy96151
+ */
+final class SheetState {
+
+	/**
+	 * 当前sheet页名称
+	 */
+	String sheetName;
+
+	/**
+	 * 当前sheet页下标
+	 */
+	int sheetIndex = -1;
+
+	/**
+	 * 当前行号
+	 */
+	int curRow;
+
+	/**
+	 * 当前行数据（类型化）
+	 * <p>
+	 * 读取过程中单元格先存放于此，行结束时再根据回调实例的类型转换为rowArray或直接回调
+	 * </p>
+	 */
+	Row row = new Row();
+
+	/**
+	 * 当前行数据，回调optRows时由row转换
+	 */
+	final List<String> rowArray = new ArrayList<String>();
+
+	/**
+	 * 当前sheet页是否跳过
+	 */
+	boolean breakSheet;
+
+	/**
+	 * 待回调的数据行
+	 */
+	final List<Row> batch = new ArrayList<Row>();
+
+	/**
+	 * 已回收的Row对象，批量回调结束后回收，供后续数据行复用
+	 */
+	final ArrayDeque<Row> rowPool = new ArrayDeque<Row>();
+
+	/**
+	 * 当前批次第一行的读取时间
+	 */
+	long batchStartTime;
+
+	/**
+	 * 按表头名称投影时由表头行解析出的需读取的列，只对headerSheet对应的Sheet页有效
+	 */
+	boolean[] columnMask;
+
+	/**
+	 * 表头索引，只对headerSheet对应的Sheet页有效
+	 */
+	HeaderIndex header;
+
+	/**
+	 * 已解析表头的Sheet页下标
+	 */
+	int headerSheet = -1;
+
+	/**
+	 * 单元格计数所在的Sheet页下标
+	 */
+	int limitSheet = -1;
+
+	/**
+	 * 当前Sheet页已读取的单元格数量
+	 */
+	long sheetCells;
+
+	SheetState() {
+	}
+
+	/**
+	 * 创建指定Sheet页的状态
+	 *
+	 * @param sheetName
+	 *            Sheet页名称
+	 * @param sheetIndex
+	 *            Sheet页下标
+	 * @param row
+	 *            用于读取的空Row对象，已设置字符串共享数据集和数字格式表
+	 */
+	SheetState(String sheetName, int sheetIndex, Row row) {
+		this.sheetName = sheetName;
+		this.sheetIndex = sheetIndex;
+		this.row = row;
+	}
+}
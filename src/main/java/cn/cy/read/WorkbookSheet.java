@@ -0,0 +1,120 @@
+package cn.cy.read;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import cn.cy.util.StaxParsers;
+
+/**
+ * Excel07版本workbook.xml中的Sheet页信息
+ *
+ * <pre>
+ *     通过StAX直接读取workbook.xml中的sheet元素，读取到sheets元素结尾即停止，不再通过XMLBeans解析整个文件
+ *     首次使用XMLBeans时需加载poi-ooxml-schemas中的类型信息，耗时较长，对短时运行的任务影响明显
+ * </pre>
+ *
+ * @author cy96151
+ */
+final class WorkbookSheet {
+
+	/**
+	 * Sheet页名称
+	 */
+	private final String name;
+
+	/**
+	 * Sheet页对应xml文件的关系id，通过XSSFReader.getSheet获取文件流
+	 */
+	private final String relationId;
+
+	/**
+	 * 是否为隐藏或深度隐藏的Sheet页
+	 */
+	private final boolean hidden;
+
+	private WorkbookSheet(String name, String relationId, boolean hidden) {
+		this.name = name;
+		this.relationId = relationId;
+		this.hidden = hidden;
+	}
+
+	String getName() {
+		return name;
+	}
+
+	String getRelationId() {
+		return relationId;
+	}
+
+	boolean isHidden() {
+		return hidden;
+	}
+
+	/**
+	 * 读取workbook.xml中的各Sheet页信息
+	 *
+	 * @param in
+	 *            workbook.xml文件流，读取结束后关闭
+	 * @return 按Sheet页顺序排列的Sheet页信息
+	 * @throws IOException
+	 *             文件读取异常
+	 * @throws XMLStreamException
+	 *             xml解析异常
+	 */
+	static List<WorkbookSheet> read(InputStream in) throws IOException, XMLStreamException {
+		List<WorkbookSheet> sheets = new ArrayList<WorkbookSheet>();
+		try {
+			XMLStreamReader reader = StaxParsers.newXMLStreamReader(in);
+			try {
+				while (reader.hasNext()) {
+					int event = reader.next();
+					if (event == XMLStreamConstants.START_ELEMENT && "sheet".equals(reader.getLocalName())) {
+						sheets.add(sheetOf(reader));
+					} else if (event == XMLStreamConstants.END_ELEMENT && "sheets".equals(reader.getLocalName())) {
+						break;
+					}
+				}
+			} finally {
+				reader.close();
+			}
+		} finally {
+			in.close();
+		}
+		return sheets;
+	}
+
+	/**
+	 * 根据sheet元素的属性创建Sheet页信息
+	 *
+	 * <pre>
+	 *     关系id为关系命名空间下的id属性，过渡格式和严格格式的命名空间不同，只按属性名判断
+	 *     state属性为hidden或veryHidden时为隐藏Sheet页
+	 * </pre>
+	 */
+	private static WorkbookSheet sheetOf(XMLStreamReader reader) {
+		String name = null;
+		String relationId = null;
+		boolean hidden = false;
+		for (int i = 0, length = reader.getAttributeCount(); i < length; i++) {
+			String attribute = reader.getAttributeLocalName(i);
+			String namespace = reader.getAttributeNamespace(i);
+			if (namespace == null || namespace.isEmpty()) {
+				if ("name".equals(attribute)) {
+					name = reader.getAttributeValue(i);
+				} else if ("state".equals(attribute)) {
+					String state = reader.getAttributeValue(i);
+					hidden = "hidden".equals(state) || "veryHidden".equals(state);
+				}
+			} else if ("id".equals(attribute)) {
+				relationId = reader.getAttributeValue(i);
+			}
+		}
+		return new WorkbookSheet(name, relationId, hidden);
+	}
+}
@@ -0,0 +1,29 @@
+package cn.cy.rollback;
+
+import cn.cy.read.ReadCheckpoint;
+import cn.cy.read.ReadExcelBase;
+
+/**
+ * 读取检查点接口
+ *
+ * <pre>
+ *     通过ReadExcelBase.setCheckpoint设置，process()读取时每回调完成指定行数，以及每个Sheet页读取结束时调用
+ *     在解析线程中回调，调用时之前的数据行均已回调完成；可在此持久化检查点（如checkpoint.encode()）
+ * </pre>
+ *
+ * @author cy96151
+ */
+public interface CheckpointListener {
+
+	/**
+	 * 检查点
+	 *
+	 * @param checkpoint
+	 *            当前检查点，包括最近一次通过base.setCheckpointToken设置的令牌
+	 * @param base
+	 *            读取基类
+	 * @throws Exception
+	 *             持久化过程中产生的异常，抛出后将终止读取
+	 */
+	void checkpoint(ReadCheckpoint checkpoint, ReadExcelBase base) throws Exception;
+}
@@ -0,0 +1,70 @@
+package cn.cy.rollback;
+
+import java.util.List;
+
+import cn.cy.read.ReadExcelBase;
+import cn.cy.read.Row;
+
+/**
+ * Excel批量读取回调接口
+ *
+ * <pre>
+ *     数据行累积到指定数量（或超过指定等待时间）后一次性回调，每个Sheet页结束时会回调剩余的数据行
+ *     回调结束后rows中的Row对象将被回收复用，若需保留请调用row.copy()
+ * </pre>
+ *
+ * @author cy96151
+ */
+public interface ReadExcelBatchRollBack {
+	/**
+	 * Sheet页开始读取，在该Sheet页的第一批数据行之前调用
+	 *
+	 * @param sheetName
+	 *            当前Sheet页名称
+	 * @param base
+	 *            读取基类
+	 * @throws Exception
+	 *             读取过程中产生的异常
+	 */
+	void onSheetStart(String sheetName, ReadExcelBase base) throws Exception;
+
+	/**
+	 * 批量数据行操作
+	 *
+	 * @param rows
+	 *            同一Sheet页中按顺序读取的数据行
+	 * @param sheetName
+	 *            当前Sheet页名称
+	 * @param base
+	 *            读取基类
+	 * @throws Exception
+	 *             读取过程中产生的异常
+	 */
+	void optRowsBatch(List<Row> rows, String sheetName, ReadExcelBase base) throws Exception;
+
+	/**
+	 * Sheet页读取结束，在该Sheet页的最后一批数据行之后调用
+	 * <p>
+	 * 抛出SheetContinueException或SheetBreakException结束读取时也会调用，读取过程中产生其他异常时不会调用
+	 * </p>
+	 *
+	 * @param sheetName
+	 *            当前Sheet页名称
+	 * @param base
+	 *            读取基类
+	 * @throws Exception
+	 *             读取过程中产生的异常
+	 */
+	void onSheetEnd(String sheetName, ReadExcelBase base) throws Exception;
+
+	/**
+	 * 判断读取当前sheet页内容是否跳过
+	 *
+	 * @param sheetName
+	 *            当前Sheet页名称
+	 * @param base
+	 *            读取基类
+	 * @return 若跳过此Sheet页的读取，返回true；否则返回false
+	 */
+	boolean judgeBreakSheet(String sheetName, ReadExcelBase base);
+}
@@ -0,0 +1,65 @@
+package cn.cy.rollback;
+
+import cn.cy.read.ColumnBatch;
+import cn.cy.read.ReadExcelBase;
+
+/**
+ * Excel列式批量读取回调接口
+ *
+ * <pre>
+ *     通过ColumnarBatches作为批量回调实例使用，数据行累积到指定数量（base.setBatch）后转换为列式批次回调，每个Sheet页结束时会回调剩余的数据行
+ *     回调结束后batch及其中的数组将被复用覆盖，若需保留请复制
+ * </pre>
+ *
+ * @author cy96151
+ */
+public interface ReadExcelColumnarRollBack {
+	/**
+	 * Sheet页开始读取，在该Sheet页的第一个批次之前调用
+	 *
+	 * @param sheetName
+	 *            当前Sheet页名称
+	 * @param base
+	 *            读取基类
+	 * @throws Exception
+	 *             读取过程中产生的异常
+	 */
+	void onSheetStart(String sheetName, ReadExcelBase base) throws Exception;
+
+	/**
+	 * 列式批次操作
+	 *
+	 * @param batch
+	 *            同一Sheet页中按顺序读取的一批数据行
+	 * @param sheetName
+	 *            当前Sheet页名称
+	 * @param base
+	 *            读取基类
+	 * @throws Exception
+	 *             读取过程中产生的异常
+	 */
+	void optColumns(ColumnBatch batch, String sheetName, ReadExcelBase base) throws Exception;
+
+	/**
+	 * Sheet页读取结束，在该Sheet页的最后一个批次之后调用
+	 *
+	 * @param sheetName
+	 *            当前Sheet页名称
+	 * @param base
+	 *            读取基类
+	 * @throws Exception
+	 *             读取过程中产生的异常
+	 */
+	void onSheetEnd(String sheetName, ReadExcelBase base) throws Exception;
+
+	/**
+	 * 判断读取当前sheet页内容是否跳过
+	 *
+	 * @param sheetName
+	 *            当前Sheet页名称
+	 * @param base
+	 *            读取基类
+	 * @return 若跳过此Sheet页的读取，返回true；否则返回false
+	 */
+	boolean judgeBreakSheet(String sheetName, ReadExcelBase base);
+}
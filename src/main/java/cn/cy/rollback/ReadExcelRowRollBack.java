@@ -0,0 +1,41 @@
+package cn.cy.rollback;
+
+import cn.cy.read.ReadExcelBase;
+import cn.cy.read.Row;
+
+/**
+ * Excel类型化读取回调接口
+ *
+ * <pre>
+ *     与ReadExcelRollBack相比，数据行以Row的形式传入，单元格保留原始类型，只有调用getString时才会创建字符串
+ *     Row对象在读取过程中会被复用，若需在回调结束后保留数据，请调用row.copy()
+ * </pre>
+ *
+ * @author cy96151
+ */
+public interface ReadExcelRowRollBack {
+	/**
+	 * 数据行操作
+	 *
+	 * @param row
+	 *            当前读取的数据行，可通过row.getRowNum()获取当前行号
+	 * @param sheetName
+	 *            当前Sheet页名称
+	 * @param base
+	 *            读取基类
+	 * @throws Exception
+	 *             读取过程中产生的异常
+	 */
+	void optRow(Row row, String sheetName, ReadExcelBase base) throws Exception;
+
+	/**
+	 * 判断读取当前sheet页内容是否跳过
+	 *
+	 * @param sheetName
+	 *            当前Sheet页名称
+	 * @param base
+	 *            读取基类
+	 * @return 若跳过此Sheet页的读取，返回true；否则返回false
+	 */
+	boolean judgeBreakSheet(String sheetName, ReadExcelBase base);
+}
@@ -0,0 +1,24 @@
+package cn.cy.rollback;
+
+import cn.cy.read.Row;
+
+/**
+ * 数据行过滤接口
+ *
+ * <pre>
+ *     每读取完一行，回调前先调用accept判断，返回false的数据行不会回调，也不会转换为字符串
+ *     判断时建议通过row.getCellType、row.getDouble等方法直接读取原始值，避免创建字符串
+ * </pre>
+ *
+ * @author cy96151
+ */
+public interface RowFilter {
+	/**
+	 * 判断数据行是否需回调
+	 *
+	 * @param row
+	 *            当前读取的数据行，设置了列投影时只包含投影列的单元格
+	 * @return 若需回调此行，返回true；否则返回false
+	 */
+	boolean accept(Row row);
+}
@@ -0,0 +1,65 @@
+package cn.cy.service;
+
+import java.nio.file.Path;
+
+import cn.cy.metrics.WorkbookMetrics;
+
+/**
+ * 单个文件的导入结果
+ *
+ * @author cy96151
+ */
+public final class ImportResult {
+
+	private final Path file;
+	private final long estimatedHeapBytes;
+	private final long queuedNanos;
+	private final long elapsedNanos;
+	private final WorkbookMetrics metrics;
+
+	ImportResult(Path file, long estimatedHeapBytes, long queuedNanos, long elapsedNanos, WorkbookMetrics metrics) {
+		this.file = file;
+		this.estimatedHeapBytes = estimatedHeapBytes;
+		this.queuedNanos = queuedNanos;
+		this.elapsedNanos = elapsedNanos;
+		this.metrics = metrics;
+	}
+
+	public Path getFile() {
+		return file;
+	}
+
+	/**
+	 * 导入时占用的堆内存配额（字节）
+	 */
+	public long getEstimatedHeapBytes() {
+		return estimatedHeapBytes;
+	}
+
+	/**
+	 * 提交到获取资源配额的等待时间（纳秒），包括线程池排队时间
+	 */
+	public long getQueuedNanos() {
+		return queuedNanos;
+	}
+
+	/**
+	 * 创建读取类到读取结束的耗时（纳秒）
+	 */
+	public long getElapsedNanos() {
+		return elapsedNanos;
+	}
+
+	/**
+	 * 读取统计，读取类未回调统计时（如打开前失败）为null
+	 */
+	public WorkbookMetrics getMetrics() {
+		return metrics;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%s[heap=%d, queued=%dms, elapsed=%dms, %s]", file.getFileName(), estimatedHeapBytes,
+				queuedNanos / 1000000, elapsedNanos / 1000000, metrics);
+	}
+}
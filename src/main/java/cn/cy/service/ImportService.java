@@ -0,0 +1,441 @@
+package cn.cy.service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Method;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import cn.cy.metrics.ReadListener;
+import cn.cy.metrics.SheetMetrics;
+import cn.cy.metrics.WorkbookMetrics;
+import cn.cy.read.ReadExcelBase;
+import cn.cy.rollback.ReadExcelBatchRollBack;
+import cn.cy.rollback.ReadExcelRollBack;
+import cn.cy.rollback.ReadExcelRowRollBack;
+
+/**
+ * 多文件并发导入服务
+ *
+ * <pre>
+ *     提交的文件在线程池中各自读取，每个文件返回一个CompletableFuture，完成时包含耗时与读取统计
+ *     同时打开的工作簿数量和估算的堆内存占用均受全局上限约束，超出时在获取配额处按提交顺序公平排队
+ *     堆内存按字符串共享数据集与读取缓冲估算：Excel07为sharedStrings.xml解压后的大小，Excel03为文件大小的两倍，
+ *     均另加固定开销；单个文件的估算超过上限时按上限计算，即独占全部配额
+ *     取消尚未开始读取的Future时不再读取该文件；已开始读取的文件不受取消影响
+ *     可使用newVirtualThreadExecutor()为每个文件创建一个虚拟线程（需JDK 21以上）
+ * </pre>
+ *
+ * 使用方式：
+ *
+ * <pre>
+ * ImportService service = new ImportService(4, 512L &lt;&lt; 20);
+ * List&lt;CompletableFuture&lt;ImportResult&gt;&gt; futures = new ArrayList&lt;CompletableFuture&lt;ImportResult&gt;&gt;();
+ * for (Path file : files) {
+ * 	futures.add(service.submit(file, rollBack));
+ * }
+ * ...
+ * service.close();
+ * </pre>
+ *
+ * @author cy96151
+ */
+public class ImportService implements Closeable {
+
+	/**
+	 * 每个工作簿固定估算的堆内存开销（字节），包括解析器、读取缓冲等
+	 */
+	public static final long BASE_OVERHEAD = 4L << 20;
+
+	/**
+	 * 堆内存配额的计量单位（字节）
+	 */
+	private static final int HEAP_UNIT = 1024;
+
+	private final ExecutorService executor;
+
+	/**
+	 * 是否由本服务创建线程池，是则关闭服务时关闭线程池
+	 */
+	private final boolean ownsExecutor;
+
+	private final int maxOpenWorkbooks;
+
+	private final long maxHeapBytes;
+
+	private final Semaphore openPermits;
+
+	private final Semaphore heapPermits;
+
+	/**
+	 * 同时转发的读取过程监听
+	 */
+	private ReadListener readListener;
+
+	private long slowCallbackMillis = Long.MAX_VALUE / 1000000;
+
+	private final AtomicInteger running = new AtomicInteger();
+
+	/**
+	 * 使用固定大小的守护线程池，线程数为可用处理器数量
+	 *
+	 * @param maxOpenWorkbooks
+	 *            同时打开的工作簿数量上限
+	 * @param maxHeapBytes
+	 *            同时读取的工作簿估算堆内存之和的上限（字节）
+	 */
+	public ImportService(int maxOpenWorkbooks, long maxHeapBytes) {
+		this(Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), new ThreadFactory() {
+			private final AtomicInteger count = new AtomicInteger();
+
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread thread = new Thread(r, "ReadExcel-import-" + count.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			}
+		}), true, maxOpenWorkbooks, maxHeapBytes);
+	}
+
+	/**
+	 * @param executor
+	 *            执行导入的线程池，由调用方关闭
+	 * @param maxOpenWorkbooks
+	 *            同时打开的工作簿数量上限
+	 * @param maxHeapBytes
+	 *            同时读取的工作簿估算堆内存之和的上限（字节）
+	 */
+	public ImportService(ExecutorService executor, int maxOpenWorkbooks, long maxHeapBytes) {
+		this(executor, false, maxOpenWorkbooks, maxHeapBytes);
+	}
+
+	private ImportService(ExecutorService executor, boolean ownsExecutor, int maxOpenWorkbooks, long maxHeapBytes) {
+		if (executor == null) {
+			throw new IllegalArgumentException("线程池不能为空");
+		}
+		if (maxOpenWorkbooks < 1) {
+			throw new IllegalArgumentException("同时打开的工作簿数量上限必须大于0：" + maxOpenWorkbooks);
+		}
+		if (maxHeapBytes < HEAP_UNIT || maxHeapBytes / HEAP_UNIT > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("堆内存上限超出范围：" + maxHeapBytes);
+		}
+		this.executor = executor;
+		this.ownsExecutor = ownsExecutor;
+		this.maxOpenWorkbooks = maxOpenWorkbooks;
+		this.maxHeapBytes = maxHeapBytes;
+		this.openPermits = new Semaphore(maxOpenWorkbooks, true);
+		this.heapPermits = new Semaphore((int) (maxHeapBytes / HEAP_UNIT), true);
+	}
+
+	/**
+	 * 创建每个任务一个虚拟线程的线程池，需JDK 21以上运行
+	 *
+	 * @return 线程池，由调用方关闭
+	 * @throws UnsupportedOperationException
+	 *             当前JDK不支持虚拟线程
+	 */
+	public static ExecutorService newVirtualThreadExecutor() {
+		try {
+			Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+			return (ExecutorService) method.invoke(null);
+		} catch (NoSuchMethodException e) {
+			throw new UnsupportedOperationException("当前JDK不支持虚拟线程：" + System.getProperty("java.version"));
+		} catch (Exception e) {
+			throw new UnsupportedOperationException("无法创建虚拟线程池", e);
+		}
+	}
+
+	/**
+	 * 设置同时转发的读取过程监听，对之后提交的文件生效
+	 * <p>
+	 * 各文件在不同线程中同时读取，监听须保证线程安全；ImportTask在读取类上设置的监听不会被替换，两者同时回调
+	 * </p>
+	 *
+	 * @param readListener
+	 *            读取过程监听，为null时只统计导入结果
+	 * @param slowCallbackMillis
+	 *            单次回调耗时达到此值（毫秒）时回调slowCallback
+	 */
+	public void setReadListener(ReadListener readListener, long slowCallbackMillis) {
+		this.readListener = readListener;
+		this.slowCallbackMillis = slowCallbackMillis;
+	}
+
+	/**
+	 * 提交文件，数据逐个单元格回调
+	 */
+	public CompletableFuture<ImportResult> submit(Path file, final ReadExcelRollBack instance) {
+		return submit(file, new ImportTask() {
+			@Override
+			public ReadExcelBase create(Path file) throws Exception {
+				return ReadExcelBase.create(file, instance);
+			}
+		});
+	}
+
+	/**
+	 * 提交文件，数据逐行回调
+	 */
+	public CompletableFuture<ImportResult> submit(Path file, final ReadExcelRowRollBack instance) {
+		return submit(file, new ImportTask() {
+			@Override
+			public ReadExcelBase create(Path file) throws Exception {
+				return ReadExcelBase.create(file, instance);
+			}
+		});
+	}
+
+	/**
+	 * 提交文件，数据按批回调
+	 */
+	public CompletableFuture<ImportResult> submit(Path file, final ReadExcelBatchRollBack instance) {
+		return submit(file, new ImportTask() {
+			@Override
+			public ReadExcelBase create(Path file) throws Exception {
+				return ReadExcelBase.create(file, instance);
+			}
+		});
+	}
+
+	/**
+	 * 提交文件，由导入任务创建并配置读取类
+	 *
+	 * @param file
+	 *            导入的文件
+	 * @param task
+	 *            导入任务
+	 * @return 导入结果，读取失败时以读取过程中的异常完成
+	 */
+	public CompletableFuture<ImportResult> submit(final Path file, final ImportTask task) {
+		final CompletableFuture<ImportResult> future = new CompletableFuture<ImportResult>();
+		final long submitTime = System.nanoTime();
+		final ReadListener forward = readListener;
+		final long slowMillis = slowCallbackMillis;
+		executor.execute(new Runnable() {
+			@Override
+			public void run() {
+				if (future.isDone()) {
+					return;
+				}
+				try {
+					ImportResult result = runImport(file, task, forward, slowMillis, submitTime, future);
+					if (result != null) {
+						future.complete(result);
+					}
+				} catch (Throwable e) {
+					future.completeExceptionally(e);
+				}
+			}
+		});
+		return future;
+	}
+
+	/**
+	 * 获取配额后读取文件，读取结束后释放配额；等待配额期间Future已取消时不读取，返回null
+	 */
+	private ImportResult runImport(Path file, ImportTask task, ReadListener forward, long slowMillis, long submitTime,
+			CompletableFuture<ImportResult> future) throws Exception {
+		long heapBytes = Math.min(estimateHeap(file), maxHeapBytes);
+		int heapUnits = (int) Math.min(maxHeapBytes / HEAP_UNIT, Math.max(1, (heapBytes + HEAP_UNIT - 1) / HEAP_UNIT));
+		openPermits.acquire();
+		try {
+			heapPermits.acquire(heapUnits);
+			running.incrementAndGet();
+			try {
+				if (future.isDone()) {
+					return null;
+				}
+				long startTime = System.nanoTime();
+				ReadExcelBase base = task.create(file);
+				ResultListener listener;
+				try {
+					listener = new ResultListener(forward, slowMillis, base.getReadListener(),
+							base.getSlowCallbackMillis());
+					base.setReadListener(listener, listener.slowMillis);
+					base.process();
+				} finally {
+					base.close();
+				}
+				return new ImportResult(file, heapBytes, startTime - submitTime, System.nanoTime() - startTime,
+						listener.metrics);
+			} finally {
+				running.decrementAndGet();
+				heapPermits.release(heapUnits);
+			}
+		} finally {
+			openPermits.release();
+		}
+	}
+
+	/**
+	 * 估算读取文件时的堆内存占用（字节）
+	 * <p>
+	 * 子类可按实际的读取配置重写，如字符串共享数据集使用内存映射时只计算固定开销
+	 * </p>
+	 *
+	 * @param file
+	 *            导入的文件
+	 * @return 估算的堆内存占用
+	 * @throws IOException
+	 *             读取文件信息时产生的异常
+	 */
+	protected long estimateHeap(Path file) throws IOException {
+		long size = Files.size(file);
+		if (!isZip(file)) {
+			return BASE_OVERHEAD + size * 2;
+		}
+		ZipFile zip = new ZipFile(file.toFile());
+		try {
+			ZipEntry entry = zip.getEntry("xl/sharedStrings.xml");
+			long sst = entry == null ? 0 : entry.getSize();
+			return BASE_OVERHEAD + (sst < 0 ? size * 4 : sst);
+		} finally {
+			zip.close();
+		}
+	}
+
+	/**
+	 * 通过文件头判断是否为zip（Excel07）
+	 */
+	private static boolean isZip(Path file) throws IOException {
+		byte[] head = new byte[2];
+		InputStream in = Files.newInputStream(file);
+		try {
+			return in.read(head) == 2 && head[0] == 'P' && head[1] == 'K';
+		} finally {
+			in.close();
+		}
+	}
+
+	public int getMaxOpenWorkbooks() {
+		return maxOpenWorkbooks;
+	}
+
+	public long getMaxHeapBytes() {
+		return maxHeapBytes;
+	}
+
+	/**
+	 * 正在读取的文件数量
+	 */
+	public int getRunning() {
+		return running.get();
+	}
+
+	/**
+	 * 等待获取配额的文件数量（估计值），不包括在线程池中排队的文件
+	 */
+	public int getQueued() {
+		return openPermits.getQueueLength() + heapPermits.getQueueLength();
+	}
+
+	/**
+	 * 关闭服务，由本服务创建的线程池在已提交的文件读取结束后关闭
+	 */
+	@Override
+	public void close() {
+		if (ownsExecutor) {
+			executor.shutdown();
+		}
+	}
+
+	/**
+	 * 记录读取结束时的统计，并转发给服务设置的监听和导入任务在读取类上设置的监听
+	 * <p>
+	 * 读取类按两者中较小的慢回调阈值统计，slowCallback只转发给阈值已达到的监听
+	 * </p>
+	 */
+	private static final class ResultListener implements ReadListener {
+
+		private final ReadListener delegate;
+
+		private final long delegateSlowNanos;
+
+		private final ReadListener taskListener;
+
+		private final long taskSlowNanos;
+
+		/**
+		 * 设置到读取类的慢回调阈值（毫秒）
+		 */
+		final long slowMillis;
+
+		private volatile WorkbookMetrics metrics;
+
+		ResultListener(ReadListener delegate, long delegateSlowMillis, ReadListener taskListener,
+				long taskSlowMillis) {
+			this.delegate = delegate;
+			this.delegateSlowNanos = TimeUnit.MILLISECONDS.toNanos(delegateSlowMillis);
+			this.taskListener = taskListener;
+			this.taskSlowNanos = TimeUnit.MILLISECONDS.toNanos(taskSlowMillis);
+			if (delegate != null && taskListener != null) {
+				slowMillis = Math.min(delegateSlowMillis, taskSlowMillis);
+			} else if (taskListener != null) {
+				slowMillis = taskSlowMillis;
+			} else {
+				slowMillis = delegateSlowMillis;
+			}
+		}
+
+		@Override
+		public void workbookOpened(WorkbookMetrics metrics) {
+			if (delegate != null) {
+				delegate.workbookOpened(metrics);
+			}
+			if (taskListener != null) {
+				taskListener.workbookOpened(metrics);
+			}
+		}
+
+		@Override
+		public void sheetStarted(String sheetName, int sheetIndex) {
+			if (delegate != null) {
+				delegate.sheetStarted(sheetName, sheetIndex);
+			}
+			if (taskListener != null) {
+				taskListener.sheetStarted(sheetName, sheetIndex);
+			}
+		}
+
+		@Override
+		public void sheetEnded(SheetMetrics metrics) {
+			if (delegate != null) {
+				delegate.sheetEnded(metrics);
+			}
+			if (taskListener != null) {
+				taskListener.sheetEnded(metrics);
+			}
+		}
+
+		@Override
+		public void slowCallback(String sheetName, int sheetIndex, int rowNum, long nanos) {
+			if (delegate != null && nanos >= delegateSlowNanos) {
+				delegate.slowCallback(sheetName, sheetIndex, rowNum, nanos);
+			}
+			if (taskListener != null && nanos >= taskSlowNanos) {
+				taskListener.slowCallback(sheetName, sheetIndex, rowNum, nanos);
+			}
+		}
+
+		@Override
+		public void workbookEnded(WorkbookMetrics metrics) {
+			this.metrics = metrics;
+			if (delegate != null) {
+				delegate.workbookEnded(metrics);
+			}
+			if (taskListener != null) {
+				taskListener.workbookEnded(metrics);
+			}
+		}
+	}
+}
@@ -0,0 +1,30 @@
+package cn.cy.service;
+
+import java.nio.file.Path;
+
+import cn.cy.read.ReadExcelBase;
+
+/**
+ * 导入任务：为单个文件创建并配置读取类
+ *
+ * <pre>
+ *     由ImportService在获取到资源配额后、执行导入的线程中调用，返回的读取类由ImportService调用process()并关闭
+ *     可在此设置列投影、批量回调等读取配置；此处通过setReadListener设置的监听与ImportService设置的监听同时回调，
+ *     慢回调按各自的阈值回调
+ * </pre>
+ *
+ * @author cy96151
+ */
+public interface ImportTask {
+
+	/**
+	 * 创建读取类
+	 *
+	 * @param file
+	 *            导入的文件
+	 * @return 读取类
+	 * @throws Exception
+	 *             创建过程中产生的异常，将作为该文件导入失败的原因
+	 */
+	ReadExcelBase create(Path file) throws Exception;
+}
@@ -0,0 +1,106 @@
+package cn.cy.sink;
+
+import java.nio.charset.StandardCharsets;
+
+import cn.cy.read.CellType;
+import cn.cy.read.Row;
+
+/**
+ * 输出长度前缀的二进制数据行
+ *
+ * <pre>
+ *     输出由连续的记录组成，整数均为大端序：
+ *     记录：int32 长度（之后的字节数） | byte 类型 | 内容
+ *     类型1，Sheet页开始：int32 Sheet页下标 | int32 名称字节数 | UTF-8名称
+ *     类型2，数据行：int32 Sheet页下标 | int32 行号 | int32 行宽度 | 行宽度个单元格
+ *     单元格：byte 单元格类型 | 值
+ *         0 无单元格、1 空白：无值
+ *         2 数值：8字节IEEE 754 double（不受按样式格式化影响）
+ *         3 文本、5 错误：int32 字节数 | UTF-8文本（与rowlist中的值一致）
+ *         4 布尔：1字节，1为true
+ *     每条记录都带有Sheet页下标，多个Sheet页输出至同一通道时可按下标区分；读取方可按长度跳过不需要的记录
+ * </pre>
+ *
+ * @author cy96151
+ */
+public class BinaryRowSink extends RowSink {
+
+	public static final byte RECORD_SHEET = 1;
+
+	public static final byte RECORD_ROW = 2;
+
+	public static final byte CELL_NONE = 0;
+	public static final byte CELL_BLANK = 1;
+	public static final byte CELL_NUMERIC = 2;
+	public static final byte CELL_STRING = 3;
+	public static final byte CELL_BOOLEAN = 4;
+	public static final byte CELL_ERROR = 5;
+
+	public BinaryRowSink(SheetChannels channels) {
+		this(channels, DEFAULT_BUFFER_SIZE);
+	}
+
+	/**
+	 * @param channels
+	 *            各Sheet页输出通道的创建方式
+	 * @param bufferSize
+	 *            缓冲刷新大小（字节）
+	 */
+	public BinaryRowSink(SheetChannels channels, int bufferSize) {
+		super(channels, bufferSize);
+	}
+
+	@Override
+	void writeSheetStart(SinkBuffer out, String sheetName, int sheetIndex) {
+		byte[] name = sheetName.getBytes(StandardCharsets.UTF_8);
+		out.putInt(1 + 4 + 4 + name.length);
+		out.put(RECORD_SHEET);
+		out.putInt(sheetIndex);
+		out.putInt(name.length);
+		for (byte b : name) {
+			out.put(b);
+		}
+	}
+
+	@Override
+	void writeRow(SinkBuffer out, Row row) {
+		// 预留记录长度，写入内容后回填
+		int start = out.position();
+		out.putInt(0);
+		out.put(RECORD_ROW);
+		out.putInt(row.getSheetIndex());
+		out.putInt(row.getRowNum());
+		int size = row.size();
+		out.putInt(size);
+		StringBuilder text = out.text;
+		for (int col = 0; col < size; col++) {
+			CellType type = row.getCellType(col);
+			switch (type) {
+			case NUMERIC:
+				out.put(CELL_NUMERIC);
+				out.putLong(Double.doubleToRawLongBits(row.getDouble(col)));
+				break;
+			case BOOLEAN:
+				out.put(CELL_BOOLEAN);
+				out.put((byte) (row.getBoolean(col) ? 1 : 0));
+				break;
+			case STRING:
+			case ERROR:
+				out.put(type == CellType.STRING ? CELL_STRING : CELL_ERROR);
+				text.setLength(0);
+				row.appendString(col, text);
+				int lengthAt = out.position();
+				out.putInt(0);
+				out.putIntAt(lengthAt, out.putUtf8(text, 0, text.length(), false));
+				break;
+			case BLANK:
+				out.put(CELL_BLANK);
+				break;
+			default:
+				out.put(CELL_NONE);
+				break;
+			}
+		}
+		out.putIntAt(start, out.position() - start - 4);
+	}
+}
@@ -0,0 +1,83 @@
+package cn.cy.sink;
+
+import cn.cy.read.Row;
+
+/**
+ * 按RFC 4180输出CSV
+ *
+ * <pre>
+ *     UTF-8编码，字段以逗号分隔，行以CRLF结尾；字段包含逗号、双引号、回车或换行时以双引号包围，其中的双引号写为两个双引号
+ *     字段内容与rowlist中的值一致（开启按样式格式化时为格式化后的文本），无单元格的字段为空；每行的字段数为该行的行宽度
+ *     只输出文件中存在的行，空行不输出
+ * </pre>
+ *
+ * @author cy96151
+ */
+public class CsvSink extends RowSink {
+
+	private static final byte[] UTF8_BOM = { (byte) 0xEF, (byte) 0xBB, (byte) 0xBF };
+
+	/**
+	 * 是否在每个输出通道开头写入UTF-8 BOM
+	 */
+	private final boolean bom;
+
+	public CsvSink(SheetChannels channels) {
+		this(channels, DEFAULT_BUFFER_SIZE, false);
+	}
+
+	/**
+	 * @param channels
+	 *            各Sheet页输出通道的创建方式
+	 * @param bufferSize
+	 *            缓冲刷新大小（字节）
+	 * @param bom
+	 *            是否在开头写入UTF-8 BOM，供Excel直接打开时识别编码
+	 */
+	public CsvSink(SheetChannels channels, int bufferSize, boolean bom) {
+		super(channels, bufferSize);
+		this.bom = bom;
+	}
+
+	@Override
+	void writeSheetStart(SinkBuffer out, String sheetName, int sheetIndex) {
+		if (bom) {
+			for (byte b : UTF8_BOM) {
+				out.put(b);
+			}
+		}
+	}
+
+	@Override
+	void writeRow(SinkBuffer out, Row row) {
+		StringBuilder text = out.text;
+		for (int col = 0, size = row.size(); col < size; col++) {
+			if (col > 0) {
+				out.put((byte) ',');
+			}
+			text.setLength(0);
+			if (!row.appendString(col, text)) {
+				continue;
+			}
+			if (needsQuote(text)) {
+				out.put((byte) '"');
+				out.putUtf8(text, 0, text.length(), true);
+				out.put((byte) '"');
+			} else {
+				out.putUtf8(text, 0, text.length(), false);
+			}
+		}
+		out.put((byte) '\r');
+		out.put((byte) '\n');
+	}
+
+	private static boolean needsQuote(StringBuilder text) {
+		for (int i = 0, length = text.length(); i < length; i++) {
+			char c = text.charAt(i);
+			if (c == ',' || c == '"' || c == '\r' || c == '\n') {
+				return true;
+			}
+		}
+		return false;
+	}
+}
@@ -0,0 +1,148 @@
+package cn.cy.sink;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import cn.cy.read.ReadExcelBase;
+import cn.cy.read.Row;
+import cn.cy.rollback.ReadExcelBatchRollBack;
+
+/**
+ * 数据行直接输出的基类
+ *
+ * <pre>
+ *     作为批量回调实例使用，数据行不转换为rowlist，由Row中的单元格直接编码至复用的字节缓冲，再写入各Sheet页的输出通道
+ *     每个Sheet页开始时通过SheetChannels打开输出通道，结束时写入剩余内容并关闭；读取过程中产生异常时，须调用close()关闭未结束的通道
+ *     设置回调线程池并按Sheet页保序回调（setPipeline(executor, n, capacity, true)）时，各Sheet页在不同回调线程中同时输出
+ *     不按Sheet页保序回调时同一Sheet页的批次输出顺序不确定，Sheet页开始时抛出IllegalStateException
+ *     默认读取所有非隐藏Sheet页，可重写judgeBreakSheet
+ * </pre>
+ *
+ * 使用方式：
+ *
+ * <pre>
+ * try (CsvSink sink = new CsvSink(SheetChannels.directory(Paths.get("out"), "csv"));
+ * 		ReadExcelBase base = ReadExcelBase.create(path, sink)) {
+ * 	base.process();
+ * }
+ * </pre>
+ *
+ * @author cy96151
+ */
+public abstract class RowSink implements ReadExcelBatchRollBack, Closeable {
+
+	/**
+	 * 默认的缓冲刷新大小（字节）
+	 */
+	public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+	private final SheetChannels channels;
+
+	private final int bufferSize;
+
+	/**
+	 * 输出中的各Sheet页，键为Sheet页下标
+	 */
+	private final ConcurrentMap<Integer, SinkBuffer> sheets = new ConcurrentHashMap<Integer, SinkBuffer>();
+
+	RowSink(SheetChannels channels, int bufferSize) {
+		if (channels == null) {
+			throw new IllegalArgumentException("输出通道不能为空");
+		}
+		if (bufferSize < 1024) {
+			throw new IllegalArgumentException("缓冲大小不能小于1024：" + bufferSize);
+		}
+		this.channels = channels;
+		this.bufferSize = bufferSize;
+	}
+
+	@Override
+	public void onSheetStart(String sheetName, ReadExcelBase base) throws Exception {
+		if (!base.isSheetRowsOrdered()) {
+			throw new IllegalStateException("输出数据行须按Sheet页保序回调，请使用setPipeline(executor, n, capacity, true)");
+		}
+		int sheetIndex = base.getSheetIndex();
+		SinkBuffer out = new SinkBuffer(channels.open(sheetName, sheetIndex), bufferSize);
+		SinkBuffer previous = sheets.put(sheetIndex, out);
+		if (previous != null) {
+			previous.close();
+		}
+		synchronized (out) {
+			writeSheetStart(out, sheetName, sheetIndex);
+			out.endRecord();
+		}
+	}
+
+	@Override
+	public void optRowsBatch(List<Row> rows, String sheetName, ReadExcelBase base) throws Exception {
+		SinkBuffer out = sheets.get(base.getSheetIndex());
+		if (out == null) {
+			throw new IllegalStateException("Sheet页尚未开始输出：" + sheetName);
+		}
+		// 回调线程与调用close()的线程可能不同，输出与关闭互斥
+		synchronized (out) {
+			for (Row row : rows) {
+				writeRow(out, row);
+				out.endRecord();
+			}
+		}
+	}
+
+	@Override
+	public void onSheetEnd(String sheetName, ReadExcelBase base) throws Exception {
+		SinkBuffer out = sheets.remove(base.getSheetIndex());
+		if (out != null) {
+			synchronized (out) {
+				out.close();
+			}
+		}
+	}
+
+	@Override
+	public boolean judgeBreakSheet(String sheetName, ReadExcelBase base) {
+		return false;
+	}
+
+	/**
+	 * Sheet页开始时写入的内容，默认不写入
+	 */
+	void writeSheetStart(SinkBuffer out, String sheetName, int sheetIndex) {
+	}
+
+	/**
+	 * 写入一个数据行
+	 */
+	abstract void writeRow(SinkBuffer out, Row row) throws IOException;
+
+	/**
+	 * 关闭读取异常结束时未关闭的输出通道，已写入缓冲的内容仍会写入
+	 *
+	 * @throws IOException
+	 *             写入或关闭通道时产生的第一个异常
+	 */
+	@Override
+	public void close() throws IOException {
+		IOException error = null;
+		for (Integer sheetIndex : sheets.keySet()) {
+			SinkBuffer out = sheets.remove(sheetIndex);
+			if (out == null) {
+				continue;
+			}
+			try {
+				synchronized (out) {
+					out.close();
+				}
+			} catch (IOException e) {
+				if (error == null) {
+					error = e;
+				}
+			}
+		}
+		if (error != null) {
+			throw error;
+		}
+	}
+}
@@ -0,0 +1,98 @@
+package cn.cy.sink;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 各Sheet页输出通道的创建方式
+ *
+ * <pre>
+ *     RowSink在每个Sheet页开始时调用open()获取该Sheet页的输出通道，Sheet页结束时关闭
+ *     多个Sheet页同时输出（回调线程池按Sheet页保序回调）时，open()可能在不同线程中同时调用
+ * </pre>
+ *
+ * @author cy96151
+ */
+public abstract class SheetChannels {
+
+	/**
+	 * 打开Sheet页的输出通道
+	 *
+	 * @param sheetName
+	 *            Sheet页名称
+	 * @param sheetIndex
+	 *            Sheet页下标
+	 * @return 输出通道，Sheet页结束时由RowSink关闭
+	 * @throws IOException
+	 *             打开通道时产生的异常
+	 */
+	public abstract WritableByteChannel open(String sheetName, int sheetIndex) throws IOException;
+
+	/**
+	 * 每个Sheet页输出至目录中的一个文件，文件名为“Sheet页下标_Sheet页名称.扩展名”，已存在时覆盖
+	 *
+	 * @param dir
+	 *            输出目录，不存在时创建
+	 * @param extension
+	 *            文件扩展名，如csv
+	 * @return 输出通道的创建方式
+	 */
+	public static SheetChannels directory(final Path dir, final String extension) {
+		return new SheetChannels() {
+			@Override
+			public WritableByteChannel open(String sheetName, int sheetIndex) throws IOException {
+				Files.createDirectories(dir);
+				// 去除文件名中不允许的字符
+				String name = sheetIndex + "_" + sheetName.replaceAll("[\\\\/:*?\"<>|\\x00-\\x1f]", "_") + "." + extension;
+				return FileChannel.open(dir.resolve(name), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+						StandardOpenOption.TRUNCATE_EXISTING);
+			}
+		};
+	}
+
+	/**
+	 * 所有Sheet页输出至同一通道，通道由调用方关闭
+	 * <p>
+	 * 每次写入都是完整的数据行；多个Sheet页同时输出时各Sheet页的数据行交错写入
+	 * </p>
+	 *
+	 * @param channel
+	 *            输出通道
+	 * @return 输出通道的创建方式
+	 */
+	public static SheetChannels shared(final WritableByteChannel channel) {
+		final WritableByteChannel shared = new WritableByteChannel() {
+			@Override
+			public int write(ByteBuffer src) throws IOException {
+				synchronized (channel) {
+					int written = 0;
+					while (src.hasRemaining()) {
+						written += channel.write(src);
+					}
+					return written;
+				}
+			}
+
+			@Override
+			public boolean isOpen() {
+				return channel.isOpen();
+			}
+
+			@Override
+			public void close() {
+				// 由调用方关闭
+			}
+		};
+		return new SheetChannels() {
+			@Override
+			public WritableByteChannel open(String sheetName, int sheetIndex) {
+				return shared;
+			}
+		};
+	}
+}
@@ -0,0 +1,158 @@
+package cn.cy.sink;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+
+/**
+ * 单个Sheet页的输出缓冲
+ *
+ * <pre>
+ *     直接写入复用的字节数组，只在一条记录（数据行）结束且已达到刷新大小时写入通道，保证每次写入都是完整的记录
+ *     单条记录超出缓冲容量时扩容
+ * </pre>
+ *
+ * @author cy96151
+ */
+final class SinkBuffer {
+
+	private final WritableByteChannel channel;
+
+	/**
+	 * 达到此大小时在记录结束后写入通道
+	 */
+	private final int flushSize;
+
+	private byte[] buf;
+
+	private int pos;
+
+	/**
+	 * 单元格文本的复用缓冲
+	 */
+	final StringBuilder text = new StringBuilder(64);
+
+	SinkBuffer(WritableByteChannel channel, int flushSize) {
+		this.channel = channel;
+		this.flushSize = flushSize;
+		this.buf = new byte[flushSize + (flushSize >> 2)];
+	}
+
+	/**
+	 * 保证缓冲中至少还能写入n个字节
+	 */
+	void ensure(int n) {
+		if (buf.length - pos < n) {
+			buf = Arrays.copyOf(buf, Math.max(buf.length << 1, pos + n));
+		}
+	}
+
+	int position() {
+		return pos;
+	}
+
+	void put(byte b) {
+		ensure(1);
+		buf[pos++] = b;
+	}
+
+	void putInt(int v) {
+		ensure(4);
+		putIntAt(pos, v);
+		pos += 4;
+	}
+
+	/**
+	 * 在之前预留的位置写入整数，如记录长度
+	 */
+	void putIntAt(int at, int v) {
+		buf[at] = (byte) (v >>> 24);
+		buf[at + 1] = (byte) (v >>> 16);
+		buf[at + 2] = (byte) (v >>> 8);
+		buf[at + 3] = (byte) v;
+	}
+
+	void putLong(long v) {
+		ensure(8);
+		for (int shift = 56; shift >= 0; shift -= 8) {
+			buf[pos++] = (byte) (v >>> shift);
+		}
+	}
+
+	/**
+	 * 以UTF-8写入字符
+	 *
+	 * @param cs
+	 *            字符
+	 * @param start
+	 *            起始位置
+	 * @param end
+	 *            结束位置（不包括）
+	 * @param doubleQuote
+	 *            是否将双引号写为两个双引号（CSV转义）
+	 * @return 写入的字节数
+	 */
+	int putUtf8(CharSequence cs, int start, int end, boolean doubleQuote) {
+		// 每个字符最多3个字节，代理对为4个字节（2个字符）
+		ensure((end - start) * 3);
+		byte[] b = buf;
+		int p = pos;
+		for (int i = start; i < end; i++) {
+			char c = cs.charAt(i);
+			if (c < 0x80) {
+				b[p++] = (byte) c;
+				if (doubleQuote && c == '"') {
+					b[p++] = '"';
+				}
+			} else if (c < 0x800) {
+				b[p++] = (byte) (0xC0 | (c >> 6));
+				b[p++] = (byte) (0x80 | (c & 0x3F));
+			} else if (Character.isHighSurrogate(c) && i + 1 < end && Character.isLowSurrogate(cs.charAt(i + 1))) {
+				int cp = Character.toCodePoint(c, cs.charAt(++i));
+				b[p++] = (byte) (0xF0 | (cp >> 18));
+				b[p++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+				b[p++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+				b[p++] = (byte) (0x80 | (cp & 0x3F));
+			} else if (Character.isSurrogate(c)) {
+				// 不成对的代理字符
+				b[p++] = '?';
+			} else {
+				b[p++] = (byte) (0xE0 | (c >> 12));
+				b[p++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+				b[p++] = (byte) (0x80 | (c & 0x3F));
+			}
+		}
+		int written = p - pos;
+		pos = p;
+		return written;
+	}
+
+	/**
+	 * 一条记录结束，已达到刷新大小时写入通道
+	 */
+	void endRecord() throws IOException {
+		if (pos >= flushSize) {
+			flush();
+		}
+	}
+
+	void flush() throws IOException {
+		ByteBuffer src = ByteBuffer.wrap(buf, 0, pos);
+		while (src.hasRemaining()) {
+			channel.write(src);
+		}
+		pos = 0;
+	}
+
+	/**
+	 * 写入剩余内容并关闭通道
+	 */
+	void close() throws IOException {
+		try {
+			flush();
+		} finally {
+			channel.close();
+		}
+	}
+}
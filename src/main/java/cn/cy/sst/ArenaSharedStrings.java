@@ -0,0 +1,72 @@
+package cn.cy.sst;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+/**
+ * 堆内字符串共享数据集
+ *
+ * <pre>
+ *     所有字符串以UTF-8编码连续存放于一个字节数组中，offsets[i]至offsets[i + 1]即为第i个字符串所在的区间
+ *     相比XMLBeans对象，每个字符串只额外占用4个字节的索引
+ * </pre>
+ *
+ * @author cy96151
+ */
+class ArenaSharedStrings extends StreamedSharedStrings {
+
+	static final Charset UTF_8 = Charset.forName("UTF-8");
+
+	/**
+	 * 字符串数据区
+	 */
+	private byte[] arena = new byte[8192];
+
+	/**
+	 * 字符串偏移量索引，长度为字符串数量+1
+	 */
+	private int[] offsets = new int[1024];
+
+	/**
+	 * 字符串数量
+	 */
+	private int count;
+
+	@Override
+	void append(byte[] bytes, int length) throws IOException {
+		int end = offsets[count];
+		if ((long) end + length > Integer.MAX_VALUE - 8) {
+			throw new IOException("字符串共享数据集超过2GB，请使用MAPPED模式读取");
+		}
+		if (end + length > arena.length) {
+			arena = Arrays.copyOf(arena, (int) Math.min(Integer.MAX_VALUE - 8, Math.max((long) arena.length << 1, end + length)));
+		}
+		System.arraycopy(bytes, 0, arena, end, length);
+		if (count + 1 == offsets.length) {
+			offsets = Arrays.copyOf(offsets, offsets.length << 1);
+		}
+		offsets[++count] = end + length;
+	}
+
+	@Override
+	void finish() {
+		// 去掉多余的容量
+		arena = Arrays.copyOf(arena, offsets[count]);
+		offsets = Arrays.copyOf(offsets, count + 1);
+	}
+
+	@Override
+	public String getString(int idx) {
+		if (idx < 0 || idx >= count) {
+			throw new IndexOutOfBoundsException("SST索引值越界：" + idx);
+		}
+		int start = offsets[idx];
+		return new String(arena, start, offsets[idx + 1] - start, UTF_8);
+	}
+
+	@Override
+	public int size() {
+		return count;
+	}
+}
@@ -0,0 +1,102 @@
+package cn.cy.sst;
+
+import java.io.IOException;
+
+/**
+ * 缓存去除首尾空白后字符串的共享数据集
+ *
+ * <pre>
+ *     对其他字符串共享数据集的包装，每个索引值只解码、去除首尾空白一次，重复的值返回同一个字符串对象
+ *     字符串数量不超过缓存上限时，按索引值存放于完整的数组中；超出时使用按索引值直接映射的定长数组，冲突时替换原有的值
+ *     缓存项为不可变对象，可在多个Sheet页解析线程中共用，无需加锁；同一索引值同时解码时结果相同，只保留其一
+ * </pre>
+ *
+ * @author cy96151
+ */
+final class CachedSharedStrings extends SharedStrings {
+
+	private final SharedStrings source;
+
+	/**
+	 * 完整的缓存表，下标为索引值；超出缓存上限时为null
+	 */
+	private final String[] table;
+
+	/**
+	 * 直接映射的缓存表，长度为2的幂；未超出缓存上限时为null
+	 */
+	private final Entry[] slots;
+
+	private final int mask;
+
+	CachedSharedStrings(SharedStrings source, int maxEntries) {
+		this.source = source;
+		int size = source.size();
+		if (size <= maxEntries) {
+			this.table = new String[size];
+			this.slots = null;
+			this.mask = 0;
+		} else {
+			int capacity = Integer.highestOneBit(maxEntries);
+			this.table = null;
+			this.slots = new Entry[capacity];
+			this.mask = capacity - 1;
+		}
+	}
+
+	@Override
+	public String getString(int idx) {
+		return source.getString(idx);
+	}
+
+	@Override
+	public String getTrimmed(int idx) {
+		if (table != null) {
+			String value = table[idx];
+			if (value == null) {
+				value = source.getString(idx).trim();
+				table[idx] = value;
+			}
+			return value;
+		}
+		int slot = idx & mask;
+		Entry entry = slots[slot];
+		if (entry == null || entry.idx != idx) {
+			entry = new Entry(idx, source.getString(idx).trim());
+			slots[slot] = entry;
+		}
+		return entry.value;
+	}
+
+	@Override
+	public int size() {
+		return source.size();
+	}
+
+	/**
+	 * 被包装的字符串共享数据集
+	 */
+	SharedStrings source() {
+		return source;
+	}
+
+	@Override
+	public void close() throws IOException {
+		source.close();
+	}
+
+	/**
+	 * 缓存项，索引值与字符串同时替换
+	 */
+	private static final class Entry {
+
+		final int idx;
+
+		final String value;
+
+		Entry(int idx, String value) {
+			this.idx = idx;
+			this.value = value;
+		}
+	}
+}
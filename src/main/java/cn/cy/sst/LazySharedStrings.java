@@ -0,0 +1,451 @@
+package cn.cy.sst;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import org.xml.sax.SAXException;
+
+import cn.cy.exception.ReadLimitExceededException;
+
+/**
+ * 延迟解码的字符串共享数据集
+ *
+ * <pre>
+ *     读取时只扫描sharedStrings.xml的字节内容，记录每个si元素的起始位置，不进行xml解析
+ *     xml内容先写入堆内缓冲，超出上限后写入临时文件并映射至内存，堆内只保留每个字符串8个字节的位置索引
+ *     Sheet页用到某个索引值时才解码对应的si元素，不缓存解码结果，由SharedStrings.create包装的定长缓存复用重复的值
+ *     适用于字符串共享数据集很大，但只读取部分Sheet页的场景；仅支持UTF-8编码的xml文件
+ *     扫描时检查元素、注释、CDATA是否结束以及实体引用是否有效，格式错误时与其他模式一样抛出SAXException，解码时不再检查
+ * </pre>
+ *
+ * @author cy96151
+ */
+class LazySharedStrings extends SharedStrings {
+
+	private static final int SEGMENT_SHIFT = MappedSharedStrings.SEGMENT_SHIFT;
+	private static final long SEGMENT_SIZE = MappedSharedStrings.SEGMENT_SIZE;
+
+	/**
+	 * 堆内缓冲的初始大小
+	 */
+	private static final int INITIAL_BUFFER = 8192;
+
+	/**
+	 * sharedStrings.xml原始内容，堆内缓冲或临时文件的内存映射，按SEGMENT_SIZE分段
+	 * <p>
+	 * 只通过绝对位置读取，可在多个Sheet页解析线程中共用
+	 * </p>
+	 */
+	private ByteBuffer[] segments;
+
+	/**
+	 * xml内容的总字节数
+	 */
+	private long length;
+
+	/**
+	 * 临时文件，以DELETE_ON_CLOSE打开，关闭通道时删除；未超出堆内缓冲上限时为null
+	 */
+	private Path file;
+	private FileChannel channel;
+
+	/**
+	 * 每个si元素内容的起始位置，自闭合的si元素为-1
+	 */
+	private long[] starts = new long[1024];
+
+	/**
+	 * 字符串数量
+	 */
+	private int count;
+
+	LazySharedStrings(InputStream in, long budget, int maxStrings) throws IOException, SAXException {
+		try {
+			load(in, budget);
+			scan(maxStrings);
+		} catch (IOException e) {
+			close();
+			throw e;
+		} catch (SAXException e) {
+			close();
+			throw e;
+		} catch (RuntimeException e) {
+			close();
+			throw e;
+		}
+		this.starts = Arrays.copyOf(starts, count);
+	}
+
+	@Override
+	public String getString(int idx) {
+		if (idx < 0 || idx >= count) {
+			throw new IndexOutOfBoundsException("SST索引值越界：" + idx);
+		}
+		return decode(starts[idx]);
+	}
+
+	@Override
+	public int size() {
+		return count;
+	}
+
+	@Override
+	public void close() throws IOException {
+		segments = null;
+		if (channel != null) {
+			channel.close();
+			channel = null;
+			try {
+				Files.deleteIfExists(file);
+			} catch (IOException e) {
+				// 内存映射尚未释放时（如Windows）无法删除，由DELETE_ON_CLOSE在映射释放后删除
+			}
+		}
+	}
+
+	/**
+	 * 读取xml内容，超出堆内缓冲上限后写入临时文件，读取结束后映射至内存
+	 *
+	 * @param in
+	 *            sharedStrings.xml文件流
+	 * @param budget
+	 *            堆内缓冲上限（字节）
+	 * @throws IOException
+	 *             读取文件流或写入临时文件时产生的异常
+	 */
+	private void load(InputStream in, long budget) throws IOException {
+		// 堆内缓冲不超过一段内存映射的大小，位置的换算与临时文件一致
+		int limit = (int) Math.max(INITIAL_BUFFER, Math.min(budget, SEGMENT_SIZE));
+		byte[] buffer = new byte[INITIAL_BUFFER];
+		int size = 0;
+		while (true) {
+			if (size == buffer.length) {
+				if (buffer.length < limit) {
+					buffer = Arrays.copyOf(buffer, (int) Math.min(limit, (long) buffer.length << 1));
+				} else {
+					writeFile(buffer, size);
+					size = 0;
+				}
+			}
+			int n = in.read(buffer, size, buffer.length - size);
+			if (n < 0) {
+				break;
+			}
+			size += n;
+		}
+		if (channel == null) {
+			length = size;
+			segments = new ByteBuffer[] { ByteBuffer.wrap(Arrays.copyOf(buffer, size)) };
+			return;
+		}
+		writeFile(buffer, size);
+		length = channel.size();
+		segments = new ByteBuffer[(int) ((length + SEGMENT_SIZE - 1) >>> SEGMENT_SHIFT)];
+		for (int i = 0; i < segments.length; i++) {
+			long position = (long) i << SEGMENT_SHIFT;
+			segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(SEGMENT_SIZE, length - position));
+		}
+	}
+
+	private void writeFile(byte[] bytes, int size) throws IOException {
+		if (channel == null) {
+			file = Files.createTempFile("readexcel-sst", ".tmp");
+			try {
+				channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.DELETE_ON_CLOSE);
+			} catch (IOException e) {
+				Files.deleteIfExists(file);
+				throw e;
+			}
+		}
+		ByteBuffer src = ByteBuffer.wrap(bytes, 0, size);
+		while (src.hasRemaining()) {
+			channel.write(src);
+		}
+	}
+
+	/**
+	 * 读取指定位置的字节
+	 */
+	private byte at(long pos) {
+		return segments[(int) (pos >>> SEGMENT_SHIFT)].get((int) (pos & (SEGMENT_SIZE - 1)));
+	}
+
+	/**
+	 * 将指定范围的字节按UTF-8解码，范围可能跨越两段内存映射
+	 */
+	private String string(long from, long to) {
+		byte[] bytes = new byte[(int) (to - from)];
+		int read = 0;
+		while (read < bytes.length) {
+			long position = from + read;
+			ByteBuffer segment = segments[(int) (position >>> SEGMENT_SHIFT)].duplicate();
+			segment.position((int) (position & (SEGMENT_SIZE - 1)));
+			int n = Math.min(bytes.length - read, segment.remaining());
+			segment.get(bytes, read, n);
+			read += n;
+		}
+		return new String(bytes, ArenaSharedStrings.UTF_8);
+	}
+
+	/**
+	 * 扫描所有si元素的起始位置，同时检查xml格式
+	 *
+	 * @param maxStrings
+	 *            字符串数量上限，为0时不限制
+	 * @throws SAXException
+	 *             元素、注释、CDATA或处理指令未结束，或存在无效的实体引用
+	 */
+	private void scan(int maxStrings) throws SAXException {
+		long pos = 0;
+		while (true) {
+			long lt = indexOf((byte) '<', pos);
+			checkText(pos, lt < 0 ? length : lt);
+			if (lt < 0) {
+				break;
+			}
+			byte next = lt + 1 < length ? at(lt + 1) : 0;
+			if (next == '!' || next == '?') {
+				pos = skipSpecial(lt);
+				if (pos < 0) {
+					throw error("注释、CDATA或处理指令未结束", lt);
+				}
+				continue;
+			}
+			long nameStart = next == '/' ? lt + 2 : lt + 1;
+			long nameEnd = nameEnd(nameStart);
+			long end = indexOf((byte) '>', nameEnd);
+			if (end < 0) {
+				throw error("元素未结束", lt);
+			}
+			if (next != '/' && isName(nameStart, nameEnd, "si")) {
+				if (maxStrings > 0 && count >= maxStrings) {
+					throw new ReadLimitExceededException(ReadLimitExceededException.Limit.SHARED_STRINGS, maxStrings, count + 1);
+				}
+				if (count == starts.length) {
+					starts = Arrays.copyOf(starts, count << 1);
+				}
+				starts[count++] = at(end - 1) == '/' ? -1 : end + 1;
+			}
+			pos = end + 1;
+		}
+	}
+
+	/**
+	 * 检查一段文本中的实体引用
+	 */
+	private void checkText(long from, long to) throws SAXException {
+		long pos = from;
+		while (pos < to) {
+			long amp = indexOf((byte) '&', pos);
+			if (amp < 0 || amp >= to) {
+				return;
+			}
+			long semi = indexOf((byte) ';', amp);
+			if (semi < 0 || semi >= to || entity(amp + 1, semi) < 0) {
+				throw error("无效的实体引用", amp);
+			}
+			pos = semi + 1;
+		}
+	}
+
+	private static SAXException error(String message, long pos) {
+		return new SAXException("sharedStrings.xml格式错误：" + message + "，位置" + pos);
+	}
+
+	/**
+	 * 解码一个si元素的文本内容，xml格式已在扫描时检查
+	 *
+	 * @param start
+	 *            si元素内容的起始位置
+	 * @return 字符串实际值
+	 */
+	private String decode(long start) {
+		if (start < 0) {
+			return "";
+		}
+		StringBuilder sb = new StringBuilder();
+		boolean inText = false;
+		int phonetic = 0;
+		long pos = start;
+		while (pos < length) {
+			long lt = indexOf((byte) '<', pos);
+			if (lt < 0) {
+				lt = length;
+			}
+			if (inText && phonetic == 0 && lt > pos) {
+				appendText(sb, pos, lt);
+			}
+			if (lt >= length) {
+				break;
+			}
+			byte next = lt + 1 < length ? at(lt + 1) : 0;
+			if (next == '!' || next == '?') {
+				if (inText && phonetic == 0 && startsWith(lt, "<![CDATA[")) {
+					long end = indexOf("]]>", lt + 9);
+					sb.append(string(lt + 9, end));
+				}
+				pos = skipSpecial(lt);
+				continue;
+			}
+			boolean close = next == '/';
+			long nameStart = close ? lt + 2 : lt + 1;
+			long nameEnd = nameEnd(nameStart);
+			long gt = indexOf((byte) '>', nameEnd);
+			boolean selfClose = at(gt - 1) == '/';
+			if (isName(nameStart, nameEnd, "si") && close) {
+				break;
+			} else if (isName(nameStart, nameEnd, "t")) {
+				inText = !close && !selfClose;
+			} else if (isName(nameStart, nameEnd, "rPh") && !selfClose) {
+				phonetic += close ? -1 : 1;
+			}
+			pos = gt + 1;
+		}
+		utfDecode(sb);
+		return sb.toString();
+	}
+
+	/**
+	 * 追加一段文本，并还原其中的实体引用
+	 */
+	private void appendText(StringBuilder sb, long from, long to) {
+		long pos = from;
+		while (pos < to) {
+			long amp = indexOf((byte) '&', pos);
+			if (amp < 0 || amp >= to) {
+				sb.append(string(pos, to));
+				return;
+			}
+			if (amp > pos) {
+				sb.append(string(pos, amp));
+			}
+			long semi = indexOf((byte) ';', amp);
+			sb.appendCodePoint(entity(amp + 1, semi));
+			pos = semi + 1;
+		}
+	}
+
+	/**
+	 * 解析实体引用
+	 *
+	 * @param from
+	 *            实体名称的起始位置（&之后）
+	 * @param to
+	 *            实体名称的结束位置（;）
+	 * @return 实体表示的字符，未定义的实体或无效的字符引用返回-1
+	 */
+	private int entity(long from, long to) {
+		if (to - from >= 2 && at(from) == '#') {
+			boolean hex = at(from + 1) == 'x';
+			long start = hex ? from + 2 : from + 1;
+			if (start == to || to - start > 8) {
+				return -1;
+			}
+			int cp = 0;
+			for (long i = start; i < to; i++) {
+				int digit = Character.digit(at(i), hex ? 16 : 10);
+				if (digit < 0) {
+					return -1;
+				}
+				cp = cp * (hex ? 16 : 10) + digit;
+			}
+			return Character.isValidCodePoint(cp) ? cp : -1;
+		}
+		if (isEntity(from, to, "amp")) {
+			return '&';
+		} else if (isEntity(from, to, "lt")) {
+			return '<';
+		} else if (isEntity(from, to, "gt")) {
+			return '>';
+		} else if (isEntity(from, to, "quot")) {
+			return '"';
+		} else if (isEntity(from, to, "apos")) {
+			return '\'';
+		}
+		return -1;
+	}
+
+	/**
+	 * 跳过注释、CDATA、处理指令等特殊内容，返回其后的位置，未结束时返回-1
+	 */
+	private long skipSpecial(long lt) {
+		String terminator = startsWith(lt, "<!--") ? "-->" : startsWith(lt, "<![CDATA[") ? "]]>" : ">";
+		long end = indexOf(terminator, lt + 1);
+		return end < 0 ? -1 : end + terminator.length();
+	}
+
+	/**
+	 * 元素名称的结束位置
+	 */
+	private long nameEnd(long pos) {
+		while (pos < length) {
+			byte b = at(pos);
+			if (b == '>' || b == '/' || b == ' ' || b == '\t' || b == '\r' || b == '\n') {
+				break;
+			}
+			pos++;
+		}
+		return pos;
+	}
+
+	/**
+	 * 判断元素名称（忽略命名空间前缀）是否一致
+	 */
+	private boolean isName(long start, long end, String name) {
+		for (long i = start; i < end; i++) {
+			if (at(i) == ':') {
+				start = i + 1;
+				break;
+			}
+		}
+		if (end - start != name.length()) {
+			return false;
+		}
+		for (int i = 0; i < name.length(); i++) {
+			if (at(start + i) != name.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private boolean isEntity(long from, long to, String name) {
+		return to - from == name.length() && startsWith(from, name);
+	}
+
+	private boolean startsWith(long pos, String prefix) {
+		if (pos + prefix.length() > length) {
+			return false;
+		}
+		for (int i = 0; i < prefix.length(); i++) {
+			if (at(pos + i) != prefix.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private long indexOf(byte b, long from) {
+		for (long i = from; i < length; i++) {
+			if (at(i) == b) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	private long indexOf(String s, long from) {
+		for (long i = from; i <= length - s.length(); i++) {
+			if (startsWith(i, s)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+}
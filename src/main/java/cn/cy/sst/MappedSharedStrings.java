@@ -0,0 +1,186 @@
+package cn.cy.sst;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * 内存映射字符串共享数据集
+ *
+ * <pre>
+ *     字符串以UTF-8编码先写入堆内缓冲，缓冲从4KB开始按需扩容，超出上限后写入临时文件，解析完成后将临时文件映射至内存进行读取
+ *     堆内只保留每个字符串8个字节的偏移量索引，字符串数据由操作系统页缓存管理
+ *     若解析完成时缓冲未超出上限，则不产生临时文件，直接在堆内读取
+ * </pre>
+ *
+ * @author cy96151
+ */
+class MappedSharedStrings extends StreamedSharedStrings {
+
+	/**
+	 * 每段内存映射的大小：1GB
+	 */
+	static final int SEGMENT_SHIFT = 30;
+	static final long SEGMENT_SIZE = 1L << SEGMENT_SHIFT;
+
+	/**
+	 * 堆内缓冲的初始大小
+	 */
+	private static final int INITIAL_BUFFER = 4096;
+
+	/**
+	 * 堆内缓冲
+	 */
+	private byte[] buffer;
+
+	/**
+	 * 堆内缓冲上限
+	 */
+	private final int limit;
+
+	/**
+	 * 堆内缓冲中的有效字节数
+	 */
+	private int bufferSize;
+
+	/**
+	 * 字符串偏移量索引，长度为字符串数量+1
+	 */
+	private long[] offsets = new long[1024];
+
+	/**
+	 * 字符串数量
+	 */
+	private int count;
+
+	/**
+	 * 临时文件，以DELETE_ON_CLOSE打开，关闭通道时删除
+	 */
+	private Path file;
+	private FileChannel channel;
+
+	/**
+	 * 临时文件的内存映射
+	 */
+	private MappedByteBuffer[] segments;
+
+	MappedSharedStrings(long budget) {
+		this.limit = (int) Math.max(INITIAL_BUFFER, Math.min(budget, Integer.MAX_VALUE - 8));
+		// 字符串共享数据集通常远小于上限，不预先分配整个缓冲
+		this.buffer = new byte[INITIAL_BUFFER];
+	}
+
+	@Override
+	void append(byte[] bytes, int length) throws IOException {
+		if (bufferSize + length > limit) {
+			flush();
+		}
+		if (length > limit) {
+			// 超过缓冲上限的字符串直接写入临时文件
+			writeFile(bytes, length);
+		} else {
+			if (bufferSize + length > buffer.length) {
+				buffer = Arrays.copyOf(buffer, (int) Math.min(limit, Math.max((long) buffer.length << 1, bufferSize + length)));
+			}
+			System.arraycopy(bytes, 0, buffer, bufferSize, length);
+			bufferSize += length;
+		}
+		if (count + 1 == offsets.length) {
+			offsets = Arrays.copyOf(offsets, offsets.length << 1);
+		}
+		offsets[count + 1] = offsets[count] + length;
+		count++;
+	}
+
+	@Override
+	void finish() throws IOException {
+		offsets = Arrays.copyOf(offsets, count + 1);
+		if (channel == null) {
+			// 未超出缓冲上限，直接使用堆内缓冲
+			buffer = Arrays.copyOf(buffer, bufferSize);
+			return;
+		}
+		flush();
+		buffer = null;
+		long size = channel.size();
+		segments = new MappedByteBuffer[(int) ((size + SEGMENT_SIZE - 1) >>> SEGMENT_SHIFT)];
+		for (int i = 0; i < segments.length; i++) {
+			long position = (long) i << SEGMENT_SHIFT;
+			segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(SEGMENT_SIZE, size - position));
+		}
+	}
+
+	/**
+	 * 将堆内缓冲写入临时文件
+	 */
+	private void flush() throws IOException {
+		if (bufferSize > 0) {
+			writeFile(buffer, bufferSize);
+			bufferSize = 0;
+		}
+	}
+
+	private void writeFile(byte[] bytes, int length) throws IOException {
+		if (channel == null) {
+			file = Files.createTempFile("readexcel-sst", ".tmp");
+			try {
+				channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.DELETE_ON_CLOSE);
+			} catch (IOException e) {
+				Files.deleteIfExists(file);
+				throw e;
+			}
+		}
+		ByteBuffer src = ByteBuffer.wrap(bytes, 0, length);
+		while (src.hasRemaining()) {
+			channel.write(src);
+		}
+	}
+
+	@Override
+	public String getString(int idx) {
+		if (idx < 0 || idx >= count) {
+			throw new IndexOutOfBoundsException("SST索引值越界：" + idx);
+		}
+		long start = offsets[idx];
+		int length = (int) (offsets[idx + 1] - start);
+		if (segments == null) {
+			return new String(buffer, (int) start, length, ArenaSharedStrings.UTF_8);
+		}
+		byte[] bytes = new byte[length];
+		int read = 0;
+		while (read < length) {
+			// 字符串可能跨越两段内存映射
+			long position = start + read;
+			ByteBuffer segment = segments[(int) (position >>> SEGMENT_SHIFT)].duplicate();
+			segment.position((int) (position & (SEGMENT_SIZE - 1)));
+			int n = Math.min(length - read, segment.remaining());
+			segment.get(bytes, read, n);
+			read += n;
+		}
+		return new String(bytes, ArenaSharedStrings.UTF_8);
+	}
+
+	@Override
+	public int size() {
+		return count;
+	}
+
+	@Override
+	public void close() throws IOException {
+		segments = null;
+		if (channel != null) {
+			channel.close();
+			channel = null;
+			try {
+				Files.deleteIfExists(file);
+			} catch (IOException e) {
+				// 内存映射尚未释放时（如Windows）无法删除，由DELETE_ON_CLOSE在映射释放后删除
+			}
+		}
+	}
+}
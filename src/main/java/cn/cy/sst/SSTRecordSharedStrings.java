@@ -0,0 +1,31 @@
+package cn.cy.sst;
+
+import org.apache.poi.hssf.record.SSTRecord;
+
+/**
+ * Excel03版本(.xls)的字符串共享数据集
+ *
+ * <pre>
+ *     对SSTRecord的包装，使两个版本的读取都可以通过SharedStrings获取字符串实际值
+ * </pre>
+ *
+ * @author cy96151
+ */
+public class SSTRecordSharedStrings extends SharedStrings {
+
+	private final SSTRecord sstRecord;
+
+	public SSTRecordSharedStrings(SSTRecord sstRecord) {
+		this.sstRecord = sstRecord;
+	}
+
+	@Override
+	public String getString(int idx) {
+		return sstRecord.getString(idx).toString();
+	}
+
+	@Override
+	public int size() {
+		return sstRecord.getNumUniqueStrings();
+	}
+}
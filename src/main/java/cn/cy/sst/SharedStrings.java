@@ -0,0 +1,201 @@
+package cn.cy.sst;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.xml.sax.SAXException;
+
+import cn.cy.exception.ReadLimitExceededException;
+
+/**
+ * 字符串共享数据集
+ *
+ * <pre>
+ *     对应XML文件：xl/sharedStrings.xml
+ *     替代POI的SharedStringsTable，不再将整个文件构造为XMLBeans对象，根据索引值获取字符串的时间复杂度为O(1)
+ *     创建完成后只读，可在多个Sheet页解析线程中共用
+ * </pre>
+ *
+ * @author cy96151
+ */
+public abstract class SharedStrings implements Closeable {
+
+	/**
+	 * MAPPED模式下默认的堆内缓冲上限：16MB
+	 */
+	public static final long DEFAULT_BUDGET = 16L * 1024 * 1024;
+
+	/**
+	 * LAZY模式默认的解码缓存上限（字符串数量），可通过cached()按其他上限重新包装
+	 */
+	static final int LAZY_CACHE_ENTRIES = 65536;
+
+	/**
+	 * 根据索引值获取字符串实际值
+	 *
+	 * @param idx
+	 *            SST索引值
+	 * @return 字符串实际值
+	 */
+	public abstract String getString(int idx);
+
+	/**
+	 * 根据索引值获取去除首尾空白后的字符串
+	 *
+	 * @param idx
+	 *            SST索引值
+	 * @return 去除首尾空白后的字符串
+	 */
+	public String getTrimmed(int idx) {
+		return getString(idx).trim();
+	}
+
+	/**
+	 * 字符串数量
+	 *
+	 * @return 字符串共享数据集中的字符串数量
+	 */
+	public abstract int size();
+
+	/**
+	 * 释放数据集占用的资源，如临时文件等
+	 *
+	 * @throws IOException
+	 *             资源释放异常
+	 */
+	@Override
+	public void close() throws IOException {
+	}
+
+	/**
+	 * 缓存去除首尾空白后的字符串，重复的值只解码一次并返回同一个字符串对象
+	 *
+	 * @param sst
+	 *            字符串共享数据集，关闭返回的数据集时一并关闭
+	 * @param maxEntries
+	 *            缓存上限，字符串数量不超过此值时缓存全部字符串，否则最多缓存此数量的字符串；不大于0时不缓存
+	 * @return 带缓存的字符串共享数据集
+	 */
+	public static SharedStrings cached(SharedStrings sst, int maxEntries) {
+		if (maxEntries <= 0 || sst.size() == 0) {
+			return sst;
+		}
+		if (sst instanceof CachedSharedStrings) {
+			// 已带有缓存（如LAZY模式的默认缓存）时按指定的上限重新包装
+			sst = ((CachedSharedStrings) sst).source();
+		}
+		return new CachedSharedStrings(sst, maxEntries);
+	}
+
+	/**
+	 * 根据存储模式创建字符串共享数据集
+	 *
+	 * @param in
+	 *            sharedStrings.xml文件流，为null时说明文件中不存在字符串共享数据集，读取完成后将关闭此流
+	 * @param mode
+	 *            存储模式
+	 * @param budget
+	 *            堆内缓冲上限（字节），仅MAPPED、LAZY模式生效
+	 * @return 字符串共享数据集
+	 * @throws IOException
+	 *             文件读取异常
+	 * @throws SAXException
+	 *             xml解析异常
+	 */
+	public static SharedStrings create(InputStream in, SharedStringsMode mode, long budget) throws IOException, SAXException {
+		return create(in, mode, budget, 0);
+	}
+
+	/**
+	 * 根据存储模式创建字符串共享数据集，加载过程中字符串数量超出上限时立即终止
+	 *
+	 * @param in
+	 *            sharedStrings.xml文件流，为null时说明文件中不存在字符串共享数据集，读取完成后将关闭此流
+	 * @param mode
+	 *            存储模式
+	 * @param budget
+	 *            堆内缓冲上限（字节），仅MAPPED、LAZY模式生效
+	 * @param maxStrings
+	 *            字符串数量上限，为0时不限制
+	 * @return 字符串共享数据集
+	 * @throws IOException
+	 *             文件读取异常
+	 * @throws SAXException
+	 *             xml解析异常
+	 * @throws ReadLimitExceededException
+	 *             字符串数量超出上限
+	 */
+	public static SharedStrings create(InputStream in, SharedStringsMode mode, long budget, int maxStrings)
+			throws IOException, SAXException {
+		if (in == null) {
+			return new ArenaSharedStrings();
+		}
+		try {
+			if (mode == SharedStringsMode.LAZY) {
+				LazySharedStrings lazy = new LazySharedStrings(in, budget, maxStrings);
+				// 不缓存全部解码结果，只在定长的缓存中复用重复的值
+				return lazy.size() == 0 ? lazy : new CachedSharedStrings(lazy, LAZY_CACHE_ENTRIES);
+			}
+			StreamedSharedStrings sst;
+			if (mode == SharedStringsMode.MAPPED) {
+				sst = new MappedSharedStrings(budget);
+			} else {
+				sst = new ArenaSharedStrings();
+			}
+			sst.maxStrings = maxStrings;
+			try {
+				sst.load(in);
+			} catch (IOException e) {
+				sst.close();
+				throw e;
+			} catch (SAXException e) {
+				sst.close();
+				throw e;
+			} catch (RuntimeException e) {
+				sst.close();
+				throw e;
+			}
+			return sst;
+		} finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * 还原字符串中的转义字符
+	 *
+	 * <pre>
+	 *     Excel会将xml中无法存放的字符转义为_xHHHH_的形式，如回车符存放为_x000D_
+	 *     与XSSFRichTextString的处理规则一致，在原对象上直接修改
+	 * </pre>
+	 *
+	 * @param sb
+	 *            字符串
+	 */
+	static void utfDecode(StringBuilder sb) {
+		int length = sb.length();
+		int w = 0;
+		for (int i = 0; i < length; i++) {
+			char c = sb.charAt(i);
+			if (c == '_' && i + 6 < length && sb.charAt(i + 1) == 'x' && sb.charAt(i + 6) == '_') {
+				int code = 0;
+				int j = i + 2;
+				for (; j < i + 6; j++) {
+					int digit = Character.digit(sb.charAt(j), 16);
+					if (digit < 0 || Character.isLowerCase(sb.charAt(j))) {
+						break;
+					}
+					code = (code << 4) + digit;
+				}
+				if (j == i + 6) {
+					sb.setCharAt(w++, (char) code);
+					i += 6;
+					continue;
+				}
+			}
+			sb.setCharAt(w++, c);
+		}
+		sb.setLength(w);
+	}
+}
@@ -0,0 +1,26 @@
+package cn.cy.sst;
+
+/**
+ * 字符串共享数据集存储模式
+ *
+ * @author cy96151
+ */
+public enum SharedStringsMode {
+	/**
+	 * 流式解析sharedStrings.xml，将所有字符串以UTF-8编码存放于堆内字节数组中，通过偏移量索引读取
+	 */
+	MEMORY,
+
+	/**
+	 * 流式解析sharedStrings.xml，堆内缓冲超出上限后写入临时文件，读取时通过内存映射访问
+	 */
+	MAPPED,
+
+	/**
+	 * 只记录每个字符串在sharedStrings.xml中的位置，在Sheet页实际用到时才解码
+	 * <p>
+	 * xml内容超出堆内缓冲上限后写入临时文件并内存映射，解码结果只保留在定长的缓存中
+	 * </p>
+	 */
+	LAZY
+}
@@ -0,0 +1,186 @@
+package cn.cy.sst;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
+
+import cn.cy.exception.ReadLimitExceededException;
+import cn.cy.util.SaxParsers;
+
+/**
+ * 流式解析的字符串共享数据集
+ *
+ * <pre>
+ *     使用SAX逐个读取si元素，拼接t元素中的文本（忽略rPh中的注音文本），再以UTF-8编码交由子类存储
+ * </pre>
+ *
+ * @author cy96151
+ */
+abstract class StreamedSharedStrings extends SharedStrings {
+
+	/**
+	 * 字符串数量上限，为0时不限制
+	 */
+	int maxStrings;
+
+	/**
+	 * 已加载的字符串数量
+	 */
+	private int loaded;
+
+	/**
+	 * 存放一个字符串
+	 *
+	 * @param bytes
+	 *            UTF-8编码后的字符串
+	 * @param length
+	 *            有效长度
+	 * @throws IOException
+	 *             写入临时文件异常
+	 */
+	abstract void append(byte[] bytes, int length) throws IOException;
+
+	/**
+	 * 所有字符串存放完成
+	 *
+	 * @throws IOException
+	 *             写入临时文件异常
+	 */
+	abstract void finish() throws IOException;
+
+	/**
+	 * 解析sharedStrings.xml
+	 *
+	 * @param in
+	 *            sharedStrings.xml文件流
+	 * @throws IOException
+	 *             文件读取异常
+	 * @throws SAXException
+	 *             xml解析异常
+	 */
+	void load(InputStream in) throws IOException, SAXException {
+		XMLReader parser = SaxParsers.acquire();
+		try {
+			parser.setContentHandler(new Handler());
+			parser.parse(new InputSource(in));
+		} finally {
+			SaxParsers.release(parser);
+		}
+		finish();
+	}
+
+	/**
+	 * 将字符串以UTF-8编码写入字节数组，无法配对的代理字符以'?'代替
+	 *
+	 * @param sb
+	 *            字符串
+	 * @param dst
+	 *            目标字节数组，长度至少为字符数的3倍
+	 * @return 写入的字节数
+	 */
+	static int encode(CharSequence sb, byte[] dst) {
+		int pos = 0;
+		for (int i = 0, length = sb.length(); i < length; i++) {
+			char c = sb.charAt(i);
+			if (c < 0x80) {
+				dst[pos++] = (byte) c;
+			} else if (c < 0x800) {
+				dst[pos++] = (byte) (0xC0 | (c >> 6));
+				dst[pos++] = (byte) (0x80 | (c & 0x3F));
+			} else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(sb.charAt(i + 1))) {
+				int cp = Character.toCodePoint(c, sb.charAt(++i));
+				dst[pos++] = (byte) (0xF0 | (cp >> 18));
+				dst[pos++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+				dst[pos++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+				dst[pos++] = (byte) (0x80 | (cp & 0x3F));
+			} else if (Character.isSurrogate(c)) {
+				dst[pos++] = '?';
+			} else {
+				dst[pos++] = (byte) (0xE0 | (c >> 12));
+				dst[pos++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+				dst[pos++] = (byte) (0x80 | (c & 0x3F));
+			}
+		}
+		return pos;
+	}
+
+	/**
+	 * 获取去掉命名空间前缀的元素名称
+	 */
+	static String localName(String name) {
+		int idx = name.indexOf(':');
+		return idx < 0 ? name : name.substring(idx + 1);
+	}
+
+	/**
+	 * sharedStrings.xml数据处理类
+	 */
+	private class Handler extends DefaultHandler {
+		/**
+		 * 当前si元素的文本
+		 */
+		private final StringBuilder text = new StringBuilder();
+
+		/**
+		 * 编码缓冲
+		 */
+		private byte[] buffer = new byte[1024];
+
+		/**
+		 * 是否处于t元素中
+		 */
+		private boolean inText;
+
+		/**
+		 * rPh元素嵌套层数，注音文本不计入字符串
+		 */
+		private int phonetic;
+
+		@Override
+		public void startElement(String uri, String localName, String name, Attributes attributes) throws SAXException {
+			String local = localName(name);
+			if ("si".equals(local)) {
+				text.setLength(0);
+			} else if ("t".equals(local)) {
+				inText = phonetic == 0;
+			} else if ("rPh".equals(local)) {
+				phonetic++;
+			}
+		}
+
+		@Override
+		public void endElement(String uri, String localName, String name) throws SAXException {
+			String local = localName(name);
+			if ("t".equals(local)) {
+				inText = false;
+			} else if ("rPh".equals(local)) {
+				phonetic--;
+			} else if ("si".equals(local)) {
+				if (maxStrings > 0 && ++loaded > maxStrings) {
+					throw new ReadLimitExceededException(ReadLimitExceededException.Limit.SHARED_STRINGS, maxStrings, loaded);
+				}
+				utfDecode(text);
+				if (buffer.length < text.length() * 3) {
+					buffer = new byte[text.length() * 3];
+				}
+				try {
+					append(buffer, encode(text, buffer));
+				} catch (IOException e) {
+					throw new SAXException(e.getMessage(), e);
+				}
+			}
+		}
+
+		@Override
+		public void characters(char[] ch, int start, int length) throws SAXException {
+			if (inText) {
+				text.append(ch, start, length);
+			}
+		}
+	}
+}
@@ -0,0 +1,389 @@
+package cn.cy.util;
+
+import java.sql.Timestamp;
+import java.text.ParseException;
+import java.text.ParsePosition;
+import java.text.SimpleDateFormat;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.format.ResolverStyle;
+import java.time.format.SignStyle;
+import java.time.temporal.ChronoField;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAccessor;
+import java.util.Date;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.regex.Pattern;
+
+/**
+ * 日期解析工具类
+ *
+ * <pre>
+ *     字符串的日期格式只取决于数字的位置和非数字字符，因此将数字替换为0作为格式的“形状”，每种形状只推导一次日期格式
+ *     推导出的格式缓存为线程安全的java.time解析对象；yyyy-MM-dd、yyyy/MM/dd、yyyyMMdd及其后带 HH:mm:ss 的常用格式直接按字符扫描
+ *     与SimpleDateFormat的宽松解析结果不一致的情况（如超出范围的日期、1600年之前的日期）仍交给SimpleDateFormat解析
+ *     Excel日期序列号直接换算，与POI的DateUtil.getJavaDate一致
+ * </pre>
+ *
+ * @author cy96151
+ */
+public final class DateParser {
+
+	/**
+	 * 一天的毫秒数
+	 */
+	private static final long DAY_MILLISECONDS = 24L * 60 * 60 * 1000;
+
+	/**
+	 * Excel日期序列号为1时的前一天，序列号60对应不存在的1900-02-29
+	 */
+	private static final LocalDate EXCEL_EPOCH = LocalDate.of(1899, 12, 31);
+
+	/**
+	 * 早于此年份的日期，SimpleDateFormat按儒略历计算，不使用java.time解析
+	 */
+	private static final int MIN_YEAR = 1600;
+
+	/**
+	 * 缓存的格式形状数上限，超过后新的形状不再缓存
+	 */
+	private static final int CACHE_LIMIT = 256;
+
+	/**
+	 * 由字符串推导日期格式的替换规则，与原parseStringToDate一致
+	 */
+	private static final Pattern[] RULES = { Pattern.compile("^[0-9]{4}([^0-9]?)"), Pattern.compile("^[0-9]{2}([^0-9]?)"),
+			Pattern.compile("([^0-9y]?)[0-9]{1,2}([^0-9]?)"), Pattern.compile("([^0-9M]?)[0-9]{1,2}( ?)"),
+			Pattern.compile("( )[0-9]{1,2}([^0-9]?)"), Pattern.compile("([^0-9]?)[0-9]{1,2}([^0-9]?)"),
+			Pattern.compile("([^0-9]?)[0-9]{1,2}([^0-9]?)") };
+
+	private static final String[] REPLACEMENTS = { "yyyy$1", "yy$1", "$1MM$2", "$1dd$2", "$1HH$2", "$1mm$2", "$1ss$2" };
+
+	private static final ConcurrentMap<String, Shape> SHAPES = new ConcurrentHashMap<String, Shape>();
+
+	private DateParser() {
+	}
+
+	/**
+	 * 将任何符合日期格式的字符串转化为日期类型，支持的格式与ReadExcelBase.parseStringToDate一致
+	 *
+	 * @param text
+	 *            要转换成日期的字符串
+	 * @return Date
+	 * @throws ParseException
+	 *             格式转换异常
+	 */
+	public static Date parse(String text) throws ParseException {
+		Date date = scan(text);
+		if (date != null) {
+			return date;
+		}
+		Shape shape = shapeOf(text);
+		if (shape.formatter != null) {
+			date = parse(text, shape);
+			if (date != null) {
+				return date;
+			}
+		}
+		return new SimpleDateFormat(shape.pattern).parse(text);
+	}
+
+	/**
+	 * 将Excel日期序列号转换为日期，与POI的DateUtil.getJavaDate(double)一致
+	 *
+	 * @param serial
+	 *            日期序列号，整数部分为天数，小数部分为一天中的时间
+	 * @return Date，序列号无效（小于0）时返回null
+	 */
+	public static Date fromExcel(double serial) {
+		if (!(serial > -Double.MIN_VALUE)) {
+			return null;
+		}
+		int days = (int) Math.floor(serial);
+		long millis = (long) ((serial - days) * DAY_MILLISECONDS + 0.5);
+		// Excel将1900年视为闰年，序列号61之后须减去不存在的1900-02-29
+		LocalDate date = EXCEL_EPOCH.plusDays(days < 61 ? days : days - 1);
+		// 与Calendar一样按当地时间累加一天中的时间
+		return toDate(date.atStartOfDay().plus(millis, ChronoUnit.MILLIS));
+	}
+
+	/**
+	 * 按字符扫描常用格式：yyyy-MM-dd、yyyy/MM/dd、yyyyMMdd，之后可带 HH:mm:ss
+	 *
+	 * @return Date，不是常用格式或数值超出范围时返回null
+	 */
+	private static Date scan(String text) {
+		int length = text.length();
+		if (length < 8) {
+			return null;
+		}
+		int year = digits(text, 0, 4);
+		if (year < MIN_YEAR) {
+			return null;
+		}
+		int month;
+		int day;
+		int pos;
+		char sep = text.charAt(4);
+		if (sep == '-' || sep == '/') {
+			pos = 5;
+			int end = numberEnd(text, pos);
+			month = digits(text, pos, end);
+			if (end >= length || text.charAt(end) != sep) {
+				return null;
+			}
+			pos = end + 1;
+			end = numberEnd(text, pos);
+			day = digits(text, pos, end);
+			pos = end;
+		} else {
+			month = digits(text, 4, 6);
+			day = digits(text, 6, 8);
+			pos = 8;
+		}
+		if (month < 1 || month > 12 || day < 1 || day > 28 && day > LocalDate.of(year, month, 1).lengthOfMonth()) {
+			return null;
+		}
+		int hour = 0;
+		int minute = 0;
+		int second = 0;
+		if (pos < length) {
+			if (text.charAt(pos) != ' ') {
+				return null;
+			}
+			int end = numberEnd(text, ++pos);
+			hour = digits(text, pos, end);
+			if (end >= length || text.charAt(end) != ':') {
+				return null;
+			}
+			pos = end + 1;
+			end = numberEnd(text, pos);
+			minute = digits(text, pos, end);
+			if (end >= length || text.charAt(end) != ':') {
+				return null;
+			}
+			pos = end + 1;
+			end = numberEnd(text, pos);
+			second = digits(text, pos, end);
+			if (end != length || hour > 23 || minute > 59 || second > 59) {
+				return null;
+			}
+		}
+		if (hour < 0 || minute < 0 || second < 0) {
+			return null;
+		}
+		return toDate(LocalDateTime.of(year, month, day, hour, minute, second));
+	}
+
+	/**
+	 * 从指定位置开始最多2位数字的结束位置
+	 */
+	private static int numberEnd(String text, int from) {
+		int end = from;
+		int limit = Math.min(text.length(), from + 2);
+		while (end < limit && text.charAt(end) >= '0' && text.charAt(end) <= '9') {
+			end++;
+		}
+		return end;
+	}
+
+	/**
+	 * 读取指定范围内的数字
+	 *
+	 * @return 数值，范围为空、超出字符串或包含非数字时返回-1
+	 */
+	private static int digits(String text, int from, int to) {
+		if (from >= to || to > text.length()) {
+			return -1;
+		}
+		int value = 0;
+		for (int i = from; i < to; i++) {
+			char c = text.charAt(i);
+			if (c < '0' || c > '9') {
+				return -1;
+			}
+			value = value * 10 + (c - '0');
+		}
+		return value;
+	}
+
+	/**
+	 * 通过java.time解析，与SimpleDateFormat一样忽略日期之后多余的内容
+	 *
+	 * @return Date，解析失败或结果可能与SimpleDateFormat不一致时返回null
+	 */
+	private static Date parse(String text, Shape shape) {
+		try {
+			ParsePosition position = new ParsePosition(0);
+			TemporalAccessor parsed = shape.formatter.parse(text, position);
+			if (position.getIndex() == 0) {
+				return null;
+			}
+			LocalDateTime dateTime = LocalDateTime.from(parsed);
+			if (shape.twoDigitYear) {
+				// 与SimpleDateFormat一样，早于当前时间前80年时计入下一个世纪
+				if (dateTime.isBefore(LocalDateTime.now().minusYears(80))) {
+					dateTime = dateTime.plusYears(100);
+				}
+			}
+			return dateTime.getYear() < MIN_YEAR ? null : toDate(dateTime);
+		} catch (DateTimeException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * 按当地时间转换为日期，夏令时切换时与Calendar的处理一致（重叠时间取标准时间）
+	 */
+	private static Date toDate(LocalDateTime dateTime) {
+		return new Date(Timestamp.valueOf(dateTime).getTime());
+	}
+
+	/**
+	 * 获取字符串的格式形状，未缓存时推导日期格式
+	 */
+	private static Shape shapeOf(String text) {
+		char[] chars = text.toCharArray();
+		for (int i = 0; i < chars.length; i++) {
+			if (chars[i] >= '0' && chars[i] <= '9') {
+				chars[i] = '0';
+			}
+		}
+		String key = new String(chars);
+		Shape shape = SHAPES.get(key);
+		if (shape == null) {
+			String pattern = derive(key);
+			if (pattern.indexOf('0') >= 0) {
+				// 有数字未被替换为日期字段，这些数字在格式中作为原样匹配的字符，须按原字符串推导，不缓存
+				return new Shape(derive(text), null, false);
+			}
+			// 格式非法时与原实现一样抛出IllegalArgumentException
+			new SimpleDateFormat(pattern);
+			shape = new Shape(pattern, formatterOf(pattern), pattern.indexOf("yy") >= 0 && pattern.indexOf("yyy") < 0);
+			if (SHAPES.size() < CACHE_LIMIT) {
+				SHAPES.putIfAbsent(key, shape);
+			}
+		}
+		return shape;
+	}
+
+	/**
+	 * 由字符串推导日期格式
+	 */
+	private static String derive(String text) {
+		String pattern = text;
+		for (int i = 0; i < RULES.length; i++) {
+			pattern = RULES[i].matcher(pattern).replaceFirst(REPLACEMENTS[i]);
+		}
+		return pattern;
+	}
+
+	/**
+	 * 将推导出的日期格式转换为java.time解析对象
+	 * <p>
+	 * 相邻的数字字段按格式中的长度固定宽度解析，其他数字字段与SimpleDateFormat一样不限宽度；未指定的字段与SimpleDateFormat一样默认为1970-01-01 00:00:00
+	 * </p>
+	 *
+	 * @return 解析对象，格式中包含其他字母或引号时返回null
+	 */
+	private static DateTimeFormatter formatterOf(String pattern) {
+		DateTimeFormatterBuilder builder = new DateTimeFormatterBuilder();
+		int length = pattern.length();
+		boolean hasYear = false;
+		boolean hasMonth = false;
+		boolean hasDay = false;
+		boolean hasHour = false;
+		boolean hasMinute = false;
+		boolean hasSecond = false;
+		int i = 0;
+		while (i < length) {
+			char c = pattern.charAt(i);
+			int end = i + 1;
+			while (end < length && pattern.charAt(end) == c) {
+				end++;
+			}
+			ChronoField field = fieldOf(c);
+			if (field == null) {
+				if (c == '\'' || c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z') {
+					return null;
+				}
+				builder.appendLiteral(pattern.substring(i, end));
+				i = end;
+				continue;
+			}
+			int count = end - i;
+			boolean abutting = end < length && fieldOf(pattern.charAt(end)) != null;
+			if (field == ChronoField.YEAR && count == 2) {
+				// 两位年份先取当前年份前80年至后20年，解析后再按日期调整
+				builder.appendValueReduced(field, 2, 2, LocalDate.now().getYear() - 80);
+			} else if (abutting) {
+				builder.appendValue(field, count);
+			} else {
+				builder.appendValue(field, 1, 10, SignStyle.NORMAL);
+			}
+			hasYear |= field == ChronoField.YEAR;
+			hasMonth |= field == ChronoField.MONTH_OF_YEAR;
+			hasDay |= field == ChronoField.DAY_OF_MONTH;
+			hasHour |= field == ChronoField.HOUR_OF_DAY;
+			hasMinute |= field == ChronoField.MINUTE_OF_HOUR;
+			hasSecond |= field == ChronoField.SECOND_OF_MINUTE;
+			i = end;
+		}
+		defaulting(builder, hasYear, ChronoField.YEAR, 1970);
+		defaulting(builder, hasMonth, ChronoField.MONTH_OF_YEAR, 1);
+		defaulting(builder, hasDay, ChronoField.DAY_OF_MONTH, 1);
+		defaulting(builder, hasHour, ChronoField.HOUR_OF_DAY, 0);
+		defaulting(builder, hasMinute, ChronoField.MINUTE_OF_HOUR, 0);
+		defaulting(builder, hasSecond, ChronoField.SECOND_OF_MINUTE, 0);
+		// 与SimpleDateFormat一样宽松处理超出范围的数值，如13月将计入下一年
+		return builder.toFormatter().withResolverStyle(ResolverStyle.LENIENT);
+	}
+
+	private static void defaulting(DateTimeFormatterBuilder builder, boolean present, ChronoField field, long value) {
+		if (!present) {
+			builder.parseDefaulting(field, value);
+		}
+	}
+
+	private static ChronoField fieldOf(char c) {
+		switch (c) {
+		case 'y':
+			return ChronoField.YEAR;
+		case 'M':
+			return ChronoField.MONTH_OF_YEAR;
+		case 'd':
+			return ChronoField.DAY_OF_MONTH;
+		case 'H':
+			return ChronoField.HOUR_OF_DAY;
+		case 'm':
+			return ChronoField.MINUTE_OF_HOUR;
+		case 's':
+			return ChronoField.SECOND_OF_MINUTE;
+		default:
+			return null;
+		}
+	}
+
+	/**
+	 * 格式形状推导出的日期格式及解析对象
+	 */
+	private static final class Shape {
+		final String pattern;
+		final DateTimeFormatter formatter;
+
+		/**
+		 * 是否为两位年份
+		 */
+		final boolean twoDigitYear;
+
+		Shape(String pattern, DateTimeFormatter formatter, boolean twoDigitYear) {
+			this.pattern = pattern;
+			this.formatter = formatter;
+			this.twoDigitYear = twoDigitYear;
+		}
+	}
+}
@@ -0,0 +1,94 @@
+package cn.cy.util;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import javax.xml.XMLConstants;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParserFactory;
+
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
+
+/**
+ * SAX解析对象工具类
+ *
+ * <pre>
+ *     统一使用JDK自带的SAXParserFactory创建XMLReader，不依赖外部Xerces实现
+ *     解析对象可通过acquire()和release()复用，避免每个文件、每个Sheet页都重新创建解析对象
+ *     禁止DOCTYPE声明并开启安全处理，Excel文件中的xml不会用到DTD，避免通过外部实体读取本地文件
+ * </pre>
+ *
+ * @author cy96151
+ */
+public final class SaxParsers {
+
+	/**
+	 * SAX解析工厂，SAXParserFactory不保证线程安全，创建解析对象时须对其加锁
+	 */
+	private static final SAXParserFactory FACTORY = SAXParserFactory.newInstance();
+
+	static {
+		try {
+			FACTORY.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+			FACTORY.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+		} catch (ParserConfigurationException e) {
+			throw new IllegalStateException("SAX解析工厂不支持安全设置", e);
+		} catch (SAXException e) {
+			throw new IllegalStateException("SAX解析工厂不支持安全设置", e);
+		}
+	}
+
+	/**
+	 * 已归还的解析对象，数量不超过同时使用的解析对象数
+	 */
+	private static final ConcurrentLinkedQueue<XMLReader> POOL = new ConcurrentLinkedQueue<XMLReader>();
+
+	/**
+	 * 归还时替换原有的数据处理类，避免池中的解析对象持有已读取完成的数据
+	 */
+	private static final DefaultHandler NO_OP_HANDLER = new DefaultHandler();
+
+	private SaxParsers() {
+	}
+
+	/**
+	 * 创建xml解析对象
+	 *
+	 * @return 创建的XMLReader对象
+	 * @throws SAXException
+	 *             创建对象失败将抛出异常
+	 */
+	public static XMLReader newXMLReader() throws SAXException {
+		try {
+			synchronized (FACTORY) {
+				return FACTORY.newSAXParser().getXMLReader();
+			}
+		} catch (ParserConfigurationException e) {
+			throw new SAXException(e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * 获取一个xml解析对象，优先复用已归还的解析对象，使用结束后须调用release()归还
+	 *
+	 * @return XMLReader对象
+	 * @throws SAXException
+	 *             创建对象失败将抛出异常
+	 */
+	public static XMLReader acquire() throws SAXException {
+		XMLReader parser = POOL.poll();
+		return parser == null ? newXMLReader() : parser;
+	}
+
+	/**
+	 * 归还xml解析对象，归还后不可再使用
+	 *
+	 * @param parser
+	 *            通过acquire()获取的解析对象
+	 */
+	public static void release(XMLReader parser) {
+		parser.setContentHandler(NO_OP_HANDLER);
+		POOL.offer(parser);
+	}
+}
@@ -0,0 +1,121 @@
+package cn.cy.util;
+
+import javax.xml.XMLConstants;
+import javax.xml.stream.XMLStreamReader;
+
+import org.xml.sax.Attributes;
+
+/**
+ * 将XMLStreamReader当前元素的属性包装为SAX的Attributes
+ *
+ * <pre>
+ *     用于将StAX拉取到的元素交给SAX的DefaultHandler处理，属性值直接从XMLStreamReader中读取，不复制
+ *     只在XMLStreamReader停留在START_ELEMENT时有效
+ * </pre>
+ *
+ * @author cy96151
+ */
+public final class StaxAttributes implements Attributes {
+
+	private static final String CDATA = "CDATA";
+
+	private final XMLStreamReader reader;
+
+	public StaxAttributes(XMLStreamReader reader) {
+		this.reader = reader;
+	}
+
+	/**
+	 * 获取当前元素的限定名，与SAX的qName一致
+	 *
+	 * @return 限定名，无前缀时为本地名称
+	 */
+	public String getElementQName() {
+		return qName(reader.getPrefix(), reader.getLocalName());
+	}
+
+	@Override
+	public int getLength() {
+		return reader.getAttributeCount();
+	}
+
+	@Override
+	public String getURI(int index) {
+		String uri = reader.getAttributeNamespace(index);
+		return uri == null ? XMLConstants.NULL_NS_URI : uri;
+	}
+
+	@Override
+	public String getLocalName(int index) {
+		return reader.getAttributeLocalName(index);
+	}
+
+	@Override
+	public String getQName(int index) {
+		return qName(reader.getAttributePrefix(index), reader.getAttributeLocalName(index));
+	}
+
+	@Override
+	public String getType(int index) {
+		return CDATA;
+	}
+
+	@Override
+	public String getValue(int index) {
+		return reader.getAttributeValue(index);
+	}
+
+	@Override
+	public int getIndex(String uri, String localName) {
+		for (int i = 0, length = reader.getAttributeCount(); i < length; i++) {
+			if (localName.equals(reader.getAttributeLocalName(i)) && uri.equals(getURI(i))) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	@Override
+	public int getIndex(String qName) {
+		int colon = qName.indexOf(':');
+		String prefix = colon < 0 ? XMLConstants.DEFAULT_NS_PREFIX : qName.substring(0, colon);
+		String localName = colon < 0 ? qName : qName.substring(colon + 1);
+		for (int i = 0, length = reader.getAttributeCount(); i < length; i++) {
+			if (localName.equals(reader.getAttributeLocalName(i)) && prefix.equals(prefixOf(i))) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	@Override
+	public String getType(String uri, String localName) {
+		return getIndex(uri, localName) < 0 ? null : CDATA;
+	}
+
+	@Override
+	public String getType(String qName) {
+		return getIndex(qName) < 0 ? null : CDATA;
+	}
+
+	@Override
+	public String getValue(String uri, String localName) {
+		int index = getIndex(uri, localName);
+		return index < 0 ? null : reader.getAttributeValue(index);
+	}
+
+	@Override
+	public String getValue(String qName) {
+		int index = getIndex(qName);
+		return index < 0 ? null : reader.getAttributeValue(index);
+	}
+
+	private String prefixOf(int index) {
+		String prefix = reader.getAttributePrefix(index);
+		return prefix == null ? XMLConstants.DEFAULT_NS_PREFIX : prefix;
+	}
+
+	private static String qName(String prefix, String localName) {
+		return prefix == null || prefix.isEmpty() ? localName : prefix + ':' + localName;
+	}
+}
@@ -0,0 +1,46 @@
+package cn.cy.util;
+
+import java.io.InputStream;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * StAX解析对象工具类
+ *
+ * <pre>
+ *     统一使用JDK自带的XMLInputFactory创建XMLStreamReader，用于按需拉取xml内容
+ *     关闭DTD和外部实体的解析，Excel文件中的xml不会用到
+ * </pre>
+ *
+ * @author cy96151
+ */
+public final class StaxParsers {
+
+	/**
+	 * StAX解析工厂，创建后只读，可在多线程中共用
+	 */
+	private static final XMLInputFactory FACTORY = XMLInputFactory.newInstance();
+
+	static {
+		FACTORY.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+		FACTORY.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+	}
+
+	private StaxParsers() {
+	}
+
+	/**
+	 * 创建xml拉取解析对象
+	 *
+	 * @param in
+	 *            xml文件流
+	 * @return 创建的XMLStreamReader对象
+	 * @throws XMLStreamException
+	 *             创建对象失败将抛出异常
+	 */
+	public static XMLStreamReader newXMLStreamReader(InputStream in) throws XMLStreamException {
+		return FACTORY.createXMLStreamReader(in);
+	}
+}
@@ -0,0 +1,672 @@
+package cn.cy.test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+import org.apache.poi.hssf.eventusermodel.HSSFUserException;
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.xml.sax.SAXException;
+
+import cn.cy.exception.ReadLimitExceededException;
+import cn.cy.exception.SheetBreakException;
+import cn.cy.exception.SheetContinueException;
+import cn.cy.read.CellType;
+import cn.cy.read.ReadExcelBase;
+import cn.cy.read.ReadLimits;
+import cn.cy.read.Row;
+import cn.cy.read.RowIterator;
+import cn.cy.read.SheetDelivery;
+import cn.cy.rollback.ReadExcelRowRollBack;
+import cn.cy.sink.BinaryRowSink;
+import cn.cy.sink.CsvSink;
+import cn.cy.sink.SheetChannels;
+import cn.cy.sst.SharedStringsMode;
+import cn.cy.util.DateParser;
+
+/**
+ * 读取检查
+ *
+ * <pre>
+ *     生成3个Sheet页、每页299行（含表头行）的xls和xlsx文件，检查同一读取类多次迭代读取、按范围读取与按表头名称投影、读取限制
+ *     检查回调线程中抛出SheetContinueException、SheetBreakException、其他异常和Error时的读取结果
+ *     检查CsvSink和BinaryRowSink的输出可还原为读取的数据行；xlsx文件另检查sharedStrings.xml中的DOCTYPE声明会被拒绝
+ *     直接运行main方法，检查不通过时抛出IllegalStateException
+ * </pre>
+ *
+ * @author cy96151
+ */
+public class ReadCheck {
+
+	private static final int SHEETS = 3;
+
+	private static final int ROWS = 299;
+
+	/**
+	 * 读取和回调使用守护线程，检查不通过时线程未退出也不会阻止JVM结束
+	 */
+	private static final ThreadFactory DAEMON = new ThreadFactory() {
+		@Override
+		public Thread newThread(Runnable r) {
+			Thread thread = new Thread(r);
+			thread.setDaemon(true);
+			return thread;
+		}
+	};
+
+	public static void main(String[] args) throws Exception {
+		Path dir = Files.createTempDirectory("readcheck");
+		try {
+			for (String format : new String[] { "xls", "xlsx" }) {
+				Path file = dir.resolve("check." + format);
+				write(file, "xls".equals(format) ? new HSSFWorkbook() : new XSSFWorkbook());
+				checkReadTwice(file);
+				checkRangeHeader(file);
+				checkLimits(file);
+				checkPipeline(file);
+				checkCallbackBase(file, "xlsx".equals(format));
+				checkSink(dir, format);
+				if ("xlsx".equals(format)) {
+					checkDoctype(file, dir);
+				}
+				System.out.println(format + " ok");
+			}
+		} finally {
+			DirectoryStream<Path> files = Files.newDirectoryStream(dir);
+			try {
+				for (Path file : files) {
+					Files.delete(file);
+				}
+			} finally {
+				files.close();
+			}
+			Files.delete(dir);
+		}
+	}
+
+	/**
+	 * 生成检查用的文件：表头为Name、Amount、Date，Amount为行号×10，Date为2020-01-01
+	 */
+	private static void write(Path file, Workbook workbook) throws Exception {
+		CellStyle dateStyle = workbook.createCellStyle();
+		dateStyle.setDataFormat(workbook.createDataFormat().getFormat("yyyy-mm-dd"));
+		Date date = new SimpleDateFormat("yyyy-MM-dd").parse("2020-01-01");
+		for (int s = 0; s < SHEETS; s++) {
+			Sheet sheet = workbook.createSheet("S" + s);
+			org.apache.poi.ss.usermodel.Row header = sheet.createRow(0);
+			header.createCell(0).setCellValue("Name");
+			header.createCell(1).setCellValue(" amount ");
+			header.createCell(2).setCellValue("Date");
+			for (int r = 1; r < ROWS; r++) {
+				org.apache.poi.ss.usermodel.Row row = sheet.createRow(r);
+				row.createCell(0).setCellValue("name" + r);
+				row.createCell(1).setCellValue((r + 1) * 10);
+				Cell cell = row.createCell(2);
+				cell.setCellValue(date);
+				cell.setCellStyle(dateStyle);
+			}
+		}
+		save(file, workbook);
+	}
+
+	private static void save(Path file, Workbook workbook) throws Exception {
+		FileOutputStream out = new FileOutputStream(file.toFile());
+		try {
+			workbook.write(out);
+		} finally {
+			out.close();
+		}
+	}
+
+	/**
+	 * 同一读取类先预览再完整读取，再按范围读取，Sheet页与行数不受之前读取的影响
+	 */
+	private static void checkReadTwice(Path file) throws Exception {
+		ReadExcelBase base = ReadExcelBase.create(file);
+		try {
+			List<String> preview = collect(base.preview(5));
+			check(preview.size() == SHEETS * 5, file + " preview rows=" + preview.size());
+			check(preview.get(5).equals("S1#1:1"), file + " preview sheet=" + preview.get(5));
+			List<String> all = collect(base.rows());
+			check(all.size() == SHEETS * ROWS, file + " rows after preview=" + all.size());
+			check(all.get(ROWS).equals("S1#1:1"), file + " rows sheet=" + all.get(ROWS));
+			check(all.get(all.size() - 1).equals("S2#2:" + ROWS), file + " last=" + all.get(all.size() - 1));
+			List<String> range = collect(base.readRange("S1", 200, 202));
+			check(range.size() == 3 && range.get(0).equals("S1#1:200"), file + " range=" + range);
+		} finally {
+			base.close();
+		}
+	}
+
+	/**
+	 * 按范围读取时表头行在范围之前，仍按表头名称取值和投影
+	 */
+	private static void checkRangeHeader(Path file) throws Exception {
+		ReadExcelBase base = ReadExcelBase.create(file);
+		try {
+			base.setHeaderRow(1);
+			RowIterator rows = base.readRange("S1", 200, 202);
+			int count = 0;
+			while (rows.hasNext()) {
+				Row row = rows.next();
+				check(row.getRowNum() == 200 + count, file + " range row=" + row.getRowNum());
+				String amount = row.get("Amount");
+				check(amount != null && Double.parseDouble(amount) == row.getRowNum() * 10, file + " get(Amount)=" + amount);
+				count++;
+			}
+			check(count == 3, file + " range count=" + count);
+		} finally {
+			base.close();
+		}
+		base = ReadExcelBase.create(file);
+		try {
+			base.setColumns("amount");
+			RowIterator rows = base.readRange("S2", 150, 151);
+			int count = 0;
+			while (rows.hasNext()) {
+				Row row = rows.next();
+				check(row.size() == 2 && row.getString(0) == null && row.getDouble(1) == row.getRowNum() * 10,
+						file + " projected row " + row.getRowNum() + " size=" + row.size());
+				count++;
+			}
+			check(count == 2, file + " projected count=" + count);
+		} finally {
+			base.close();
+		}
+	}
+
+	/**
+	 * 默认读取限制下正常读取，日期可通过DateParser换算；超出限制时抛出ReadLimitExceededException
+	 */
+	private static void checkLimits(Path file) throws Exception {
+		final List<String> dates = new ArrayList<String>();
+		ReadExcelBase base = ReadExcelBase.create(file, new ReadExcelRowRollBack() {
+			@Override
+			public void optRow(Row row, String sheetName, ReadExcelBase base) throws Exception {
+				if (row.getRowNum() > 1) {
+					Date date = DateParser.fromExcel(row.getDouble(2));
+					dates.add(new SimpleDateFormat("yyyy-MM-dd").format(date));
+				}
+			}
+
+			@Override
+			public boolean judgeBreakSheet(String sheetName, ReadExcelBase base) {
+				return false;
+			}
+		});
+		try {
+			base.setReadLimits(ReadLimits.defaults());
+			base.process();
+		} finally {
+			base.close();
+		}
+		check(dates.size() == SHEETS * (ROWS - 1), file + " dates=" + dates.size());
+		check(dates.get(0).equals("2020-01-01") && DateParser.parse("2020/1/1").equals(DateParser.fromExcel(43831)),
+				file + " date=" + dates.get(0));
+
+		ReadLimits limits = new ReadLimits();
+		limits.setMaxSheetCells(100);
+		base = ReadExcelBase.create(file);
+		base.setReadLimits(limits);
+		try {
+			collect(base.rows());
+			throw new IllegalStateException(file + " maxSheetCells not enforced");
+		} catch (ReadLimitExceededException e) {
+			check(e.getLimit() == ReadLimitExceededException.Limit.SHEET_CELLS && e.getActual() == 101, file + " " + e.getMessage());
+		} finally {
+			base.close();
+		}
+	}
+
+	/**
+	 * 解析与回调分离时，回调线程中抛出的异常在读取线程中抛出，跳过和终止读取的效果与直接回调相同
+	 */
+	private static void checkPipeline(Path file) throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(2, DAEMON);
+		try {
+			// Sheet页S0在第10行跳过，只回调了前9行，其他Sheet页完整回调
+			int[] counts = pipelineCounts(file, executor, new SheetContinueException(), "S0");
+			check(counts[0] == 9 && counts[1] == ROWS && counts[2] == ROWS, file + " continue=" + Arrays.toString(counts));
+			// Sheet页S1在第10行终止读取，只回调了前9行，之后的Sheet页不再回调
+			counts = pipelineCounts(file, executor, new SheetBreakException(), "S1");
+			check(counts[1] == 9 && counts[2] == 0, file + " break=" + Arrays.toString(counts));
+			// 其他异常和Error均在读取线程中抛出，不会使读取线程一直等待
+			Throwable[] thrown = { new IllegalStateException("check"), new AssertionError("check") };
+			for (Throwable expected : thrown) {
+				try {
+					pipelineCounts(file, executor, expected, "S1");
+					throw new IllegalStateException(file + " " + expected + " not thrown");
+				} catch (ExecutionException e) {
+					Throwable cause = e.getCause();
+					while (cause != null && cause != expected) {
+						cause = cause instanceof HSSFUserException ? ((HSSFUserException) cause).getReason() : cause.getCause();
+					}
+					check(cause == expected, file + " pipeline threw " + e.getCause());
+				}
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	/**
+	 * 通过回调线程读取，在指定Sheet页的第10行抛出异常，返回各Sheet页回调完成的行数
+	 */
+	private static int[] pipelineCounts(Path file, ExecutorService executor, final Throwable thrown, final String sheet)
+			throws Exception {
+		final int[] counts = new int[SHEETS];
+		final ReadExcelBase base = ReadExcelBase.create(file, new ReadExcelRowRollBack() {
+			@Override
+			public void optRow(Row row, String sheetName, ReadExcelBase base) throws Exception {
+				if (sheetName.equals(sheet) && row.getRowNum() == 10) {
+					if (thrown instanceof Error) {
+						throw (Error) thrown;
+					}
+					throw (Exception) thrown;
+				}
+				synchronized (counts) {
+					counts[row.getSheetIndex()]++;
+				}
+			}
+
+			@Override
+			public boolean judgeBreakSheet(String sheetName, ReadExcelBase base) {
+				return false;
+			}
+		});
+		try {
+			base.setPipeline(executor, 2, 2, true);
+			// 在单独的线程中读取，回调线程异常退出导致读取线程一直等待时检查不通过
+			ExecutorService reader = Executors.newSingleThreadExecutor(DAEMON);
+			try {
+				reader.submit(new Callable<Void>() {
+					@Override
+					public Void call() throws Exception {
+						base.process();
+						return null;
+					}
+				}).get(60, TimeUnit.SECONDS);
+			} catch (TimeoutException e) {
+				throw new IllegalStateException(file + " pipeline did not finish after " + thrown);
+			} finally {
+				reader.shutdownNow();
+			}
+		} finally {
+			base.close();
+		}
+		synchronized (counts) {
+			return counts.clone();
+		}
+	}
+
+	/**
+	 * 回调流水线和并行读取Sheet页时，回调收到的base为读取类本身，通过base获取的Sheet页信息和行号与当前回调的数据行一致
+	 */
+	private static void checkCallbackBase(Path file, boolean parallel) throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(3, DAEMON);
+		try {
+			for (int mode = 0; mode < 4; mode++) {
+				if (mode >= 2 && !parallel) {
+					break;
+				}
+				final List<ReadExcelBase> bases = Collections.synchronizedList(new ArrayList<ReadExcelBase>());
+				final AtomicInteger rows = new AtomicInteger();
+				final AtomicInteger mismatched = new AtomicInteger();
+				ReadExcelBase base = ReadExcelBase.create(file, new ReadExcelRowRollBack() {
+					@Override
+					public void optRow(Row row, String sheetName, ReadExcelBase base) {
+						bases.add(base);
+						rows.incrementAndGet();
+						if (!sheetName.equals(base.getSheetName()) || row.getSheetIndex() != base.getSheetIndex()
+								|| row.getRowNum() != base.getCurRow()) {
+							mismatched.incrementAndGet();
+						}
+					}
+
+					@Override
+					public boolean judgeBreakSheet(String sheetName, ReadExcelBase base) {
+						return false;
+					}
+				});
+				try {
+					if (mode < 2) {
+						base.setPipeline(executor, 3, 4, mode == 0);
+					} else {
+						base.setSheetExecutor(executor, mode == 2 ? SheetDelivery.ORDERED : SheetDelivery.INTERLEAVED);
+					}
+					base.process();
+				} finally {
+					base.close();
+				}
+				check(rows.get() == SHEETS * ROWS, file + " mode " + mode + " rows " + rows);
+				check(mismatched.get() == 0, file + " mode " + mode + " base mismatched " + mismatched);
+				for (ReadExcelBase callbackBase : bases) {
+					check(callbackBase == base, file + " mode " + mode + " callback base is not the reader");
+				}
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * CsvSink和BinaryRowSink的输出可按各自格式还原为读取的数据行
+	 * <p>
+	 * 文本包含逗号、双引号、回车换行和代理对，CSV按RFC 4180解析后字段与getString一致；二进制记录的长度、类型和值与数据行一致；
+	 * 不按Sheet页保序回调时拒绝输出
+	 * </p>
+	 */
+	private static void checkSink(Path dir, String format) throws Exception {
+		Path file = dir.resolve("sink." + format);
+		Workbook workbook = "xls".equals(format) ? new HSSFWorkbook() : new XSSFWorkbook();
+		Sheet sheet = workbook.createSheet("Sink");
+		String[] texts = { "a,b", "say \"hi\"", "line1\r\nline2", "cr\ronly", "lf\nonly", "\"", "emoji \uD83D\uDE00 \uD842\uDFB7",
+				"plain" };
+		org.apache.poi.ss.usermodel.Row first = sheet.createRow(0);
+		for (int col = 0; col < texts.length; col++) {
+			first.createCell(col).setCellValue(texts[col]);
+		}
+		// 第2行不存在，第3行含数值、布尔、空白单元格和缺失的列
+		org.apache.poi.ss.usermodel.Row third = sheet.createRow(2);
+		third.createCell(0).setCellValue(1.5);
+		third.createCell(1).setCellValue(true);
+		third.createCell(2).setCellStyle(workbook.createCellStyle());
+		third.createCell(4).setCellValue(-12345678901234.5);
+		third.createCell(5).setCellValue("x,\"y\"");
+		if ("xls".equals(format)) {
+			save(file, workbook);
+		} else {
+			// POI写入xlsx时代理对会被替换为问号，写入后再替换sharedStrings.xml中的文本
+			Path written = dir.resolve("sink-poi.xlsx");
+			save(written, workbook);
+			rewriteSharedStrings(written, file, "<t>emoji [^<]*</t>", "<t>" + texts[6] + "</t>");
+			Files.delete(written);
+		}
+
+		// 数据行副本引用读取类的字符串共享数据集，检查结束后再关闭
+		List<Row> expected = new ArrayList<Row>();
+		ReadExcelBase reader = ReadExcelBase.create(file);
+		try {
+			RowIterator rows = reader.rows();
+			try {
+				while (rows.hasNext()) {
+					expected.add(rows.next().copy());
+				}
+			} finally {
+				rows.close();
+			}
+			check(expected.size() == 2 && expected.get(0).getString(6).equals(texts[6]), file + " sink rows=" + expected.size());
+
+			ReadExcelBase base;
+			CsvSink csv = new CsvSink(SheetChannels.directory(dir, "csv"));
+			try {
+				base = ReadExcelBase.create(file, csv);
+				try {
+					base.process();
+				} finally {
+					base.close();
+				}
+			} finally {
+				csv.close();
+			}
+			Path csvFile = dir.resolve("0_Sink.csv");
+			List<List<String>> records = parseCsv(new String(Files.readAllBytes(csvFile), "UTF-8"));
+			Files.delete(csvFile);
+			check(records.size() == expected.size(), file + " csv records=" + records.size());
+			for (int i = 0; i < records.size(); i++) {
+				Row row = expected.get(i);
+				List<String> fields = records.get(i);
+				check(fields.size() == row.size(), file + " csv row " + row.getRowNum() + " fields=" + fields);
+				for (int col = 0; col < row.size(); col++) {
+					String value = row.getString(col);
+					check(fields.get(col).equals(value == null ? "" : value), file + " csv row " + row.getRowNum() + " col " + col
+							+ "=" + fields.get(col));
+				}
+			}
+
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			BinaryRowSink binary = new BinaryRowSink(SheetChannels.shared(Channels.newChannel(bytes)));
+			try {
+				base = ReadExcelBase.create(file, binary);
+				try {
+					base.process();
+				} finally {
+					base.close();
+				}
+			} finally {
+				binary.close();
+			}
+			checkBinary(file, ByteBuffer.wrap(bytes.toByteArray()), expected);
+
+			// 不按Sheet页保序回调时在Sheet页开始时拒绝，不创建输出文件
+			Throwable rejected = null;
+			ExecutorService executor = Executors.newFixedThreadPool(2, DAEMON);
+			csv = new CsvSink(SheetChannels.directory(dir, "csv"));
+			try {
+				base = ReadExcelBase.create(file, csv);
+				try {
+					base.setPipeline(executor, 2, 2, false);
+					base.process();
+				} catch (Exception e) {
+					rejected = e;
+					while (rejected != null && !(rejected instanceof IllegalStateException)) {
+						rejected = rejected instanceof HSSFUserException ? ((HSSFUserException) rejected).getReason() : rejected
+								.getCause();
+					}
+				} finally {
+					base.close();
+				}
+			} finally {
+				csv.close();
+				executor.shutdown();
+			}
+			check(rejected != null && !Files.exists(csvFile), file + " unordered pipeline accepted by CsvSink");
+		} finally {
+			reader.close();
+		}
+	}
+
+	/**
+	 * 按RFC 4180解析CSV，每条记录以CRLF结尾
+	 */
+	private static List<List<String>> parseCsv(String text) {
+		List<List<String>> records = new ArrayList<List<String>>();
+		List<String> fields = new ArrayList<String>();
+		StringBuilder field = new StringBuilder();
+		int i = 0;
+		while (i < text.length()) {
+			if (text.charAt(i) == '"') {
+				// 包围的字段，两个双引号表示一个双引号，其中的逗号和回车换行为字段内容
+				i++;
+				while (true) {
+					char c = text.charAt(i++);
+					if (c == '"') {
+						if (i < text.length() && text.charAt(i) == '"') {
+							field.append('"');
+							i++;
+						} else {
+							break;
+						}
+					} else {
+						field.append(c);
+					}
+				}
+			} else {
+				while (i < text.length() && text.charAt(i) != ',' && text.charAt(i) != '\r') {
+					char c = text.charAt(i++);
+					check(c != '"' && c != '\n', "csv unquoted field contains " + (int) c);
+					field.append(c);
+				}
+			}
+			fields.add(field.toString());
+			field.setLength(0);
+			char end = text.charAt(i++);
+			if (end == '\r') {
+				check(text.charAt(i++) == '\n', "csv record not ended with CRLF");
+				records.add(fields);
+				fields = new ArrayList<String>();
+			} else {
+				check(end == ',', "csv field followed by " + (int) end);
+			}
+		}
+		return records;
+	}
+
+	/**
+	 * 按BinaryRowSink的记录格式逐条解析，检查记录长度与内容一致、数据行与读取的数据行一致
+	 */
+	private static void checkBinary(Path file, ByteBuffer in, List<Row> expected) throws Exception {
+		int rows = 0;
+		while (in.hasRemaining()) {
+			int length = in.getInt();
+			int end = in.position() + length;
+			byte type = in.get();
+			if (type == BinaryRowSink.RECORD_SHEET) {
+				int sheetIndex = in.getInt();
+				byte[] name = new byte[in.getInt()];
+				in.get(name);
+				check(sheetIndex == 0 && new String(name, "UTF-8").equals("Sink"), file + " binary sheet " + sheetIndex);
+			} else {
+				check(type == BinaryRowSink.RECORD_ROW, file + " binary record type " + type);
+				Row row = expected.get(rows++);
+				check(in.getInt() == row.getSheetIndex() && in.getInt() == row.getRowNum() && in.getInt() == row.size(),
+						file + " binary row header " + row.getRowNum());
+				for (int col = 0; col < row.size(); col++) {
+					byte cell = in.get();
+					CellType cellType = row.getCellType(col);
+					String at = file + " binary row " + row.getRowNum() + " col " + col;
+					check(cell == cellType.ordinal(), at + " type " + cell);
+					switch (cellType) {
+					case NUMERIC:
+						check(in.getLong() == Double.doubleToRawLongBits(row.getDouble(col)), at + " number");
+						break;
+					case BOOLEAN:
+						check(in.get() == (row.getBoolean(col) ? 1 : 0), at + " boolean");
+						break;
+					case STRING:
+					case ERROR:
+						byte[] text = new byte[in.getInt()];
+						in.get(text);
+						check(new String(text, "UTF-8").equals(row.getString(col)), at + " text");
+						break;
+					default:
+						break;
+					}
+				}
+			}
+			check(in.position() == end, file + " binary record length " + length);
+		}
+		check(rows == expected.size(), file + " binary rows=" + rows);
+	}
+
+	/**
+	 * sharedStrings.xml中声明外部实体时，各存储模式均拒绝读取，不会读出本地文件内容
+	 */
+	private static void checkDoctype(Path file, Path dir) throws Exception {
+		Path secret = dir.resolve("secret.txt");
+		Files.write(secret, "secret".getBytes("UTF-8"));
+		Path crafted = dir.resolve("doctype.xlsx");
+		rewriteSharedStrings(file, crafted, "\\?>", "?><!DOCTYPE sst [<!ENTITY x SYSTEM \"" + secret.toUri() + "\">]>", "<t>Name</t>",
+				"<t>&x;</t>");
+		for (SharedStringsMode mode : SharedStringsMode.values()) {
+			ReadExcelBase base = ReadExcelBase.create(crafted);
+			base.setSharedStringsMode(mode);
+			try {
+				List<String> values = new ArrayList<String>();
+				RowIterator rows = base.rows();
+				try {
+					values.add(rows.next().getString(0));
+				} finally {
+					rows.close();
+				}
+				throw new IllegalStateException(mode + " read DOCTYPE: " + values);
+			} catch (SAXException e) {
+				// 预期的异常，解析sharedStrings.xml时拒绝DOCTYPE声明
+			} finally {
+				base.close();
+			}
+		}
+	}
+
+	/**
+	 * 复制xlsx文件，sharedStrings.xml依次按正则替换各对内容
+	 */
+	private static void rewriteSharedStrings(Path source, Path target, String... replacements) throws Exception {
+		ZipInputStream in = new ZipInputStream(Files.newInputStream(source));
+		ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(target));
+		try {
+			ZipEntry entry;
+			while ((entry = in.getNextEntry()) != null) {
+				ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+				byte[] buf = new byte[8192];
+				int n;
+				while ((n = in.read(buf)) > 0) {
+					bytes.write(buf, 0, n);
+				}
+				byte[] data = bytes.toByteArray();
+				if ("xl/sharedStrings.xml".equals(entry.getName())) {
+					String xml = new String(data, "UTF-8");
+					for (int i = 0; i < replacements.length; i += 2) {
+						xml = xml.replaceFirst(replacements[i], replacements[i + 1]);
+					}
+					data = xml.getBytes("UTF-8");
+				}
+				out.putNextEntry(new ZipEntry(entry.getName()));
+				out.write(data);
+				out.closeEntry();
+			}
+		} finally {
+			in.close();
+			out.close();
+		}
+	}
+
+	/**
+	 * 读取所有数据行，每行记为“Sheet页名称#Sheet页下标:行号”
+	 */
+	private static List<String> collect(RowIterator rows) throws IOException {
+		List<String> list = new ArrayList<String>();
+		try {
+			while (rows.hasNext()) {
+				Row row = rows.next();
+				list.add(row.getSheetName() + "#" + row.getSheetIndex() + ":" + row.getRowNum());
+			}
+		} finally {
+			rows.close();
+		}
+		return list;
+	}
+
+	private static void check(boolean condition, String message) {
+		if (!condition) {
+			throw new IllegalStateException(message);
+		}
+	}
+}
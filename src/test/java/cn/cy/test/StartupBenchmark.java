@@ -0,0 +1,50 @@
+package cn.cy.test;
+
+import java.io.FileInputStream;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+
+import cn.cy.exception.SheetBreakException;
+import cn.cy.read.ReadExcelBase;
+import cn.cy.rollback.ReadExcelRollBack;
+
+/**
+ * 冷启动读取耗时测试
+ *
+ * <pre>
+ *     读取到第一行数据后立即终止，输出JVM启动到第一行、创建读取类到第一行的耗时以及已加载的类数量
+ *     每次测试须在新的JVM中运行，如：java -cp ... cn.cy.test.StartupBenchmark E:\test.xlsx
+ * </pre>
+ *
+ * @author cy96151
+ */
+public class StartupBenchmark implements ReadExcelRollBack {
+
+	private static long start;
+
+	public static void main(String[] args) throws Exception {
+		String file = args.length > 0 ? args[0] : "E:\\test.xlsx";
+		start = System.nanoTime();
+		FileInputStream inputStream = new FileInputStream(file);
+		try {
+			ReadExcelBase base = ReadExcelBase.create(inputStream, new StartupBenchmark());
+			base.process();
+		} finally {
+			inputStream.close();
+		}
+	}
+
+	@Override
+	public void optRows(List<String> rowlist, int curRow, String sheetName, ReadExcelBase base) throws Exception {
+		long firstRow = (System.nanoTime() - start) / 1000000;
+		System.out.println("JVM启动到第一行: " + ManagementFactory.getRuntimeMXBean().getUptime() + "ms");
+		System.out.println("创建读取类到第一行: " + firstRow + "ms");
+		System.out.println("已加载类数量: " + ManagementFactory.getClassLoadingMXBean().getLoadedClassCount());
+		throw new SheetBreakException();
+	}
+
+	@Override
+	public boolean judgeBreakSheet(String sheetName, ReadExcelBase base) {
+		return false;
+	}
+}
@@ -9,9 +9,10 @@ import cn.cy.rollback.ReadExcelRollBack;
 public class Test implements ReadExcelRollBack {
 
 	public static void main(String[] args) throws Exception {
-		FileInputStream inputStream = new FileInputStream("E:\\test.xls");
-		ReadExcelBase base = ReadExcelBase.create(inputStream, new Test());
-		base.process();
+		try (FileInputStream inputStream = new FileInputStream("E:\\test.xls");
+				ReadExcelBase base = ReadExcelBase.create(inputStream, new Test())) {
+			base.process();
+		}
 	}
 
 	@Override